@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountData;
@@ -47,9 +48,17 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.prefetchAccountRecordIds;
 
 public class DefaultAccountUserApi extends DefaultAccountApiBase implements AccountUserApi {
 
+    private static final Function<AccountModelDao, UUID> ACCOUNT_ID_FUNCTION = new Function<AccountModelDao, UUID>() {
+        @Override
+        public UUID apply(final AccountModelDao accountModelDao) {
+            return accountModelDao.getId();
+        }
+    };
+
     private final InternalCallContextFactory internalCallContextFactory;
     private final AccountDao accountDao;
 
@@ -97,7 +106,12 @@ public class DefaultAccountUserApi extends DefaultAccountApiBase implements Acco
                                               new SourcePaginationBuilder<AccountModelDao, AccountApiException>() {
                                                   @Override
                                                   public Pagination<AccountModelDao> build() {
-                                                      return accountDao.searchAccounts(searchKey, offset, limit, internalCallContextFactory.createInternalTenantContext(context));
+                                                      return prefetchAccountRecordIds(accountDao.searchAccounts(searchKey, offset, limit, internalCallContextFactory.createInternalTenantContext(context)),
+                                                                                      limit,
+                                                                                      ACCOUNT_ID_FUNCTION,
+                                                                                      ObjectType.ACCOUNT,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<AccountModelDao, Account>() {
@@ -115,7 +129,12 @@ public class DefaultAccountUserApi extends DefaultAccountApiBase implements Acco
                                               new SourcePaginationBuilder<AccountModelDao, AccountApiException>() {
                                                   @Override
                                                   public Pagination<AccountModelDao> build() {
-                                                      return accountDao.get(offset, limit, internalCallContextFactory.createInternalTenantContext(context));
+                                                      return prefetchAccountRecordIds(accountDao.get(offset, limit, internalCallContextFactory.createInternalTenantContext(context)),
+                                                                                      limit,
+                                                                                      ACCOUNT_ID_FUNCTION,
+                                                                                      ObjectType.ACCOUNT,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<AccountModelDao, Account>() {
@@ -121,6 +121,11 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
                                                   public Iterator<AccountModelDao> build(final AccountSqlDao accountSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return accountSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<AccountModelDao> buildFromRecordId(final AccountSqlDao accountSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return accountSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -35,6 +35,8 @@ public interface InvoiceInternalApi {
 
     public Collection<Invoice> getUnpaidInvoicesByAccountId(UUID accountId, LocalDate upToDate, InternalTenantContext context);
 
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummaryByAccountId(UUID accountId, LocalDate upToDate, InternalTenantContext context);
+
     public BigDecimal getAccountBalance(UUID accountId, InternalTenantContext context);
 
     public void recordPaymentAttemptInit(UUID invoiceId, BigDecimal amountOutstanding, Currency currency, Currency processedCurrency, UUID paymentId, String transactionExternalKey, DateTime paymentDate, InternalCallContext context) throws InvoiceApiException;
@@ -72,5 +74,13 @@ public interface InvoiceInternalApi {
      */
     public void consumeExistingCBAOnAccountWithUnpaidInvoices(final UUID accountId, final InternalCallContext context) throws InvoiceApiException;
 
+    /**
+     * Recompute the account balance and CBA ledger from the full invoice history of the account (e.g. to repair drift).
+     *
+     * @param accountId account id
+     * @param context   the callcontext
+     */
+    public void rebuildAccountLedger(final UUID accountId, final InternalCallContext context);
+
     public Map<UUID, BigDecimal> validateInvoiceItemAdjustments(final UUID paymentId, final Map<UUID, BigDecimal> idWithAmount, final InternalTenantContext context) throws InvoiceApiException;
 }
@@ -17,12 +17,14 @@
 package org.killbill.billing.tag;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.TagDefinition;
 
@@ -43,6 +45,27 @@ public interface TagInternalApi {
 
     public List<Tag> getTagsForAccountType(ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
+    /**
+     * Check whether a control tag is set on a given object, without hitting the database when the account control tags are cached
+     *
+     * @param objectId       the object id
+     * @param objectType     the object type
+     * @param controlTagType the control tag to look for
+     * @param context        call callcontext
+     * @return true if the control tag is set on the object
+     */
+    public boolean isControlTagSet(UUID objectId, ObjectType objectType, ControlTagType controlTagType, InternalTenantContext context);
+
+    /**
+     * Return the control tags set on a given object
+     *
+     * @param objectId   the object id
+     * @param objectType the object type
+     * @param context    call callcontext
+     * @return the set of control tags
+     */
+    public Set<ControlTagType> getControlTagTypes(UUID objectId, ObjectType objectType, InternalTenantContext context);
+
     public void addTag(final UUID objectId, final ObjectType objectType, UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
 
     public void removeTag(final UUID objectId, final ObjectType objectType, final UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
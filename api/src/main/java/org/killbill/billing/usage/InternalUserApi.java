@@ -22,8 +22,14 @@ import java.util.UUID;
 
 import org.joda.time.LocalDate;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.usage.api.SubscriptionUsageRecord;
+import org.killbill.billing.util.callcontext.CallContext;
 
 public interface InternalUserApi {
 
+    // Usage is returned as one entry per subscription, unit type and day
     public List<RawUsage> getRawUsageForAccount(final LocalDate stateDate, final LocalDate endDate, final InternalTenantContext tenantContext);
+
+    // Record usage for many subscriptions (possibly across accounts) in a single transaction
+    public void recordRolledUpUsage(final List<SubscriptionUsageRecord> records, final CallContext context);
 }
@@ -59,6 +59,7 @@ import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.tag.ControlTagsCacheInvalidationService;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
@@ -291,6 +292,10 @@ public class BeatrixListener {
 
             case BROADCAST_SERVICE:
                 final BroadcastInternalEvent realBroadcastEvent = (BroadcastInternalEvent) event;
+                if (ControlTagsCacheInvalidationService.CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME.equals(realBroadcastEvent.getServiceName())) {
+                    // Internal cache maintenance, not meant for plugins
+                    return null;
+                }
                 objectType = ObjectType.SERVICE_BROADCAST;
                 objectId = null;
                 eventBusType = ExtBusEventType.BROADCAST_SERVICE;
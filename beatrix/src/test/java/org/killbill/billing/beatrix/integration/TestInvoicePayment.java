@@ -527,6 +527,8 @@ public class TestInvoicePayment extends TestIntegrationBase {
             @Override
             public Void withHandle(final Handle handle) throws Exception {
                 handle.execute("update invoice_payments set success = false where payment_cookie_id = ?", originalTransaction.getExternalKey());
+                // The account ledger would not have recorded the payment either
+                handle.execute("delete from invoice_account_ledgers where account_record_id = (select account_record_id from invoice_payments where payment_cookie_id = ?)", originalTransaction.getExternalKey());
                 return null;
             }
         });
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.catalog.VersionedCatalog;
+import org.killbill.billing.entitlement.api.BlockingState;
+import org.killbill.billing.entitlement.api.BlockingStateType;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.BlockingInternalApi;
+import org.killbill.billing.junction.DefaultBlockingState;
+import org.killbill.billing.junction.plumbing.billing.BlockingCalculator;
+import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.clock.Clock;
+import org.killbill.clock.DefaultClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Inserts the billing disabled/re-enabled events of an account with {@code nbSubscriptions}
+ * subscriptions, each of them blocked and unblocked {@code nbBlockingPeriods} times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BlockingCalculatorBenchmark {
+
+    private static final String SERVICE_NAME = "benchmark-service";
+
+    @Param({"10", "100", "1000"})
+    public int nbSubscriptions;
+
+    @Param({"1", "10"})
+    public int nbBlockingPeriods;
+
+    private BlockingCalculator blockingCalculator;
+    private SyntheticAccount syntheticAccount;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Clock clock = new DefaultClock();
+        final VersionedCatalog catalog = SyntheticAccount.createCatalog(clock, 1, 1);
+        final DateTime startDate = clock.getUTCNow().minusMonths(2 * nbBlockingPeriods + 1);
+        syntheticAccount = new SyntheticAccount(clock, catalog.findPlan(SyntheticAccount.getPlanName(0), clock.getUTCNow()), nbSubscriptions, startDate);
+
+        final List<BlockingState> blockingStates = new ArrayList<BlockingState>();
+        long totalOrdering = 0;
+        for (final SubscriptionBase subscription : syntheticAccount.getSubscriptions()) {
+            for (int i = 0; i < nbBlockingPeriods; i++) {
+                final DateTime blockDate = startDate.plusMonths(2 * i + 1);
+                blockingStates.add(createBlockingState(subscription.getId(), "BLOCK", true, blockDate, totalOrdering++));
+                blockingStates.add(createBlockingState(subscription.getId(), "UNBLOCK", false, blockDate.plusDays(10), totalOrdering++));
+            }
+        }
+
+        blockingCalculator = new BlockingCalculator(new BlockingInternalApi() {
+            @Override
+            public BlockingState getBlockingStateForService(final UUID blockableId, final BlockingStateType blockingStateType, final String serviceName, final InternalTenantContext context) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<BlockingState> getBlockingAllForAccount(final InternalTenantContext context) {
+                return blockingStates;
+            }
+
+            @Override
+            public void setBlockingState(final BlockingState state, final InternalCallContext context) {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    @Benchmark
+    public SortedSet<BillingEvent> insertBlockingEvents() {
+        // The calculator updates the set in place
+        final SortedSet<BillingEvent> billingEvents = new TreeSet<BillingEvent>(syntheticAccount.getBillingEvents());
+        blockingCalculator.insertBlockingEvents(billingEvents, ImmutableSet.<UUID>of(), syntheticAccount.getContext());
+        return billingEvents;
+    }
+
+    private static BlockingState createBlockingState(final UUID subscriptionId, final String stateName, final boolean blockBilling, final DateTime effectiveDate, final long totalOrdering) {
+        return new DefaultBlockingState(UUID.randomUUID(), subscriptionId, BlockingStateType.SUBSCRIPTION, stateName, SERVICE_NAME,
+                                        false, false, blockBilling, effectiveDate, effectiveDate, effectiveDate, totalOrdering);
+    }
+}
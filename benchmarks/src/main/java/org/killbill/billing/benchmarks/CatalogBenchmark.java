@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.VersionedCatalog;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.clock.DefaultClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plan lookups against a catalog of {@code nbVersions} versions of {@code nbPlans} plans each,
+ * cycling through all plan names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CatalogBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int nbVersions;
+
+    @Param({"10", "100", "1000"})
+    public int nbPlans;
+
+    private VersionedCatalog catalog;
+    private String[] planNames;
+    private DateTime requestedDate;
+    private DateTime subscriptionStartDate;
+    private int nextPlan;
+
+    @Setup
+    public void setUp() throws Exception {
+        catalog = SyntheticAccount.createCatalog(new DefaultClock(), nbVersions, nbPlans);
+        planNames = new String[nbPlans];
+        for (int i = 0; i < nbPlans; i++) {
+            planNames[i] = SyntheticAccount.getPlanName(i);
+        }
+        // Subscription created in the first version, looked up in the last one
+        requestedDate = SyntheticAccount.getLastCatalogEffectiveDate(nbVersions).plusDays(1);
+        subscriptionStartDate = requestedDate.minusMonths(nbVersions - 1);
+    }
+
+    @Benchmark
+    public Plan findPlan() throws Exception {
+        return catalog.findPlan(nextPlanName(), requestedDate);
+    }
+
+    @Benchmark
+    public Plan findPlanForSubscription() throws Exception {
+        return catalog.findPlan(nextPlanName(), requestedDate, subscriptionStartDate);
+    }
+
+    private String nextPlanName() {
+        nextPlan = (nextPlan + 1) % planNames.length;
+        return planNames[nextPlan];
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.catalog.DefaultInternationalPrice;
+import org.killbill.billing.catalog.DefaultPrice;
+import org.killbill.billing.catalog.DefaultTier;
+import org.killbill.billing.catalog.DefaultTieredBlock;
+import org.killbill.billing.catalog.DefaultUnit;
+import org.killbill.billing.catalog.DefaultUsage;
+import org.killbill.billing.catalog.api.BillingMode;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.api.Usage;
+import org.killbill.billing.catalog.api.UsageType;
+import org.killbill.billing.events.EffectiveSubscriptionInternalEvent;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.usage.ContiguousIntervalConsumableInArrear;
+import org.killbill.billing.invoice.usage.ContiguousIntervalConsumableInArrear.ConsumableInArrearItemsAndNextNotificationDate;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.plumbing.billing.DefaultBillingEvent;
+import org.killbill.billing.mock.MockSubscription;
+import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+import org.killbill.billing.usage.RawUsage;
+import org.killbill.billing.usage.api.svcs.DefaultRawUsage;
+import org.killbill.billing.util.AccountDateAndTimeZoneContext;
+import org.killbill.billing.util.timezone.DefaultAccountDateAndTimeZoneContext;
+import org.killbill.clock.Clock;
+import org.killbill.clock.DefaultClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Prices {@code nbMonths} months of daily raw usage for {@code nbUnitTypes} unit types of a
+ * tiered consumable in arrear usage section.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ConsumableInArrearBenchmark {
+
+    @Param({"1", "12"})
+    public int nbMonths;
+
+    @Param({"1", "5"})
+    public int nbUnitTypes;
+
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID invoiceId = UUID.randomUUID();
+
+    private DefaultUsage usage;
+    private BillingEvent billingEvent;
+    private List<RawUsage> rawUsages;
+    private LocalDate startDate;
+    private LocalDate targetDate;
+    private AccountDateAndTimeZoneContext dateAndTimeZoneContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Clock clock = new DefaultClock();
+        final InternalCallContext context = SyntheticAccount.createContext(clock);
+        dateAndTimeZoneContext = new DefaultAccountDateAndTimeZoneContext(clock.getUTCNow(), context);
+
+        final DefaultTieredBlock[] firstTierBlocks = new DefaultTieredBlock[nbUnitTypes];
+        final DefaultTieredBlock[] secondTierBlocks = new DefaultTieredBlock[nbUnitTypes];
+        for (int i = 0; i < nbUnitTypes; i++) {
+            firstTierBlocks[i] = createTieredBlock(getUnitType(i), 100, new BigDecimal("1.50"));
+            secondTierBlocks[i] = createTieredBlock(getUnitType(i), 1000000, new BigDecimal("1.00"));
+        }
+        usage = new DefaultUsage();
+        usage.setName("benchmark-usage");
+        usage.setBillingMode(BillingMode.IN_ARREAR);
+        usage.setUsageType(UsageType.CONSUMABLE);
+        usage.setBillingPeriod(BillingPeriod.MONTHLY);
+        usage.setTiers(new DefaultTier[]{new DefaultTier().setBlocks(firstTierBlocks), new DefaultTier().setBlocks(secondTierBlocks)});
+
+        targetDate = clock.getUTCToday().withDayOfMonth(1);
+        startDate = targetDate.minusMonths(nbMonths);
+        final DateTime startDateTime = startDate.toDateTimeAtStartOfDay(DateTimeZone.UTC);
+
+        final Plan plan = SyntheticAccount.createCatalog(clock, 1, 1).findPlan(SyntheticAccount.getPlanName(0), clock.getUTCNow());
+        final PlanPhase phase = plan.getFinalPhase();
+        final SubscriptionBase subscription = new MockSubscription(UUID.randomUUID(), UUID.randomUUID(), plan, startDateTime, ImmutableList.<EffectiveSubscriptionInternalEvent>of());
+        final List<Usage> usages = ImmutableList.<Usage>of(usage);
+        billingEvent = new DefaultBillingEvent(subscription, startDateTime, true, plan, phase, null, null, SyntheticAccount.CURRENCY, BillingPeriod.MONTHLY,
+                                               startDate.getDayOfMonth(), "create", 0, SubscriptionBaseTransitionType.CREATE, DateTimeZone.UTC) {
+            @Override
+            public List<Usage> getUsages() {
+                return usages;
+            }
+        };
+
+        rawUsages = new ArrayList<RawUsage>();
+        for (LocalDate day = startDate; day.isBefore(targetDate); day = day.plusDays(1)) {
+            for (int i = 0; i < nbUnitTypes; i++) {
+                rawUsages.add(new DefaultRawUsage(subscription.getId(), day, getUnitType(i), (long) (10 + day.getDayOfMonth())));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<InvoiceItem> computeMissingItems() throws Exception {
+        final ContiguousIntervalConsumableInArrear interval = new ContiguousIntervalConsumableInArrear(usage, accountId, invoiceId, rawUsages, targetDate, startDate, dateAndTimeZoneContext);
+        interval.addBillingEvent(billingEvent);
+        interval.build(false);
+        final ConsumableInArrearItemsAndNextNotificationDate result = interval.computeMissingItemsAndNextNotificationDate(ImmutableList.<InvoiceItem>of());
+        return result.getInvoiceItems();
+    }
+
+    private static String getUnitType(final int unitNb) {
+        return "benchmark-unit-" + unitNb;
+    }
+
+    private static DefaultTieredBlock createTieredBlock(final String unitType, final int max, final BigDecimal price) {
+        final DefaultTieredBlock block = new DefaultTieredBlock();
+        block.setUnit(new DefaultUnit().setName(unitType));
+        block.setSize(1.0);
+        block.setPrice(new DefaultInternationalPrice().setPrices(new DefaultPrice[]{new DefaultPrice().setCurrency(SyntheticAccount.CURRENCY).setValue(price)}));
+        block.setMax((double) max);
+        return block;
+    }
+}
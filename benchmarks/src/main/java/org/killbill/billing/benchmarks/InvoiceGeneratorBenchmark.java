@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.VersionedCatalog;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.generator.DefaultInvoiceGenerator;
+import org.killbill.billing.invoice.generator.FixedAndRecurringInvoiceItemGenerator;
+import org.killbill.billing.invoice.generator.InvoiceExecutors;
+import org.killbill.billing.invoice.generator.InvoiceGenerator;
+import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
+import org.killbill.billing.invoice.generator.UsageInvoiceItemGenerator;
+import org.killbill.billing.invoice.usage.RawUsageOptimizer;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.killbill.clock.Clock;
+import org.killbill.clock.DefaultClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates the next monthly invoice of an account with {@code nbSubscriptions} subscriptions
+ * and {@code nbMonths} months of existing invoices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class InvoiceGeneratorBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int nbSubscriptions;
+
+    @Param({"1", "12", "36"})
+    public int nbMonths;
+
+    private InvoiceExecutors invoiceExecutors;
+    private InvoiceGenerator generator;
+    private SyntheticAccount syntheticAccount;
+    private List<Invoice> existingInvoices;
+    private LocalDate targetDate;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Clock clock = new DefaultClock();
+        final InvoiceConfig config = SyntheticAccount.createInvoiceConfig();
+        invoiceExecutors = new InvoiceExecutors(config);
+        invoiceExecutors.initialize();
+        generator = new DefaultInvoiceGenerator(clock, config, new FixedAndRecurringInvoiceItemGenerator(config, invoiceExecutors), new UsageInvoiceItemGenerator(new RawUsageOptimizer(config, null)));
+
+        final VersionedCatalog catalog = SyntheticAccount.createCatalog(clock, 1, 1);
+        targetDate = clock.getUTCToday().withDayOfMonth(1);
+        final LocalDate startDate = targetDate.minusMonths(nbMonths);
+        syntheticAccount = new SyntheticAccount(clock, catalog.findPlan(SyntheticAccount.getPlanName(0), clock.getUTCNow()), nbSubscriptions,
+                                                startDate.toDateTimeAtStartOfDay(clock.getUTCNow().getZone()));
+
+        // One invoice per past month, as the invoice system would have produced them
+        existingInvoices = new ArrayList<Invoice>(nbMonths);
+        for (int i = 0; i < nbMonths; i++) {
+            final InvoiceWithMetadata invoiceWithMetadata = generateInvoice(startDate.plusMonths(i));
+            if (invoiceWithMetadata.getInvoice() != null) {
+                existingInvoices.add(invoiceWithMetadata.getInvoice());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        invoiceExecutors.stop();
+    }
+
+    @Benchmark
+    public InvoiceWithMetadata generateNextInvoice() throws Exception {
+        return generateInvoice(targetDate);
+    }
+
+    private InvoiceWithMetadata generateInvoice(final LocalDate invoiceTargetDate) throws Exception {
+        return generator.generateInvoice(syntheticAccount.getAccount(), syntheticAccount.getBillingEvents(), existingInvoices, invoiceTargetDate,
+                                         SyntheticAccount.CURRENCY, syntheticAccount.getContext());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.killbill.billing.invoice.tree.AccountItemTree;
+import org.killbill.billing.invoice.tree.SubscriptionItemTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merges {@code nbMonths} months of existing recurring items with the proposed items of the next
+ * period, for a single subscription tree and for an account tree of {@code nbSubscriptions}
+ * subscriptions. {@code parallelThreshold} is the AccountItemTree threshold (0 runs sequentially).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ItemTreeBenchmark {
+
+    private static final BigDecimal RATE = new BigDecimal("10.00");
+
+    @Param({"10", "100", "1000"})
+    public int nbSubscriptions;
+
+    @Param({"12", "36"})
+    public int nbMonths;
+
+    @Param({"0", "16"})
+    public int parallelThreshold;
+
+    @Param({"4"})
+    public int nbThreads;
+
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID existingInvoiceId = UUID.randomUUID();
+    private final UUID invoiceId = UUID.randomUUID();
+
+    private ForkJoinPool pool;
+    private List<InvoiceItem> existingItems;
+    private List<InvoiceItem> proposedItems;
+    private List<InvoiceItem> subscriptionExistingItems;
+    private List<InvoiceItem> subscriptionProposedItems;
+    private UUID subscriptionId;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(nbThreads);
+
+        existingItems = new ArrayList<InvoiceItem>(nbSubscriptions * nbMonths);
+        proposedItems = new ArrayList<InvoiceItem>(nbSubscriptions * (nbMonths + 1));
+        final LocalDate startDate = new LocalDate(2015, 1, 1);
+        for (int i = 0; i < nbSubscriptions; i++) {
+            final UUID bundleId = UUID.randomUUID();
+            final UUID curSubscriptionId = UUID.randomUUID();
+            for (int j = 0; j <= nbMonths; j++) {
+                final LocalDate periodStart = startDate.plusMonths(j);
+                if (j < nbMonths) {
+                    existingItems.add(createItem(existingInvoiceId, bundleId, curSubscriptionId, periodStart));
+                }
+                proposedItems.add(createItem(invoiceId, bundleId, curSubscriptionId, periodStart));
+            }
+            if (i == 0) {
+                subscriptionId = curSubscriptionId;
+                subscriptionExistingItems = new ArrayList<InvoiceItem>(existingItems);
+                subscriptionProposedItems = new ArrayList<InvoiceItem>(proposedItems);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<InvoiceItem> mergeSubscriptionItemTree() {
+        final SubscriptionItemTree tree = new SubscriptionItemTree(subscriptionId, invoiceId);
+        for (final InvoiceItem item : subscriptionExistingItems) {
+            tree.addItem(item);
+        }
+        tree.build();
+        tree.flatten(true);
+        for (final InvoiceItem item : subscriptionProposedItems) {
+            tree.mergeProposedItem(item);
+        }
+        tree.buildForMerge();
+        return tree.getView();
+    }
+
+    @Benchmark
+    public List<InvoiceItem> mergeAccountItemTree() {
+        final AccountItemTree tree = new AccountItemTree(accountId, invoiceId, pool, parallelThreshold);
+        for (final InvoiceItem item : existingItems) {
+            tree.addExistingItem(item);
+        }
+        tree.mergeWithProposedItems(proposedItems);
+        return tree.getResultingItemList();
+    }
+
+    private InvoiceItem createItem(final UUID itemInvoiceId, final UUID bundleId, final UUID itemSubscriptionId, final LocalDate periodStart) {
+        return new RecurringInvoiceItem(itemInvoiceId, accountId, bundleId, itemSubscriptionId, "benchmark-plan", "benchmark-phase",
+                                        periodStart, periodStart.plusMonths(1), RATE, RATE, SyntheticAccount.CURRENCY);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.dao.PluginPropertySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binary plugin properties encoding against the default JSON encoding, for {@code nbProperties}
+ * string properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PluginPropertySerializerBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int nbProperties;
+
+    private List<PluginProperty> properties;
+    private byte[] binaryProperties;
+    private byte[] jsonProperties;
+
+    @Setup
+    public void setUp() throws Exception {
+        properties = new ArrayList<PluginProperty>(nbProperties);
+        for (int i = 0; i < nbProperties; i++) {
+            properties.add(new PluginProperty("benchmark-key-" + i, "benchmark-value-" + i, false));
+        }
+        binaryProperties = PluginPropertySerializer.serialize(properties, true);
+        jsonProperties = PluginPropertySerializer.serialize(properties, false);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() throws Exception {
+        return PluginPropertySerializer.serialize(properties, true);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws Exception {
+        return PluginPropertySerializer.serialize(properties, false);
+    }
+
+    @Benchmark
+    public Iterable<PluginProperty> deserializeBinary() throws Exception {
+        return PluginPropertySerializer.deserialize(binaryProperties);
+    }
+
+    @Benchmark
+    public Iterable<PluginProperty> deserializeJson() throws Exception {
+        return PluginPropertySerializer.deserialize(jsonProperties);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.account.api.DefaultImmutableAccountData;
+import org.killbill.billing.account.api.ImmutableAccountData;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.catalog.VersionedCatalog;
+import org.killbill.billing.catalog.api.BillingMode;
+import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.io.VersionedCatalogLoader;
+import org.killbill.billing.events.EffectiveSubscriptionInternalEvent;
+import org.killbill.billing.junction.plumbing.billing.DefaultBillingEvent;
+import org.killbill.billing.junction.plumbing.billing.DefaultBillingEventSet;
+import org.killbill.billing.mock.MockSubscription;
+import org.killbill.billing.subscription.api.SubscriptionBase;
+import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+import org.killbill.billing.util.callcontext.CallOrigin;
+import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.killbill.clock.Clock;
+import org.skife.config.ConfigSource;
+import org.skife.config.ConfigurationObjectFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * In-memory account fixtures shared by the benchmarks: a synthetic catalog, and an account
+ * with one single-subscription bundle per subscription, all on the same monthly plan.
+ */
+public class SyntheticAccount {
+
+    public static final Long TENANT_RECORD_ID = 1L;
+    public static final Long ACCOUNT_RECORD_ID = 1L;
+    public static final Currency CURRENCY = Currency.USD;
+
+    private static final DateTime CATALOG_EFFECTIVE_DATE = new DateTime(2010, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private final ImmutableAccountData account;
+    private final InternalCallContext context;
+    private final List<SubscriptionBase> subscriptions;
+    private final DefaultBillingEventSet billingEvents;
+
+    public SyntheticAccount(final Clock clock, final Plan plan, final int nbSubscriptions, final DateTime startDate) throws CatalogApiException {
+        this.account = new DefaultImmutableAccountData(UUID.randomUUID(), UUID.randomUUID().toString(), CURRENCY, DateTimeZone.UTC);
+        this.context = createContext(clock);
+        this.subscriptions = new ArrayList<SubscriptionBase>(nbSubscriptions);
+        this.billingEvents = new DefaultBillingEventSet(false, BillingMode.IN_ADVANCE, context);
+
+        final PlanPhase phase = plan.getFinalPhase();
+        final BigDecimal recurringPrice = phase.getRecurring().getRecurringPrice().getPrice(CURRENCY);
+        for (int i = 0; i < nbSubscriptions; i++) {
+            final SubscriptionBase subscription = new MockSubscription(UUID.randomUUID(), UUID.randomUUID(), plan, startDate, ImmutableList.<EffectiveSubscriptionInternalEvent>of());
+            subscriptions.add(subscription);
+            billingEvents.add(new DefaultBillingEvent(subscription, startDate, true, plan, phase, null, recurringPrice, CURRENCY, phase.getRecurring().getBillingPeriod(),
+                                                      startDate.getDayOfMonth(), "create", i, SubscriptionBaseTransitionType.CREATE, DateTimeZone.UTC));
+        }
+    }
+
+    public ImmutableAccountData getAccount() {
+        return account;
+    }
+
+    public InternalCallContext getContext() {
+        return context;
+    }
+
+    public List<SubscriptionBase> getSubscriptions() {
+        return subscriptions;
+    }
+
+    public DefaultBillingEventSet getBillingEvents() {
+        return billingEvents;
+    }
+
+    public static InternalCallContext createContext(final Clock clock) {
+        return new InternalCallContext(TENANT_RECORD_ID, ACCOUNT_RECORD_ID, DateTimeZone.UTC, UUID.randomUUID(), "benchmarks", CallOrigin.INTERNAL,
+                                       UserType.SYSTEM, null, null, clock.getUTCNow(), clock.getUTCNow());
+    }
+
+    public static InvoiceConfig createInvoiceConfig(final Map<String, String> properties) {
+        return new ConfigurationObjectFactory(new ConfigSource() {
+            @Override
+            public String getString(final String propertyName) {
+                return properties.get(propertyName);
+            }
+        }).build(InvoiceConfig.class);
+    }
+
+    public static InvoiceConfig createInvoiceConfig() {
+        return createInvoiceConfig(ImmutableMap.<String, String>of());
+    }
+
+    public static VersionedCatalog createCatalog(final Clock clock, final int nbVersions, final int nbPlans) throws CatalogApiException {
+        final List<String> catalogXMLs = new ArrayList<String>(nbVersions);
+        for (int i = 0; i < nbVersions; i++) {
+            catalogXMLs.add(createCatalogXML(CATALOG_EFFECTIVE_DATE.plusMonths(i), nbPlans));
+        }
+        return new VersionedCatalogLoader(clock, null, null).load(catalogXMLs, TENANT_RECORD_ID);
+    }
+
+    public static DateTime getLastCatalogEffectiveDate(final int nbVersions) {
+        return CATALOG_EFFECTIVE_DATE.plusMonths(nbVersions - 1);
+    }
+
+    public static String getPlanName(final int planNb) {
+        return "benchmark-plan-" + planNb + "-monthly";
+    }
+
+    private static String createCatalogXML(final DateTime effectiveDate, final int nbPlans) {
+        final StringBuilder products = new StringBuilder();
+        final StringBuilder plans = new StringBuilder();
+        final StringBuilder planNames = new StringBuilder();
+        for (int i = 0; i < nbPlans; i++) {
+            products.append("<product name=\"Benchmark-").append(i).append("\"><category>BASE</category></product>");
+            plans.append("<plan name=\"").append(getPlanName(i)).append("\">")
+                 .append("<product>Benchmark-").append(i).append("</product>")
+                 .append("<finalPhase type=\"EVERGREEN\"><duration><unit>UNLIMITED</unit></duration>")
+                 .append("<recurring><billingPeriod>MONTHLY</billingPeriod><recurringPrice><price>")
+                 .append("<currency>").append(CURRENCY).append("</currency><value>").append(10 + i).append(".00</value>")
+                 .append("</price></recurringPrice></recurring></finalPhase></plan>");
+            planNames.append("<plan>").append(getPlanName(i)).append("</plan>");
+        }
+
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+               "<catalog xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\"CatalogSchema.xsd \">" +
+               "<effectiveDate>" + effectiveDate + "</effectiveDate>" +
+               "<catalogName>Benchmark</catalogName>" +
+               "<recurringBillingMode>IN_ADVANCE</recurringBillingMode>" +
+               "<currencies><currency>" + CURRENCY + "</currency></currencies>" +
+               "<products>" + products + "</products>" +
+               "<rules>" +
+               "<changePolicy><changePolicyCase><policy>IMMEDIATE</policy></changePolicyCase></changePolicy>" +
+               "<changeAlignment><changeAlignmentCase><alignment>START_OF_SUBSCRIPTION</alignment></changeAlignmentCase></changeAlignment>" +
+               "<createAlignment><createAlignmentCase><alignment>START_OF_BUNDLE</alignment></createAlignmentCase></createAlignment>" +
+               "</rules>" +
+               "<plans>" + plans + "</plans>" +
+               "<priceLists><defaultPriceList name=\"DEFAULT\"><plans>" + planNames + "</plans></defaultPriceList></priceLists>" +
+               "</catalog>";
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.util.email.templates.MustacheTemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders an invoice-like template with {@code nbItems} items, reusing the compiled template
+ * or compiling it on each call (a new engine has an empty cache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class TemplateEngineBenchmark {
+
+    private static final String TEMPLATE_TEXT = "<html><body><h1>Invoice {{invoiceNumber}}</h1><table>" +
+                                                "{{#items}}<tr><td>{{description}}</td><td>{{startDate}}</td><td>{{endDate}}</td><td>{{amount}} {{currency}}</td></tr>{{/items}}" +
+                                                "</table><p>Total: {{balance}} {{currency}}</p></body></html>";
+
+    @Param({"10", "100"})
+    public int nbItems;
+
+    private MustacheTemplateEngine templateEngine;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setUp() {
+        templateEngine = new MustacheTemplateEngine();
+
+        final List<Map<String, Object>> items = new ArrayList<Map<String, Object>>(nbItems);
+        for (int i = 0; i < nbItems; i++) {
+            final Map<String, Object> item = new HashMap<String, Object>();
+            item.put("description", "benchmark-plan-" + i + "-monthly");
+            item.put("startDate", "2016-01-01");
+            item.put("endDate", "2016-02-01");
+            item.put("amount", "10.00");
+            item.put("currency", SyntheticAccount.CURRENCY);
+            items.add(item);
+        }
+        data = new HashMap<String, Object>();
+        data.put("invoiceNumber", 1);
+        data.put("items", items);
+        data.put("balance", 10 * nbItems);
+        data.put("currency", SyntheticAccount.CURRENCY);
+    }
+
+    @Benchmark
+    public String renderCompiledTemplate() {
+        return templateEngine.executeTemplateText(TEMPLATE_TEXT, data);
+    }
+
+    @Benchmark
+    public String renderNewTemplate() {
+        return new MustacheTemplateEngine().executeTemplateText(TEMPLATE_TEXT, data);
+    }
+}
@@ -20,7 +20,11 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -90,6 +94,9 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
 
     private URI catalogURI;
 
+    // Lookup index, built on first use and reset whenever the catalog is modified through its setters
+    private transient volatile CatalogIndex catalogIndex;
+
     public StandaloneCatalog() {
     }
 
@@ -168,8 +175,16 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
         if (priceLists == null) {
             throw new CatalogApiException(ErrorCode.CAT_PRICE_LIST_NOT_FOUND, priceListName);
         }
-        final Product product = findCurrentProduct(productName);
-        final DefaultPlan result = priceLists.getPlanFrom(priceListName, product, period);
+        final CatalogIndex index = getCatalogIndex();
+        final String planSpecifierKey = productName + "::" + period + "::" + priceListName;
+        DefaultPlan result = index.plansBySpecifier.get(planSpecifierKey);
+        if (result == null) {
+            final Product product = findCurrentProduct(productName);
+            result = priceLists.getPlanFrom(priceListName, product, period);
+            if (result != null) {
+                index.plansBySpecifier.putIfAbsent(planSpecifierKey, result);
+            }
+        }
         if (result == null) {
             final String periodString = (period == null) ? "NULL" : period.toString();
             throw new CatalogApiException(ErrorCode.CAT_PLAN_NOT_FOUND, productName, periodString, priceListName);
@@ -182,10 +197,9 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
         if (name == null || plans == null) {
             throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PLAN, name);
         }
-        for (final DefaultPlan p : plans) {
-            if (p.getName().equals(name)) {
-                return p;
-            }
+        final DefaultPlan plan = getCatalogIndex().plansByName.get(name);
+        if (plan != null) {
+            return plan;
         }
         throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PLAN, name);
     }
@@ -195,10 +209,9 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
         if (name == null || products == null) {
             throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PRODUCT, name);
         }
-        for (final DefaultProduct p : products) {
-            if (p.getName().equals(name)) {
-                return p;
-            }
+        final DefaultProduct product = getCatalogIndex().productsByName.get(name);
+        if (product != null) {
+            return product;
         }
         throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PRODUCT, name);
     }
@@ -209,9 +222,15 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
             throw new CatalogApiException(ErrorCode.CAT_NO_SUCH_PHASE, name);
         }
 
-        final String planName = DefaultPlanPhase.planName(name);
-        final Plan plan = findCurrentPlan(planName);
-        return plan.findPhase(name);
+        final CatalogIndex index = getCatalogIndex();
+        PlanPhase phase = index.phasesByName.get(name);
+        if (phase == null) {
+            final String planName = DefaultPlanPhase.planName(name);
+            final Plan plan = findCurrentPlan(planName);
+            phase = plan.findPhase(name);
+            index.phasesByName.putIfAbsent(name, phase);
+        }
+        return phase;
     }
 
     @Override
@@ -271,6 +290,7 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
 
     @Override
     public void initialize(final StandaloneCatalog catalog, final URI sourceURI) {
+        catalogIndex = null;
         catalogURI = sourceURI;
         super.initialize(catalog, sourceURI);
         planRules.initialize(catalog, sourceURI);
@@ -298,6 +318,7 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
 
     public StandaloneCatalog setProducts(final DefaultProduct[] products) {
         this.products = products;
+        this.catalogIndex = null;
         return this;
     }
 
@@ -308,6 +329,7 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
 
     public StandaloneCatalog setPlans(final DefaultPlan[] plans) {
         this.plans = plans;
+        this.catalogIndex = null;
         return this;
     }
 
@@ -333,6 +355,7 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
 
     public StandaloneCatalog setPriceLists(final DefaultPriceListSet priceLists) {
         this.priceLists = priceLists;
+        this.catalogIndex = null;
         return this;
     }
 
@@ -398,6 +421,42 @@ public class StandaloneCatalog extends ValidatingConfig<StandaloneCatalog> imple
         return availBasePlans;
     }
 
+    private CatalogIndex getCatalogIndex() {
+        CatalogIndex index = catalogIndex;
+        if (index == null) {
+            index = new CatalogIndex(products, plans);
+            catalogIndex = index;
+        }
+        return index;
+    }
+
+    private static final class CatalogIndex {
+
+        private final Map<String, DefaultProduct> productsByName = new HashMap<String, DefaultProduct>();
+        private final Map<String, DefaultPlan> plansByName = new HashMap<String, DefaultPlan>();
+        // Phase and (product, billing period, price list) lookups, populated as they are resolved
+        private final ConcurrentMap<String, PlanPhase> phasesByName = new ConcurrentHashMap<String, PlanPhase>();
+        private final ConcurrentMap<String, DefaultPlan> plansBySpecifier = new ConcurrentHashMap<String, DefaultPlan>();
+
+        private CatalogIndex(@Nullable final DefaultProduct[] products, @Nullable final DefaultPlan[] plans) {
+            // First match wins, as with the previous linear scans
+            if (products != null) {
+                for (final DefaultProduct product : products) {
+                    if (!productsByName.containsKey(product.getName())) {
+                        productsByName.put(product.getName(), product);
+                    }
+                }
+            }
+            if (plans != null) {
+                for (final DefaultPlan plan : plans) {
+                    if (!plansByName.containsKey(plan.getName())) {
+                        plansByName.put(plan.getName(), plan);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
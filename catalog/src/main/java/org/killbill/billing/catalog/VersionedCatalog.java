@@ -69,6 +69,8 @@ public class VersionedCatalog extends ValidatingConfig<StandaloneCatalogWithPric
     private final List<StandaloneCatalogWithPriceOverride> versions;
     private String catalogName;
     private BillingMode recurringBillingMode;
+    // Effective dates of the versions, to binary search the version applicable to a given date
+    private transient volatile long[] versionEffectiveDates;
 
     // Required for JAXB deserialization
     public VersionedCatalog() {
@@ -99,23 +101,50 @@ public class VersionedCatalog extends ValidatingConfig<StandaloneCatalogWithPric
         return versions.get(indexOfVersionForDate(date.toDate()));
     }
 
-    private List<StandaloneCatalogWithPriceOverride> versionsBeforeDate(final Date date) throws CatalogApiException {
-        final List<StandaloneCatalogWithPriceOverride> result = new ArrayList<StandaloneCatalogWithPriceOverride>();
-        final int index = indexOfVersionForDate(date);
-        for (int i = 0; i <= index; i++) {
-            result.add(versions.get(i));
+    private int indexOfVersionForDate(final Date date) throws CatalogApiException {
+        final long[] effectiveDates = getVersionEffectiveDates();
+        if (effectiveDates != null) {
+            // Last version effective on or before the date
+            int low = 0;
+            int high = effectiveDates.length - 1;
+            int result = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (effectiveDates[mid] <= date.getTime()) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (result >= 0) {
+                return result;
+            }
+        } else {
+            for (int i = versions.size() - 1; i >= 0; i--) {
+                final StandaloneCatalogWithPriceOverride c = versions.get(i);
+                if (c.getEffectiveDate().getTime() <= date.getTime()) {
+                    return i;
+                }
+            }
         }
-        return result;
+        throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, date.toString());
     }
 
-    private int indexOfVersionForDate(final Date date) throws CatalogApiException {
-        for (int i = versions.size() - 1; i >= 0; i--) {
-            final StandaloneCatalogWithPriceOverride c = versions.get(i);
-            if (c.getEffectiveDate().getTime() <= date.getTime()) {
-                return i;
+    // Returns null if the versions aren't sorted by effective date, in which case we can't binary search them
+    private long[] getVersionEffectiveDates() {
+        long[] effectiveDates = versionEffectiveDates;
+        if (effectiveDates == null || effectiveDates.length != versions.size()) {
+            effectiveDates = new long[versions.size()];
+            for (int i = 0; i < effectiveDates.length; i++) {
+                effectiveDates[i] = versions.get(i).getEffectiveDate().getTime();
+                if (i > 0 && effectiveDates[i] < effectiveDates[i - 1]) {
+                    return null;
+                }
             }
+            versionEffectiveDates = effectiveDates;
         }
-        throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, date.toString());
+        return effectiveDates;
     }
 
     private class PlanRequestWrapper {
@@ -151,13 +180,9 @@ public class VersionedCatalog extends ValidatingConfig<StandaloneCatalogWithPric
                           final DateTime requestedDate,
                           final DateTime subscriptionStartDate)
             throws CatalogApiException {
-        final List<StandaloneCatalogWithPriceOverride> catalogs = versionsBeforeDate(requestedDate.toDate());
-        if (catalogs.isEmpty()) {
-            throw new CatalogApiException(ErrorCode.CAT_NO_CATALOG_FOR_GIVEN_DATE, requestedDate.toDate().toString());
-        }
-
-        for (int i = catalogs.size() - 1; i >= 0; i--) { // Working backwards to find the latest applicable plan
-            final StandaloneCatalogWithPriceOverride c = catalogs.get(i);
+        final int index = indexOfVersionForDate(requestedDate.toDate());
+        for (int i = index; i >= 0; i--) { // Working backwards to find the latest applicable plan
+            final StandaloneCatalogWithPriceOverride c = versions.get(i);
             final Plan plan;
             try {
                 plan = wrapper.findPlan(c);
@@ -213,6 +238,7 @@ public class VersionedCatalog extends ValidatingConfig<StandaloneCatalogWithPric
             }
         }
         versions.add(e);
+        versionEffectiveDates = null;
         Collections.sort(versions, new Comparator<StandaloneCatalogWithPriceOverride>() {
             @Override
             public int compare(final StandaloneCatalogWithPriceOverride c1, final StandaloneCatalogWithPriceOverride c2) {
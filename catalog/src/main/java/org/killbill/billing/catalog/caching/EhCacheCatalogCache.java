@@ -18,6 +18,8 @@
 package org.killbill.billing.catalog.caching;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 
@@ -39,6 +41,8 @@ import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.cache.TenantCatalogCacheLoader.LoaderCallback;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.CatalogConfig;
+import org.killbill.clock.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +59,11 @@ public class EhCacheCatalogCache implements CatalogCache {
     private final OSGIServiceRegistration<CatalogPluginApi> pluginRegistry;
     private final VersionedCatalogMapper versionedCatalogMapper;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final CatalogConfig catalogConfig;
+    private final Clock clock;
+
+    // Mapped plugin catalogs, by tenant record id
+    private final ConcurrentMap<Long, PluginCatalogEntry> pluginCatalogs = new ConcurrentHashMap<Long, PluginCatalogEntry>();
 
     private VersionedCatalog defaultCatalog;
 
@@ -63,12 +72,16 @@ public class EhCacheCatalogCache implements CatalogCache {
                                final VersionedCatalogMapper versionedCatalogMapper,
                                final CacheControllerDispatcher cacheControllerDispatcher,
                                final VersionedCatalogLoader loader,
-                               final InternalCallContextFactory internalCallContextFactory) {
+                               final InternalCallContextFactory internalCallContextFactory,
+                               final CatalogConfig catalogConfig,
+                               final Clock clock) {
         this.pluginRegistry = pluginRegistry;
         this.versionedCatalogMapper = versionedCatalogMapper;
         this.cacheController = cacheControllerDispatcher.getCacheController(CacheType.TENANT_CATALOG);
         this.loader = loader;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.catalogConfig = catalogConfig;
+        this.clock = clock;
         this.cacheLoaderArgument = initializeCacheLoaderArgument(this);
         setDefaultCatalog();
     }
@@ -82,8 +95,6 @@ public class EhCacheCatalogCache implements CatalogCache {
 
     @Override
     public VersionedCatalog getCatalog(final InternalTenantContext tenantContext) throws CatalogApiException {
-
-        // STEPH TODO what are the possibilities for caching here ?
         final VersionedCatalog pluginVersionedCatalog = getCatalogFromPlugins(tenantContext);
         if (pluginVersionedCatalog != null) {
             return pluginVersionedCatalog;
@@ -110,25 +121,57 @@ public class EhCacheCatalogCache implements CatalogCache {
 
     @Override
     public void clearCatalog(final InternalTenantContext tenantContext) {
+        pluginCatalogs.remove(tenantContext.getTenantRecordId());
         if (tenantContext.getTenantRecordId() != InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
             cacheController.remove(tenantContext.getTenantRecordId());
         }
     }
 
     private VersionedCatalog getCatalogFromPlugins(final InternalTenantContext internalTenantContext) {
+        final Long tenantRecordId = internalTenantContext.getTenantRecordId();
+        final PluginCatalogEntry cachedEntry = pluginCatalogs.get(tenantRecordId);
+        final long now = clock.getUTCNow().getMillis();
+        if (cachedEntry != null && now - cachedEntry.lastCheckedMillis < catalogConfig.getPluginCatalogRefreshInterval().getMillis()) {
+            return cachedEntry.catalog;
+        }
+
         final TenantContext tenantContext = internalCallContextFactory.createTenantContext(internalTenantContext);
         for (final String service : pluginRegistry.getAllServices()) {
             final CatalogPluginApi plugin = pluginRegistry.getServiceForName(service);
             final VersionedPluginCatalog pluginCatalog = plugin.getVersionedPluginCatalog(ImmutableList.<PluginProperty>of(), tenantContext);
             // First plugin that gets something (for that tenant) returns it
             if (pluginCatalog != null) {
-                logger.info("Returning catalog from plugin {} on tenant {} ", service, internalTenantContext.getTenantRecordId());
-                return versionedCatalogMapper.toVersionedCatalog(pluginCatalog, internalTenantContext);
+                final String fingerprint = PluginCatalogFingerprint.compute(service, pluginCatalog);
+                if (cachedEntry != null && cachedEntry.fingerprint.equals(fingerprint)) {
+                    pluginCatalogs.put(tenantRecordId, new PluginCatalogEntry(fingerprint, cachedEntry.catalog, now));
+                    return cachedEntry.catalog;
+                }
+
+                logger.info("Returning catalog from plugin {} on tenant {} ", service, tenantRecordId);
+                final VersionedCatalog catalog = versionedCatalogMapper.toVersionedCatalog(pluginCatalog, internalTenantContext);
+                pluginCatalogs.put(tenantRecordId, new PluginCatalogEntry(fingerprint, catalog, now));
+                return catalog;
             }
         }
+        if (cachedEntry != null) {
+            pluginCatalogs.remove(tenantRecordId, cachedEntry);
+        }
         return null;
     }
 
+    private static final class PluginCatalogEntry {
+
+        private final String fingerprint;
+        private final VersionedCatalog catalog;
+        private final long lastCheckedMillis;
+
+        private PluginCatalogEntry(final String fingerprint, final VersionedCatalog catalog, final long lastCheckedMillis) {
+            this.fingerprint = fingerprint;
+            this.catalog = catalog;
+            this.lastCheckedMillis = lastCheckedMillis;
+        }
+    }
+
     //
     // Build the LoaderCallback that is required to build the catalog from the xml from a module that knows
     // nothing about catalog.
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.catalog.caching;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.CurrencyValueNull;
+import org.killbill.billing.catalog.api.InternationalPrice;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhase;
+import org.killbill.billing.catalog.api.Price;
+import org.killbill.billing.catalog.api.PriceList;
+import org.killbill.billing.catalog.api.Product;
+import org.killbill.billing.catalog.api.Unit;
+import org.killbill.billing.catalog.api.rules.Case;
+import org.killbill.billing.catalog.api.rules.CaseBillingAlignment;
+import org.killbill.billing.catalog.api.rules.CaseCancelPolicy;
+import org.killbill.billing.catalog.api.rules.CaseChange;
+import org.killbill.billing.catalog.api.rules.CaseChangePlanAlignment;
+import org.killbill.billing.catalog.api.rules.CaseChangePlanPolicy;
+import org.killbill.billing.catalog.api.rules.CaseCreateAlignment;
+import org.killbill.billing.catalog.api.rules.CasePriceList;
+import org.killbill.billing.catalog.api.rules.PlanRules;
+import org.killbill.billing.catalog.plugin.api.StandalonePluginCatalog;
+import org.killbill.billing.catalog.plugin.api.VersionedPluginCatalog;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+//
+// Hash of the content of a catalog returned by a plugin, covering everything the VersionedCatalogMapper maps, so that
+// the (expensive) mapping only happens again when the plugin returns something different.
+//
+final class PluginCatalogFingerprint {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final Hasher hasher = Hashing.sha256().newHasher();
+
+    private PluginCatalogFingerprint() {
+    }
+
+    static String compute(final String service, final VersionedPluginCatalog pluginCatalog) {
+        final PluginCatalogFingerprint fingerprint = new PluginCatalogFingerprint();
+        fingerprint.put(service)
+                   .put(pluginCatalog.getCatalogName())
+                   .put(pluginCatalog.getRecurringBillingMode());
+        for (final StandalonePluginCatalog standalonePluginCatalog : pluginCatalog.getStandalonePluginCatalogs()) {
+            fingerprint.putStandaloneCatalog(standalonePluginCatalog);
+        }
+        return fingerprint.hasher.hash().toString();
+    }
+
+    private void putStandaloneCatalog(final StandalonePluginCatalog catalog) {
+        put(catalog.getEffectiveDate().getMillis());
+        for (final Currency currency : catalog.getCurrencies()) {
+            put(currency);
+        }
+        for (final Unit unit : nullToEmpty(catalog.getUnits())) {
+            put(unit.getName());
+        }
+        for (final Product product : catalog.getProducts()) {
+            putProduct(product);
+            put(product.getCategory());
+            for (final Product available : ImmutableList.copyOf(product.getAvailable())) {
+                putProduct(available);
+            }
+            for (final Product included : ImmutableList.copyOf(product.getIncluded())) {
+                putProduct(included);
+            }
+        }
+        for (final Plan plan : catalog.getPlans()) {
+            putPlan(plan);
+        }
+        putPriceList(catalog.getDefaultPriceList(), true);
+        for (final PriceList priceList : nullToEmpty(catalog.getChildrenPriceList())) {
+            putPriceList(priceList, true);
+        }
+        if (catalog.getPlanRules() != null) {
+            putPlanRules(catalog.getPlanRules());
+        }
+    }
+
+    private void putPlan(final Plan plan) {
+        put(plan.getName());
+        putProduct(plan.getProduct());
+        put(plan.getEffectiveDateForExistingSubscriptons() == null ? null : plan.getEffectiveDateForExistingSubscriptons().getTime());
+        put(plan.getPlansAllowedInBundle());
+        for (final PlanPhase phase : ImmutableList.copyOf(plan.getInitialPhases())) {
+            putPhase(phase);
+        }
+        putPhase(plan.getFinalPhase());
+    }
+
+    private void putPhase(final PlanPhase phase) {
+        put(phase.getPhaseType());
+        put(phase.getDuration().getUnit()).put(phase.getDuration().getNumber());
+        if (phase.getFixed() != null) {
+            put(phase.getFixed().getType());
+            putPrice(phase.getFixed().getPrice());
+        }
+        if (phase.getRecurring() != null) {
+            put(phase.getRecurring().getBillingPeriod());
+            putPrice(phase.getRecurring().getRecurringPrice());
+        }
+    }
+
+    private void putPrice(@Nullable final InternationalPrice internationalPrice) {
+        if (internationalPrice == null) {
+            put(null);
+            return;
+        }
+        for (final Price price : ImmutableList.copyOf(internationalPrice.getPrices())) {
+            try {
+                put(price.getCurrency()).put(price.getValue());
+            } catch (final CurrencyValueNull e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private void putPriceList(@Nullable final PriceList priceList, final boolean withPlans) {
+        if (priceList == null) {
+            put(null);
+            return;
+        }
+        put(priceList.getName());
+        if (withPlans) {
+            for (final Plan plan : ImmutableList.copyOf(priceList.getPlans())) {
+                put(plan.getName());
+            }
+        }
+    }
+
+    private void putProduct(@Nullable final Product product) {
+        put(product == null ? null : product.getName());
+    }
+
+    private void putPlanRules(final PlanRules planRules) {
+        for (final CaseBillingAlignment cur : nullToEmpty(planRules.getCaseBillingAlignment())) {
+            putCase(cur).put(cur.getPhaseType()).put(cur.getBillingAlignment());
+        }
+        for (final CaseCancelPolicy cur : nullToEmpty(planRules.getCaseCancelPolicy())) {
+            putCase(cur).put(cur.getPhaseType()).put(cur.getBillingActionPolicy());
+        }
+        for (final CaseChangePlanAlignment cur : nullToEmpty(planRules.getCaseChangePlanAlignment())) {
+            putCaseChange(cur).put(cur.getAlignment());
+        }
+        for (final CaseChangePlanPolicy cur : nullToEmpty(planRules.getCaseChangePlanPolicy())) {
+            putCaseChange(cur).put(cur.getBillingActionPolicy());
+        }
+        for (final CaseCreateAlignment cur : nullToEmpty(planRules.getCaseCreateAlignment())) {
+            putCase(cur).put(cur.getPlanAlignmentCreate());
+        }
+        for (final CasePriceList cur : nullToEmpty(planRules.getCasePriceList())) {
+            putCase(cur).putPriceList(cur.getDestinationPriceList(), false);
+        }
+    }
+
+    private PluginCatalogFingerprint putCase(final Case input) {
+        put(input.getBillingPeriod());
+        putPriceList(input.getPriceList(), false);
+        putProduct(input.getProduct());
+        return put(input.getProductCategory());
+    }
+
+    private PluginCatalogFingerprint putCaseChange(final CaseChange input) {
+        put(input.getPhaseType());
+        put(input.getFromBillingPeriod());
+        putPriceList(input.getFromPriceList(), false);
+        putProduct(input.getFromProduct());
+        put(input.getFromProductCategory());
+        put(input.getToBillingPeriod());
+        putPriceList(input.getToPriceList(), false);
+        putProduct(input.getToProduct());
+        return put(input.getToProductCategory());
+    }
+
+    private static <T> Iterable<T> nullToEmpty(@Nullable final Iterable<T> input) {
+        return input == null ? ImmutableList.<T>of() : input;
+    }
+
+    private PluginCatalogFingerprint put(@Nullable final Object value) {
+        hasher.putString(String.valueOf(value), Charsets.UTF_8).putChar(SEPARATOR);
+        return this;
+    }
+}
@@ -23,6 +23,7 @@ import org.killbill.billing.catalog.io.VersionedCatalogLoader;
 import org.killbill.billing.platform.api.KillbillService.ServiceException;
 import org.killbill.billing.util.config.CatalogConfig;
 import org.killbill.clock.DefaultClock;
+import org.skife.config.TimeSpan;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -36,6 +37,11 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "file:src/test/resources/versionedCatalog";
             }
 
+            @Override
+            public TimeSpan getPluginCatalogRefreshInterval() {
+                return new TimeSpan("0s");
+            }
+
         }, tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(internalCallContext));
@@ -50,6 +56,11 @@ public class TestCatalogService extends CatalogTestSuiteNoDB {
                 return "file:src/test/resources/WeaponsHire.xml";
             }
 
+            @Override
+            public TimeSpan getPluginCatalogRefreshInterval() {
+                return new TimeSpan("0s");
+            }
+
         },  tenantInternalApi, catalogCache, cacheInvalidationCallback);
         service.loadCatalog();
         Assert.assertNotNull(service.getFullCatalog(internalCallContext));
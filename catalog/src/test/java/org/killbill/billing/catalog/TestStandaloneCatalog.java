@@ -19,6 +19,7 @@ package org.killbill.billing.catalog;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import org.killbill.billing.ErrorCode;
 import org.killbill.billing.catalog.api.CatalogApiException;
 import org.killbill.billing.catalog.api.PhaseType;
 
@@ -45,4 +46,29 @@ public class TestStandaloneCatalog extends CatalogTestSuiteNoDB {
         Assert.assertEquals(cat.findCurrentPhase("TestPlan1-trial"), phaseTrial1);
         Assert.assertEquals(cat.findCurrentPhase("TestPlan2-trial"), phaseTrial2);
     }
+
+    @Test(groups = "fast")
+    public void testFindPlanAfterCatalogUpdate() throws CatalogApiException {
+        final DefaultPlan plan1 = new MockPlan().setName("TestPlan1");
+        final DefaultPlan plan2 = new MockPlan().setName("TestPlan2");
+
+        final StandaloneCatalog cat = new MockCatalog().setPlans(new DefaultPlan[]{plan1});
+        Assert.assertEquals(cat.findCurrentPlan("TestPlan1"), plan1);
+        try {
+            cat.findCurrentPlan("TestPlan2");
+            Assert.fail();
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_NO_SUCH_PLAN.getCode());
+        }
+
+        // The lookup index is rebuilt when the plans change
+        cat.setPlans(new DefaultPlan[]{plan2});
+        Assert.assertEquals(cat.findCurrentPlan("TestPlan2"), plan2);
+        try {
+            cat.findCurrentPlan("TestPlan1");
+            Assert.fail();
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_NO_SUCH_PLAN.getCode());
+        }
+    }
 }
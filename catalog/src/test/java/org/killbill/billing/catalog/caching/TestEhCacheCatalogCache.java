@@ -31,7 +31,15 @@ import org.killbill.billing.catalog.CatalogTestSuiteNoDB;
 import org.killbill.billing.catalog.DefaultProduct;
 import org.killbill.billing.catalog.VersionedCatalog;
 import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.catalog.api.BillingMode;
 import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.plugin.api.CatalogPluginApi;
+import org.killbill.billing.catalog.plugin.api.StandalonePluginCatalog;
+import org.killbill.billing.catalog.plugin.api.VersionedPluginCatalog;
+import org.killbill.billing.osgi.api.OSGIServiceDescriptor;
+import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.xmlloader.UriAccessor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -43,9 +51,13 @@ import org.testng.annotations.Test;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Resources;
+import com.google.inject.Inject;
 
 public class TestEhCacheCatalogCache extends CatalogTestSuiteNoDB {
 
+    @Inject
+    private OSGIServiceRegistration<CatalogPluginApi> pluginRegistry;
+
     private InternalTenantContext multiTenantContext;
     private InternalTenantContext otherMultiTenantContext;
 
@@ -174,4 +186,51 @@ public class TestEhCacheCatalogCache extends CatalogTestSuiteNoDB {
         // Verify the lookup with the other tenant
         Assert.assertEquals(catalogCache.getCatalog(otherMultiTenantContext), otherResult);
     }
+
+    //
+    // Verify the catalog returned by a plugin is only mapped again when its versions change
+    //
+    @Test(groups = "fast")
+    public void testPluginCatalog() throws CatalogApiException {
+        final VersionedPluginCatalog pluginCatalog = Mockito.mock(VersionedPluginCatalog.class);
+        Mockito.when(pluginCatalog.getCatalogName()).thenReturn("PluginCatalog");
+        Mockito.when(pluginCatalog.getRecurringBillingMode()).thenReturn(BillingMode.IN_ADVANCE);
+        Mockito.when(pluginCatalog.getStandalonePluginCatalogs()).thenReturn(ImmutableList.<StandalonePluginCatalog>of());
+
+        final CatalogPluginApi catalogPluginApi = Mockito.mock(CatalogPluginApi.class);
+        Mockito.when(catalogPluginApi.getVersionedPluginCatalog(Mockito.<Iterable<PluginProperty>>any(), Mockito.<TenantContext>any())).thenReturn(pluginCatalog);
+
+        pluginRegistry.registerService(new OSGIServiceDescriptor() {
+            @Override
+            public String getPluginSymbolicName() {
+                return "TestCatalogPluginApi";
+            }
+
+            @Override
+            public String getPluginName() {
+                return "TestCatalogPluginApi";
+            }
+
+            @Override
+            public String getRegistrationName() {
+                return "TestCatalogPluginApi";
+            }
+        }, catalogPluginApi);
+        try {
+            final VersionedCatalog result = catalogCache.getCatalog(multiTenantContext);
+            Assert.assertEquals(result.getCatalogName(), "PluginCatalog");
+
+            // Same catalog from the plugin, the mapping is reused
+            Assert.assertSame(catalogCache.getCatalog(multiTenantContext), result);
+
+            // Different catalog from the plugin
+            Mockito.when(pluginCatalog.getCatalogName()).thenReturn("OtherPluginCatalog");
+            final VersionedCatalog otherResult = catalogCache.getCatalog(multiTenantContext);
+            Assert.assertNotSame(otherResult, result);
+            Assert.assertEquals(otherResult.getCatalogName(), "OtherPluginCatalog");
+        } finally {
+            pluginRegistry.unregisterService("TestCatalogPluginApi");
+            catalogCache.clearCatalog(multiTenantContext);
+        }
+    }
 }
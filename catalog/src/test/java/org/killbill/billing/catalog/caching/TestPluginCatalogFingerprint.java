@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.catalog.caching;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.catalog.CatalogTestSuiteNoDB;
+import org.killbill.billing.catalog.api.BillingMode;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PriceList;
+import org.killbill.billing.catalog.api.Product;
+import org.killbill.billing.catalog.api.Unit;
+import org.killbill.billing.catalog.plugin.api.StandalonePluginCatalog;
+import org.killbill.billing.catalog.plugin.api.VersionedPluginCatalog;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestPluginCatalogFingerprint extends CatalogTestSuiteNoDB {
+
+    private static final DateTime EFFECTIVE_DATE = new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    @Test(groups = "fast")
+    public void testContentChangeWithSameEffectiveDate() {
+        final String fingerprint = PluginCatalogFingerprint.compute("plugin", buildPluginCatalog("bullets"));
+
+        Assert.assertEquals(PluginCatalogFingerprint.compute("plugin", buildPluginCatalog("bullets")), fingerprint);
+        Assert.assertNotEquals(PluginCatalogFingerprint.compute("otherPlugin", buildPluginCatalog("bullets")), fingerprint);
+        // Same versions, different content
+        Assert.assertNotEquals(PluginCatalogFingerprint.compute("plugin", buildPluginCatalog("shells")), fingerprint);
+    }
+
+    private VersionedPluginCatalog buildPluginCatalog(final String unitName) {
+        final Unit unit = Mockito.mock(Unit.class);
+        Mockito.when(unit.getName()).thenReturn(unitName);
+
+        final StandalonePluginCatalog standalonePluginCatalog = Mockito.mock(StandalonePluginCatalog.class);
+        Mockito.when(standalonePluginCatalog.getEffectiveDate()).thenReturn(EFFECTIVE_DATE);
+        Mockito.when(standalonePluginCatalog.getCurrencies()).thenReturn(ImmutableList.<Currency>of(Currency.USD));
+        Mockito.when(standalonePluginCatalog.getUnits()).thenReturn(ImmutableList.<Unit>of(unit));
+        Mockito.when(standalonePluginCatalog.getProducts()).thenReturn(ImmutableList.<Product>of());
+        Mockito.when(standalonePluginCatalog.getPlans()).thenReturn(ImmutableList.<Plan>of());
+        Mockito.when(standalonePluginCatalog.getChildrenPriceList()).thenReturn(ImmutableList.<PriceList>of());
+
+        final VersionedPluginCatalog pluginCatalog = Mockito.mock(VersionedPluginCatalog.class);
+        Mockito.when(pluginCatalog.getCatalogName()).thenReturn("PluginCatalog");
+        Mockito.when(pluginCatalog.getRecurringBillingMode()).thenReturn(BillingMode.IN_ADVANCE);
+        Mockito.when(pluginCatalog.getStandalonePluginCatalogs()).thenReturn(ImmutableList.<StandalonePluginCatalog>of(standalonePluginCatalog));
+        return pluginCatalog;
+    }
+}
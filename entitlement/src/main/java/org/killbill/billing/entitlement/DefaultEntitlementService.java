@@ -35,6 +35,7 @@ import org.killbill.billing.entitlement.engine.core.BlockingTransitionNotificati
 import org.killbill.billing.entitlement.engine.core.EntitlementNotificationKey;
 import org.killbill.billing.entitlement.engine.core.EntitlementNotificationKeyAction;
 import org.killbill.billing.entitlement.engine.core.EntitlementUtils;
+import org.killbill.billing.entitlement.engine.core.EventsStreamBuilder;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
@@ -70,6 +71,7 @@ public class DefaultEntitlementService implements EntitlementService {
     private final NotificationQueueService notificationQueueService;
     private final EntitlementUtils entitlementUtils;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final EventsStreamBuilder eventsStreamBuilder;
 
     private NotificationQueue entitlementEventQueue;
 
@@ -79,13 +81,15 @@ public class DefaultEntitlementService implements EntitlementService {
                                      final PersistentBus eventBus,
                                      final NotificationQueueService notificationQueueService,
                                      final EntitlementUtils entitlementUtils,
-                                     final InternalCallContextFactory internalCallContextFactory) {
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final EventsStreamBuilder eventsStreamBuilder) {
         this.entitlementInternalApi = entitlementInternalApi;
         this.blockingStateDao = blockingStateDao;
         this.eventBus = eventBus;
         this.notificationQueueService = notificationQueueService;
         this.entitlementUtils = entitlementUtils;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.eventsStreamBuilder = eventsStreamBuilder;
     }
 
     @Override
@@ -103,7 +107,13 @@ public class DefaultEntitlementService implements EntitlementService {
 
                     if (inputKey instanceof EntitlementNotificationKey) {
                         final CallContext callContext = internalCallContextFactory.createCallContext(internalCallContext);
-                        processEntitlementNotification((EntitlementNotificationKey) inputKey, internalCallContext, callContext);
+                        // Share the account data across the lookups triggered by this notification
+                        eventsStreamBuilder.openSnapshotScope();
+                        try {
+                            processEntitlementNotification((EntitlementNotificationKey) inputKey, internalCallContext, callContext);
+                        } finally {
+                            eventsStreamBuilder.closeSnapshotScope();
+                        }
                     } else if (inputKey instanceof BlockingTransitionNotificationKey) {
                         processBlockingNotification((BlockingTransitionNotificationKey) inputKey, internalCallContext);
                     } else if (inputKey != null) {
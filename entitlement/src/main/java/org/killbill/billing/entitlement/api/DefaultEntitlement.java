@@ -385,6 +385,8 @@ public class DefaultEntitlement extends EntityBase implements Entitlement {
                 getSubscriptionBase().uncancel(callContext);
             } catch (final SubscriptionBaseApiException e) {
                 throw new EntitlementApiException(e);
+            } finally {
+                eventsStreamBuilder.invalidateSnapshots(contextWithValidAccountRecordId.getAccountRecordId());
             }
         }
     }
@@ -36,6 +36,7 @@ import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.entitlement.AccountEntitlements;
 import org.killbill.billing.entitlement.EntitlementInternalApi;
 import org.killbill.billing.entitlement.engine.core.EntitlementUtils;
+import org.killbill.billing.entitlement.engine.core.EventsStreamBuilder;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
@@ -57,6 +58,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.prefetchAccountRecordIds;
 
 public class DefaultSubscriptionApi implements SubscriptionApi {
 
@@ -80,18 +82,28 @@ public class DefaultSubscriptionApi implements SubscriptionApi {
         }
     };
 
+    private static final Function<SubscriptionBaseBundle, UUID> BUNDLE_ID_FUNCTION = new Function<SubscriptionBaseBundle, UUID>() {
+        @Override
+        public UUID apply(final SubscriptionBaseBundle subscriptionBaseBundle) {
+            return subscriptionBaseBundle.getId();
+        }
+    };
+
     private final EntitlementInternalApi entitlementInternalApi;
     private final SubscriptionBaseInternalApi subscriptionBaseInternalApi;
     private final InternalCallContextFactory internalCallContextFactory;
     private final EntitlementUtils entitlementUtils;
+    private final EventsStreamBuilder eventsStreamBuilder;
 
     @Inject
     public DefaultSubscriptionApi(final EntitlementInternalApi entitlementInternalApi, final SubscriptionBaseInternalApi subscriptionInternalApi,
-                                  final InternalCallContextFactory internalCallContextFactory, final EntitlementUtils entitlementUtils) {
+                                  final InternalCallContextFactory internalCallContextFactory, final EntitlementUtils entitlementUtils,
+                                  final EventsStreamBuilder eventsStreamBuilder) {
         this.entitlementInternalApi = entitlementInternalApi;
         this.subscriptionBaseInternalApi = subscriptionInternalApi;
         this.internalCallContextFactory = internalCallContextFactory;
         this.entitlementUtils = entitlementUtils;
+        this.eventsStreamBuilder = eventsStreamBuilder;
     }
 
     @Override
@@ -141,6 +153,7 @@ public class DefaultSubscriptionApi implements SubscriptionApi {
     public void updateExternalKey(final UUID uuid, final String newExternalKey, final CallContext callContext) {
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(callContext);
         subscriptionBaseInternalApi.updateExternalKey(uuid, newExternalKey, internalContext);
+        eventsStreamBuilder.invalidateSnapshots(internalCallContextFactory.createInternalTenantContext(uuid, ObjectType.BUNDLE, callContext).getAccountRecordId());
     }
 
     @Override
@@ -175,9 +188,15 @@ public class DefaultSubscriptionApi implements SubscriptionApi {
         final List<SubscriptionBaseBundle> baseBundles = subscriptionBaseInternalApi.getBundlesForKey(externalKey, internalContext);
 
         final List<SubscriptionBundle> result = new ArrayList<SubscriptionBundle>(baseBundles.size());
-        for (final SubscriptionBaseBundle cur : baseBundles) {
-            final SubscriptionBundle bundle = getSubscriptionBundle(cur.getId(), context);
-            result.add(bundle);
+        // Bundles for a given key may share an account: load each account once
+        eventsStreamBuilder.openSnapshotScope();
+        try {
+            for (final SubscriptionBaseBundle cur : baseBundles) {
+                final SubscriptionBundle bundle = getSubscriptionBundle(cur.getId(), context);
+                result.add(bundle);
+            }
+        } finally {
+            eventsStreamBuilder.closeSnapshotScope();
         }
 
         return result;
@@ -195,7 +214,12 @@ public class DefaultSubscriptionApi implements SubscriptionApi {
                                               new SourcePaginationBuilder<SubscriptionBaseBundle, SubscriptionApiException>() {
                                                   @Override
                                                   public Pagination<SubscriptionBaseBundle> build() {
-                                                      return subscriptionBaseInternalApi.getBundles(offset, limit, internalContext);
+                                                      return prefetchAccountRecordIds(subscriptionBaseInternalApi.getBundles(offset, limit, internalContext),
+                                                                                      limit,
+                                                                                      BUNDLE_ID_FUNCTION,
+                                                                                      ObjectType.BUNDLE,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<SubscriptionBaseBundle, SubscriptionBundle>() {
@@ -219,7 +243,12 @@ public class DefaultSubscriptionApi implements SubscriptionApi {
                                               new SourcePaginationBuilder<SubscriptionBaseBundle, SubscriptionApiException>() {
                                                   @Override
                                                   public Pagination<SubscriptionBaseBundle> build() {
-                                                      return subscriptionBaseInternalApi.searchBundles(searchKey, offset, limit, internalContext);
+                                                      return prefetchAccountRecordIds(subscriptionBaseInternalApi.searchBundles(searchKey, offset, limit, internalContext),
+                                                                                      limit,
+                                                                                      BUNDLE_ID_FUNCTION,
+                                                                                      ObjectType.BUNDLE,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<SubscriptionBaseBundle, SubscriptionBundle>() {
@@ -24,6 +24,8 @@ import java.util.concurrent.Callable;
 import javax.inject.Inject;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.entitlement.engine.core.EventsStreamBuilder;
 import org.killbill.billing.entitlement.plugin.api.EntitlementContext;
 import org.killbill.billing.entitlement.plugin.api.EntitlementPluginApi;
 import org.killbill.billing.entitlement.plugin.api.EntitlementPluginApiException;
@@ -31,6 +33,7 @@ import org.killbill.billing.entitlement.plugin.api.OnFailureEntitlementResult;
 import org.killbill.billing.entitlement.plugin.api.OnSuccessEntitlementResult;
 import org.killbill.billing.entitlement.plugin.api.PriorEntitlementResult;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,15 +43,20 @@ public class EntitlementPluginExecution {
 
     private final EntitlementApi entitlementApi;
     private final OSGIServiceRegistration<EntitlementPluginApi> pluginRegistry;
+    private final EventsStreamBuilder eventsStreamBuilder;
+    private final InternalCallContextFactory internalCallContextFactory;
 
     public interface WithEntitlementPlugin<T> {
         T doCall(final EntitlementApi entitlementApi, final EntitlementContext updatedPluginContext) throws EntitlementApiException;
     }
 
     @Inject
-    public EntitlementPluginExecution(final EntitlementApi entitlementApi, final OSGIServiceRegistration<EntitlementPluginApi> pluginRegistry) {
+    public EntitlementPluginExecution(final EntitlementApi entitlementApi, final OSGIServiceRegistration<EntitlementPluginApi> pluginRegistry,
+                                      final EventsStreamBuilder eventsStreamBuilder, final InternalCallContextFactory internalCallContextFactory) {
         this.entitlementApi = entitlementApi;
         this.pluginRegistry = pluginRegistry;
+        this.eventsStreamBuilder = eventsStreamBuilder;
+        this.internalCallContextFactory = internalCallContextFactory;
     }
 
     public void executeWithPlugin(final Callable<Void> preCallbacksCallback, final List<WithEntitlementPlugin> callbacks, final Iterable<EntitlementContext> pluginContexts) throws EntitlementApiException {
@@ -70,7 +78,11 @@ public class EntitlementPluginExecution {
                     final EntitlementContext updatedPluginContext = updatedPluginContexts.get(i);
                     final WithEntitlementPlugin callback = callbacks.get(i);
 
-                    callback.doCall(entitlementApi, updatedPluginContext);
+                    try {
+                        callback.doCall(entitlementApi, updatedPluginContext);
+                    } finally {
+                        invalidateSnapshots(updatedPluginContext);
+                    }
                     executePluginOnSuccessCalls(updatedPluginContext);
                 }
             } catch (final EntitlementApiException e) {
@@ -94,7 +106,12 @@ public class EntitlementPluginExecution {
             }
             final EntitlementContext updatedPluginContext = new DefaultEntitlementContext(pluginContext, priorEntitlementResult);
             try {
-                final T result = callback.doCall(entitlementApi, updatedPluginContext);
+                final T result;
+                try {
+                    result = callback.doCall(entitlementApi, updatedPluginContext);
+                } finally {
+                    invalidateSnapshots(updatedPluginContext);
+                }
                 executePluginOnSuccessCalls(updatedPluginContext);
                 return result;
             } catch (final EntitlementApiException e) {
@@ -106,6 +123,25 @@ public class EntitlementPluginExecution {
         }
     }
 
+    // Entitlement write: the snapshots of the accounts involved are stale
+    private void invalidateSnapshots(final EntitlementContext context) {
+        try {
+            if (context.getAccountId() != null) {
+                eventsStreamBuilder.invalidateSnapshots(internalCallContextFactory.createInternalTenantContext(context.getAccountId(), context).getAccountRecordId());
+            } else if (context.getBundleId() != null) {
+                eventsStreamBuilder.invalidateSnapshots(internalCallContextFactory.createInternalTenantContext(context.getBundleId(), ObjectType.BUNDLE, context).getAccountRecordId());
+            } else {
+                eventsStreamBuilder.invalidateSnapshots(null);
+            }
+            if (context.getDestinationAccountId() != null) {
+                eventsStreamBuilder.invalidateSnapshots(internalCallContextFactory.createInternalTenantContext(context.getDestinationAccountId(), context).getAccountRecordId());
+            }
+        } catch (final IllegalStateException e) {
+            // Unknown object (e.g. the operation failed): don't mask the original error
+            eventsStreamBuilder.invalidateSnapshots(null);
+        }
+    }
+
     private PriorEntitlementResult executePluginPriorCalls(final EntitlementContext entitlementContextArg) throws EntitlementPluginApiException {
 
         // Return as soon as the first plugin aborts, or the last result for the last plugin
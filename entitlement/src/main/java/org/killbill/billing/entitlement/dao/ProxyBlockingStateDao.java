@@ -182,6 +182,7 @@ public class ProxyBlockingStateDao implements BlockingStateDao {
     @Override
     public void create(final BlockingStateModelDao entity, final InternalCallContext context) throws EntitlementApiException {
         delegate.create(entity, context);
+        eventsStreamBuilder.invalidateSnapshots(context.getAccountRecordId());
     }
 
     @Override
@@ -238,11 +239,13 @@ public class ProxyBlockingStateDao implements BlockingStateDao {
     @Override
     public void setBlockingStatesAndPostBlockingTransitionEvent(final Map<BlockingState, Optional<UUID>> states, final InternalCallContext context) {
         delegate.setBlockingStatesAndPostBlockingTransitionEvent(states, context);
+        eventsStreamBuilder.invalidateSnapshots(context.getAccountRecordId());
     }
 
     @Override
     public void unactiveBlockingState(final UUID blockableId, final InternalCallContext context) {
         delegate.unactiveBlockingState(blockableId, context);
+        eventsStreamBuilder.invalidateSnapshots(context.getAccountRecordId());
     }
 
     // Add blocking states for add-ons, which would be impacted by a future cancellation or change of their base plan
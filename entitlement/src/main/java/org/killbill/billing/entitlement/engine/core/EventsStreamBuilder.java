@@ -25,6 +25,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -37,6 +39,7 @@ import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.ProductCategory;
 import org.killbill.billing.entitlement.AccountEventsStreams;
+import org.killbill.billing.entitlement.EntitlementSnapshotScope;
 import org.killbill.billing.entitlement.EventsStream;
 import org.killbill.billing.entitlement.api.BlockingState;
 import org.killbill.billing.entitlement.api.BlockingStateType;
@@ -66,7 +69,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 @Singleton
-public class EventsStreamBuilder {
+public class EventsStreamBuilder implements EntitlementSnapshotScope {
+
+    // Striped per account record id: a collision only causes an extra reload
+    private static final int NB_SNAPSHOT_VERSION_STRIPES = 1024;
 
     private final AccountInternalApi accountInternalApi;
     private final SubscriptionBaseInternalApi subscriptionInternalApi;
@@ -76,6 +82,11 @@ public class EventsStreamBuilder {
     private final Clock clock;
     private final InternalCallContextFactory internalCallContextFactory;
 
+    // See openSnapshotScope
+    private final ThreadLocal<SnapshotScope> snapshotScope = new ThreadLocal<SnapshotScope>();
+    private final AtomicLongArray accountSnapshotVersions = new AtomicLongArray(NB_SNAPSHOT_VERSION_STRIPES);
+    private final AtomicLong globalSnapshotVersion = new AtomicLong(0);
+
     @Inject
     public EventsStreamBuilder(final AccountInternalApi accountInternalApi, final SubscriptionBaseInternalApi subscriptionInternalApi,
                                final BlockingChecker checker, final IDBI dbi, final Clock clock,
@@ -93,6 +104,46 @@ public class EventsStreamBuilder {
         this.blockingStateDao = new OptimizedProxyBlockingStateDao(this, subscriptionInternalApi, dbi, clock, notificationQueueService, eventBus, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
     }
 
+    /**
+     * Within a snapshot scope, the account data needed to build EventsStream objects (account, bundles, subscriptions
+     * and blocking states) is loaded once per account and shared by all lookups, instead of being reloaded for each of them.
+     * <p/>
+     * Snapshots are stamped with the version of their account, bumped on any entitlement write for that account (see
+     * invalidateSnapshots): a stale snapshot is reloaded on its next use. Scopes are per thread and can be nested; each
+     * call must be matched by a call to closeSnapshotScope.
+     */
+    @Override
+    public void openSnapshotScope() {
+        final SnapshotScope scope = snapshotScope.get();
+        if (scope == null) {
+            snapshotScope.set(new SnapshotScope());
+        } else {
+            scope.depth++;
+        }
+    }
+
+    @Override
+    public void closeSnapshotScope() {
+        final SnapshotScope scope = snapshotScope.get();
+        if (scope == null) {
+            return;
+        }
+        if (scope.depth == 0) {
+            snapshotScope.remove();
+        } else {
+            scope.depth--;
+        }
+    }
+
+    // Pass a null account record id if the account isn't known: all snapshots become stale
+    public void invalidateSnapshots(@Nullable final Long accountRecordId) {
+        if (accountRecordId == null) {
+            globalSnapshotVersion.incrementAndGet();
+        } else {
+            accountSnapshotVersions.incrementAndGet(getSnapshotVersionStripe(accountRecordId));
+        }
+    }
+
     public EventsStream refresh(final EventsStream eventsStream, final TenantContext tenantContext) throws EntitlementApiException {
         return buildForEntitlement(eventsStream.getEntitlementId(), tenantContext);
     }
@@ -115,6 +166,11 @@ public class EventsStreamBuilder {
     }
 
     public AccountEventsStreams buildForAccount(final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        final AccountSnapshot snapshot = getAccountSnapshot(internalTenantContext);
+        if (snapshot != null) {
+            return buildForAccount(snapshot.getAccount(), snapshot.getBundles(), snapshot.getSubscriptions(), snapshot.getBlockingStatesForAccount(), internalTenantContext);
+        }
+
         // Retrieve the subscriptions (map bundle id -> subscriptions)
         final Map<UUID, List<SubscriptionBase>> subscriptions;
         try {
@@ -142,15 +198,29 @@ public class EventsStreamBuilder {
 
         // Retrieve the bundles
         final List<SubscriptionBaseBundle> bundles = subscriptionInternalApi.getBundlesForAccount(account.getId(), internalTenantContext);
+
+        // Retrieve the blocking states
+        final List<BlockingState> blockingStatesForAccount = defaultBlockingStateDao.getBlockingAllForAccountRecordId(internalTenantContext);
+
+        return buildForAccount(account, bundles, subscriptions, blockingStatesForAccount, internalTenantContext);
+    }
+
+    private AccountEventsStreams buildForAccount(final ImmutableAccountData account,
+                                                 final List<SubscriptionBaseBundle> bundles,
+                                                 final Map<UUID, List<SubscriptionBase>> subscriptions,
+                                                 final List<BlockingState> blockingStatesForAccount,
+                                                 final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        if (subscriptions.isEmpty()) {
+            // Bail early
+            return new DefaultAccountEventsStreams(account);
+        }
+
         // Map bundle id -> bundles
         final Map<UUID, SubscriptionBaseBundle> bundlesPerId = new HashMap<UUID, SubscriptionBaseBundle>();
         for (final SubscriptionBaseBundle bundle : bundles) {
             bundlesPerId.put(bundle.getId(), bundle);
         }
 
-        // Retrieve the blocking states
-        final List<BlockingState> blockingStatesForAccount = defaultBlockingStateDao.getBlockingAllForAccountRecordId(internalTenantContext);
-
         // Optimization: build lookup tables for blocking states states
         final Collection<BlockingState> accountBlockingStates = new LinkedList<BlockingState>();
         final Map<UUID, List<BlockingState>> blockingStatesPerSubscription = new HashMap<UUID, List<BlockingState>>();
@@ -221,6 +291,15 @@ public class EventsStreamBuilder {
     }
 
     public EventsStream buildForEntitlement(final UUID entitlementId, final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        final AccountSnapshot snapshot = getAccountSnapshot(internalTenantContext);
+        if (snapshot != null) {
+            final EventsStream eventsStream = buildForEntitlement(entitlementId, snapshot, internalTenantContext);
+            if (eventsStream != null) {
+                return eventsStream;
+            }
+            // Not part of the snapshot: go to disk (and report errors for unknown ids as usual)
+        }
+
         final SubscriptionBaseBundle bundle;
         final SubscriptionBase subscription;
         final List<SubscriptionBase> allSubscriptionsForBundle;
@@ -247,6 +326,24 @@ public class EventsStreamBuilder {
         return buildForEntitlement(blockingStatesForAccount, account, bundle, baseSubscription, subscription, allSubscriptionsForBundle, internalTenantContext);
     }
 
+    private EventsStream buildForEntitlement(final UUID entitlementId, final AccountSnapshot snapshot, final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        for (final List<SubscriptionBase> allSubscriptionsForBundle : snapshot.getSubscriptions().values()) {
+            for (final SubscriptionBase subscription : allSubscriptionsForBundle) {
+                if (!subscription.getId().equals(entitlementId)) {
+                    continue;
+                }
+
+                final SubscriptionBaseBundle bundle = snapshot.getBundle(subscription.getBundleId());
+                if (bundle == null) {
+                    return null;
+                }
+                final SubscriptionBase baseSubscription = findBaseSubscription(allSubscriptionsForBundle);
+                return buildForEntitlement(snapshot.getBlockingStatesForAccount(), snapshot.getAccount(), bundle, baseSubscription, subscription, allSubscriptionsForBundle, internalTenantContext);
+            }
+        }
+        return null;
+    }
+
     // Special signature for OptimizedProxyBlockingStateDao to save some DAO calls
     public EventsStream buildForEntitlement(final List<BlockingState> blockingStatesForAccount,
                                             final ImmutableAccountData account,
@@ -335,6 +432,50 @@ public class EventsStreamBuilder {
                                        clock.getUTCNow());
     }
 
+    private AccountSnapshot getAccountSnapshot(final InternalTenantContext internalTenantContext) throws EntitlementApiException {
+        final SnapshotScope scope = snapshotScope.get();
+        if (scope == null || internalTenantContext.getAccountRecordId() == null) {
+            return null;
+        }
+
+        // Read the version before loading: a write happening concurrently will make the snapshot stale
+        final long version = getSnapshotVersion(internalTenantContext.getAccountRecordId());
+        final AccountSnapshot snapshot = scope.snapshots.get(internalTenantContext.getAccountRecordId());
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+
+        final Map<UUID, List<SubscriptionBase>> subscriptions;
+        try {
+            subscriptions = subscriptionInternalApi.getSubscriptionsForAccount(internalTenantContext);
+        } catch (final SubscriptionBaseApiException e) {
+            throw new EntitlementApiException(e);
+        }
+
+        final ImmutableAccountData account;
+        try {
+            account = accountInternalApi.getImmutableAccountDataByRecordId(internalTenantContext.getAccountRecordId(), internalTenantContext);
+        } catch (final AccountApiException e) {
+            throw new EntitlementApiException(e);
+        }
+
+        final List<SubscriptionBaseBundle> bundles = subscriptionInternalApi.getBundlesForAccount(account.getId(), internalTenantContext);
+        final List<BlockingState> blockingStatesForAccount = defaultBlockingStateDao.getBlockingAllForAccountRecordId(internalTenantContext);
+
+        final AccountSnapshot newSnapshot = new AccountSnapshot(version, account, bundles, subscriptions, blockingStatesForAccount);
+        scope.snapshots.put(internalTenantContext.getAccountRecordId(), newSnapshot);
+        return newSnapshot;
+    }
+
+    // Both counters only go up, so the sum changes whenever either is bumped
+    private long getSnapshotVersion(final Long accountRecordId) {
+        return globalSnapshotVersion.get() + accountSnapshotVersions.get(getSnapshotVersionStripe(accountRecordId));
+    }
+
+    private int getSnapshotVersionStripe(final Long accountRecordId) {
+        return (int) (accountRecordId % NB_SNAPSHOT_VERSION_STRIPES);
+    }
+
     private SubscriptionBase findBaseSubscription(final Iterable<SubscriptionBase> subscriptions) {
         return Iterables.<SubscriptionBase>tryFind(subscriptions,
                                                    new Predicate<SubscriptionBase>() {
@@ -348,4 +489,62 @@ public class EventsStreamBuilder {
                                                        }
                                                    }).orNull(); // null for standalone subscriptions
     }
+
+    private static final class SnapshotScope {
+
+        // Account record id -> snapshot
+        private final Map<Long, AccountSnapshot> snapshots = new HashMap<Long, AccountSnapshot>();
+        private int depth = 0;
+    }
+
+    private static final class AccountSnapshot {
+
+        private final long version;
+        private final ImmutableAccountData account;
+        private final List<SubscriptionBaseBundle> bundles;
+        private final Map<UUID, SubscriptionBaseBundle> bundlesPerId;
+        private final Map<UUID, List<SubscriptionBase>> subscriptions;
+        private final List<BlockingState> blockingStatesForAccount;
+
+        private AccountSnapshot(final long version,
+                                final ImmutableAccountData account,
+                                final List<SubscriptionBaseBundle> bundles,
+                                final Map<UUID, List<SubscriptionBase>> subscriptions,
+                                final List<BlockingState> blockingStatesForAccount) {
+            this.version = version;
+            this.account = account;
+            this.bundles = bundles;
+            this.subscriptions = subscriptions;
+            this.blockingStatesForAccount = blockingStatesForAccount;
+
+            this.bundlesPerId = new HashMap<UUID, SubscriptionBaseBundle>();
+            for (final SubscriptionBaseBundle bundle : bundles) {
+                bundlesPerId.put(bundle.getId(), bundle);
+            }
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public ImmutableAccountData getAccount() {
+            return account;
+        }
+
+        public List<SubscriptionBaseBundle> getBundles() {
+            return bundles;
+        }
+
+        public SubscriptionBaseBundle getBundle(final UUID bundleId) {
+            return bundlesPerId.get(bundleId);
+        }
+
+        public Map<UUID, List<SubscriptionBase>> getSubscriptions() {
+            return subscriptions;
+        }
+
+        public List<BlockingState> getBlockingStatesForAccount() {
+            return blockingStatesForAccount;
+        }
+    }
 }
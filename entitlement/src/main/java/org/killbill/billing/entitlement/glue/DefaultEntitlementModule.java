@@ -21,6 +21,7 @@ package org.killbill.billing.entitlement.glue;
 import org.killbill.billing.entitlement.DefaultEntitlementService;
 import org.killbill.billing.entitlement.EntitlementInternalApi;
 import org.killbill.billing.entitlement.EntitlementService;
+import org.killbill.billing.entitlement.EntitlementSnapshotScope;
 import org.killbill.billing.entitlement.api.DefaultEntitlementApi;
 import org.killbill.billing.entitlement.api.DefaultSubscriptionApi;
 import org.killbill.billing.entitlement.api.EntitlementApi;
@@ -66,6 +67,7 @@ public class DefaultEntitlementModule extends KillBillModule implements Entitlem
         bind(EntitlementService.class).to(DefaultEntitlementService.class).asEagerSingleton();
         bind(EntitlementUtils.class).asEagerSingleton();
         bind(EventsStreamBuilder.class).asEagerSingleton();
+        bind(EntitlementSnapshotScope.class).to(EventsStreamBuilder.class).asEagerSingleton();
         installEntitlementPluginApi();
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.entitlement.engine.core;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.PlanPhaseSpecifier;
+import org.killbill.billing.catalog.api.PriceListSet;
+import org.killbill.billing.catalog.api.ProductCategory;
+import org.killbill.billing.entitlement.EntitlementTestSuiteWithEmbeddedDB;
+import org.killbill.billing.entitlement.EventsStream;
+import org.killbill.billing.entitlement.api.Entitlement;
+import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestEventsStreamBuilder extends EntitlementTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow", description = "Verify account snapshots are shared within a scope and invalidated on writes to that account")
+    public void testSnapshotScope() throws Exception {
+        final LocalDate initialDate = new LocalDate(2013, 8, 7);
+        clock.setDay(initialDate);
+
+        final Account account = createAccount(getAccountData(7));
+
+        final PlanPhaseSpecifier spec = new PlanPhaseSpecifier("Shotgun", ProductCategory.BASE, BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME, null);
+        testListener.pushExpectedEvent(NextEvent.CREATE);
+        final Entitlement entitlement = entitlementApi.createBaseEntitlement(account.getId(), spec, account.getExternalKey(), null, initialDate, ImmutableList.<PluginProperty>of(), callContext);
+        assertListenerStatus();
+
+        eventsStreamBuilder.openSnapshotScope();
+        try {
+            final EventsStream eventsStream = eventsStreamBuilder.buildForEntitlement(entitlement.getId(), callContext);
+            Assert.assertEquals(eventsStream.getEntitlementState(), EntitlementState.ACTIVE);
+            Assert.assertEquals(eventsStream.getBundleId(), entitlement.getBundleId());
+            Assert.assertEquals(eventsStream.getAccountId(), account.getId());
+
+            // Served from the snapshot
+            final EventsStream eventsStream2 = eventsStreamBuilder.buildForEntitlement(entitlement.getId(), callContext);
+            Assert.assertEquals(eventsStream2.getEntitlementState(), EntitlementState.ACTIVE);
+            Assert.assertSame(eventsStream2.getSubscriptionBase(), eventsStream.getSubscriptionBase());
+            Assert.assertSame(eventsStreamBuilder.refresh(eventsStream, callContext).getSubscriptionBase(), eventsStream.getSubscriptionBase());
+            Assert.assertEquals(eventsStreamBuilder.buildForAccount(internalCallContext).getEventsStreams().get(entitlement.getBundleId()).size(), 1);
+
+            // Write on another account: the snapshot is still valid
+            final Account otherAccount = createAccount(getAccountData(7));
+            testListener.pushExpectedEvent(NextEvent.CREATE);
+            entitlementApi.createBaseEntitlement(otherAccount.getId(), spec, otherAccount.getExternalKey(), null, initialDate, ImmutableList.<PluginProperty>of(), callContext);
+            assertListenerStatus();
+            Assert.assertSame(eventsStreamBuilder.buildForEntitlement(entitlement.getId(), callContext).getSubscriptionBase(), eventsStream.getSubscriptionBase());
+
+            // Write within the scope: the snapshot must be reloaded
+            testListener.pushExpectedEvents(NextEvent.CANCEL, NextEvent.BLOCK);
+            entitlement.cancelEntitlementWithDate(initialDate, true, ImmutableList.<PluginProperty>of(), callContext);
+            assertListenerStatus();
+
+            final EventsStream eventsStream3 = eventsStreamBuilder.buildForEntitlement(entitlement.getId(), callContext);
+            Assert.assertEquals(eventsStream3.getEntitlementState(), EntitlementState.CANCELLED);
+            Assert.assertNotSame(eventsStream3.getSubscriptionBase(), eventsStream.getSubscriptionBase());
+        } finally {
+            eventsStreamBuilder.closeSnapshotScope();
+        }
+
+        Assert.assertEquals(eventsStreamBuilder.buildForEntitlement(entitlement.getId(), callContext).getEntitlementState(), EntitlementState.CANCELLED);
+    }
+}
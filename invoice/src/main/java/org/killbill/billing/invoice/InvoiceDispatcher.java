@@ -52,6 +52,7 @@ import org.killbill.billing.events.InvoiceAdjustmentInternalEvent;
 import org.killbill.billing.events.InvoiceInternalEvent;
 import org.killbill.billing.events.InvoiceNotificationInternalEvent;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications.SubscriptionNotification;
+import org.killbill.billing.invoice.InvoiceGenerationDebouncer.InvoiceGeneration;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
 import org.killbill.billing.invoice.api.DryRunArguments;
 import org.killbill.billing.invoice.api.DryRunType;
@@ -68,6 +69,7 @@ import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceItemModelDao;
 import org.killbill.billing.invoice.dao.InvoiceModelDao;
 import org.killbill.billing.invoice.generator.InvoiceGenerator;
+import org.killbill.billing.invoice.generator.InvoiceHistoryWindow;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata.SubscriptionFutureNotificationDates;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata.SubscriptionFutureNotificationDates.UsageDef;
@@ -106,6 +108,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -133,6 +136,7 @@ public class InvoiceDispatcher {
     private final Clock clock;
     private final NotificationQueueService notificationQueueService;
     private final InvoiceConfig invoiceConfig;
+    private final InvoiceGenerationDebouncer generationDebouncer;
 
     @Inject
     public InvoiceDispatcher(final InvoiceGenerator generator,
@@ -147,6 +151,7 @@ public class InvoiceDispatcher {
                              final PersistentBus eventBus,
                              final NotificationQueueService notificationQueueService,
                              final InvoiceConfig invoiceConfig,
+                             final InvoiceGenerationDebouncer generationDebouncer,
                              final Clock clock) {
         this.generator = generator;
         this.billingApi = billingApi;
@@ -161,6 +166,7 @@ public class InvoiceDispatcher {
         this.clock = clock;
         this.notificationQueueService = notificationQueueService;
         this.invoiceConfig = invoiceConfig;
+        this.generationDebouncer = generationDebouncer;
     }
 
     public void processSubscriptionForInvoiceGeneration(final EffectiveSubscriptionInternalEvent transition,
@@ -194,9 +200,11 @@ public class InvoiceDispatcher {
                 return null;
             }
             final UUID accountId = subscriptionApi.getAccountIdFromSubscriptionId(subscriptionId, context);
-            final DryRunArguments dryRunArguments = dryRunForNotification ? TARGET_DATE_DRY_RUN_ARGUMENTS : null;
-
-            return processAccount(accountId, targetDate, dryRunArguments, context);
+            if (dryRunForNotification) {
+                return processAccount(accountId, targetDate, TARGET_DATE_DRY_RUN_ARGUMENTS, context);
+            } else {
+                return processAccountForInvoiceGeneration(accountId, targetDate, context);
+            }
         } catch (final SubscriptionBaseApiException e) {
             log.warn("Failed handling SubscriptionBase change.",
                       new InvoiceApiException(ErrorCode.INVOICE_NO_ACCOUNT_ID_FOR_SUBSCRIPTION_ID, subscriptionId.toString()));
@@ -204,6 +212,16 @@ public class InvoiceDispatcher {
         }
     }
 
+    // Entry point for the system triggers (bus events and notifications): triggers for the same account, target date and user token are coalesced
+    public Invoice processAccountForInvoiceGeneration(final UUID accountId, final DateTime targetDate, final InternalCallContext context) throws InvoiceApiException {
+        return generationDebouncer.process(accountId, targetDate, context.getUserToken(), new InvoiceGeneration() {
+            @Override
+            public Invoice generate(final DateTime coalescedTargetDate) throws InvoiceApiException {
+                return processAccount(accountId, coalescedTargetDate, null, context);
+            }
+        });
+    }
+
     public Invoice processAccount(final UUID accountId, @Nullable final DateTime targetDate,
                                   @Nullable final DryRunArguments dryRunArguments, final InternalCallContext context) throws InvoiceApiException {
         GlobalLock lock = null;
@@ -298,19 +316,20 @@ public class InvoiceDispatcher {
         try {
             final ImmutableAccountData account = accountApi.getImmutableAccountDataById(accountId, context);
 
-            final List<Invoice> invoices = billingEvents.isAccountAutoInvoiceOff() ?
-                                           ImmutableList.<Invoice>of() :
-                                           ImmutableList.<Invoice>copyOf(Collections2.transform(invoiceDao.getInvoicesByAccount(context),
-                                                                                                new Function<InvoiceModelDao, Invoice>() {
-                                                                                                    @Override
-                                                                                                    public Invoice apply(final InvoiceModelDao input) {
-                                                                                                        return new DefaultInvoice(input);
-                                                                                                    }
-                                                                                                }));
-
             final Currency targetCurrency = account.getCurrency();
             final LocalDate targetDate = billingEvents.getAccountDateAndTimeZoneContext().computeLocalDateFromFixedAccountOffset(targetDateTime);
-            final InvoiceWithMetadata invoiceWithMetadata = generator.generateInvoice(account, billingEvents, invoices, targetDate, targetCurrency, context);
+
+            final InvoiceWithMetadata invoiceWithMetadata;
+            final InvoiceHistoryWindow historyWindow = getHistoryWindow(billingEvents, targetDate, context);
+            if (historyWindow != null) {
+                final List<Invoice> invoices = toInvoices(invoiceDao.getInvoicesByAccountOverlappingDate(historyWindow.getFromDate(), context));
+                invoiceWithMetadata = generator.generateInvoice(account, billingEvents, invoices, historyWindow, targetDate, targetCurrency, context);
+            } else {
+                final List<Invoice> invoices = billingEvents.isAccountAutoInvoiceOff() ?
+                                               ImmutableList.<Invoice>of() :
+                                               toInvoices(invoiceDao.getInvoicesByAccount(context));
+                invoiceWithMetadata = generator.generateInvoice(account, billingEvents, invoices, targetDate, targetCurrency, context);
+            }
             final Invoice invoice = invoiceWithMetadata.getInvoice();
 
             // Compute future notifications
@@ -381,6 +400,36 @@ public class InvoiceDispatcher {
         }
     }
 
+    // The history window is only used when there is history to bound and no usage (usage items rely on past usage periods)
+    private InvoiceHistoryWindow getHistoryWindow(final BillingEventSet billingEvents, final LocalDate targetDate, final InternalCallContext context) {
+        if (invoiceConfig.getHistoryWindowMonths() <= 0 ||
+            billingEvents.isAccountAutoInvoiceOff() ||
+            billingEvents.size() == 0 ||
+            !billingEvents.getUsages().isEmpty()) {
+            return null;
+        }
+
+        final LocalDate fromDate = targetDate.minusMonths(invoiceConfig.getHistoryWindowMonths());
+        return new InvoiceHistoryWindow(fromDate,
+                                        invoiceDao.getBilledPeriodsBeforeDate(fromDate, context),
+                                        new Supplier<List<Invoice>>() {
+                                            @Override
+                                            public List<Invoice> get() {
+                                                return toInvoices(invoiceDao.getInvoicesByAccount(context));
+                                            }
+                                        });
+    }
+
+    private List<Invoice> toInvoices(final List<InvoiceModelDao> invoiceModelDaos) {
+        return ImmutableList.<Invoice>copyOf(Collections2.transform(invoiceModelDaos,
+                                                                    new Function<InvoiceModelDao, Invoice>() {
+                                                                        @Override
+                                                                        public Invoice apply(final InvoiceModelDao input) {
+                                                                            return new DefaultInvoice(input);
+                                                                        }
+                                                                    }));
+    }
+
     private FutureAccountNotifications createNextFutureNotificationDate(final InvoiceWithMetadata invoiceWithMetadata, final AccountDateAndTimeZoneContext dateAndTimeZoneContext, final InternalCallContext context) {
 
         final Map<UUID, List<SubscriptionNotification>> result = new HashMap<UUID, List<SubscriptionNotification>>();
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Collapses invoice generation triggers for the same account, target day and user token into a single pass.
+ * <p/>
+ * A trigger which arrives when no pass is running runs one right away. A trigger which arrives while a pass is
+ * running can't reuse it (that pass may not have seen the state the trigger was posted for): it queues a follow-up
+ * pass, which runs as soon as the current one is over. All the triggers arriving in the meantime join that follow-up
+ * pass, which generates the invoice up to the latest of their target dates.
+ * <p/>
+ * Once a pass has completed successfully, its result is also returned to the triggers for the same key arriving within
+ * org.killbill.invoice.generationDebounceWindow, without generating again.
+ */
+@Singleton
+public class InvoiceGenerationDebouncer {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceGenerationDebouncer.class);
+
+    public interface InvoiceGeneration {
+
+        Invoice generate(DateTime targetDate) throws InvoiceApiException;
+    }
+
+    private final InvoiceConfig invoiceConfig;
+    private final ConcurrentMap<String, GenerationSlot> generationSlots = new ConcurrentHashMap<String, GenerationSlot>();
+    private final ConcurrentMap<String, CompletedGeneration> completedGenerations = new ConcurrentHashMap<String, CompletedGeneration>();
+
+    private final AtomicLong nbTriggers = new AtomicLong();
+    private final AtomicLong nbCoalesced = new AtomicLong();
+    private final AtomicLong nbGenerations = new AtomicLong();
+
+    @Inject
+    public InvoiceGenerationDebouncer(final InvoiceConfig invoiceConfig) {
+        this.invoiceConfig = invoiceConfig;
+    }
+
+    public Invoice process(final UUID accountId, final DateTime targetDate, final UUID userToken, final InvoiceGeneration generation) throws InvoiceApiException {
+        nbTriggers.incrementAndGet();
+
+        // Invoices are generated per day: triggers for the same day are equivalent
+        final String key = accountId + "::" + targetDate.toLocalDate() + "::" + userToken;
+
+        final CompletedGeneration completedGeneration = completedGenerations.get(key);
+        if (completedGeneration != null) {
+            if (!completedGeneration.isExpired(System.currentTimeMillis())) {
+                nbCoalesced.incrementAndGet();
+                log.debug("Reusing completed invoice generation for accountId='{}', targetDate='{}'", accountId, targetDate);
+                return completedGeneration.getInvoice();
+            }
+            completedGenerations.remove(key, completedGeneration);
+        }
+
+        while (true) {
+            GenerationSlot slot = generationSlots.get(key);
+            if (slot == null) {
+                final GenerationSlot newSlot = new GenerationSlot();
+                slot = generationSlots.putIfAbsent(key, newSlot);
+                if (slot == null) {
+                    slot = newSlot;
+                }
+            }
+
+            final PendingGeneration joined;
+            final PendingGeneration running;
+            final PendingGeneration pendingGeneration;
+            synchronized (slot) {
+                if (slot.removed) {
+                    // Raced with the end of the last pass for that key
+                    continue;
+                }
+
+                joined = slot.next;
+                if (joined != null) {
+                    joined.join(targetDate);
+                    nbCoalesced.incrementAndGet();
+                    running = null;
+                    pendingGeneration = null;
+                } else {
+                    running = slot.running;
+                    pendingGeneration = new PendingGeneration(targetDate);
+                    if (running == null) {
+                        slot.running = pendingGeneration;
+                    } else {
+                        slot.next = pendingGeneration;
+                    }
+                }
+            }
+
+            if (joined != null) {
+                log.debug("Coalescing invoice generation for accountId='{}', targetDate='{}'", accountId, targetDate);
+                return joined.awaitResult();
+            }
+
+            if (running != null) {
+                // Same wait as for the account lock the running pass holds
+                try {
+                    running.awaitCompletion();
+                } catch (final RuntimeException e) {
+                    release(key, slot, pendingGeneration, null, e);
+                    throw e;
+                }
+                synchronized (slot) {
+                    slot.running = pendingGeneration;
+                    slot.next = null;
+                }
+            }
+            return run(key, slot, pendingGeneration, generation);
+        }
+    }
+
+    private Invoice run(final String key, final GenerationSlot slot, final PendingGeneration pendingGeneration, final InvoiceGeneration generation) throws InvoiceApiException {
+        nbGenerations.incrementAndGet();
+
+        Invoice invoice = null;
+        Exception exception = null;
+        try {
+            invoice = generation.generate(pendingGeneration.getTargetDate());
+            recordCompletedGeneration(key, invoice);
+            return invoice;
+        } catch (final InvoiceApiException e) {
+            exception = e;
+            throw e;
+        } catch (final RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            release(key, slot, pendingGeneration, invoice, exception);
+        }
+    }
+
+    private void recordCompletedGeneration(final String key, final Invoice invoice) {
+        final long windowMillis = invoiceConfig.getGenerationDebounceWindow().getMillis();
+        if (windowMillis <= 0) {
+            return;
+        }
+
+        final long nowMillis = System.currentTimeMillis();
+        // Keep the index bounded to the generations of the last window
+        final Iterator<CompletedGeneration> iterator = completedGenerations.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(nowMillis)) {
+                iterator.remove();
+            }
+        }
+        completedGenerations.put(key, new CompletedGeneration(invoice, nowMillis + windowMillis));
+    }
+
+    private void release(final String key, final GenerationSlot slot, final PendingGeneration pendingGeneration, final Invoice invoice, final Exception exception) {
+        synchronized (slot) {
+            if (slot.running == pendingGeneration) {
+                slot.running = null;
+            } else if (slot.next == pendingGeneration) {
+                slot.next = null;
+            }
+            if (slot.running == null && slot.next == null) {
+                slot.removed = true;
+                generationSlots.remove(key, slot);
+            }
+        }
+        pendingGeneration.complete(invoice, exception);
+    }
+
+    @VisibleForTesting
+    long getNbTriggers() {
+        return nbTriggers.get();
+    }
+
+    @VisibleForTesting
+    long getNbCoalesced() {
+        return nbCoalesced.get();
+    }
+
+    @VisibleForTesting
+    long getNbGenerations() {
+        return nbGenerations.get();
+    }
+
+    private static final class CompletedGeneration {
+
+        private final Invoice invoice;
+        private final long expirationTimeMillis;
+
+        private CompletedGeneration(final Invoice invoice, final long expirationTimeMillis) {
+            this.invoice = invoice;
+            this.expirationTimeMillis = expirationTimeMillis;
+        }
+
+        public Invoice getInvoice() {
+            return invoice;
+        }
+
+        public boolean isExpired(final long nowMillis) {
+            return nowMillis > expirationTimeMillis;
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class GenerationSlot {
+
+        private PendingGeneration running;
+        private PendingGeneration next;
+        private boolean removed;
+    }
+
+    private static final class PendingGeneration {
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private DateTime targetDate;
+        private volatile Invoice invoice;
+        private volatile Exception exception;
+
+        private PendingGeneration(final DateTime targetDate) {
+            this.targetDate = targetDate;
+        }
+
+        public synchronized DateTime getTargetDate() {
+            return targetDate;
+        }
+
+        public synchronized void join(final DateTime otherTargetDate) {
+            if (otherTargetDate.isAfter(targetDate)) {
+                targetDate = otherTargetDate;
+            }
+        }
+
+        public void complete(final Invoice invoice, final Exception exception) {
+            this.invoice = invoice;
+            this.exception = exception;
+            completed.countDown();
+        }
+
+        public void awaitCompletion() {
+            try {
+                completed.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(String.format("Interrupted while waiting for invoice generation for targetDate='%s'", getTargetDate()), e);
+            }
+        }
+
+        public Invoice awaitResult() throws InvoiceApiException {
+            awaitCompletion();
+            if (exception instanceof InvoiceApiException) {
+                throw (InvoiceApiException) exception;
+            } else if (exception != null) {
+                throw (RuntimeException) exception;
+            }
+            return invoice;
+        }
+    }
+}
@@ -84,7 +84,7 @@ public class InvoiceListener {
 
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-            dispatcher.processAccount(event.getAccountId(), event.getEffectiveTransitionTime(), null, context);
+            dispatcher.processAccountForInvoiceGeneration(event.getAccountId(), event.getEffectiveTransitionTime(), context);
         } catch (InvoiceApiException e) {
             log.warn("Unable to process event {}", event, e);
         }
@@ -102,7 +102,7 @@ public class InvoiceListener {
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
             final UUID accountId = accountApi.getByRecordId(event.getSearchKey1(), context);
-            dispatcher.processAccount(accountId, clock.getUTCNow(), null, context);
+            dispatcher.processAccountForInvoiceGeneration(accountId, clock.getUTCNow(), context);
         } catch (InvoiceApiException e) {
             log.warn("Unable to process event {}", event, e);
         } catch (AccountApiException e) {
@@ -18,31 +18,51 @@
 
 package org.killbill.billing.invoice.api;
 
+import javax.inject.Named;
+
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.InvoiceTagHandler;
+import org.killbill.billing.invoice.generator.InvoiceExecutors;
+import org.killbill.billing.invoice.glue.DefaultInvoiceModule;
 import org.killbill.billing.invoice.notification.NextBillingDateNotifier;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 
 public class DefaultInvoiceService implements InvoiceService {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceService.class);
+
     public static final String INVOICE_SERVICE_NAME = "invoice-service";
     private final NextBillingDateNotifier dateNotifier;
     private final InvoiceListener invoiceListener;
     private final InvoiceTagHandler tagHandler;
     private final PersistentBus eventBus;
+    private final TenantInternalApi tenantInternalApi;
+    private final CacheInvalidationCallback templateCacheInvalidationCallback;
+    private final InvoiceExecutors invoiceExecutors;
 
     @Inject
-    public DefaultInvoiceService(final InvoiceListener invoiceListener, final InvoiceTagHandler tagHandler, final PersistentBus eventBus, final NextBillingDateNotifier dateNotifier) {
+    public DefaultInvoiceService(final InvoiceListener invoiceListener, final InvoiceTagHandler tagHandler, final PersistentBus eventBus, final NextBillingDateNotifier dateNotifier,
+                                 final TenantInternalApi tenantInternalApi,
+                                 @Named(DefaultInvoiceModule.INVOICE_TEMPLATE_INVALIDATION_CALLBACK) final CacheInvalidationCallback templateCacheInvalidationCallback,
+                                 final InvoiceExecutors invoiceExecutors) {
         this.invoiceListener = invoiceListener;
         this.tagHandler = tagHandler;
         this.eventBus = eventBus;
         this.dateNotifier = dateNotifier;
+        this.tenantInternalApi = tenantInternalApi;
+        this.templateCacheInvalidationCallback = templateCacheInvalidationCallback;
+        this.invoiceExecutors = invoiceExecutors;
     }
 
     @Override
@@ -58,7 +78,12 @@ public class DefaultInvoiceService implements InvoiceService {
         } catch (PersistentBus.EventBusException e) {
             throw new RuntimeException("Failed to register bus handlers", e);
         }
+        invoiceExecutors.initialize();
         dateNotifier.initialize();
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TEMPLATE, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_MP_TEMPLATE, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TRANSLATION_, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.CATALOG_TRANSLATION_, templateCacheInvalidationCallback);
     }
 
     @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
@@ -75,5 +100,11 @@ public class DefaultInvoiceService implements InvoiceService {
             throw new RuntimeException("Failed to unregister bus handlers", e);
         }
         dateNotifier.stop();
+        try {
+            invoiceExecutors.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("InvoiceService got interrupted", e);
+        }
     }
 }
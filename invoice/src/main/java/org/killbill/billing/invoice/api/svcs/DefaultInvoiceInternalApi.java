@@ -39,6 +39,7 @@ import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.api.WithAccountLock;
 import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceModelDao;
@@ -88,6 +89,11 @@ public class DefaultInvoiceInternalApi implements InvoiceInternalApi {
         });
     }
 
+    @Override
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummaryByAccountId(final UUID accountId, final LocalDate upToDate, final InternalTenantContext context) {
+        return dao.getUnpaidInvoicesSummaryByAccountId(accountId, upToDate, context);
+    }
+
     @Override
     public BigDecimal getAccountBalance(final UUID accountId, final InternalTenantContext context) {
         return dao.getAccountBalance(accountId, context);
@@ -155,6 +161,11 @@ public class DefaultInvoiceInternalApi implements InvoiceInternalApi {
         dao.consumeExstingCBAOnAccountWithUnpaidInvoices(accountId, context);
     }
 
+    @Override
+    public void rebuildAccountLedger(final UUID accountId, final InternalCallContext context) {
+        dao.rebuildAccountLedger(context);
+    }
+
     @Override
     public Map<UUID, BigDecimal> validateInvoiceItemAdjustments(final UUID paymentId, final Map<UUID, BigDecimal> idWithAmount, final InternalTenantContext context) throws InvoiceApiException {
         final InvoicePayment invoicePayment = getInvoicePayment(paymentId, InvoicePaymentType.ATTEMPT, context);
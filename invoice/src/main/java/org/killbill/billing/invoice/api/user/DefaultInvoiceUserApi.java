@@ -65,7 +65,6 @@ import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationHelper.SourcePaginationBuilder;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.slf4j.Logger;
@@ -80,11 +79,19 @@ import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationNoException;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.prefetchAccountRecordIds;
 
 public class DefaultInvoiceUserApi implements InvoiceUserApi {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceUserApi.class);
 
+    private static final Function<InvoiceModelDao, UUID> INVOICE_ACCOUNT_ID_FUNCTION = new Function<InvoiceModelDao, UUID>() {
+        @Override
+        public UUID apply(final InvoiceModelDao invoiceModelDao) {
+            return invoiceModelDao.getAccountId();
+        }
+    };
+
     private final InvoiceDao dao;
     private final InvoiceDispatcher dispatcher;
     private final AccountInternalApi accountUserApi;
@@ -143,7 +150,12 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
                                                   @Override
                                                   public Pagination<InvoiceModelDao> build() {
                                                       // Invoices will be shallow, i.e. won't contain items nor payments
-                                                      return dao.get(offset, limit, internalCallContextFactory.createInternalTenantContext(context));
+                                                      return prefetchAccountRecordIds(dao.get(offset, limit, internalCallContextFactory.createInternalTenantContext(context)),
+                                                                                      limit,
+                                                                                      INVOICE_ACCOUNT_ID_FUNCTION,
+                                                                                      ObjectType.ACCOUNT,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<InvoiceModelDao, Invoice>() {
@@ -162,7 +174,12 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
                                                   @Override
                                                   public Pagination<InvoiceModelDao> build() {
                                                       // Invoices will be shallow, i.e. won't contain items nor payments
-                                                      return dao.searchInvoices(searchKey, offset, limit, internalCallContextFactory.createInternalTenantContext(context));
+                                                      return prefetchAccountRecordIds(dao.searchInvoices(searchKey, offset, limit, internalCallContextFactory.createInternalTenantContext(context)),
+                                                                                      limit,
+                                                                                      INVOICE_ACCOUNT_ID_FUNCTION,
+                                                                                      ObjectType.ACCOUNT,
+                                                                                      internalCallContextFactory,
+                                                                                      context);
                                                   }
                                               },
                                               new Function<InvoiceModelDao, Invoice>() {
@@ -437,14 +454,7 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
         final Account account = accountUserApi.getAccountById(invoice.getAccountId(), internalContext);
 
         // Check if this account has the MANUAL_PAY system tag
-        boolean manualPay = false;
-        final List<Tag> accountTags = tagApi.getTags(account.getId(), ObjectType.ACCOUNT, internalContext);
-        for (final Tag tag : accountTags) {
-            if (ControlTagType.MANUAL_PAY.getId().equals(tag.getTagDefinitionId())) {
-                manualPay = true;
-                break;
-            }
-        }
+        final boolean manualPay = tagApi.isControlTagSet(account.getId(), ObjectType.ACCOUNT, ControlTagType.MANUAL_PAY, internalContext);
 
         final HtmlInvoice htmlInvoice = generator.generateInvoice(account, invoice, manualPay, internalContext);
         return htmlInvoice.getBody();
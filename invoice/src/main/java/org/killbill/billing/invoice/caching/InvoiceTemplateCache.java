@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.caching;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Per tenant cache of the invoice templates and translation bundles, keyed by template (or bundle) type and locale.
+ * <p/>
+ * Entries of a tenant are dropped through the tenant cache invalidation callback when one of its templates or
+ * translations changes. Missing tenant values are cached as well, so that accounts of tenants relying on the
+ * default templates don't hit the tenant_kvs table on each render.
+ */
+public class InvoiceTemplateCache {
+
+    private static final Object NO_VALUE = new Object();
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, Object>> entriesByTenant = new ConcurrentHashMap<Long, ConcurrentMap<String, Object>>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String key, final InternalTenantContext tenantContext, final Supplier<T> loader) {
+        // Retrieve the tenant entries before loading the value: if the tenant is invalidated in between, the value ends up in a discarded map
+        final ConcurrentMap<String, Object> tenantEntries = getTenantEntries(tenantContext.getTenantRecordId());
+
+        final Object cachedValue = tenantEntries.get(key);
+        if (cachedValue != null) {
+            return cachedValue == NO_VALUE ? null : (T) cachedValue;
+        }
+
+        final T value = loader.get();
+        tenantEntries.putIfAbsent(key, value == null ? NO_VALUE : value);
+        return value;
+    }
+
+    public void clearTenant(final InternalTenantContext tenantContext) {
+        entriesByTenant.remove(tenantContext.getTenantRecordId());
+    }
+
+    private ConcurrentMap<String, Object> getTenantEntries(final Long tenantRecordId) {
+        final ConcurrentMap<String, Object> tenantEntries = entriesByTenant.get(tenantRecordId);
+        if (tenantEntries != null) {
+            return tenantEntries;
+        }
+        final ConcurrentMap<String, Object> newTenantEntries = new ConcurrentHashMap<String, Object>();
+        final ConcurrentMap<String, Object> existingTenantEntries = entriesByTenant.putIfAbsent(tenantRecordId, newTenantEntries);
+        return existingTenantEntries != null ? existingTenantEntries : newTenantEntries;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.caching;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+public class InvoiceTemplateCacheInvalidationCallback implements CacheInvalidationCallback {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceTemplateCacheInvalidationCallback.class);
+
+    private final InvoiceTemplateCache invoiceTemplateCache;
+
+    @Inject
+    public InvoiceTemplateCacheInvalidationCallback(final InvoiceTemplateCache invoiceTemplateCache) {
+        this.invoiceTemplateCache = invoiceTemplateCache;
+    }
+
+    @Override
+    public void invalidateCache(final TenantKey key, final Object cookie, final InternalTenantContext tenantContext) {
+        log.info("Invalidate invoice template cache for tenantRecordId='{}', key='{}'", tenantContext.getTenantRecordId(), key);
+        invoiceTemplateCache.clearTenant(tenantContext);
+    }
+}
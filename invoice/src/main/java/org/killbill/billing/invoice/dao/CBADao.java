@@ -35,18 +35,19 @@ import com.google.common.collect.Ordering;
 public class CBADao {
 
     private final InvoiceDaoHelper invoiceDaoHelper;
+    private final InvoiceAccountLedgerDao invoiceAccountLedgerDao;
 
     @Inject
-    public CBADao(final InvoiceDaoHelper invoiceDaoHelper) {
+    public CBADao(final InvoiceDaoHelper invoiceDaoHelper, final InvoiceAccountLedgerDao invoiceAccountLedgerDao) {
         this.invoiceDaoHelper = invoiceDaoHelper;
+        this.invoiceAccountLedgerDao = invoiceAccountLedgerDao;
     }
 
 
     public BigDecimal getAccountCBAFromTransaction(final UUID accountId,
                                                     final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory,
                                                     final InternalTenantContext context) {
-        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-        return getAccountCBAFromTransaction(invoices);
+        return invoiceAccountLedgerDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
     }
 
     public BigDecimal getAccountCBAFromTransaction(final List<InvoiceModelDao> invoices) {
@@ -69,8 +70,7 @@ public class CBADao {
         // Current balance is positive, we need to use some of the existing if available (negative CBA amount)
         } else if (balance.compareTo(BigDecimal.ZERO) > 0) {
 
-            final List<InvoiceModelDao> allInvoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-            final BigDecimal accountCBA = getAccountCBAFromTransaction(allInvoices);
+            final BigDecimal accountCBA = invoiceAccountLedgerDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
             if (accountCBA.compareTo(BigDecimal.ZERO) <= 0) {
                 return null;
             }
@@ -95,21 +95,18 @@ public class CBADao {
     public void addCBAComplexityFromTransaction(final InvoiceModelDao invoice, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
         final InvoiceItemModelDao cbaItem = computeCBAComplexity(invoice, entitySqlDaoWrapperFactory, context);
         if (cbaItem != null) {
-            final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
-            transInvoiceItemDao.create(cbaItem, context);
+            createCBAItemFromTransaction(cbaItem, entitySqlDaoWrapperFactory, context);
         }
-        List<InvoiceModelDao> invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-        useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context);
+        useExistingCBAFromTransaction(entitySqlDaoWrapperFactory, context);
     }
 
     public void addCBAComplexityFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
 
-        List<InvoiceModelDao> invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
+        final List<InvoiceModelDao> invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
         for (InvoiceModelDao cur : invoiceItemModelDaos) {
             addCBAIfNeeded(entitySqlDaoWrapperFactory, cur, context);
         }
-        invoiceItemModelDaos = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-        useExistingCBAFromTransaction(invoiceItemModelDaos, entitySqlDaoWrapperFactory, context);
+        useExistingCBAFromTransaction(entitySqlDaoWrapperFactory, context);
     }
 
     /**
@@ -126,20 +123,21 @@ public class CBADao {
         // If invoice balance becomes negative we add some CBA item
         final BigDecimal balance = InvoiceModelDaoHelper.getBalance(invoice);
         if (balance.compareTo(BigDecimal.ZERO) < 0) {
-            final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
             final InvoiceItemModelDao cbaAdjItem = new InvoiceItemModelDao(new CreditBalanceAdjInvoiceItem(invoice.getId(), invoice.getAccountId(), context.getCreatedDate().toLocalDate(), balance.negate(), invoice.getCurrency()));
-            transInvoiceItemDao.create(cbaAdjItem, context);
+            createCBAItemFromTransaction(cbaAdjItem, entitySqlDaoWrapperFactory, context);
         }
     }
 
 
-    private void useExistingCBAFromTransaction(final List<InvoiceModelDao> invoices, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws InvoiceApiException, EntityPersistenceException {
+    private void useExistingCBAFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws InvoiceApiException, EntityPersistenceException {
 
-        final BigDecimal accountCBA = getAccountCBAFromTransaction(invoices);
+        final BigDecimal accountCBA = invoiceAccountLedgerDao.getAccountCBAFromTransaction(entitySqlDaoWrapperFactory, context);
         if (accountCBA.compareTo(BigDecimal.ZERO) <= 0) {
             return;
         }
 
+        // Only rehydrate the invoices when there is some credit to distribute
+        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
         final List<InvoiceModelDao> unpaidInvoices = invoiceDaoHelper.getUnpaidInvoicesByAccountFromTransaction(invoices, null);
         // We order the same os BillingStateCalculator-- should really share the comparator
         final List<InvoiceModelDao> orderedUnpaidInvoices = Ordering.from(new Comparator<InvoiceModelDao>() {
@@ -156,9 +154,7 @@ public class CBADao {
             remainingAccountCBA = remainingAccountCBA.subtract(cbaToApplyOnInvoice);
 
             final InvoiceItemModelDao cbaAdjItem = new InvoiceItemModelDao(new CreditBalanceAdjInvoiceItem(cur.getId(), cur.getAccountId(), context.getCreatedDate().toLocalDate(), cbaToApplyOnInvoice.negate(), cur.getCurrency()));
-
-            final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
-            transInvoiceItemDao.create(cbaAdjItem, context);
+            createCBAItemFromTransaction(cbaAdjItem, entitySqlDaoWrapperFactory, context);
 
             if (remainingAccountCBA.compareTo(BigDecimal.ZERO) <= 0) {
                 break;
@@ -166,4 +162,9 @@ public class CBADao {
         }
     }
 
+    private void createCBAItemFromTransaction(final InvoiceItemModelDao cbaItem, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException {
+        final InvoiceItemSqlDao transInvoiceItemDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
+        transInvoiceItemDao.create(cbaItem, context);
+        invoiceAccountLedgerDao.recordInvoiceItemFromTransaction(cbaItem, entitySqlDaoWrapperFactory, context);
+    }
 }
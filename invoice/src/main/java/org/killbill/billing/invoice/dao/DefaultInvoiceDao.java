@@ -20,6 +20,7 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -44,7 +45,9 @@ import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceAdjustmentEvent;
+import org.killbill.billing.invoice.model.DefaultUnpaidInvoicesSummary;
 import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.cache.Cachable.CacheType;
@@ -69,6 +72,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -98,6 +102,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     private final InternalCallContextFactory internalCallContextFactory;
     private final InvoiceDaoHelper invoiceDaoHelper;
     private final CBADao cbaDao;
+    private final InvoiceAccountLedgerDao invoiceAccountLedgerDao;
     private final InvoiceConfig invoiceConfig;
     private final Clock clock;
     private final CacheControllerDispatcher cacheControllerDispatcher;
@@ -113,6 +118,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                              final InvoiceConfig invoiceConfig,
                              final InvoiceDaoHelper invoiceDaoHelper,
                              final CBADao cbaDao,
+                             final InvoiceAccountLedgerDao invoiceAccountLedgerDao,
                              final InternalCallContextFactory internalCallContextFactory) {
         super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), InvoiceSqlDao.class);
         this.nextBillingDatePoster = nextBillingDatePoster;
@@ -121,6 +127,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         this.internalCallContextFactory = internalCallContextFactory;
         this.invoiceDaoHelper = invoiceDaoHelper;
         this.cbaDao = cbaDao;
+        this.invoiceAccountLedgerDao = invoiceAccountLedgerDao;
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
@@ -176,6 +183,49 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public List<InvoiceModelDao> getInvoicesByAccountOverlappingDate(final LocalDate fromDate, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
+            @Override
+            public List<InvoiceModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final List<InvoiceItemModelDao> invoiceItems = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class).getByAccountRecordIdOverlappingDate(fromDate.toDate(), context);
+                if (invoiceItems.isEmpty()) {
+                    return ImmutableList.<InvoiceModelDao>of();
+                }
+
+                final Map<UUID, List<InvoiceItemModelDao>> invoiceItemsPerInvoiceId = new HashMap<UUID, List<InvoiceItemModelDao>>();
+                for (final InvoiceItemModelDao item : invoiceItems) {
+                    if (invoiceItemsPerInvoiceId.get(item.getInvoiceId()) == null) {
+                        invoiceItemsPerInvoiceId.put(item.getInvoiceId(), new LinkedList<InvoiceItemModelDao>());
+                    }
+                    invoiceItemsPerInvoiceId.get(item.getInvoiceId()).add(item);
+                }
+
+                final Collection<String> invoiceIds = Collections2.transform(invoiceItemsPerInvoiceId.keySet(), new Function<UUID, String>() {
+                    @Override
+                    public String apply(final UUID input) {
+                        return input.toString();
+                    }
+                });
+                final List<InvoiceModelDao> invoices = INVOICE_MODEL_DAO_ORDERING.sortedCopy(entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getByIds(invoiceIds, context));
+                for (final InvoiceModelDao invoice : invoices) {
+                    invoice.addInvoiceItems(invoiceItemsPerInvoiceId.get(invoice.getId()));
+                }
+                return ImmutableList.<InvoiceModelDao>copyOf(invoices);
+            }
+        });
+    }
+
+    @Override
+    public List<InvoiceBilledPeriodsModelDao> getBilledPeriodsBeforeDate(final LocalDate fromDate, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceBilledPeriodsModelDao>>() {
+            @Override
+            public List<InvoiceBilledPeriodsModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBilledPeriodsSqlDao.class).getBilledPeriodsBeforeDate(fromDate.toDate(), context);
+            }
+        });
+    }
+
     private List<InvoiceModelDao> getAllNonMigratedInvoicesByAccountAfterDate(final InvoiceSqlDao invoiceSqlDao, final LocalDate fromDate, final InternalTenantContext context) {
         return ImmutableList.<InvoiceModelDao>copyOf(INVOICE_MODEL_DAO_ORDERING.sortedCopy(Iterables.<InvoiceModelDao>filter(invoiceSqlDao.getByAccountRecordId(context),
                                                                                                                              new Predicate<InvoiceModelDao>() {
@@ -263,7 +313,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     // Create the invoice items
                     final InvoiceItemSqlDao transInvoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
                     for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItems) {
-                        createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, context);
+                        createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, entitySqlDaoWrapperFactory, context);
                     }
                     cbaDao.addCBAComplexityFromTransaction(invoice, entitySqlDaoWrapperFactory, context);
                     notifyOfFutureBillingEvents(entitySqlDaoWrapperFactory, invoice.getAccountId(), callbackDateTimePerSubscriptions, context);
@@ -294,7 +344,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     // Create the invoice items if needed
                     for (final InvoiceItemModelDao invoiceItemModelDao : invoiceModelDao.getInvoiceItems()) {
                         if (transInvoiceItemSqlDao.getById(invoiceItemModelDao.getId().toString(), context) == null) {
-                            createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, context);
+                            createInvoiceItemFromTransaction(transInvoiceItemSqlDao, invoiceItemModelDao, entitySqlDaoWrapperFactory, context);
                             createdInvoiceItems.add(transInvoiceItemSqlDao.getById(invoiceItemModelDao.getId().toString(), context));
                             madeChanges = true;
                         }
@@ -355,6 +405,21 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                           return Iterators.<InvoiceModelDao>emptyIterator();
                                                       }
                                                   }
+
+                                                  @Override
+                                                  public Iterator<InvoiceModelDao> buildFromRecordId(final InvoiceSqlDao invoiceSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      if (invoiceNumber == null) {
+                                                          return invoiceSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                      }
+                                                      try {
+                                                          final InvoiceModelDao invoice = getByNumber(invoiceNumber, context);
+                                                          return invoice.getRecordId() > lastRecordId ?
+                                                                 ImmutableList.<InvoiceModelDao>of(invoice).iterator() :
+                                                                 Iterators.<InvoiceModelDao>emptyIterator();
+                                                      } catch (final InvoiceApiException ignored) {
+                                                          return Iterators.<InvoiceModelDao>emptyIterator();
+                                                      }
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -367,15 +432,18 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<BigDecimal>() {
             @Override
             public BigDecimal inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
-                BigDecimal cba = BigDecimal.ZERO;
+                return invoiceAccountLedgerDao.getAccountBalanceFromTransaction(entitySqlDaoWrapperFactory, context);
+            }
+        });
+    }
 
-                BigDecimal accountBalance = BigDecimal.ZERO;
-                final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
-                for (final InvoiceModelDao cur : invoices) {
-                    accountBalance = accountBalance.add(InvoiceModelDaoHelper.getBalance(cur));
-                    cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
-                }
-                return accountBalance.subtract(cba);
+    @Override
+    public void rebuildAccountLedger(final InternalCallContext context) {
+        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                invoiceAccountLedgerDao.rebuildFromTransaction(entitySqlDaoWrapperFactory, context);
+                return null;
             }
         });
     }
@@ -400,6 +468,16 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummaryByAccountId(final UUID accountId, final LocalDate upToDate, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<UnpaidInvoicesSummary>() {
+            @Override
+            public UnpaidInvoicesSummary inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return new DefaultUnpaidInvoicesSummary(invoiceDaoHelper.getUnpaidInvoiceBalancesFromTransaction(entitySqlDaoWrapperFactory, upToDate, context));
+            }
+        });
+    }
+
     @Override
     public UUID getInvoiceIdByPaymentId(final UUID paymentId, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<UUID>() {
@@ -475,6 +553,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                  context.getCreatedDate(), requestedPositiveAmount.negate(),
                                                                                  payment.getCurrency(), payment.getProcessedCurrency(), transactionExternalKey, payment.getId(), true);
                 transactional.create(refund, context);
+                invoiceAccountLedgerDao.recordInvoicePaymentFromTransaction(refund, entitySqlDaoWrapperFactory, context);
 
                 // Retrieve invoice after the Refund
                 final InvoiceModelDao invoice = transInvoiceDao.getById(payment.getInvoiceId().toString(), context);
@@ -495,7 +574,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                         final InvoiceItemModelDao adjItem = new InvoiceItemModelDao(context.getCreatedDate(), InvoiceItemType.REFUND_ADJ, invoice.getId(), invoice.getAccountId(),
                                                                                     null, null, null, null, null, null, context.getCreatedDate().toLocalDate(), null,
                                                                                     requestedPositiveAmountToAdjust.negate(), null, invoice.getCurrency(), null);
-                        createInvoiceItemFromTransaction(transInvoiceItemDao, adjItem, context);
+                        createInvoiceItemFromTransaction(transInvoiceItemDao, adjItem, entitySqlDaoWrapperFactory, context);
                         invoice.addInvoiceItem(adjItem);
                     }
                 } else if (isInvoiceAdjusted) {
@@ -506,7 +585,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                                invoice.getCurrency(), context.getCreatedDate().toLocalDate(),
                                                                                                context);
 
-                        createInvoiceItemFromTransaction(transInvoiceItemDao, item, context);
+                        createInvoiceItemFromTransaction(transInvoiceItemDao, item, entitySqlDaoWrapperFactory, context);
                         invoice.addInvoiceItem(item);
                     }
                 }
@@ -563,6 +642,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                      requestedChargedBackAmount.negate(), payment.getCurrency(), payment.getProcessedCurrency(),
                                                                                      null, payment.getId(), true);
                 transactional.create(chargeBack, context);
+                invoiceAccountLedgerDao.recordInvoicePaymentFromTransaction(chargeBack, entitySqlDaoWrapperFactory, context);
 
                 // Notify the bus since the balance of the invoice changed
                 final UUID accountId = transactional.getAccountIdFromInvoicePaymentId(chargeBack.getId().toString(), context);
@@ -710,6 +790,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
                     if (existingAttempt == null) {
                         transactional.create(invoicePayment, context);
+                        invoiceAccountLedgerDao.recordInvoicePaymentFromTransaction(invoicePayment, entitySqlDaoWrapperFactory, context);
                     } else if (!existingAttempt.getSuccess()) {
                         transactional.updateAttempt(existingAttempt.getRecordId(),
                                                     invoicePayment.getPaymentId().toString(),
@@ -721,6 +802,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                     null,
                                                     invoicePayment.getSuccess(),
                                                     context);
+                        // The existing attempt was not successful, so it didn't contribute to the balance yet
+                        invoiceAccountLedgerDao.recordInvoicePaymentFromTransaction(invoicePayment, entitySqlDaoWrapperFactory, context);
                     }
                 }
 
@@ -772,7 +855,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 final InvoiceItemModelDao cbaAdjItem = new InvoiceItemModelDao(context.getCreatedDate(), InvoiceItemType.CBA_ADJ, invoice.getId(), invoice.getAccountId(),
                                                                                null, null, null, null, null, null, context.getCreatedDate().toLocalDate(),
                                                                                null, cbaItem.getAmount().negate(), null, cbaItem.getCurrency(), cbaItem.getId());
-                createInvoiceItemFromTransaction(invoiceItemSqlDao, cbaAdjItem, context);
+                createInvoiceItemFromTransaction(invoiceItemSqlDao, cbaAdjItem, entitySqlDaoWrapperFactory, context);
 
                 // Verify the final invoice balance is not negative
                 invoiceDaoHelper.populateChildren(invoice, entitySqlDaoWrapperFactory, context);
@@ -829,7 +912,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                            invoice.getAccountId(), null, null, null, null, null, null,
                                                                                            context.getCreatedDate().toLocalDate(), null,
                                                                                            positiveCBAAdjItemAmount, null, cbaItem.getCurrency(), cbaItem.getId());
-                        createInvoiceItemFromTransaction(invoiceItemSqlDao, nextCBAAdjItem, context);
+                        createInvoiceItemFromTransaction(invoiceItemSqlDao, nextCBAAdjItem, entitySqlDaoWrapperFactory, context);
                         if (positiveRemainderToAdjust.compareTo(BigDecimal.ZERO) == 0) {
                             break;
                         }
@@ -921,7 +1004,8 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         }
     }
 
-    private void createInvoiceItemFromTransaction(final InvoiceItemSqlDao invoiceItemSqlDao, final InvoiceItemModelDao invoiceItemModelDao, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
+    private void createInvoiceItemFromTransaction(final InvoiceItemSqlDao invoiceItemSqlDao, final InvoiceItemModelDao invoiceItemModelDao,
+                                                  final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException, InvoiceApiException {
         // There is no efficient way to retrieve an invoice item given an ID today (and invoice plugins can put item adjustments
         // on a different invoice than the original item), so it's easier to do the check in the DAO rather than in the API layer
         // See also https://github.com/killbill/killbill/issues/7
@@ -930,6 +1014,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         }
 
         invoiceItemSqlDao.create(invoiceItemModelDao, context);
+        invoiceAccountLedgerDao.recordInvoiceItemFromTransaction(invoiceItemModelDao, entitySqlDaoWrapperFactory, context);
     }
 
     private void validateInvoiceItemToBeAdjusted(final InvoiceItemSqlDao invoiceItemSqlDao, final InvoiceItemModelDao invoiceItemModelDao, final InternalCallContext context) throws InvoiceApiException {
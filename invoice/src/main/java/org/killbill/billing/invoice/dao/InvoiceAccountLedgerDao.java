@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.calculator.InvoiceCalculatorUtils;
+import org.killbill.billing.invoice.model.InvoiceItemFactory;
+import org.killbill.billing.util.currency.KillBillMoney;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+
+/**
+ * Maintains the running account balance and account CBA (invoice_account_ledgers table).
+ * <p/>
+ * The ledger is updated in the same transaction as each invoice item or invoice payment write, so that
+ * balance and CBA lookups don't have to rehydrate the full invoice history of the account. Accounts
+ * without a ledger row yet (e.g. created before the table existed) fall back to the full computation
+ * and get their row built on their next write.
+ */
+public class InvoiceAccountLedgerDao {
+
+    private static final String LEDGER_CREATION_SAVEPOINT = "invoice_account_ledger_creation";
+
+    private final InvoiceDaoHelper invoiceDaoHelper;
+
+    @Inject
+    public InvoiceAccountLedgerDao(final InvoiceDaoHelper invoiceDaoHelper) {
+        this.invoiceDaoHelper = invoiceDaoHelper;
+    }
+
+    public BigDecimal getAccountBalanceFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final BigDecimal balance = getSqlDao(entitySqlDaoWrapperFactory).getBalance(context);
+        if (balance != null) {
+            return balance;
+        }
+        return computeAccountBalance(invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context));
+    }
+
+    public BigDecimal getAccountCBAFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalTenantContext context) {
+        final BigDecimal cba = getSqlDao(entitySqlDaoWrapperFactory).getCBA(context);
+        if (cba != null) {
+            return cba;
+        }
+        return computeAccountCBA(invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context));
+    }
+
+    // Must be called right after the item has been inserted
+    public void recordInvoiceItemFromTransaction(final InvoiceItemModelDao invoiceItemModelDao, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final BigDecimal amount = KillBillMoney.of(invoiceItemModelDao.getAmount(), invoiceItemModelDao.getCurrency());
+        if (InvoiceItemType.CBA_ADJ.equals(invoiceItemModelDao.getType())) {
+            // Credit moves between the account and its invoices: the account balance doesn't change
+            applyDeltaFromTransaction(BigDecimal.ZERO, amount, entitySqlDaoWrapperFactory, context);
+        } else if (isBalanceItem(InvoiceItemFactory.fromModelDao(invoiceItemModelDao))) {
+            applyDeltaFromTransaction(amount, BigDecimal.ZERO, entitySqlDaoWrapperFactory, context);
+        }
+    }
+
+    // Must be called right after the payment has been inserted (or after an unsuccessful attempt has been updated)
+    public void recordInvoicePaymentFromTransaction(final InvoicePaymentModelDao invoicePaymentModelDao, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        if (!Boolean.TRUE.equals(invoicePaymentModelDao.getSuccess())) {
+            return;
+        }
+        if (InvoicePaymentType.ATTEMPT.equals(invoicePaymentModelDao.getType()) ||
+            InvoicePaymentType.REFUND.equals(invoicePaymentModelDao.getType()) ||
+            InvoicePaymentType.CHARGED_BACK.equals(invoicePaymentModelDao.getType())) {
+            final BigDecimal amount = KillBillMoney.of(invoicePaymentModelDao.getAmount(), invoicePaymentModelDao.getCurrency());
+            applyDeltaFromTransaction(amount.negate(), BigDecimal.ZERO, entitySqlDaoWrapperFactory, context);
+        }
+    }
+
+    /**
+     * Recompute the ledger of the account from its full invoice history.
+     *
+     * @param entitySqlDaoWrapperFactory the EntitySqlDaoWrapperFactory from the current transaction
+     * @param context                    the call callcontext (for the account to rebuild)
+     */
+    public void rebuildFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final InvoiceAccountLedgerSqlDao sqlDao = getSqlDao(entitySqlDaoWrapperFactory);
+        // Writes racing with the rebuild apply their delta once it has committed, on top of the rebuilt values
+        sqlDao.getBalanceForUpdate(context);
+
+        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
+        final BigDecimal balance = computeAccountBalance(invoices);
+        final BigDecimal cba = computeAccountCBA(invoices);
+        if (sqlDao.updateBalanceAndCBA(balance, cba, context) == 0 &&
+            !createIfAbsentFromTransaction(balance, cba, entitySqlDaoWrapperFactory, context)) {
+            // The row was created concurrently in the meantime
+            sqlDao.updateBalanceAndCBA(balance, cba, context);
+        }
+    }
+
+    private void applyDeltaFromTransaction(final BigDecimal balanceDelta, final BigDecimal cbaDelta, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        if (balanceDelta.compareTo(BigDecimal.ZERO) == 0 && cbaDelta.compareTo(BigDecimal.ZERO) == 0) {
+            return;
+        }
+
+        final InvoiceAccountLedgerSqlDao sqlDao = getSqlDao(entitySqlDaoWrapperFactory);
+        if (sqlDao.addToBalanceAndCBA(balanceDelta, cbaDelta, context) > 0) {
+            return;
+        }
+
+        // First write since the ledger was introduced: the full history (which includes the row just inserted) is the starting point
+        final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
+        if (!createIfAbsentFromTransaction(computeAccountBalance(invoices), computeAccountCBA(invoices), entitySqlDaoWrapperFactory, context)) {
+            // Another first write created the row concurrently: its history didn't include our (uncommitted) row
+            sqlDao.addToBalanceAndCBA(balanceDelta, cbaDelta, context);
+        }
+    }
+
+    // Returns false if the row already exists. The insert runs in a savepoint, so that the current transaction
+    // remains usable after a duplicate key error (some databases, e.g. PostgreSQL, abort it otherwise).
+    private boolean createIfAbsentFromTransaction(final BigDecimal balance, final BigDecimal cba, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final Handle handle = entitySqlDaoWrapperFactory.getHandle();
+        handle.checkpoint(LEDGER_CREATION_SAVEPOINT);
+        try {
+            getSqlDao(entitySqlDaoWrapperFactory).create(balance, cba, context);
+            handle.release(LEDGER_CREATION_SAVEPOINT);
+            return true;
+        } catch (final UnableToExecuteStatementException e) {
+            handle.rollback(LEDGER_CREATION_SAVEPOINT);
+            if (isIntegrityConstraintViolation(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isIntegrityConstraintViolation(final UnableToExecuteStatementException e) {
+        // SQL standard class 23 (integrity constraint violation), i.e. the unique index on account_record_id here
+        return e.getCause() instanceof SQLException &&
+               ((SQLException) e.getCause()).getSQLState() != null &&
+               ((SQLException) e.getCause()).getSQLState().startsWith("23");
+    }
+
+    // Items contributing to the balance, besides CBA (see InvoiceCalculatorUtils#computeInvoiceBalance).
+    // Note that CREDIT_ADJ items always count once, whether they are account credits or invoice adjustments.
+    private boolean isBalanceItem(final InvoiceItem invoiceItem) {
+        return InvoiceCalculatorUtils.isCharge(invoiceItem) ||
+               InvoiceCalculatorUtils.isInvoiceItemAdjustmentItem(invoiceItem) ||
+               InvoiceItemType.REFUND_ADJ.equals(invoiceItem.getInvoiceItemType()) ||
+               InvoiceItemType.CREDIT_ADJ.equals(invoiceItem.getInvoiceItemType());
+    }
+
+    private BigDecimal computeAccountBalance(final Iterable<InvoiceModelDao> invoices) {
+        BigDecimal accountBalance = BigDecimal.ZERO;
+        for (final InvoiceModelDao cur : invoices) {
+            accountBalance = accountBalance.add(InvoiceModelDaoHelper.getBalance(cur));
+        }
+        return accountBalance.subtract(computeAccountCBA(invoices));
+    }
+
+    private BigDecimal computeAccountCBA(final Iterable<InvoiceModelDao> invoices) {
+        BigDecimal cba = BigDecimal.ZERO;
+        for (final InvoiceModelDao cur : invoices) {
+            cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
+        }
+        return cba;
+    }
+
+    private InvoiceAccountLedgerSqlDao getSqlDao(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) {
+        return entitySqlDaoWrapperFactory.getHandle().attach(InvoiceAccountLedgerSqlDao.class);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.util.dao.MapperBase;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+@EntitySqlDaoStringTemplate
+@RegisterMapper(InvoiceBalanceSqlDao.InvoiceBalanceMapper.class)
+public interface InvoiceBalanceSqlDao {
+
+    // Invoices of the account with a target date up to upToDate and a positive balance (before rounding to the currency)
+    @SqlQuery
+    List<InvoiceBalanceModelDao> getPositiveInvoiceBalances(@Bind("upToDate") final Date upToDate,
+                                                            @BindBean final InternalTenantContext context);
+
+    class InvoiceBalanceMapper extends MapperBase implements ResultSetMapper<InvoiceBalanceModelDao> {
+
+        @Override
+        public InvoiceBalanceModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            return new InvoiceBalanceModelDao(getUUID(r, "id"),
+                                              getDate(r, "invoice_date"),
+                                              Currency.valueOf(r.getString("currency")),
+                                              r.getBigDecimal("balance"));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+
+// Fixed or recurring periods billed for a subscription, plan, phase and rate, computed by the database (see InvoiceBilledPeriodsSqlDao)
+public class InvoiceBilledPeriodsModelDao {
+
+    private final UUID subscriptionId;
+    private final InvoiceItemType type;
+    private final String planName;
+    private final String phaseName;
+    private final BigDecimal rate;
+    private final int nbPeriods;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final BigDecimal amount;
+
+    public InvoiceBilledPeriodsModelDao(final UUID subscriptionId, final InvoiceItemType type, final String planName, final String phaseName,
+                                        final BigDecimal rate, final int nbPeriods, final LocalDate startDate, final LocalDate endDate,
+                                        final BigDecimal amount) {
+        this.subscriptionId = subscriptionId;
+        this.type = type;
+        this.planName = planName;
+        this.phaseName = phaseName;
+        this.rate = rate;
+        this.nbPeriods = nbPeriods;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.amount = amount;
+    }
+
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public InvoiceItemType getType() {
+        return type;
+    }
+
+    public String getPlanName() {
+        return planName;
+    }
+
+    public String getPhaseName() {
+        return phaseName;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public int getNbPeriods() {
+        return nbPeriods;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoiceBilledPeriodsModelDao{");
+        sb.append("subscriptionId=").append(subscriptionId);
+        sb.append(", type=").append(type);
+        sb.append(", planName='").append(planName).append('\'');
+        sb.append(", phaseName='").append(phaseName).append('\'');
+        sb.append(", rate=").append(rate);
+        sb.append(", nbPeriods=").append(nbPeriods);
+        sb.append(", startDate=").append(startDate);
+        sb.append(", endDate=").append(endDate);
+        sb.append(", amount=").append(amount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
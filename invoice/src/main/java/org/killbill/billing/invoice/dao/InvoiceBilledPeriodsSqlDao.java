@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.util.dao.MapperBase;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+@EntitySqlDaoStringTemplate
+@RegisterMapper(InvoiceBilledPeriodsSqlDao.InvoiceBilledPeriodsMapper.class)
+public interface InvoiceBilledPeriodsSqlDao {
+
+    // Fixed and recurring items of the account whose service period ends on or before fromDate, net of their repairs
+    @SqlQuery
+    List<InvoiceBilledPeriodsModelDao> getBilledPeriodsBeforeDate(@Bind("fromDate") final Date fromDate,
+                                                                  @BindBean final InternalTenantContext context);
+
+    class InvoiceBilledPeriodsMapper extends MapperBase implements ResultSetMapper<InvoiceBilledPeriodsModelDao> {
+
+        @Override
+        public InvoiceBilledPeriodsModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            return new InvoiceBilledPeriodsModelDao(getUUID(r, "subscription_id"),
+                                                    InvoiceItemType.valueOf(r.getString("type")),
+                                                    r.getString("plan_name"),
+                                                    r.getString("phase_name"),
+                                                    r.getBigDecimal("rate"),
+                                                    r.getInt("nb_periods"),
+                                                    getDate(r, "start_date"),
+                                                    getDate(r, "end_date"),
+                                                    r.getBigDecimal("amount"));
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoicePayment;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.EntityDao;
 
@@ -53,6 +54,12 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     List<InvoiceModelDao> getInvoicesByAccount(LocalDate fromDate, InternalTenantContext context);
 
+    // Only the items whose service period ends after fromDate are populated (invoice payments are not)
+    List<InvoiceModelDao> getInvoicesByAccountOverlappingDate(LocalDate fromDate, InternalTenantContext context);
+
+    // Summary of the fixed and recurring periods (net of their repairs) ending on or before fromDate
+    List<InvoiceBilledPeriodsModelDao> getBilledPeriodsBeforeDate(LocalDate fromDate, InternalTenantContext context);
+
     List<InvoiceModelDao> getInvoicesBySubscription(UUID subscriptionId, InternalTenantContext context);
 
     Pagination<InvoiceModelDao> searchInvoices(String searchKey, Long offset, Long limit, InternalTenantContext context);
@@ -67,8 +74,25 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     BigDecimal getAccountCBA(UUID accountId, InternalTenantContext context);
 
+    /**
+     * Rebuild the account balance and CBA ledger from the full invoice history of the account.
+     *
+     * @param context the callcontext
+     */
+    void rebuildAccountLedger(InternalCallContext context);
+
     List<InvoiceModelDao> getUnpaidInvoicesByAccountId(UUID accountId, @Nullable LocalDate upToDate, InternalTenantContext context);
 
+    /**
+     * Same invoices as getUnpaidInvoicesByAccountId, aggregated by the database (the invoices aren't loaded).
+     *
+     * @param accountId the account id
+     * @param upToDate  only consider invoices with a target date up to that date
+     * @param context   the tenant context
+     * @return the number of unpaid invoices, their total balance and the earliest one
+     */
+    UnpaidInvoicesSummary getUnpaidInvoicesSummaryByAccountId(UUID accountId, LocalDate upToDate, InternalTenantContext context);
+
     // Include migrated invoices
     List<InvoiceModelDao> getAllInvoicesByAccount(InternalTenantContext context);
 
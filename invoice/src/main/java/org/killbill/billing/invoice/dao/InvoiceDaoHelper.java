@@ -40,8 +40,8 @@ import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,7 +49,6 @@ import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 
 public class InvoiceDaoHelper {
 
@@ -185,6 +184,21 @@ public class InvoiceDaoHelper {
 
     }
 
+    public List<InvoiceBalanceModelDao> getUnpaidInvoiceBalancesFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final LocalDate upToDate, final InternalTenantContext context) {
+        final InvoiceBalanceSqlDao invoiceBalanceSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(InvoiceBalanceSqlDao.class);
+        final List<InvoiceBalanceModelDao> unpaidInvoiceBalances = new LinkedList<InvoiceBalanceModelDao>();
+        for (final InvoiceBalanceModelDao invoiceBalance : invoiceBalanceSqlDao.getPositiveInvoiceBalances(upToDate.toDate(), context)) {
+            // Same rounding as InvoiceCalculatorUtils#computeInvoiceBalance
+            final BigDecimal balance = KillBillMoney.of(invoiceBalance.getBalance(), invoiceBalance.getCurrency());
+            if (balance.compareTo(BigDecimal.ZERO) <= 0 ||
+                tagInternalApi.isControlTagSet(invoiceBalance.getInvoiceId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF, context)) {
+                continue;
+            }
+            unpaidInvoiceBalances.add(new InvoiceBalanceModelDao(invoiceBalance.getInvoiceId(), invoiceBalance.getInvoiceDate(), invoiceBalance.getCurrency(), balance));
+        }
+        return unpaidInvoiceBalances;
+    }
+
     /**
      * Create an adjustment for a given invoice item. This just creates the object in memory, it doesn't write it to disk.
      *
@@ -293,35 +307,13 @@ public class InvoiceDaoHelper {
     }
 
     private void setInvoicesWrittenOff(final Iterable<InvoiceModelDao> invoices, final InternalTenantContext internalTenantContext) {
-
-        final List<Tag> tags = tagInternalApi.getTagsForAccountType(ObjectType.INVOICE, false, internalTenantContext);
-        final Iterable<Tag> writtenOffTags = filterForWrittenOff(tags);
-        for (final Tag cur : writtenOffTags) {
-            final InvoiceModelDao foundInvoice = Iterables.tryFind(invoices, new Predicate<InvoiceModelDao>() {
-                @Override
-                public boolean apply(final InvoiceModelDao input) {
-                    return input.getId().equals(cur.getObjectId());
-                }
-            }).orNull();
-            if (foundInvoice != null) {
-                foundInvoice.setIsWrittenOff(true);
-            }
+        for (final InvoiceModelDao invoice : invoices) {
+            setInvoiceWrittenOff(invoice, internalTenantContext);
         }
     }
 
     private void setInvoiceWrittenOff(final InvoiceModelDao invoice, final InternalTenantContext internalTenantContext) {
-        final List<Tag> tags =  tagInternalApi.getTags(invoice.getId(), ObjectType.INVOICE, internalTenantContext);
-        final Iterable<Tag> writtenOffTags = filterForWrittenOff(tags);
-        invoice.setIsWrittenOff(writtenOffTags.iterator().hasNext());
-    }
-
-    private Iterable<Tag> filterForWrittenOff(final List<Tag> tags) {
-        return Iterables.filter(tags, new Predicate<Tag>() {
-            @Override
-            public boolean apply(final Tag input) {
-                return  input.getTagDefinitionId().equals(ControlTagType.WRITTEN_OFF.getId());
-            }
-        });
+        invoice.setIsWrittenOff(tagInternalApi.isControlTagSet(invoice.getId(), ObjectType.INVOICE, ControlTagType.WRITTEN_OFF, internalTenantContext));
     }
 
 }
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.invoice.dao;
 
+import java.util.Date;
 import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
@@ -42,4 +43,8 @@ public interface InvoiceItemSqlDao extends EntitySqlDao<InvoiceItemModelDao, Inv
     @SqlQuery
     List<InvoiceItemModelDao> getAdjustedOrRepairedInvoiceItemsByLinkedId(@Bind("linkedItemId") final String linkedItemId,
                                                             @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    List<InvoiceItemModelDao> getByAccountRecordIdOverlappingDate(@Bind("fromDate") final Date fromDate,
+                                                                  @BindBean final InternalTenantContext context);
 }
@@ -67,6 +67,15 @@ public class DefaultInvoiceGenerator implements InvoiceGenerator {
                                                @Nullable final List<Invoice> existingInvoices,
                                                final LocalDate targetDate,
                                                final Currency targetCurrency, final InternalCallContext context) throws InvoiceApiException {
+        return generateInvoice(account, events, existingInvoices, null, targetDate, targetCurrency, context);
+    }
+
+    @Override
+    public InvoiceWithMetadata generateInvoice(final ImmutableAccountData account, @Nullable final BillingEventSet events,
+                                               @Nullable final List<Invoice> existingInvoices,
+                                               @Nullable final InvoiceHistoryWindow historyWindow,
+                                               final LocalDate targetDate,
+                                               final Currency targetCurrency, final InternalCallContext context) throws InvoiceApiException {
         if ((events == null) || (events.size() == 0) || events.isAccountAutoInvoiceOff()) {
             return new InvoiceWithMetadata(null, ImmutableMap.<UUID, SubscriptionFutureNotificationDates>of());
         }
@@ -79,7 +88,7 @@ public class DefaultInvoiceGenerator implements InvoiceGenerator {
         final UUID invoiceId = invoice.getId();
         final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDates = new HashMap<UUID, SubscriptionFutureNotificationDates>();
 
-        final List<InvoiceItem> fixedAndRecurringItems = recurringInvoiceItemGenerator.generateItems(account, invoiceId, events, existingInvoices, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, context);
+        final List<InvoiceItem> fixedAndRecurringItems = recurringInvoiceItemGenerator.generateItems(account, invoiceId, events, existingInvoices, historyWindow, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, context);
         invoice.addInvoiceItems(fixedAndRecurringItems);
 
         final List<InvoiceItem> usageItems = usageInvoiceItemGenerator.generateItems(account, invoiceId, events, existingInvoices, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, context);
@@ -20,6 +20,7 @@ package org.killbill.billing.invoice.generator;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -38,6 +39,7 @@ import org.killbill.billing.catalog.api.PhaseType;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata.SubscriptionFutureNotificationDates;
 import org.killbill.billing.invoice.model.FixedPriceInvoiceItem;
 import org.killbill.billing.invoice.model.InvalidDateSequenceException;
@@ -48,11 +50,14 @@ import org.killbill.billing.invoice.tree.AccountItemTree;
 import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.util.AccountDateAndTimeZoneContext;
+import org.killbill.billing.util.config.InvoiceConfig;
 import org.killbill.billing.util.currency.KillBillMoney;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
 
 import static org.killbill.billing.invoice.generator.InvoiceDateUtils.calculateNumberOfWholeBillingPeriods;
@@ -63,17 +68,47 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
 
     private static final Logger log = LoggerFactory.getLogger(FixedAndRecurringInvoiceItemGenerator.class);
 
+    private final int parallelItemTreeThreshold;
+    private final InvoiceExecutors invoiceExecutors;
+
     @Inject
-    public FixedAndRecurringInvoiceItemGenerator() {
+    public FixedAndRecurringInvoiceItemGenerator(final InvoiceConfig config, final InvoiceExecutors invoiceExecutors) {
+        this.parallelItemTreeThreshold = config.getParallelItemTreeThreshold();
+        this.invoiceExecutors = invoiceExecutors;
     }
 
     public List<InvoiceItem> generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
                                            @Nullable final List<Invoice> existingInvoices, final LocalDate targetDate,
                                            final Currency targetCurrency, Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
                                            final InternalCallContext internalCallContext) throws InvoiceApiException {
-        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId);
-        if (existingInvoices != null) {
-            for (final Invoice invoice : existingInvoices) {
+        return generateItems(account, invoiceId, eventSet, existingInvoices, null, targetDate, targetCurrency, perSubscriptionFutureNotificationDate, internalCallContext);
+    }
+
+    public List<InvoiceItem> generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
+                                           @Nullable final List<Invoice> existingInvoices, @Nullable final InvoiceHistoryWindow historyWindow,
+                                           final LocalDate targetDate, final Currency targetCurrency,
+                                           final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
+                                           final InternalCallContext internalCallContext) throws InvoiceApiException {
+        // Generate list of proposed invoice items based on billing events from junction-- proposed items are ALL items since beginning of time
+        final List<InvoiceItem> proposedItems = new ArrayList<InvoiceItem>();
+        processRecurringBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, existingInvoices);
+        processFixedBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems);
+
+        List<Invoice> invoices = existingInvoices;
+        if (historyWindow != null) {
+            final List<InvoiceItem> proposedItemsBeforeWindow = extractProposedItemsBeforeWindow(proposedItems, existingInvoices, historyWindow);
+            if (historyWindow.isConsistentWith(proposedItemsBeforeWindow, eventSet.getSubscriptionIdsWithAutoInvoiceOff())) {
+                // Periods before the window have already been billed and aren't part of the tree
+                proposedItems.removeAll(proposedItemsBeforeWindow);
+            } else {
+                log.info("Proposed items before {} don't match the billed items for accountId='{}', using the full history", historyWindow.getFromDate(), account.getId());
+                invoices = historyWindow.loadFullHistory();
+            }
+        }
+
+        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId, invoiceExecutors.getItemTreePool(), parallelItemTreeThreshold);
+        if (invoices != null) {
+            for (final Invoice invoice : invoices) {
                 for (final InvoiceItem item : invoice.getInvoiceItems()) {
                     if (item.getSubscriptionId() == null || // Always include migration invoices, credits, external charges etc.
                         !eventSet.getSubscriptionIdsWithAutoInvoiceOff()
@@ -84,15 +119,42 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
             }
         }
 
-        // Generate list of proposed invoice items based on billing events from junction-- proposed items are ALL items since beginning of time
-        final List<InvoiceItem> proposedItems = new ArrayList<InvoiceItem>();
-        processRecurringBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, existingInvoices);
-        processFixedBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems);
-
         accountItemTree.mergeWithProposedItems(proposedItems);
         return accountItemTree.getResultingItemList();
     }
 
+    // Proposed items before the window, except the ones within a recurring period loaded in the window (e.g. repaired before the window)
+    private List<InvoiceItem> extractProposedItemsBeforeWindow(final Iterable<InvoiceItem> proposedItems, @Nullable final Iterable<Invoice> windowedInvoices, final InvoiceHistoryWindow historyWindow) {
+        final Multimap<UUID, InvoiceItem> windowedRecurringItems = LinkedListMultimap.<UUID, InvoiceItem>create();
+        if (windowedInvoices != null) {
+            for (final Invoice invoice : windowedInvoices) {
+                for (final InvoiceItem item : invoice.getInvoiceItems()) {
+                    if (item.getInvoiceItemType() == InvoiceItemType.RECURRING) {
+                        windowedRecurringItems.put(item.getSubscriptionId(), item);
+                    }
+                }
+            }
+        }
+
+        final List<InvoiceItem> proposedItemsBeforeWindow = new LinkedList<InvoiceItem>();
+        for (final InvoiceItem proposedItem : proposedItems) {
+            if (!historyWindow.isBeforeWindow(proposedItem)) {
+                continue;
+            }
+            boolean isWithinWindowedItem = false;
+            for (final InvoiceItem windowedItem : windowedRecurringItems.get(proposedItem.getSubscriptionId())) {
+                if (!proposedItem.getStartDate().isBefore(windowedItem.getStartDate()) && proposedItem.getStartDate().isBefore(windowedItem.getEndDate())) {
+                    isWithinWindowedItem = true;
+                    break;
+                }
+            }
+            if (!isWithinWindowedItem) {
+                proposedItemsBeforeWindow.add(proposedItem);
+            }
+        }
+        return proposedItemsBeforeWindow;
+    }
+
     private void processRecurringBillingEvents(final UUID invoiceId, final UUID accountId, final BillingEventSet events,
                                                final LocalDate targetDate, final Currency currency, final List<InvoiceItem> proposedItems,
                                                final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.generator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.killbill.billing.util.config.InvoiceConfig;
+
+public class InvoiceExecutors {
+
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
+    private final InvoiceConfig invoiceConfig;
+
+    private volatile ForkJoinPool itemTreePool;
+
+    @Inject
+    public InvoiceExecutors(final InvoiceConfig invoiceConfig) {
+        this.invoiceConfig = invoiceConfig;
+    }
+
+    public void initialize() {
+        // Only created when parallel reconciliation is enabled
+        if (invoiceConfig.getParallelItemTreeThreshold() > 0) {
+            this.itemTreePool = new ForkJoinPool(Math.max(1, invoiceConfig.getParallelItemTreeThreadNb()));
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        final ForkJoinPool pool = itemTreePool;
+        if (pool == null) {
+            return;
+        }
+        itemTreePool = null;
+        pool.shutdownNow();
+        pool.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+    }
+
+    // Null when parallel reconciliation is disabled or the service isn't started: trees are then reconciled sequentially
+    @Nullable
+    public ForkJoinPool getItemTreePool() {
+        return itemTreePool;
+    }
+}
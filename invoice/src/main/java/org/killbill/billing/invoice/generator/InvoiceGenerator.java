@@ -32,4 +32,11 @@ import org.killbill.billing.junction.BillingEventSet;
 public interface InvoiceGenerator {
     InvoiceWithMetadata generateInvoice(ImmutableAccountData account,  @Nullable BillingEventSet events, @Nullable List<Invoice> existingInvoices,
                                         LocalDate targetDate, Currency targetCurrency, final InternalCallContext context) throws InvoiceApiException;
+
+    /**
+     * Generate the invoice from a bounded history: existingInvoices only contain the items overlapping the history window.
+     * The full history is loaded from the window if the proposed items before the window don't match its summary.
+     */
+    InvoiceWithMetadata generateInvoice(ImmutableAccountData account, @Nullable BillingEventSet events, @Nullable List<Invoice> existingInvoices,
+                                        InvoiceHistoryWindow historyWindow, LocalDate targetDate, Currency targetCurrency, final InternalCallContext context) throws InvoiceApiException;
 }
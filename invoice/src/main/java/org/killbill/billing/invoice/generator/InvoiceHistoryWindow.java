@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.generator;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.dao.InvoiceBilledPeriodsModelDao;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Bounds the invoice history used to generate an invoice.
+ * <p/>
+ * Only the existing items whose service period ends after <tt>fromDate</tt> (and the adjustments linked to them) are loaded.
+ * Older periods are summarized by the database: number of periods, first start date and last end date (and amount for fixed
+ * items) per subscription, plan, phase and rate. The proposed items for the same periods must have the same summary, otherwise a
+ * billing event changed before the window and the full history is loaded instead.
+ */
+public class InvoiceHistoryWindow {
+
+    private final LocalDate fromDate;
+    private final Map<PeriodsKey, Periods> billedPeriodsBeforeWindow;
+    private final Supplier<List<Invoice>> fullHistoryLoader;
+
+    /**
+     * @param billedPeriodsBeforeWindow summary of the fixed and recurring periods ending on or before fromDate
+     * @param fullHistoryLoader         loads all the invoices of the account, only called when the summary doesn't match
+     */
+    public InvoiceHistoryWindow(final LocalDate fromDate, final Iterable<InvoiceBilledPeriodsModelDao> billedPeriodsBeforeWindow, final Supplier<List<Invoice>> fullHistoryLoader) {
+        this.fromDate = fromDate;
+        this.fullHistoryLoader = fullHistoryLoader;
+
+        final ImmutableMap.Builder<PeriodsKey, Periods> builder = ImmutableMap.<PeriodsKey, Periods>builder();
+        for (final InvoiceBilledPeriodsModelDao billedPeriods : billedPeriodsBeforeWindow) {
+            builder.put(new PeriodsKey(billedPeriods.getSubscriptionId(), billedPeriods.getType(), billedPeriods.getPlanName(), billedPeriods.getPhaseName(), billedPeriods.getRate()),
+                        new Periods(billedPeriods.getType(), billedPeriods.getNbPeriods(), billedPeriods.getStartDate(), billedPeriods.getEndDate(), billedPeriods.getAmount()));
+        }
+        this.billedPeriodsBeforeWindow = builder.build();
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public List<Invoice> loadFullHistory() {
+        return fullHistoryLoader.get();
+    }
+
+    public boolean isBeforeWindow(final InvoiceItem item) {
+        return item.getEndDate() != null ? !item.getEndDate().isAfter(fromDate) : item.getStartDate().isBefore(fromDate);
+    }
+
+    /**
+     * @param proposedItemsBeforeWindow proposed fixed and recurring items for the periods before the window
+     */
+    public boolean isConsistentWith(final Iterable<InvoiceItem> proposedItemsBeforeWindow, final Collection<UUID> ignoredSubscriptionIds) {
+        final Map<PeriodsKey, Periods> proposedPeriods = new HashMap<PeriodsKey, Periods>();
+        for (final InvoiceItem item : proposedItemsBeforeWindow) {
+            if (isZeroAmount(item.getAmount()) || ignoredSubscriptionIds.contains(item.getSubscriptionId())) {
+                continue;
+            }
+            final PeriodsKey key = new PeriodsKey(item.getSubscriptionId(), item.getInvoiceItemType(), item.getPlanName(), item.getPhaseName(), item.getRate());
+            final Periods periods = new Periods(item.getInvoiceItemType(), 1, item.getStartDate(), item.getEndDate(), item.getAmount());
+            proposedPeriods.put(key, proposedPeriods.get(key) == null ? periods : proposedPeriods.get(key).merge(periods));
+        }
+
+        final Map<PeriodsKey, Periods> billedPeriods = new HashMap<PeriodsKey, Periods>();
+        for (final Map.Entry<PeriodsKey, Periods> entry : billedPeriodsBeforeWindow.entrySet()) {
+            if (!ignoredSubscriptionIds.contains(entry.getKey().subscriptionId)) {
+                billedPeriods.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return billedPeriods.equals(proposedPeriods);
+    }
+
+    private static boolean isZeroAmount(@Nullable final BigDecimal amount) {
+        return amount == null || amount.signum() == 0;
+    }
+
+    // Amounts read from the database don't have the same scale as the computed ones
+    private static BigDecimal normalize(@Nullable final BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+    }
+
+    private static final class PeriodsKey {
+
+        private final UUID subscriptionId;
+        private final InvoiceItemType type;
+        private final String planName;
+        private final String phaseName;
+        private final BigDecimal rate;
+
+        private PeriodsKey(final UUID subscriptionId, final InvoiceItemType type, final String planName, final String phaseName, @Nullable final BigDecimal rate) {
+            this.subscriptionId = subscriptionId;
+            this.type = type;
+            this.planName = planName;
+            this.phaseName = phaseName;
+            this.rate = normalize(rate);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final PeriodsKey that = (PeriodsKey) o;
+            return Objects.equal(subscriptionId, that.subscriptionId) &&
+                   type == that.type &&
+                   Objects.equal(planName, that.planName) &&
+                   Objects.equal(phaseName, that.phaseName) &&
+                   Objects.equal(rate, that.rate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(subscriptionId, type, planName, phaseName, rate);
+        }
+    }
+
+    private static final class Periods {
+
+        private final InvoiceItemType type;
+        private final int nbPeriods;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        // Only relevant for fixed items: recurring amounts are prorated from the rate (and repaired by proration)
+        private final BigDecimal amount;
+
+        private Periods(final InvoiceItemType type, final int nbPeriods, final LocalDate startDate, @Nullable final LocalDate endDate, @Nullable final BigDecimal amount) {
+            this.type = type;
+            this.nbPeriods = nbPeriods;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.amount = type == InvoiceItemType.FIXED ? normalize(amount) : null;
+        }
+
+        private Periods merge(final Periods other) {
+            return new Periods(type,
+                               nbPeriods + other.nbPeriods,
+                               startDate.isAfter(other.startDate) ? other.startDate : startDate,
+                               max(endDate, other.endDate),
+                               type == InvoiceItemType.FIXED ? amount.add(other.amount) : null);
+        }
+
+        @Nullable
+        private static LocalDate max(@Nullable final LocalDate date1, @Nullable final LocalDate date2) {
+            if (date1 == null) {
+                return date2;
+            } else if (date2 == null) {
+                return date1;
+            }
+            return date1.isAfter(date2) ? date1 : date2;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Periods that = (Periods) o;
+            return nbPeriods == that.nbPeriods &&
+                   Objects.equal(startDate, that.startDate) &&
+                   Objects.equal(endDate, that.endDate) &&
+                   Objects.equal(amount, that.amount);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(nbPeriods, startDate, endDate, amount);
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.killbill.billing.invoice.glue;
 
 import org.killbill.billing.glue.InvoiceModule;
 import org.killbill.billing.invoice.InvoiceDispatcher;
+import org.killbill.billing.invoice.InvoiceGenerationDebouncer;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.InvoiceTagHandler;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
@@ -36,14 +37,19 @@ import org.killbill.billing.invoice.api.invoice.DefaultInvoicePaymentApi;
 import org.killbill.billing.invoice.api.migration.DefaultInvoiceMigrationApi;
 import org.killbill.billing.invoice.api.svcs.DefaultInvoiceInternalApi;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceUserApi;
+import org.killbill.billing.invoice.caching.InvoiceTemplateCache;
+import org.killbill.billing.invoice.caching.InvoiceTemplateCacheInvalidationCallback;
 import org.killbill.billing.invoice.dao.CBADao;
 import org.killbill.billing.invoice.dao.DefaultInvoiceDao;
+import org.killbill.billing.invoice.dao.InvoiceAccountLedgerDao;
 import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceDaoHelper;
 import org.killbill.billing.invoice.generator.DefaultInvoiceGenerator;
 import org.killbill.billing.invoice.generator.FixedAndRecurringInvoiceItemGenerator;
+import org.killbill.billing.invoice.generator.InvoiceExecutors;
 import org.killbill.billing.invoice.generator.InvoiceGenerator;
 import org.killbill.billing.invoice.generator.UsageInvoiceItemGenerator;
+import org.killbill.billing.invoice.notification.BillRunEngine;
 import org.killbill.billing.invoice.notification.DefaultNextBillingDateNotifier;
 import org.killbill.billing.invoice.notification.DefaultNextBillingDatePoster;
 import org.killbill.billing.invoice.notification.EmailInvoiceNotifier;
@@ -55,15 +61,19 @@ import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactor
 import org.killbill.billing.invoice.usage.RawUsageOptimizer;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
 import org.killbill.billing.util.config.InvoiceConfig;
 import org.killbill.billing.util.glue.KillBillModule;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 import org.skife.config.ConfigurationObjectFactory;
 
 import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 
 public class DefaultInvoiceModule extends KillBillModule implements InvoiceModule {
 
+    public static final String INVOICE_TEMPLATE_INVALIDATION_CALLBACK = "invoiceTemplateInvalidationCallback";
+
     InvoiceConfig config;
 
     public DefaultInvoiceModule(final KillbillConfigSource configSource) {
@@ -74,6 +84,7 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
         bind(InvoiceDao.class).to(DefaultInvoiceDao.class).asEagerSingleton();
         bind(InvoiceDaoHelper.class).asEagerSingleton();
         bind(CBADao.class).asEagerSingleton();
+        bind(InvoiceAccountLedgerDao.class).asEagerSingleton();
     }
 
     @Override
@@ -98,9 +109,12 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
 
     protected void installInvoiceService() {
         bind(InvoiceService.class).to(DefaultInvoiceService.class).asEagerSingleton();
+        bind(InvoiceExecutors.class).asEagerSingleton();
     }
 
     protected void installResourceBundleFactory() {
+        bind(InvoiceTemplateCache.class).asEagerSingleton();
+        bind(CacheInvalidationCallback.class).annotatedWith(Names.named(INVOICE_TEMPLATE_INVALIDATION_CALLBACK)).to(InvoiceTemplateCacheInvalidationCallback.class).asEagerSingleton();
         bind(ResourceBundleFactory.class).to(DefaultResourceBundleFactory.class).asEagerSingleton();
     }
 
@@ -111,6 +125,7 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
 
     protected void installNotifiers() {
         bind(NextBillingDateNotifier.class).to(DefaultNextBillingDateNotifier.class).asEagerSingleton();
+        bind(BillRunEngine.class).asEagerSingleton();
         bind(NextBillingDatePoster.class).to(DefaultNextBillingDatePoster.class).asEagerSingleton();
         final TranslatorConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
         bind(TranslatorConfig.class).toInstance(config);
@@ -126,6 +141,7 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
     }
 
     protected void installInvoiceDispatcher() {
+        bind(InvoiceGenerationDebouncer.class).asEagerSingleton();
         bind(InvoiceDispatcher.class).asEagerSingleton();
     }
 
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
+import org.killbill.billing.invoice.dao.InvoiceBalanceModelDao;
+
+public class DefaultUnpaidInvoicesSummary implements UnpaidInvoicesSummary {
+
+    private final int nbUnpaidInvoices;
+    private final BigDecimal unpaidBalance;
+    private final UUID earliestUnpaidInvoiceId;
+    private final LocalDate earliestUnpaidInvoiceDate;
+
+    public DefaultUnpaidInvoicesSummary(final Iterable<InvoiceBalanceModelDao> unpaidInvoices) {
+        int nbInvoices = 0;
+        BigDecimal balance = BigDecimal.ZERO;
+        InvoiceBalanceModelDao earliest = null;
+        for (final InvoiceBalanceModelDao invoice : unpaidInvoices) {
+            nbInvoices++;
+            balance = balance.add(invoice.getBalance());
+            if (earliest == null || invoice.getInvoiceDate().isBefore(earliest.getInvoiceDate())) {
+                earliest = invoice;
+            }
+        }
+        this.nbUnpaidInvoices = nbInvoices;
+        this.unpaidBalance = balance;
+        this.earliestUnpaidInvoiceId = earliest == null ? null : earliest.getInvoiceId();
+        this.earliestUnpaidInvoiceDate = earliest == null ? null : earliest.getInvoiceDate();
+    }
+
+    @Override
+    public int getNbUnpaidInvoices() {
+        return nbUnpaidInvoices;
+    }
+
+    @Override
+    public BigDecimal getUnpaidBalance() {
+        return unpaidBalance;
+    }
+
+    @Override
+    public UUID getEarliestUnpaidInvoiceId() {
+        return earliestUnpaidInvoiceId;
+    }
+
+    @Override
+    public LocalDate getEarliestUnpaidInvoiceDate() {
+        return earliestUnpaidInvoiceDate;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultUnpaidInvoicesSummary{");
+        sb.append("nbUnpaidInvoices=").append(nbUnpaidInvoices);
+        sb.append(", unpaidBalance=").append(unpaidBalance);
+        sb.append(", earliestUnpaidInvoiceId=").append(earliestUnpaidInvoiceId);
+        sb.append(", earliestUnpaidInvoiceDate=").append(earliestUnpaidInvoiceDate);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.InvoiceListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Groups next billing date notifications by account and target date. The invoice generation runs on the notification
+ * queue thread and covers all the subscriptions of the account: a notification for an account and target date which is
+ * already being invoiced by another queue thread waits for that generation instead of running its own.
+ * <p/>
+ * Failures are rethrown on every notification thread waiting for the generation, for the notifications to be retried.
+ * Accounts are invoiced concurrently up to the number of notification queue threads (org.killbill.notificationq.main.notification.nbThreads).
+ */
+public class BillRunEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BillRunEngine.class);
+
+    private final InvoiceListener listener;
+
+    // Accounts being invoiced, by account record id and target date
+    private final ConcurrentMap<String, AccountBillRun> inFlightAccountBillRuns = new ConcurrentHashMap<String, AccountBillRun>();
+    private final BillRunStats stats = new BillRunStats();
+
+    @Inject
+    public BillRunEngine(final InvoiceListener listener) {
+        this.listener = listener;
+    }
+
+    public void processNextBillingDate(final UUID subscriptionId, final DateTime targetDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        final String key = String.format("%s::%s", accountRecordId, targetDate);
+        final AccountBillRun accountBillRun = new AccountBillRun();
+        final AccountBillRun existing = inFlightAccountBillRuns.putIfAbsent(key, accountBillRun);
+        if (existing != null) {
+            stats.onCoalesced();
+            try {
+                existing.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(String.format("Interrupted while waiting for invoice generation of accountRecordId='%s', targetDate='%s'", accountRecordId, targetDate), e);
+            }
+            existing.rethrowFailure();
+            return;
+        }
+
+        stats.onStarted();
+        final long startTimeMillis = System.currentTimeMillis();
+        try {
+            // The dispatcher invoices the whole account (all subscriptions) up to the target date, under the account lock
+            listener.handleNextBillingDateEvent(subscriptionId, targetDate, userToken, accountRecordId, tenantRecordId);
+        } catch (final RuntimeException e) {
+            accountBillRun.failure = e;
+            throw e;
+        } catch (final Error e) {
+            accountBillRun.failure = e;
+            throw e;
+        } finally {
+            inFlightAccountBillRuns.remove(key, accountBillRun);
+            accountBillRun.done.countDown();
+            stats.onProcessed(System.currentTimeMillis() - startTimeMillis);
+        }
+    }
+
+    @VisibleForTesting
+    BillRunStats getStats() {
+        return stats;
+    }
+
+    private static final class AccountBillRun {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile Throwable failure;
+
+        private void await() throws InterruptedException {
+            done.await();
+        }
+
+        private void rethrowFailure() {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+
+    // A run starts when a notification comes in while no account is being invoiced, and ends once all accounts have been processed
+    @VisibleForTesting
+    static final class BillRunStats {
+
+        private int nbInFlight;
+        private long runStartTimeMillis;
+        private long nbNotifications;
+        private long nbCoalesced;
+        private long nbAccounts;
+        private long totalProcessingTimeMillis;
+        private int maxInFlight;
+
+        private synchronized void onStarted() {
+            if (nbInFlight == 0) {
+                runStartTimeMillis = System.currentTimeMillis();
+                nbNotifications = 0;
+                nbCoalesced = 0;
+                nbAccounts = 0;
+                totalProcessingTimeMillis = 0;
+                maxInFlight = 0;
+            }
+            nbInFlight++;
+            nbNotifications++;
+            maxInFlight = Math.max(maxInFlight, nbInFlight);
+        }
+
+        private synchronized void onCoalesced() {
+            nbNotifications++;
+            nbCoalesced++;
+        }
+
+        private synchronized void onProcessed(final long processingTimeMillis) {
+            nbInFlight--;
+            nbAccounts++;
+            totalProcessingTimeMillis += processingTimeMillis;
+
+            if (nbInFlight == 0 && log.isDebugEnabled()) {
+                final long runTimeMillis = Math.max(1, System.currentTimeMillis() - runStartTimeMillis);
+                log.debug("Bill run completed: nbNotifications='{}', nbCoalesced='{}', nbAccounts='{}', runTimeMs='{}', accountsPerSec='{}', avgProcessingTimeMs='{}', maxInFlight='{}'",
+                          nbNotifications, nbCoalesced, nbAccounts, runTimeMillis, (nbAccounts * 1000) / runTimeMillis,
+                          totalProcessingTimeMillis / nbAccounts, maxInFlight);
+            }
+        }
+
+        synchronized long getNbNotifications() {
+            return nbNotifications;
+        }
+
+        synchronized long getNbCoalesced() {
+            return nbCoalesced;
+        }
+
+        synchronized long getNbAccounts() {
+            return nbAccounts;
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
     private final SubscriptionBaseInternalApi subscriptionApi;
     private final InvoiceListener listener;
     private final InternalCallContextFactory callContextFactory;
+    private final BillRunEngine billRunEngine;
 
     private NotificationQueue nextBillingQueue;
 
@@ -56,17 +57,18 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
                                           final InvoiceConfig config,
                                           final SubscriptionBaseInternalApi subscriptionApi,
                                           final InvoiceListener listener,
-                                          final InternalCallContextFactory callContextFactory) {
+                                          final InternalCallContextFactory callContextFactory,
+                                          final BillRunEngine billRunEngine) {
         this.notificationQueueService = notificationQueueService;
         this.config = config;
         this.subscriptionApi = subscriptionApi;
         this.listener = listener;
         this.callContextFactory = callContextFactory;
+        this.billRunEngine = billRunEngine;
     }
 
     @Override
     public void initialize() throws NotificationQueueAlreadyExists {
-
         final NotificationQueueHandler notificationQueueHandler = new NotificationQueueHandler() {
             @Override
             public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
@@ -116,7 +118,7 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
     }
 
     private void processEventForInvoiceGeneration(final UUID subscriptionId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
-        listener.handleNextBillingDateEvent(subscriptionId, eventDateTime, userToken, accountRecordId, tenantRecordId);
+        billRunEngine.processNextBillingDate(subscriptionId, eventDateTime, userToken, accountRecordId, tenantRecordId);
     }
 
     private void processEventForInvoiceNotification(final UUID subscriptionId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
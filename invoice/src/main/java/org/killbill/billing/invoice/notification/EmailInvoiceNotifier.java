@@ -41,7 +41,6 @@ import org.killbill.billing.util.email.EmailApiException;
 import org.killbill.billing.util.email.EmailConfig;
 import org.killbill.billing.util.email.EmailSender;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 
 import com.google.common.base.Strings;
 import com.google.inject.Inject;
@@ -84,14 +83,7 @@ public class EmailInvoiceNotifier implements InvoiceNotifier {
         }
 
         // Check if this account has the MANUAL_PAY system tag
-        boolean manualPay = false;
-        final List<Tag> accountTags = tagUserApi.getTags(account.getId(), ObjectType.ACCOUNT, internalTenantContext);
-        for (final Tag tag : accountTags) {
-            if (ControlTagType.MANUAL_PAY.getId().equals(tag.getTagDefinitionId())) {
-                manualPay = true;
-                break;
-            }
-        }
+        final boolean manualPay = tagUserApi.isControlTagSet(account.getId(), ObjectType.ACCOUNT, ControlTagType.MANUAL_PAY, internalTenantContext);
 
         final HtmlInvoice htmlInvoice;
         try {
@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -34,8 +36,10 @@ import org.killbill.billing.invoice.api.formatters.InvoiceFormatter;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory.ResourceBundleType;
+import org.killbill.billing.invoice.caching.InvoiceTemplateCache;
 import org.killbill.billing.invoice.template.translator.DefaultInvoiceTranslator;
 import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.util.LocaleUtils;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.email.templates.TemplateEngine;
@@ -44,6 +48,7 @@ import org.killbill.billing.util.template.translation.TranslatorConfig;
 import org.killbill.xmlloader.UriAccessor;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 import com.google.inject.Inject;
 
 public class HtmlInvoiceGenerator {
@@ -54,6 +59,10 @@ public class HtmlInvoiceGenerator {
     private final TemplateEngine templateEngine;
     private final TenantInternalApi tenantApi;
     private final ResourceBundleFactory bundleFactory;
+    private final InvoiceTemplateCache templateCache;
+
+    // Default templates from the classpath or the filesystem, which don't change at runtime
+    private final ConcurrentMap<String, String> defaultTemplates = new ConcurrentHashMap<String, String>();
 
     @Inject
     public HtmlInvoiceGenerator(final InvoiceFormatterFactory factory,
@@ -61,13 +70,15 @@ public class HtmlInvoiceGenerator {
                                 final TranslatorConfig config,
                                 final CurrencyConversionApi currencyConversionApi,
                                 final ResourceBundleFactory bundleFactory,
-                                final TenantInternalApi tenantInternalApi) {
+                                final TenantInternalApi tenantInternalApi,
+                                final InvoiceTemplateCache templateCache) {
         this.factory = factory;
         this.config = config;
         this.currencyConversionApi = currencyConversionApi;
         this.templateEngine = templateEngine;
         this.bundleFactory = bundleFactory;
         this.tenantApi = tenantInternalApi;
+        this.templateCache = templateCache;
     }
 
     public HtmlInvoice generateInvoice(final Account account, @Nullable final Invoice invoice, final boolean manualPay, final InternalTenantContext context) throws IOException {
@@ -104,20 +115,35 @@ public class HtmlInvoiceGenerator {
         if (context.getTenantRecordId() == InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
             return getDefaultTemplate(manualPay ? config.getManualPayTemplateName() : config.getTemplateName());
         }
-        final String template = manualPay ?
-                                tenantApi.getManualPayInvoiceTemplate(locale, context) :
-                                tenantApi.getInvoiceTemplate(locale, context);
+        final TenantKey templateKey = manualPay ? TenantKey.INVOICE_MP_TEMPLATE : TenantKey.INVOICE_TEMPLATE;
+        final String template = templateCache.get(LocaleUtils.localeString(locale, templateKey.toString()), context, new Supplier<String>() {
+            @Override
+            public String get() {
+                return manualPay ?
+                       tenantApi.getManualPayInvoiceTemplate(locale, context) :
+                       tenantApi.getInvoiceTemplate(locale, context);
+            }
+        });
         return template == null ?
                getDefaultTemplate(manualPay ? config.getManualPayTemplateName() : config.getTemplateName()) :
                template;
     }
 
     private String getDefaultTemplate(final String templateName) throws IOException {
+        final String cachedTemplate = defaultTemplates.get(templateName);
+        if (cachedTemplate != null) {
+            return cachedTemplate;
+        }
+
+        final String template;
         try {
             final InputStream templateStream = UriAccessor.accessUri(templateName);
-            return IOUtils.toString(templateStream);
+            template = IOUtils.toString(templateStream);
         } catch (URISyntaxException e) {
             throw new IOException(e);
         }
+        // Return the cached instance, so that the template engine sees the same string on each render
+        final String existingTemplate = defaultTemplates.putIfAbsent(templateName, template);
+        return existingTemplate != null ? existingTemplate : template;
     }
 }
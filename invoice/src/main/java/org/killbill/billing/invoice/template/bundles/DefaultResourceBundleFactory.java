@@ -25,35 +25,55 @@ import java.util.Locale;
 import java.util.MissingResourceException;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
+import org.killbill.billing.invoice.caching.InvoiceTemplateCache;
 import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.util.LocaleUtils;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.xmlloader.UriAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
 
 public class DefaultResourceBundleFactory implements ResourceBundleFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultResourceBundleFactory.class);
 
     private final TenantInternalApi tenantApi;
+    private final InvoiceTemplateCache templateCache;
+
+    // Bundles from the classpath or the filesystem, which don't change at runtime
+    private final ConcurrentMap<String, ResourceBundle> globalBundles = new ConcurrentHashMap<String, ResourceBundle>();
 
     @Inject
-    public DefaultResourceBundleFactory(final TenantInternalApi tenantApi) {
+    public DefaultResourceBundleFactory(final TenantInternalApi tenantApi, final InvoiceTemplateCache templateCache) {
         this.tenantApi = tenantApi;
+        this.templateCache = templateCache;
     }
 
     @Override
     public ResourceBundle createBundle(final Locale locale, final String bundlePath, final ResourceBundleType type, final InternalTenantContext tenantContext) {
         if (tenantContext.getTenantRecordId() == InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID) {
-            return getGlobalBundle(locale, bundlePath);
+            return getCachedGlobalBundle(locale, bundlePath);
         }
+        final ResourceBundle tenantBundle = templateCache.get(LocaleUtils.localeString(locale, type.toString()), tenantContext, new Supplier<ResourceBundle>() {
+            @Override
+            public ResourceBundle get() {
+                return getTenantBundle(locale, type, tenantContext);
+            }
+        });
+        return tenantBundle != null ? tenantBundle : getCachedGlobalBundle(locale, bundlePath);
+    }
+
+    private ResourceBundle getTenantBundle(final Locale locale, final ResourceBundleType type, final InternalTenantContext tenantContext) {
         final String bundle = getTenantBundleForType(locale, type, tenantContext);
         if (bundle != null) {
             try {
@@ -63,7 +83,20 @@ public class DefaultResourceBundleFactory implements ResourceBundleFactory {
                 // Fall through...
             }
         }
-        return getGlobalBundle(locale, bundlePath);
+        return null;
+    }
+
+    private ResourceBundle getCachedGlobalBundle(final Locale locale, final String bundlePath) {
+        final String key = LocaleUtils.localeString(locale, bundlePath);
+        final ResourceBundle cachedBundle = globalBundles.get(key);
+        if (cachedBundle != null) {
+            return cachedBundle;
+        }
+        final ResourceBundle bundle = getGlobalBundle(locale, bundlePath);
+        if (bundle != null) {
+            globalBundles.putIfAbsent(key, bundle);
+        }
+        return bundle;
     }
 
     private String getTenantBundleForType(final Locale locale, final ResourceBundleType type, final InternalTenantContext tenantContext) {
@@ -24,6 +24,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
 
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
@@ -46,6 +52,10 @@ import com.google.common.collect.Iterables;
  * <li>Merge the proposed list
  * <li>Retrieves final list
  * <ul/>
+ * <p/>
+ * <p>When a pool is specified and the number of subscriptions reaches the threshold, the per subscription trees are built
+ * and merged concurrently on that pool: each <tt>SubscriptionItemTree</tt> is only ever accessed by one task at a time,
+ * and the resulting list is identical to the one computed sequentially.
  */
 public class AccountItemTree {
 
@@ -53,12 +63,20 @@ public class AccountItemTree {
     private final UUID targetInvoiceId;
     private final Map<UUID, SubscriptionItemTree> subscriptionItemTree;
     private final List<InvoiceItem> allExistingItems;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
     private List<InvoiceItem> pendingItemAdj;
 
     private boolean isBuilt;
 
     public AccountItemTree(final UUID accountId, final UUID targetInvoiceId) {
+        this(accountId, targetInvoiceId, null, 0);
+    }
+
+    public AccountItemTree(final UUID accountId, final UUID targetInvoiceId, @Nullable final ForkJoinPool pool, final int parallelThreshold) {
         this.accountId = accountId;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
         this.targetInvoiceId = targetInvoiceId;
         this.subscriptionItemTree = new HashMap<UUID, SubscriptionItemTree>();
         this.isBuilt = false;
@@ -78,9 +96,12 @@ public class AccountItemTree {
             }
             pendingItemAdj.clear();
         }
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.build();
-        }
+        forEachTree(new TreeOperation() {
+            @Override
+            public void apply(final SubscriptionItemTree tree) {
+                tree.build();
+            }
+        });
         isBuilt = true;
     }
 
@@ -153,9 +174,12 @@ public class AccountItemTree {
     public void mergeWithProposedItems(final List<InvoiceItem> proposedItems) {
 
         build();
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.flatten(true);
-        }
+        forEachTree(new TreeOperation() {
+            @Override
+            public void apply(final SubscriptionItemTree tree) {
+                tree.flatten(true);
+            }
+        });
 
         for (InvoiceItem item : proposedItems) {
             final UUID subscriptionId = getSubscriptionId(item, null);
@@ -167,9 +191,12 @@ public class AccountItemTree {
             tree.mergeProposedItem(item);
         }
 
-        for (SubscriptionItemTree tree : subscriptionItemTree.values()) {
-            tree.buildForMerge();
-        }
+        forEachTree(new TreeOperation() {
+            @Override
+            public void apply(final SubscriptionItemTree tree) {
+                tree.buildForMerge();
+            }
+        });
     }
 
     /**
@@ -190,6 +217,52 @@ public class AccountItemTree {
         return accountId;
     }
 
+    private boolean isParallel() {
+        return pool != null && parallelThreshold > 0 && subscriptionItemTree.size() >= parallelThreshold;
+    }
+
+    private void forEachTree(final TreeOperation operation) {
+        if (!isParallel()) {
+            for (final SubscriptionItemTree tree : subscriptionItemTree.values()) {
+                operation.apply(tree);
+            }
+            return;
+        }
+
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(subscriptionItemTree.size());
+        for (final SubscriptionItemTree tree : subscriptionItemTree.values()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    operation.apply(tree);
+                    return null;
+                }
+            });
+        }
+
+        // invokeAll waits for all tasks, so the trees are safely published back to the calling thread
+        for (final Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reconciling item trees for account " + accountId, e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private interface TreeOperation {
+
+        void apply(SubscriptionItemTree tree);
+    }
+
     private UUID getSubscriptionId(final InvoiceItem item, final List<InvoiceItem> allItems) {
         if (item.getInvoiceItemType() == InvoiceItemType.RECURRING ||
             item.getInvoiceItemType() == InvoiceItemType.FIXED) {
@@ -75,3 +75,17 @@ CREATE UNIQUE INDEX invoice_payments_id ON invoice_payments(id);
 CREATE INDEX invoice_payments_invoice_id ON invoice_payments(invoice_id);
 CREATE INDEX invoice_payments_reversals ON invoice_payments(linked_invoice_payment_id);
 CREATE INDEX invoice_payments_tenant_account_record_id ON invoice_payments(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_account_ledgers;
+CREATE TABLE invoice_account_ledgers (
+    record_id serial unique,
+    balance numeric(15,9) NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_account_ledgers_account_record_id ON invoice_account_ledgers(account_record_id);
+CREATE INDEX invoice_account_ledgers_tenant_account_record_id ON invoice_account_ledgers(tenant_record_id, account_record_id);
@@ -0,0 +1,12 @@
+CREATE TABLE invoice_account_ledgers (
+    record_id serial unique,
+    balance numeric(15,9) NOT NULL,
+    cba numeric(15,9) NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX invoice_account_ledgers_account_record_id ON invoice_account_ledgers(account_record_id);
+CREATE INDEX invoice_account_ledgers_tenant_account_record_id ON invoice_account_ledgers(tenant_record_id, account_record_id);
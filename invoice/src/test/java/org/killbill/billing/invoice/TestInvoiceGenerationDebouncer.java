@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.InvoiceGenerationDebouncer.InvoiceGeneration;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class TestInvoiceGenerationDebouncer {
+
+    @Test(groups = "fast")
+    public void testCoalesceTriggersArrivingDuringAPass() throws Exception {
+        final InvoiceGenerationDebouncer debouncer = createDebouncer("0s");
+        final CountDownLatch firstGenerationLatch = new CountDownLatch(1);
+        final List<DateTime> generatedTargetDates = new CopyOnWriteArrayList<DateTime>();
+        final InvoiceGeneration generation = new InvoiceGeneration() {
+            @Override
+            public Invoice generate(final DateTime targetDate) {
+                generatedTargetDates.add(targetDate);
+                if (generatedTargetDates.size() == 1) {
+                    try {
+                        firstGenerationLatch.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return null;
+            }
+        };
+
+        final UUID accountId = UUID.randomUUID();
+        final DateTime targetDate = new DateTime(2016, 11, 1, 10, 0);
+        final UUID userToken = UUID.randomUUID();
+
+        // Keep the first pass running
+        final Thread first = processInBackground(debouncer, accountId, targetDate, userToken, generation);
+        await().atMost(5, SECONDS).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return generatedTargetDates.size() == 1;
+            }
+        });
+
+        // Back-to-back triggers for the same day, posted after the first pass started
+        final Thread[] threads = new Thread[]{processInBackground(debouncer, accountId, targetDate.plusMinutes(1), userToken, generation),
+                                              processInBackground(debouncer, accountId, targetDate.plusMinutes(5), userToken, generation),
+                                              processInBackground(debouncer, accountId, targetDate.plusMinutes(2), userToken, generation)};
+        await().atMost(5, SECONDS).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                // One follow-up pass, joined by the two other triggers
+                return debouncer.getNbCoalesced() == 2;
+            }
+        });
+        Assert.assertEquals(debouncer.getNbTriggers(), 4);
+        Assert.assertEquals(generatedTargetDates.size(), 1);
+        firstGenerationLatch.countDown();
+
+        first.join(10000);
+        Assert.assertFalse(first.isAlive());
+        for (final Thread thread : threads) {
+            thread.join(10000);
+            Assert.assertFalse(thread.isAlive());
+        }
+
+        // A single follow-up pass, up to the latest target date
+        Assert.assertEquals(debouncer.getNbGenerations(), 2);
+        Assert.assertEquals(generatedTargetDates.size(), 2);
+        Assert.assertEquals(generatedTargetDates.get(1).compareTo(targetDate.plusMinutes(5)), 0);
+
+        // Once the passes are over, a new trigger generates again
+        debouncer.process(accountId, targetDate, userToken, generation);
+        Assert.assertEquals(generatedTargetDates.size(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testDoNotCoalesceDifferentDaysOrOperations() throws Exception {
+        final InvoiceGenerationDebouncer debouncer = createDebouncer("0s");
+        final List<DateTime> generatedTargetDates = new CopyOnWriteArrayList<DateTime>();
+        final InvoiceGeneration generation = new InvoiceGeneration() {
+            @Override
+            public Invoice generate(final DateTime targetDate) {
+                generatedTargetDates.add(targetDate);
+                return null;
+            }
+        };
+
+        final UUID accountId = UUID.randomUUID();
+        final DateTime targetDate = new DateTime(2016, 11, 1, 10, 0);
+        final UUID userToken = UUID.randomUUID();
+
+        debouncer.process(accountId, targetDate, userToken, generation);
+        debouncer.process(accountId, targetDate.plusDays(1), userToken, generation);
+        debouncer.process(accountId, targetDate, UUID.randomUUID(), generation);
+
+        Assert.assertEquals(debouncer.getNbTriggers(), 3);
+        Assert.assertEquals(debouncer.getNbGenerations(), 3);
+        Assert.assertEquals(generatedTargetDates.size(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testReuseCompletedPassWithinWindow() throws Exception {
+        final InvoiceGenerationDebouncer debouncer = createDebouncer("1h");
+        final List<DateTime> generatedTargetDates = new CopyOnWriteArrayList<DateTime>();
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        final InvoiceGeneration generation = new InvoiceGeneration() {
+            @Override
+            public Invoice generate(final DateTime targetDate) {
+                generatedTargetDates.add(targetDate);
+                return invoice;
+            }
+        };
+
+        final UUID accountId = UUID.randomUUID();
+        final DateTime targetDate = new DateTime(2016, 11, 1, 10, 0);
+        final UUID userToken = UUID.randomUUID();
+
+        // Back-to-back triggers for the same day and user token, once the first pass is over
+        Assert.assertEquals(debouncer.process(accountId, targetDate, userToken, generation), invoice);
+        Assert.assertEquals(debouncer.process(accountId, targetDate.plusMinutes(1), userToken, generation), invoice);
+        Assert.assertEquals(debouncer.process(accountId, targetDate, userToken, generation), invoice);
+        Assert.assertEquals(generatedTargetDates.size(), 1);
+        Assert.assertEquals(debouncer.getNbCoalesced(), 2);
+
+        // Other days and user tokens still generate
+        debouncer.process(accountId, targetDate.plusDays(1), userToken, generation);
+        debouncer.process(accountId, targetDate, UUID.randomUUID(), generation);
+        Assert.assertEquals(generatedTargetDates.size(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testDoNotReuseFailedPass() throws Exception {
+        final InvoiceGenerationDebouncer debouncer = createDebouncer("1h");
+        final List<DateTime> generatedTargetDates = new CopyOnWriteArrayList<DateTime>();
+        final InvoiceGeneration generation = new InvoiceGeneration() {
+            @Override
+            public Invoice generate(final DateTime targetDate) {
+                generatedTargetDates.add(targetDate);
+                if (generatedTargetDates.size() == 1) {
+                    throw new IllegalStateException("boom");
+                }
+                return null;
+            }
+        };
+
+        final UUID accountId = UUID.randomUUID();
+        final DateTime targetDate = new DateTime(2016, 11, 1, 10, 0);
+        final UUID userToken = UUID.randomUUID();
+        try {
+            debouncer.process(accountId, targetDate, userToken, generation);
+            Assert.fail("Generation should have failed");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "boom");
+        }
+        Assert.assertNull(debouncer.process(accountId, targetDate, userToken, generation));
+        Assert.assertEquals(generatedTargetDates.size(), 2);
+    }
+
+    private InvoiceGenerationDebouncer createDebouncer(final String debounceWindow) {
+        final InvoiceConfig invoiceConfig = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(invoiceConfig.getGenerationDebounceWindow()).thenReturn(new TimeSpan(debounceWindow));
+        return new InvoiceGenerationDebouncer(invoiceConfig);
+    }
+
+    private Thread processInBackground(final InvoiceGenerationDebouncer debouncer, final UUID accountId, final DateTime targetDate,
+                                       final UUID userToken, final InvoiceGeneration generation) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    debouncer.process(accountId, targetDate, userToken, generation);
+                } catch (final Exception e) {
+                    Assert.fail(e.getMessage());
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -213,7 +213,7 @@ public class TestInvoiceHelper {
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(generator, accountApi, billingApi, subscriptionApi,
                                                                    invoiceDao, internalCallContextFactory, invoiceNotifier, invoicePluginDispatcher, locker, busService.getBus(),
-                                                                   null, invoiceConfig, clock);
+                                                                   null, invoiceConfig, new InvoiceGenerationDebouncer(invoiceConfig), clock);
 
         Invoice invoice = dispatcher.processAccount(account.getId(), targetDate, new DryRunFutureDateArguments(), internalCallContext);
         Assert.assertNotNull(invoice);
@@ -266,6 +266,8 @@ public class TestInvoiceHelper {
 
     public void createInvoiceItem(final InvoiceItem invoiceItem, final InternalCallContext internalCallContext) throws EntityPersistenceException {
         invoiceItemSqlDao.create(new InvoiceItemModelDao(invoiceItem), internalCallContext);
+        // Bypasses the DAO, so the account ledger needs to catch up
+        invoiceDao.rebuildAccountLedger(internalCallContext);
     }
 
     public InvoiceItemModelDao getInvoiceItemById(final UUID invoiceItemId, final InternalCallContext internalCallContext) {
@@ -310,6 +312,7 @@ public class TestInvoiceHelper {
     public void createPayment(final InvoicePayment invoicePayment, final InternalCallContext internalCallContext) {
         try {
             invoicePaymentSqlDao.create(new InvoicePaymentModelDao(invoicePayment), internalCallContext);
+            invoiceDao.rebuildAccountLedger(internalCallContext);
         } catch (final EntityPersistenceException e) {
             Assert.fail(e.getMessage());
         }
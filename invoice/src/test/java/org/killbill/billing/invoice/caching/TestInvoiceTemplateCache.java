@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.caching;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+
+public class TestInvoiceTemplateCache extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testCacheAndInvalidatePerTenant() {
+        final InvoiceTemplateCache cache = new InvoiceTemplateCache();
+        final InternalTenantContext tenantContext = new InternalTenantContext(1L);
+        final InternalTenantContext otherTenantContext = new InternalTenantContext(2L);
+
+        final AtomicInteger nbLoads = new AtomicInteger();
+        final Supplier<String> loader = new Supplier<String>() {
+            @Override
+            public String get() {
+                return "template-" + nbLoads.incrementAndGet();
+            }
+        };
+
+        Assert.assertEquals(cache.get("INVOICE_TEMPLATE_en_US", tenantContext, loader), "template-1");
+        Assert.assertEquals(cache.get("INVOICE_TEMPLATE_en_US", tenantContext, loader), "template-1");
+        Assert.assertEquals(cache.get("INVOICE_TEMPLATE_en_US", otherTenantContext, loader), "template-2");
+        Assert.assertEquals(nbLoads.get(), 2);
+
+        // Only the entries of the invalidated tenant are reloaded
+        cache.clearTenant(tenantContext);
+        Assert.assertEquals(cache.get("INVOICE_TEMPLATE_en_US", tenantContext, loader), "template-3");
+        Assert.assertEquals(cache.get("INVOICE_TEMPLATE_en_US", otherTenantContext, loader), "template-2");
+        Assert.assertEquals(nbLoads.get(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testCacheMissingValue() {
+        final InvoiceTemplateCache cache = new InvoiceTemplateCache();
+        final InternalTenantContext tenantContext = new InternalTenantContext(1L);
+
+        final AtomicInteger nbLoads = new AtomicInteger();
+        final Supplier<String> loader = new Supplier<String>() {
+            @Override
+            public String get() {
+                nbLoads.incrementAndGet();
+                return null;
+            }
+        };
+
+        Assert.assertNull(cache.get("INVOICE_TRANSLATION_fr_FR", tenantContext, loader));
+        Assert.assertNull(cache.get("INVOICE_TRANSLATION_fr_FR", tenantContext, loader));
+        Assert.assertEquals(nbLoads.get(), 1);
+    }
+}
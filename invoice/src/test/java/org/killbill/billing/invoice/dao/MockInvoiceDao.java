@@ -34,7 +34,9 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.InvoiceDispatcher.FutureAccountNotifications;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.api.user.DefaultInvoiceCreationEvent;
+import org.killbill.billing.invoice.model.DefaultUnpaidInvoicesSummary;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.MockEntityDaoBase;
@@ -42,6 +44,7 @@ import org.killbill.bus.api.PersistentBus;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice, InvoiceApiException> implements InvoiceDao {
@@ -161,6 +164,17 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return invoicesForAccount;
     }
 
+    @Override
+    public List<InvoiceModelDao> getInvoicesByAccountOverlappingDate(final LocalDate fromDate, final InternalTenantContext context) {
+        return getInvoicesByAccount(context);
+    }
+
+    @Override
+    public List<InvoiceBilledPeriodsModelDao> getBilledPeriodsBeforeDate(final LocalDate fromDate, final InternalTenantContext context) {
+        // No summary: callers fall back to the full history as soon as a period is before the window
+        return ImmutableList.<InvoiceBilledPeriodsModelDao>of();
+    }
+
     @Override
     public List<InvoiceModelDao> getInvoicesBySubscription(final UUID subscriptionId, final InternalTenantContext context) {
         final List<InvoiceModelDao> result = new ArrayList<InvoiceModelDao>();
@@ -278,6 +292,15 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return unpaidInvoices;
     }
 
+    @Override
+    public UnpaidInvoicesSummary getUnpaidInvoicesSummaryByAccountId(final UUID accountId, final LocalDate upToDate, final InternalTenantContext context) {
+        final List<InvoiceBalanceModelDao> unpaidInvoiceBalances = new ArrayList<InvoiceBalanceModelDao>();
+        for (final InvoiceModelDao invoice : getUnpaidInvoicesByAccountId(accountId, upToDate, context)) {
+            unpaidInvoiceBalances.add(new InvoiceBalanceModelDao(invoice.getId(), invoice.getInvoiceDate(), invoice.getCurrency(), InvoiceModelDaoHelper.getBalance(invoice)));
+        }
+        return new DefaultUnpaidInvoicesSummary(unpaidInvoiceBalances);
+    }
+
     @Override
     public List<InvoiceModelDao> getAllInvoicesByAccount(final InternalTenantContext context) {
         final List<InvoiceModelDao> result = new ArrayList<InvoiceModelDao>();
@@ -349,6 +372,10 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return null;
     }
 
+    @Override
+    public void rebuildAccountLedger(final InternalCallContext context) {
+    }
+
     @Override
     public InvoicePaymentModelDao createRefund(final UUID paymentId, final BigDecimal amount, final boolean isInvoiceAdjusted,
                                                final Map<UUID, BigDecimal> invoiceItemIdsWithAmounts, final String transactionExternalKey,
@@ -53,6 +53,7 @@ import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata;
 import org.killbill.billing.invoice.model.CreditAdjInvoiceItem;
 import org.killbill.billing.invoice.model.CreditBalanceAdjInvoiceItem;
@@ -69,13 +70,17 @@ import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.clock.ClockMock;
 import org.mockito.Mockito;
+import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.exceptions.TransactionFailedException;
+import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 
 import static org.killbill.billing.invoice.TestInvoiceHelper.FIVE;
 import static org.killbill.billing.invoice.TestInvoiceHelper.TEN;
@@ -292,6 +297,78 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(items4.size(), 1);
     }
 
+    @Test(groups = "slow")
+    public void testGetInvoicesByAccountOverlappingDate() throws EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+        final UUID subscriptionId1 = UUID.randomUUID();
+        final UUID subscriptionId2 = UUID.randomUUID();
+        final BigDecimal rate1 = new BigDecimal("10.0");
+        final BigDecimal rate2 = new BigDecimal("20.0");
+        final LocalDate fromDate = new LocalDate(2011, 2, 1);
+
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 1, 1), Currency.USD);
+        invoiceUtil.createInvoice(invoice1, true, context);
+        final RecurringInvoiceItem item1 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, subscriptionId1, "test plan", "test A", new LocalDate(2011, 1, 1), fromDate,
+                                                                    rate1, rate1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+        final RecurringInvoiceItem item2 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, subscriptionId2, "test plan", "test B", new LocalDate(2011, 1, 1), fromDate,
+                                                                    rate2, rate2, Currency.USD);
+        invoiceUtil.createInvoiceItem(item2, context);
+
+        final Invoice invoice2 = new DefaultInvoice(accountId, clock.getUTCToday(), fromDate, Currency.USD);
+        invoiceUtil.createInvoice(invoice2, true, context);
+        final RecurringInvoiceItem item3 = new RecurringInvoiceItem(invoice2.getId(), accountId, bundleId, subscriptionId1, "test plan", "test A", fromDate, fromDate.plusMonths(1),
+                                                                    rate1, rate1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item3, context);
+        final RecurringInvoiceItem item4 = new RecurringInvoiceItem(invoice2.getId(), accountId, bundleId, subscriptionId2, "test plan", "test B", fromDate, fromDate.plusMonths(1),
+                                                                    rate2, rate2, Currency.USD);
+        invoiceUtil.createInvoiceItem(item4, context);
+        // Repair of a period before the window, billed on an invoice in the window
+        final RepairAdjInvoiceItem repair = new RepairAdjInvoiceItem(invoice2.getId(), accountId, new LocalDate(2011, 1, 15), fromDate, new BigDecimal("-5.0"), Currency.USD, item1.getId());
+        invoiceUtil.createInvoiceItem(repair, context);
+
+        final List<InvoiceModelDao> invoices = invoiceDao.getInvoicesByAccountOverlappingDate(fromDate, context);
+        assertEquals(invoices.size(), 1);
+        assertEquals(invoices.get(0).getId(), invoice2.getId());
+        assertEquals(invoices.get(0).getInvoiceItems().size(), 2);
+        for (final InvoiceItemModelDao item : invoices.get(0).getInvoiceItems()) {
+            assertTrue(item.getId().equals(item3.getId()) || item.getId().equals(item4.getId()));
+        }
+
+        // Periods before the window are summarized per subscription, net of their repairs
+        final List<InvoiceBilledPeriodsModelDao> billedPeriods = invoiceDao.getBilledPeriodsBeforeDate(fromDate, context);
+        assertEquals(billedPeriods.size(), 2);
+        final InvoiceBilledPeriodsModelDao billedPeriods1 = findBilledPeriods(billedPeriods, subscriptionId1);
+        assertEquals(billedPeriods1.getType(), InvoiceItemType.RECURRING);
+        assertEquals(billedPeriods1.getPlanName(), "test plan");
+        assertEquals(billedPeriods1.getPhaseName(), "test A");
+        assertEquals(billedPeriods1.getRate().compareTo(rate1), 0);
+        assertEquals(billedPeriods1.getNbPeriods(), 1);
+        assertEquals(billedPeriods1.getStartDate(), new LocalDate(2011, 1, 1));
+        assertEquals(billedPeriods1.getEndDate(), new LocalDate(2011, 1, 15));
+        final InvoiceBilledPeriodsModelDao billedPeriods2 = findBilledPeriods(billedPeriods, subscriptionId2);
+        assertEquals(billedPeriods2.getNbPeriods(), 1);
+        assertEquals(billedPeriods2.getEndDate(), fromDate);
+
+        assertEquals(invoiceDao.getInvoicesByAccountOverlappingDate(fromDate.plusMonths(1), context).size(), 0);
+        final List<InvoiceBilledPeriodsModelDao> allBilledPeriods = invoiceDao.getBilledPeriodsBeforeDate(fromDate.plusMonths(1), context);
+        assertEquals(allBilledPeriods.size(), 2);
+        assertEquals(findBilledPeriods(allBilledPeriods, subscriptionId1).getNbPeriods(), 2);
+        assertEquals(findBilledPeriods(allBilledPeriods, subscriptionId1).getStartDate(), new LocalDate(2011, 1, 1));
+        assertEquals(findBilledPeriods(allBilledPeriods, subscriptionId1).getEndDate(), fromDate.plusMonths(1));
+        assertEquals(findBilledPeriods(allBilledPeriods, subscriptionId2).getNbPeriods(), 2);
+    }
+
+    private InvoiceBilledPeriodsModelDao findBilledPeriods(final Iterable<InvoiceBilledPeriodsModelDao> billedPeriods, final UUID subscriptionId) {
+        return Iterables.find(billedPeriods, new Predicate<InvoiceBilledPeriodsModelDao>() {
+            @Override
+            public boolean apply(final InvoiceBilledPeriodsModelDao input) {
+                return input.getSubscriptionId().equals(subscriptionId);
+            }
+        });
+    }
+
     @Test(groups = "slow")
     public void testGetInvoicesBySubscriptionForFixedItems() throws EntityPersistenceException {
         final UUID accountId = account.getId();
@@ -959,6 +1036,61 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertTrue(foundCBA);
     }
 
+    @Test(groups = "slow")
+    public void testAccountLedgerMatchesFullHistory() throws InvoiceApiException {
+        final UUID accountId = account.getId();
+
+        // Account credit
+        createCredit(accountId, new LocalDate(2011, 3, 1), new BigDecimal("5.0"));
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("-5.00")), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(new BigDecimal("5.00")), 0);
+
+        // Invoice consuming the credit
+        final Invoice invoice = new DefaultInvoice(accountId, clock.getUTCToday(), clock.getUTCToday(), Currency.USD);
+        invoice.addInvoiceItem(new RecurringInvoiceItem(invoice.getId(), accountId, UUID.randomUUID(), UUID.randomUUID(), "test plan", "test phase", new LocalDate(2011, 3, 1), new LocalDate(2011, 4, 1),
+                                                        new BigDecimal("21.00"), new BigDecimal("21.00"), Currency.USD));
+        invoiceUtil.createInvoice(invoice, true, context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("16.00")), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(BigDecimal.ZERO), 0);
+
+        // Partial payment, then partial refund
+        final UUID paymentId = UUID.randomUUID();
+        final DefaultInvoicePayment invoicePayment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, paymentId, invoice.getId(), clock.getUTCNow(), new BigDecimal("11.00"), Currency.USD, Currency.USD, "cookie", true);
+        invoiceDao.notifyOfPaymentCompletion(new InvoicePaymentModelDao(invoicePayment), context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("5.00")), 0);
+
+        invoiceDao.createRefund(paymentId, new BigDecimal("3.00"), false, ImmutableMap.<UUID, BigDecimal>of(), UUID.randomUUID().toString(), context);
+        final BigDecimal balance = invoiceDao.getAccountBalance(accountId, context);
+        final BigDecimal cba = invoiceDao.getAccountCBA(accountId, context);
+        assertEquals(balance.compareTo(new BigDecimal("8.00")), 0);
+        assertEquals(cba.compareTo(BigDecimal.ZERO), 0);
+
+        // The running ledger should match a recomputation from scratch
+        invoiceDao.rebuildAccountLedger(context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(balance), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(cba), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testRebuildAccountLedgerRepairsDrift() throws InvoiceApiException {
+        final UUID accountId = account.getId();
+        createCredit(accountId, new LocalDate(2011, 3, 1), new BigDecimal("5.0"));
+
+        // Simulate a drift of the ledger
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("update invoice_account_ledgers set balance = 100, cba = 100 where account_record_id = ?", context.getAccountRecordId());
+                return null;
+            }
+        });
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("100")), 0);
+
+        invoiceInternalApi.rebuildAccountLedger(accountId, context);
+        assertEquals(invoiceDao.getAccountBalance(accountId, context).compareTo(new BigDecimal("-5.00")), 0);
+        assertEquals(invoiceDao.getAccountCBA(accountId, context).compareTo(new BigDecimal("5.00")), 0);
+    }
+
     @Test(groups = "slow")
     public void testInvoiceCreditWithBalancePositive() throws EntityPersistenceException {
         final BigDecimal creditAmount = new BigDecimal("2.0");
@@ -1080,6 +1212,13 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         upToDate = new LocalDate(2012, 1, 1);
         invoices = invoiceDao.getUnpaidInvoicesByAccountId(accountId, upToDate, context);
         assertEquals(invoices.size(), 2);
+
+        assertEquals(invoiceDao.getUnpaidInvoicesSummaryByAccountId(accountId, new LocalDate(2011, 1, 1), context).getNbUnpaidInvoices(), 0);
+
+        final UnpaidInvoicesSummary unpaidInvoicesSummary = invoiceDao.getUnpaidInvoicesSummaryByAccountId(accountId, upToDate, context);
+        assertEquals(unpaidInvoicesSummary.getNbUnpaidInvoices(), 2);
+        assertEquals(unpaidInvoicesSummary.getUnpaidBalance().compareTo(new BigDecimal("80.0")), 0);
+        assertEquals(unpaidInvoicesSummary.getEarliestUnpaidInvoiceDate(), clock.getUTCToday());
     }
 
 
@@ -20,6 +20,8 @@ package org.killbill.billing.invoice.generator;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -53,6 +55,7 @@ import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.dao.InvoiceBilledPeriodsModelDao;
 import org.killbill.billing.invoice.model.DefaultInvoice;
 import org.killbill.billing.invoice.model.DefaultInvoicePayment;
 import org.killbill.billing.invoice.model.FixedPriceInvoiceItem;
@@ -74,6 +77,10 @@ import org.slf4j.LoggerFactory;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+
 import static org.killbill.billing.invoice.TestInvoiceHelper.EIGHT;
 import static org.killbill.billing.invoice.TestInvoiceHelper.FIFTEEN;
 import static org.killbill.billing.invoice.TestInvoiceHelper.FIVE;
@@ -133,6 +140,26 @@ public class TestDefaultInvoiceGenerator extends InvoiceTestSuiteNoDB {
             public int getMaxGlobalLockRetries() {
                 return 10;
             }
+
+            @Override
+            public TimeSpan getGenerationDebounceWindow() {
+                return new TimeSpan("0s");
+            }
+
+            @Override
+            public int getParallelItemTreeThreshold() {
+                return 0;
+            }
+
+            @Override
+            public int getParallelItemTreeThreadNb() {
+                return 1;
+            }
+
+            @Override
+            public int getHistoryWindowMonths() {
+                return 0;
+            }
         };
         this.account = new MockAccountBuilder().name(UUID.randomUUID().toString().substring(1, 8))
                                                .firstNameLength(6)
@@ -1062,6 +1089,143 @@ public class TestDefaultInvoiceGenerator extends InvoiceTestSuiteNoDB {
         }
     }
 
+    @Test(groups = "fast")
+    public void testGenerationWithHistoryWindowMatchesFullHistory() throws CatalogApiException, InvoiceApiException {
+        final SubscriptionBase subscription = createSubscription();
+        final Plan plan = new MockPlan("plan");
+        final PlanPhase phase10 = createMockMonthlyPlanPhase(TEN, PhaseType.EVERGREEN);
+        final PlanPhase phase20 = createMockMonthlyPlanPhase(TWENTY, PhaseType.EVERGREEN);
+
+        final BillingEventSet events = new MockBillingEventSet(internalCallContext);
+        events.add(createBillingEvent(subscription.getId(), subscription.getBundleId(), new LocalDate(2011, 1, 1), plan, phase10, 1));
+        final List<Invoice> invoices = new ArrayList<Invoice>();
+        for (int month = 1; month <= 3; month++) {
+            generateAndAddInvoice(events, invoices, new LocalDate(2011, month, 1));
+        }
+
+        // Mid-period change, after the period was billed: the existing item gets partially repaired
+        events.add(createBillingEvent(subscription.getId(), subscription.getBundleId(), new LocalDate(2011, 3, 15), plan, phase20, 1));
+        generateAndAddInvoice(events, invoices, new LocalDate(2011, 3, 15));
+        for (int month = 4; month <= 7; month++) {
+            generateAndAddInvoice(events, invoices, new LocalDate(2011, month, 1));
+        }
+
+        final LocalDate fromDate = new LocalDate(2011, 6, 1);
+        final LocalDate targetDate = new LocalDate(2011, 8, 1);
+        final Invoice fullHistoryInvoice = generator.generateInvoice(account, events, invoices, targetDate, Currency.USD, internalCallContext).getInvoice();
+        assertNotNull(fullHistoryInvoice);
+        final InvoiceWithMetadata windowedInvoiceWithMetadata = generateInvoiceWithHistoryWindow(events, invoices, fromDate, targetDate);
+        assertNotNull(windowedInvoiceWithMetadata);
+        assertEquals(toComparableItems(windowedInvoiceWithMetadata.getInvoice()), toComparableItems(fullHistoryInvoice));
+
+        // Backdated change within the window: the items of the window are repaired the same way
+        events.add(createBillingEvent(subscription.getId(), subscription.getBundleId(), new LocalDate(2011, 6, 15), plan, phase10, 1));
+        final Invoice fullHistoryInvoiceWithRepair = generator.generateInvoice(account, events, invoices, targetDate, Currency.USD, internalCallContext).getInvoice();
+        assertNotNull(fullHistoryInvoiceWithRepair);
+        final InvoiceWithMetadata windowedInvoiceWithRepairWithMetadata = generateInvoiceWithHistoryWindow(events, invoices, fromDate, targetDate);
+        assertNotNull(windowedInvoiceWithRepairWithMetadata);
+        assertEquals(toComparableItems(windowedInvoiceWithRepairWithMetadata.getInvoice()), toComparableItems(fullHistoryInvoiceWithRepair));
+
+        // Backdated change before the window, with the same rate as the one it replaces: the full history is loaded
+        events.add(createBillingEvent(subscription.getId(), subscription.getBundleId(), new LocalDate(2011, 4, 15), plan, createMockMonthlyPlanPhase(TWENTY, PhaseType.EVERGREEN), 1));
+        final Invoice fullHistoryInvoiceWithOldChange = generator.generateInvoice(account, events, invoices, targetDate, Currency.USD, internalCallContext).getInvoice();
+        assertNotNull(fullHistoryInvoiceWithOldChange);
+        final InvoiceWithMetadata windowedInvoiceWithOldChangeWithMetadata = generateInvoiceWithHistoryWindow(events, invoices, fromDate, targetDate);
+        assertEquals(toComparableItems(windowedInvoiceWithOldChangeWithMetadata.getInvoice()), toComparableItems(fullHistoryInvoiceWithOldChange));
+    }
+
+    private void generateAndAddInvoice(final BillingEventSet events, final List<Invoice> invoices, final LocalDate targetDate) throws InvoiceApiException {
+        final Invoice invoice = generator.generateInvoice(account, events, invoices, targetDate, Currency.USD, internalCallContext).getInvoice();
+        if (invoice != null) {
+            invoices.add(invoice);
+        }
+    }
+
+    // Splits the history the way the invoice DAO does: items overlapping the window (and the adjustments linked to them) vs summary of the billed periods before it
+    private InvoiceWithMetadata generateInvoiceWithHistoryWindow(final BillingEventSet events, final List<Invoice> invoices, final LocalDate fromDate, final LocalDate targetDate) throws InvoiceApiException {
+        final Map<UUID, InvoiceItem> itemsById = new HashMap<UUID, InvoiceItem>();
+        final Map<UUID, List<InvoiceItem>> repairsByLinkedItemId = new HashMap<UUID, List<InvoiceItem>>();
+        for (final Invoice invoice : invoices) {
+            for (final InvoiceItem item : invoice.getInvoiceItems()) {
+                itemsById.put(item.getId(), item);
+                if (item.getInvoiceItemType() == InvoiceItemType.REPAIR_ADJ) {
+                    if (repairsByLinkedItemId.get(item.getLinkedItemId()) == null) {
+                        repairsByLinkedItemId.put(item.getLinkedItemId(), new ArrayList<InvoiceItem>());
+                    }
+                    repairsByLinkedItemId.get(item.getLinkedItemId()).add(item);
+                }
+            }
+        }
+
+        final Supplier<List<Invoice>> fullHistoryLoader = new Supplier<List<Invoice>>() {
+            @Override
+            public List<Invoice> get() {
+                return invoices;
+            }
+        };
+        final InvoiceHistoryWindow emptyWindow = new InvoiceHistoryWindow(fromDate, ImmutableList.<InvoiceBilledPeriodsModelDao>of(), fullHistoryLoader);
+        final List<Invoice> invoicesOverlappingWindow = new ArrayList<Invoice>();
+        final Map<List<Object>, InvoiceBilledPeriodsModelDao> billedPeriodsBeforeWindow = new HashMap<List<Object>, InvoiceBilledPeriodsModelDao>();
+        for (final Invoice invoice : invoices) {
+            final Invoice invoiceOverlappingWindow = new DefaultInvoice(invoice.getId(), invoice.getAccountId(), invoice.getInvoiceNumber(), invoice.getInvoiceDate(),
+                                                                        invoice.getTargetDate(), invoice.getCurrency(), invoice.isMigrationInvoice());
+            for (final InvoiceItem item : invoice.getInvoiceItems()) {
+                final boolean isAdjustment = item.getInvoiceItemType() == InvoiceItemType.ITEM_ADJ || item.getInvoiceItemType() == InvoiceItemType.REPAIR_ADJ;
+                final InvoiceItem servicePeriodItem = isAdjustment && itemsById.get(item.getLinkedItemId()) != null ? itemsById.get(item.getLinkedItemId()) : item;
+                if (!emptyWindow.isBeforeWindow(servicePeriodItem)) {
+                    invoiceOverlappingWindow.addInvoiceItem(item);
+                } else if (item.getInvoiceItemType() == InvoiceItemType.RECURRING || item.getInvoiceItemType() == InvoiceItemType.FIXED) {
+                    addBilledPeriod(billedPeriodsBeforeWindow, item, Objects.firstNonNull(repairsByLinkedItemId.get(item.getId()), ImmutableList.<InvoiceItem>of()));
+                }
+            }
+            if (!invoiceOverlappingWindow.getInvoiceItems().isEmpty()) {
+                invoicesOverlappingWindow.add(invoiceOverlappingWindow);
+            }
+        }
+
+        return generator.generateInvoice(account, events, invoicesOverlappingWindow, new InvoiceHistoryWindow(fromDate, billedPeriodsBeforeWindow.values(), fullHistoryLoader), targetDate, Currency.USD, internalCallContext);
+    }
+
+    // Same as InvoiceBilledPeriodsSqlDao#getBilledPeriodsBeforeDate
+    private void addBilledPeriod(final Map<List<Object>, InvoiceBilledPeriodsModelDao> billedPeriods, final InvoiceItem item, final Iterable<InvoiceItem> repairs) {
+        LocalDate endDate = item.getEndDate();
+        BigDecimal amount = item.getAmount();
+        for (final InvoiceItem repair : repairs) {
+            amount = amount.add(repair.getAmount());
+            if (item.getInvoiceItemType() == InvoiceItemType.RECURRING && repair.getStartDate().isBefore(endDate)) {
+                endDate = repair.getStartDate();
+            }
+        }
+        if (amount.signum() == 0 || (item.getInvoiceItemType() == InvoiceItemType.RECURRING && !endDate.isAfter(item.getStartDate()))) {
+            return;
+        }
+
+        final List<Object> key = Arrays.<Object>asList(item.getSubscriptionId(), item.getInvoiceItemType(), item.getPlanName(), item.getPhaseName(), item.getRate());
+        final InvoiceBilledPeriodsModelDao existing = billedPeriods.get(key);
+        if (existing == null) {
+            billedPeriods.put(key, new InvoiceBilledPeriodsModelDao(item.getSubscriptionId(), item.getInvoiceItemType(), item.getPlanName(), item.getPhaseName(), item.getRate(),
+                                                                    1, item.getStartDate(), endDate, amount));
+        } else {
+            billedPeriods.put(key, new InvoiceBilledPeriodsModelDao(item.getSubscriptionId(), item.getInvoiceItemType(), item.getPlanName(), item.getPhaseName(), item.getRate(),
+                                                                    existing.getNbPeriods() + 1,
+                                                                    existing.getStartDate().isBefore(item.getStartDate()) ? existing.getStartDate() : item.getStartDate(),
+                                                                    endDate == null || (existing.getEndDate() != null && existing.getEndDate().isAfter(endDate)) ? existing.getEndDate() : endDate,
+                                                                    existing.getAmount().add(amount)));
+        }
+    }
+
+    private List<String> toComparableItems(@Nullable final Invoice invoice) {
+        final List<String> result = new ArrayList<String>();
+        if (invoice == null) {
+            return result;
+        }
+        for (final InvoiceItem item : invoice.getInvoiceItems()) {
+            result.add(String.format("%s %s %s %s %s %s %s", item.getInvoiceItemType(), item.getSubscriptionId(), item.getPhaseName(), item.getStartDate(), item.getEndDate(), item.getAmount(), item.getLinkedItemId()));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
     @Test(groups = "fast")
     public void testAutoInvoiceOffAccount() throws Exception {
         final MockBillingEventSet events = new MockBillingEventSet(internalCallContext);
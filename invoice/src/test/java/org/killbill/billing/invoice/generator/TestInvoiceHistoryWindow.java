@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.generator;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.dao.InvoiceBilledPeriodsModelDao;
+import org.killbill.billing.invoice.model.FixedPriceInvoiceItem;
+import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestInvoiceHistoryWindow extends InvoiceTestSuiteNoDB {
+
+    private final UUID invoiceId = UUID.randomUUID();
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID bundleId = UUID.randomUUID();
+    private final UUID subscriptionId = UUID.randomUUID();
+    private final LocalDate fromDate = new LocalDate(2015, 3, 1);
+    private final BigDecimal rate = new BigDecimal("10.00");
+
+    @Test(groups = "fast")
+    public void testIsBeforeWindow() {
+        final InvoiceHistoryWindow window = createWindow();
+
+        assertTrue(window.isBeforeWindow(createRecurringItem(fromDate.minusMonths(1), fromDate, rate)));
+        assertFalse(window.isBeforeWindow(createRecurringItem(fromDate.minusDays(15), fromDate.plusDays(15), rate)));
+        assertFalse(window.isBeforeWindow(createRecurringItem(fromDate, fromDate.plusMonths(1), rate)));
+        assertTrue(window.isBeforeWindow(new FixedPriceInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "plan", "phase", fromDate.minusDays(1), rate, Currency.USD)));
+        assertFalse(window.isBeforeWindow(new FixedPriceInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "plan", "phase", fromDate, rate, Currency.USD)));
+    }
+
+    @Test(groups = "fast")
+    public void testIsConsistentWith() {
+        final List<InvoiceItem> proposedItems = ImmutableList.<InvoiceItem>of(createRecurringItem(fromDate.minusMonths(2), fromDate.minusMonths(1), rate),
+                                                                              createRecurringItem(fromDate.minusMonths(1), fromDate, rate));
+
+        // Rates are compared irrespective of their scale
+        final InvoiceBilledPeriodsModelDao billedPeriods = createRecurringPeriods("plan", "phase", new BigDecimal("10.000000000"), 2, fromDate.minusMonths(2), fromDate);
+        assertTrue(createWindow(billedPeriods).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+
+        // Backdated changes leaving the billed total unchanged: phase, plan, rate, number of periods and service period
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 1, fromDate.minusMonths(2), fromDate.minusMonths(1)),
+                                 createRecurringPeriods("plan", "old-phase", rate, 1, fromDate.minusMonths(1), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 1, fromDate.minusMonths(2), fromDate.minusMonths(1)),
+                                 createRecurringPeriods("old-plan", "phase", rate, 1, fromDate.minusMonths(1), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 1, fromDate.minusMonths(2), fromDate.minusMonths(1)),
+                                 createRecurringPeriods("plan", "phase", new BigDecimal("20.00"), 1, fromDate.minusMonths(1), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 3, fromDate.minusMonths(2), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 2, fromDate.minusMonths(2).minusDays(1), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+
+        // Past periods were never billed
+        assertFalse(createWindow().isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        assertTrue(createWindow().isConsistentWith(proposedItems, ImmutableList.<UUID>of(subscriptionId)));
+        // Billed subscription without any proposed item
+        assertFalse(createWindow(billedPeriods).isConsistentWith(ImmutableList.<InvoiceItem>of(), ImmutableList.<UUID>of()));
+    }
+
+    @Test(groups = "fast")
+    public void testIsConsistentWithRepairs() {
+        final LocalDate changeDate = fromDate.minusDays(10);
+        final BigDecimal newRate = new BigDecimal("20.00");
+        final List<InvoiceItem> proposedItems = ImmutableList.<InvoiceItem>of(createRecurringItem(fromDate.minusMonths(1), changeDate, new BigDecimal("6.43")),
+                                                                              createRecurringItem(changeDate, fromDate, "plan", "new-phase", new BigDecimal("7.14"), newRate));
+
+        // Mid-period change: the existing item was partially repaired (the database ends it at the repair start date) and a new item was billed for the rest of the period
+        final InvoiceBilledPeriodsModelDao newPeriods = createRecurringPeriods("plan", "new-phase", newRate, 1, changeDate, fromDate);
+        assertTrue(createWindow(createRecurringPeriods("plan", "phase", rate, 1, fromDate.minusMonths(1), changeDate), newPeriods).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+        // The change was moved to another date since
+        assertFalse(createWindow(createRecurringPeriods("plan", "phase", rate, 1, fromDate.minusMonths(1), changeDate.plusDays(1)),
+                                 createRecurringPeriods("plan", "new-phase", newRate, 1, changeDate.plusDays(1), fromDate)).isConsistentWith(proposedItems, ImmutableList.<UUID>of()));
+
+        // Fixed items are compared using their amount, net of repairs
+        final List<InvoiceItem> proposedFixedItems = ImmutableList.<InvoiceItem>of(new FixedPriceInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "plan", "phase", fromDate.minusDays(1), new BigDecimal("10"), Currency.USD));
+        final InvoiceBilledPeriodsModelDao fixedPeriods = new InvoiceBilledPeriodsModelDao(subscriptionId, InvoiceItemType.FIXED, "plan", "phase", null, 1, fromDate.minusDays(1), null, new BigDecimal("10.000000000"));
+        assertTrue(createWindow(fixedPeriods).isConsistentWith(proposedFixedItems, ImmutableList.<UUID>of()));
+        final InvoiceBilledPeriodsModelDao partiallyRepairedFixedPeriods = new InvoiceBilledPeriodsModelDao(subscriptionId, InvoiceItemType.FIXED, "plan", "phase", null, 1, fromDate.minusDays(1), null, new BigDecimal("4.00"));
+        assertFalse(createWindow(partiallyRepairedFixedPeriods).isConsistentWith(proposedFixedItems, ImmutableList.<UUID>of()));
+    }
+
+    private InvoiceHistoryWindow createWindow(final InvoiceBilledPeriodsModelDao... billedPeriods) {
+        return new InvoiceHistoryWindow(fromDate, ImmutableList.<InvoiceBilledPeriodsModelDao>copyOf(billedPeriods), new Supplier<List<Invoice>>() {
+            @Override
+            public List<Invoice> get() {
+                return ImmutableList.<Invoice>of();
+            }
+        });
+    }
+
+    private InvoiceBilledPeriodsModelDao createRecurringPeriods(final String planName, final String phaseName, final BigDecimal rate, final int nbPeriods, final LocalDate startDate, final LocalDate endDate) {
+        return new InvoiceBilledPeriodsModelDao(subscriptionId, InvoiceItemType.RECURRING, planName, phaseName, rate, nbPeriods, startDate, endDate, null);
+    }
+
+    private InvoiceItem createRecurringItem(final LocalDate startDate, final LocalDate endDate, final BigDecimal amount) {
+        return createRecurringItem(startDate, endDate, "plan", "phase", amount, rate);
+    }
+
+    private InvoiceItem createRecurringItem(final LocalDate startDate, final LocalDate endDate, final String planName, final String phaseName, final BigDecimal amount, final BigDecimal rate) {
+        return new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, planName, phaseName, startDate, endDate, amount, rate, Currency.USD);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.notification;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.invoice.InvoiceListener;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBillRunEngine {
+
+    @Test(groups = "fast")
+    public void testCoalesceNotificationsForSameAccountAndTargetDate() throws Exception {
+        final CountDownLatch blockAccount = new CountDownLatch(1);
+        final CountDownLatch accountStarted = new CountDownLatch(1);
+        final Long blockingAccountRecordId = 1L;
+
+        final InvoiceListener listener = Mockito.mock(InvoiceListener.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                if (blockingAccountRecordId.equals(invocation.getArguments()[3])) {
+                    accountStarted.countDown();
+                    blockAccount.await();
+                }
+                return null;
+            }
+        }).when(listener).handleNextBillingDateEvent(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.<UUID>any(), Mockito.anyLong(), Mockito.anyLong());
+
+        final BillRunEngine billRunEngine = new BillRunEngine(listener);
+        final DateTime targetDate = new DateTime(2016, 11, 1, 0, 0);
+
+        // Three subscriptions of the same account, on three notification threads
+        final Thread first = processInBackground(billRunEngine, UUID.randomUUID(), targetDate, blockingAccountRecordId);
+        Assert.assertTrue(accountStarted.await(10, TimeUnit.SECONDS));
+        final Thread second = processInBackground(billRunEngine, UUID.randomUUID(), targetDate, blockingAccountRecordId);
+        final Thread third = processInBackground(billRunEngine, UUID.randomUUID(), targetDate, blockingAccountRecordId);
+        while (billRunEngine.getStats().getNbCoalesced() < 2) {
+            Thread.sleep(10);
+        }
+
+        // Other accounts and target dates aren't held up
+        billRunEngine.processNextBillingDate(UUID.randomUUID(), targetDate, null, 2L, 1L);
+        billRunEngine.processNextBillingDate(UUID.randomUUID(), targetDate.plusMonths(1), null, 2L, 1L);
+        Assert.assertTrue(second.isAlive());
+
+        blockAccount.countDown();
+        for (final Thread thread : new Thread[]{first, second, third}) {
+            thread.join(10000);
+            Assert.assertFalse(thread.isAlive());
+        }
+
+        Assert.assertEquals(billRunEngine.getStats().getNbNotifications(), 5);
+        Assert.assertEquals(billRunEngine.getStats().getNbAccounts(), 3);
+        Mockito.verify(listener, Mockito.times(1)).handleNextBillingDateEvent(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.<UUID>any(), Mockito.eq(blockingAccountRecordId), Mockito.anyLong());
+
+        // Once the generation is over, a new notification runs its own
+        billRunEngine.processNextBillingDate(UUID.randomUUID(), targetDate, null, blockingAccountRecordId, 1L);
+        Mockito.verify(listener, Mockito.times(2)).handleNextBillingDateEvent(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.<UUID>any(), Mockito.eq(blockingAccountRecordId), Mockito.anyLong());
+    }
+
+    @Test(groups = "fast")
+    public void testFailureIsRethrownToWaitingNotificationThreads() throws Exception {
+        final CountDownLatch blockAccount = new CountDownLatch(1);
+        final CountDownLatch accountStarted = new CountDownLatch(1);
+
+        final InvoiceListener listener = Mockito.mock(InvoiceListener.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                accountStarted.countDown();
+                blockAccount.await();
+                throw new IllegalStateException("boom");
+            }
+        }).when(listener).handleNextBillingDateEvent(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.<UUID>any(), Mockito.anyLong(), Mockito.anyLong());
+
+        final BillRunEngine billRunEngine = new BillRunEngine(listener);
+        final DateTime targetDate = new DateTime(2016, 11, 1, 0, 0);
+        final AtomicInteger nbFailures = new AtomicInteger();
+
+        final Thread first = processInBackground(billRunEngine, UUID.randomUUID(), targetDate, 1L, nbFailures);
+        Assert.assertTrue(accountStarted.await(10, TimeUnit.SECONDS));
+        final Thread second = processInBackground(billRunEngine, UUID.randomUUID(), targetDate, 1L, nbFailures);
+        while (billRunEngine.getStats().getNbCoalesced() < 1) {
+            Thread.sleep(10);
+        }
+
+        blockAccount.countDown();
+        for (final Thread thread : new Thread[]{first, second}) {
+            thread.join(10000);
+            Assert.assertFalse(thread.isAlive());
+        }
+        Assert.assertEquals(nbFailures.get(), 2);
+    }
+
+    private Thread processInBackground(final BillRunEngine billRunEngine, final UUID subscriptionId, final DateTime targetDate, final Long accountRecordId) {
+        return processInBackground(billRunEngine, subscriptionId, targetDate, accountRecordId, new AtomicInteger());
+    }
+
+    private Thread processInBackground(final BillRunEngine billRunEngine, final UUID subscriptionId, final DateTime targetDate, final Long accountRecordId, final AtomicInteger nbFailures) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    billRunEngine.processNextBillingDate(subscriptionId, targetDate, null, accountRecordId, 1L);
+                } catch (final IllegalStateException e) {
+                    nbFailures.incrementAndGet();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
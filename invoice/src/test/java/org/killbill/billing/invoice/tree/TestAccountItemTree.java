@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.tree;
+
+import java.math.BigDecimal;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.killbill.billing.invoice.model.RepairAdjInvoiceItem;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAccountItemTree extends InvoiceTestSuiteNoDB {
+
+    private final UUID invoiceId = UUID.randomUUID();
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID bundleId = UUID.randomUUID();
+    private final String planName = "my-plan";
+    private final String phaseName = "my-phase";
+    private final Currency currency = Currency.USD;
+
+    private ForkJoinPool pool;
+
+    @BeforeClass(groups = "fast")
+    protected void beforeClass() throws Exception {
+        super.beforeClass();
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass(groups = "fast")
+    public void afterClass() {
+        pool.shutdownNow();
+    }
+
+    @Test(groups = "fast")
+    public void testParallelMergeMatchesSequentialMerge() {
+        final List<InvoiceItem> existingItems = new LinkedList<InvoiceItem>();
+        final List<InvoiceItem> proposedItems = new LinkedList<InvoiceItem>();
+
+        final LocalDate startDate = new LocalDate(2014, 1, 1);
+        final LocalDate endDate = new LocalDate(2014, 2, 1);
+        final LocalDate nextEndDate = new LocalDate(2014, 3, 1);
+        final BigDecimal rate = new BigDecimal("12.00");
+        for (int i = 0; i < 20; i++) {
+            final UUID subscriptionId = UUID.randomUUID();
+            final LocalDate changeDate = startDate.plusDays(1 + i);
+            final BigDecimal newRate = rate.add(BigDecimal.valueOf(i));
+
+            final InvoiceItem initial = new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, planName, phaseName, startDate, endDate, rate, rate, currency);
+            existingItems.add(initial);
+            if (i % 2 == 0) {
+                existingItems.add(new RepairAdjInvoiceItem(invoiceId, accountId, changeDate, endDate, new BigDecimal("-5.00"), currency, initial.getId()));
+            }
+
+            proposedItems.add(new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, planName, phaseName, startDate, changeDate, new BigDecimal("0.39").multiply(BigDecimal.valueOf(i + 1)), rate, currency));
+            proposedItems.add(new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "other-plan", "other-phase", changeDate, endDate, new BigDecimal("7.00"), newRate, currency));
+            proposedItems.add(new RecurringInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, "other-plan", "other-phase", endDate, nextEndDate, newRate, newRate, currency));
+        }
+
+        final AccountItemTree sequentialTree = new AccountItemTree(accountId, invoiceId);
+        final AccountItemTree parallelTree = new AccountItemTree(accountId, invoiceId, pool, 2);
+        // Threshold not reached: the pool is not used
+        final AccountItemTree belowThresholdTree = new AccountItemTree(accountId, invoiceId, pool, 21);
+        for (final InvoiceItem item : existingItems) {
+            sequentialTree.addExistingItem(item);
+            parallelTree.addExistingItem(item);
+            belowThresholdTree.addExistingItem(item);
+        }
+        sequentialTree.mergeWithProposedItems(proposedItems);
+        parallelTree.mergeWithProposedItems(proposedItems);
+        belowThresholdTree.mergeWithProposedItems(proposedItems);
+
+        final List<InvoiceItem> expectedResult = sequentialTree.getResultingItemList();
+        assertTrue(expectedResult.size() > 0);
+        verifyResult(parallelTree.getResultingItemList(), expectedResult);
+        verifyResult(belowThresholdTree.getResultingItemList(), expectedResult);
+    }
+
+    private void verifyResult(final List<InvoiceItem> result, final List<InvoiceItem> expectedResult) {
+        assertEquals(result.size(), expectedResult.size());
+        for (int i = 0; i < expectedResult.size(); i++) {
+            assertTrue(result.get(i).matches(expectedResult.get(i)));
+        }
+    }
+}
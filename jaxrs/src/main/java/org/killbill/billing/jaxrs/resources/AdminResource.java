@@ -30,7 +30,10 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountUserApi;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.jaxrs.json.AdminPaymentJson;
 import org.killbill.billing.jaxrs.util.Context;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
@@ -45,6 +48,7 @@ import org.killbill.billing.util.api.AuditUserApi;
 import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.clock.Clock;
 
 import com.google.common.base.Predicate;
@@ -64,11 +68,16 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 public class AdminResource extends JaxRsResourceBase {
 
     private final AdminPaymentApi adminPaymentApi;
+    private final InvoiceInternalApi invoiceInternalApi;
+    private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
-    public AdminResource(final JaxrsUriBuilder uriBuilder, final TagUserApi tagUserApi, final CustomFieldUserApi customFieldUserApi, final AuditUserApi auditUserApi, final AccountUserApi accountUserApi, final PaymentApi paymentApi, final AdminPaymentApi adminPaymentApi, final Clock clock, final Context context) {
+    public AdminResource(final JaxrsUriBuilder uriBuilder, final TagUserApi tagUserApi, final CustomFieldUserApi customFieldUserApi, final AuditUserApi auditUserApi, final AccountUserApi accountUserApi, final PaymentApi paymentApi, final AdminPaymentApi adminPaymentApi,
+                         final InvoiceInternalApi invoiceInternalApi, final InternalCallContextFactory internalCallContextFactory, final Clock clock, final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, clock, context);
         this.adminPaymentApi = adminPaymentApi;
+        this.invoiceInternalApi = invoiceInternalApi;
+        this.internalCallContextFactory = internalCallContextFactory;
     }
 
 
@@ -104,4 +113,25 @@ public class AdminResource extends JaxRsResourceBase {
         return Response.status(Status.OK).build();
     }
 
+    @PUT
+    @Produces(APPLICATION_JSON)
+    @Path("/accounts/{accountId:" + UUID_PATTERN + "}/invoiceLedger")
+    @ApiOperation(value = "Recompute the account balance and CBA ledger from the invoices of the account")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id supplied"),
+                           @ApiResponse(code = 404, message = "Account not found")})
+    public Response rebuildInvoiceLedger(@PathParam("accountId") final String accountIdStr,
+                                         @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                         @HeaderParam(HDR_REASON) final String reason,
+                                         @HeaderParam(HDR_COMMENT) final String comment,
+                                         @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+
+        final UUID accountId = UUID.fromString(accountIdStr);
+        // Make sure the account exists (for that tenant)
+        accountUserApi.getAccountById(accountId, callContext);
+
+        final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(accountId, callContext);
+        invoiceInternalApi.rebuildAccountLedger(accountId, internalCallContext);
+        return Response.status(Status.OK).build();
+    }
 }
@@ -270,6 +270,8 @@ public abstract class JaxRsResourceBase implements JaxrsResource {
         return Response.status(Response.Status.OK).build();
     }
 
+    // When the request offset is a cursor (negative value, see PaginationCursor), the NextOffset header is the
+    // opaque cursor of the following page and should be passed back as-is
     protected <E extends Entity, J extends JsonBase> Response buildStreamingPaginationResponse(final Pagination<E> entities,
                                                                                                final Function<E, J> toJson,
                                                                                                final URI nextPageUri) {
@@ -202,6 +202,7 @@ public interface JaxrsResource {
 
     public static final String USAGES = "usages";
     public static final String USAGES_PATH = PREFIX + "/" + USAGES;
+    public static final String BULK = "bulk";
 
     public static final String EXPORT = "export";
     public static final String EXPORT_PATH = PREFIX + "/" + EXPORT;
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.jaxrs.resources;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -47,6 +48,7 @@ import org.killbill.billing.jaxrs.json.SubscriptionUsageRecordJson.UsageRecordJs
 import org.killbill.billing.jaxrs.util.Context;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
 import org.killbill.billing.payment.api.PaymentApi;
+import org.killbill.billing.usage.InternalUserApi;
 import org.killbill.billing.usage.api.RolledUpUsage;
 import org.killbill.billing.usage.api.SubscriptionUsageRecord;
 import org.killbill.billing.usage.api.UsageUserApi;
@@ -75,6 +77,7 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 public class UsageResource extends JaxRsResourceBase {
 
     private final UsageUserApi usageUserApi;
+    private final InternalUserApi internalUserApi;
     private final EntitlementApi entitlementApi;
 
     @Inject
@@ -84,12 +87,14 @@ public class UsageResource extends JaxRsResourceBase {
                          final AuditUserApi auditUserApi,
                          final AccountUserApi accountUserApi,
                          final UsageUserApi usageUserApi,
+                         final InternalUserApi internalUserApi,
                          final PaymentApi paymentApi,
                          final EntitlementApi entitlementApi,
                          final Clock clock,
                          final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, clock, context);
         this.usageUserApi = usageUserApi;
+        this.internalUserApi = internalUserApi;
         this.entitlementApi = entitlementApi;
     }
 
@@ -105,23 +110,10 @@ public class UsageResource extends JaxRsResourceBase {
                                 @HeaderParam(HDR_COMMENT) final String comment,
                                 @javax.ws.rs.core.Context final HttpServletRequest request,
                                 @javax.ws.rs.core.Context final UriInfo uriInfo) throws EntitlementApiException, AccountApiException {
-        verifyNonNullOrEmpty(json, "SubscriptionUsageRecordJson body should be specified");
-        verifyNonNullOrEmpty(json.getSubscriptionId(), "SubscriptionUsageRecordJson subscriptionId needs to be set",
-                             json.getUnitUsageRecords(), "SubscriptionUsageRecordJson unitUsageRecords needs to be set");
-        Preconditions.checkArgument(!json.getUnitUsageRecords().isEmpty());
-        for (final UnitUsageRecordJson unitUsageRecordJson : json.getUnitUsageRecords()) {
-            verifyNonNullOrEmpty(unitUsageRecordJson.getUnitType(), "UnitUsageRecordJson unitType need to be set");
-            Preconditions.checkArgument(Iterables.size(unitUsageRecordJson.getUsageRecords()) > 0,
-                                        "UnitUsageRecordJson usageRecords must have at least one element.");
-            for (final UsageRecordJson usageRecordJson : unitUsageRecordJson.getUsageRecords()) {
-                verifyNonNull(usageRecordJson.getAmount(), "UsageRecordJson amount needs to be set");
-                verifyNonNull(usageRecordJson.getRecordDate(), "UsageRecordJson recordDate needs to be set");
-            }
-        }
+        verifySubscriptionUsageRecord(json);
         final CallContext callContext = context.createContext(createdBy, reason, comment, request);
         // Verify subscription exists..
-        final Entitlement entitlement = entitlementApi.getEntitlementForId(UUID.fromString(json.getSubscriptionId()), callContext);
-        if (entitlement.getState() != EntitlementState.ACTIVE) {
+        if (!isActive(json, callContext)) {
             return Response.status(Status.BAD_REQUEST).build();
         }
 
@@ -130,6 +122,39 @@ public class UsageResource extends JaxRsResourceBase {
         return Response.status(Status.CREATED).build();
     }
 
+    @TimedResource
+    @POST
+    @Path("/" + BULK)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Record usage for multiple subscriptions")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid subscription (e.g. inactive)")})
+    public Response recordUsages(final List<SubscriptionUsageRecordJson> json,
+                                 @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                 @HeaderParam(HDR_REASON) final String reason,
+                                 @HeaderParam(HDR_COMMENT) final String comment,
+                                 @javax.ws.rs.core.Context final HttpServletRequest request,
+                                 @javax.ws.rs.core.Context final UriInfo uriInfo) throws EntitlementApiException, AccountApiException {
+        verifyNonNullOrEmpty(json, "SubscriptionUsageRecordJson body should be specified");
+        Preconditions.checkArgument(!json.isEmpty(), "At least one SubscriptionUsageRecordJson should be specified");
+        for (final SubscriptionUsageRecordJson subscriptionUsageRecordJson : json) {
+            verifySubscriptionUsageRecord(subscriptionUsageRecordJson);
+        }
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+
+        final List<SubscriptionUsageRecord> records = new ArrayList<SubscriptionUsageRecord>(json.size());
+        for (final SubscriptionUsageRecordJson subscriptionUsageRecordJson : json) {
+            // All or nothing
+            if (!isActive(subscriptionUsageRecordJson, callContext)) {
+                return Response.status(Status.BAD_REQUEST).build();
+            }
+            records.add(subscriptionUsageRecordJson.toSubscriptionUsageRecord());
+        }
+
+        internalUserApi.recordRolledUpUsage(records, callContext);
+        return Response.status(Status.CREATED).build();
+    }
+
     @TimedResource
     @GET
     @Path("/{subscriptionId:" + UUID_PATTERN + "}/{unitType}")
@@ -180,5 +205,24 @@ public class UsageResource extends JaxRsResourceBase {
         return Response.status(Status.OK).entity(result).build();
     }
 
-}
+    private void verifySubscriptionUsageRecord(final SubscriptionUsageRecordJson json) {
+        verifyNonNullOrEmpty(json, "SubscriptionUsageRecordJson body should be specified");
+        verifyNonNullOrEmpty(json.getSubscriptionId(), "SubscriptionUsageRecordJson subscriptionId needs to be set",
+                             json.getUnitUsageRecords(), "SubscriptionUsageRecordJson unitUsageRecords needs to be set");
+        Preconditions.checkArgument(!json.getUnitUsageRecords().isEmpty());
+        for (final UnitUsageRecordJson unitUsageRecordJson : json.getUnitUsageRecords()) {
+            verifyNonNullOrEmpty(unitUsageRecordJson.getUnitType(), "UnitUsageRecordJson unitType need to be set");
+            Preconditions.checkArgument(Iterables.size(unitUsageRecordJson.getUsageRecords()) > 0,
+                                        "UnitUsageRecordJson usageRecords must have at least one element.");
+            for (final UsageRecordJson usageRecordJson : unitUsageRecordJson.getUsageRecords()) {
+                verifyNonNull(usageRecordJson.getAmount(), "UsageRecordJson amount needs to be set");
+                verifyNonNull(usageRecordJson.getRecordDate(), "UsageRecordJson recordDate needs to be set");
+            }
+        }
+    }
 
+    private boolean isActive(final SubscriptionUsageRecordJson json, final CallContext callContext) throws EntitlementApiException {
+        final Entitlement entitlement = entitlementApi.getEntitlementForId(UUID.fromString(json.getSubscriptionId()), callContext);
+        return entitlement.getState() == EntitlementState.ACTIVE;
+    }
+}
@@ -20,12 +20,11 @@ package org.killbill.billing.junction.plumbing.billing;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.UUID;
 
-import javax.annotation.Nullable;
-
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
@@ -48,13 +47,12 @@ import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
 import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.killbill.clock.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultInternalBillingApi implements BillingInternalApi {
@@ -98,9 +96,7 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
         final Set<UUID> skippedSubscriptions = new HashSet<UUID>();
         try {
             // Check to see if billing is off for the account
-            final List<Tag> accountTags = tagApi.getTags(accountId, ObjectType.ACCOUNT, context);
-            final boolean found_AUTO_INVOICING_OFF = is_AUTO_INVOICING_OFF(accountTags);
-            if (found_AUTO_INVOICING_OFF) {
+            if (tagApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_INVOICING_OFF, context)) {
                 return new DefaultBillingEventSet(true, currentCatalog.getRecurringBillingMode(), context); // billing is off, we are done
             }
 
@@ -143,17 +139,24 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
 
         }
 
+        // Load all subscriptions (with their events) for the account upfront, instead of issuing queries for each bundle
+        final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount = subscriptionApi.getSubscriptionsForAccount(context);
+
         for (final SubscriptionBaseBundle bundle : bundles) {
             final DryRunArguments dryRunArgumentsForBundle = (dryRunArguments != null &&
                                                               dryRunArguments.getBundleId() != null &&
                                                               dryRunArguments.getBundleId().equals(bundle.getId())) ?
                                                              dryRunArguments : null;
-            final List<SubscriptionBase> subscriptions = subscriptionApi.getSubscriptionsForBundle(bundle.getId(), dryRunArgumentsForBundle, context);
+            final List<SubscriptionBase> subscriptions;
+            if (dryRunArgumentsForBundle != null) {
+                // The dry-run events need to be merged in, rebuild the subscriptions for that bundle
+                subscriptions = subscriptionApi.getSubscriptionsForBundle(bundle.getId(), dryRunArgumentsForBundle, context);
+            } else {
+                subscriptions = Objects.firstNonNull(subscriptionsForAccount.get(bundle.getId()), ImmutableList.<SubscriptionBase>of());
+            }
 
             //Check if billing is off for the bundle
-            final List<Tag> bundleTags = tagApi.getTags(bundle.getId(), ObjectType.BUNDLE, context);
-            boolean found_AUTO_INVOICING_OFF = is_AUTO_INVOICING_OFF(bundleTags);
-            if (found_AUTO_INVOICING_OFF) {
+            if (tagApi.isControlTagSet(bundle.getId(), ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF, context)) {
                 for (final SubscriptionBase subscription : subscriptions) { // billing is off so list sub ids in set to be excluded
                     result.getSubscriptionIdsWithAutoInvoiceOff().add(subscription.getId());
                 }
@@ -163,7 +166,6 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
         }
     }
 
-
     private void addBillingEventsForSubscription(final ImmutableAccountData account,
                                                  final List<SubscriptionBase> subscriptions,
                                                  final UUID bundleId,
@@ -218,14 +220,4 @@ public class DefaultInternalBillingApi implements BillingInternalApi {
             }
         }
     }
-
-    private final boolean is_AUTO_INVOICING_OFF(final List<Tag> tags) {
-        return ControlTagType.isAutoInvoicingOff(Collections2.transform(tags, new Function<Tag, UUID>() {
-            @Nullable
-            @Override
-            public UUID apply(@Nullable final Tag tag) {
-                return tag.getTagDefinitionId();
-            }
-        }));
-    }
 }
@@ -30,6 +30,7 @@ import org.killbill.billing.junction.plumbing.billing.BlockingCalculator;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.tag.TagInternalApi;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.tag.dao.TagDao;
 
 import com.google.inject.Guice;
@@ -58,6 +59,8 @@ public abstract class JunctionTestSuiteNoDB extends GuicyKillbillTestSuiteNoDB {
     protected TagInternalApi tagInternalApi;
     @Inject
     protected BlockingStateDao blockingStateDao;
+    @Inject
+    protected CacheControllerDispatcher cacheControllerDispatcher;
 
     @BeforeClass(groups = "fast")
     protected void beforeClass() throws Exception {
@@ -67,6 +70,8 @@ public abstract class JunctionTestSuiteNoDB extends GuicyKillbillTestSuiteNoDB {
 
     @BeforeMethod(groups = "fast")
     public void beforeMethod() throws Exception {
+        // The mock tag dao doesn't invalidate the account control tags cache
+        cacheControllerDispatcher.clearAll();
         bus.start();
     }
 
@@ -68,7 +68,6 @@ import org.killbill.billing.util.email.EmailApiException;
 import org.killbill.billing.util.email.EmailConfig;
 import org.killbill.billing.util.email.EmailSender;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.clock.Clock;
 import org.slf4j.Logger;
@@ -404,13 +403,7 @@ public class OverdueStateApplicator {
         try {
             final UUID accountId = accountApi.getByRecordId(context.getAccountRecordId(), context);
 
-            final List<Tag> accountTags = tagApi.getTags(accountId, ObjectType.ACCOUNT, context);
-            for (final Tag cur : accountTags) {
-                if (cur.getTagDefinitionId().equals(ControlTagType.OVERDUE_ENFORCEMENT_OFF.getId())) {
-                    return true;
-                }
-            }
-            return false;
+            return tagApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.OVERDUE_ENFORCEMENT_OFF, context);
         } catch (final AccountApiException e) {
             throw new OverdueException(e);
         }
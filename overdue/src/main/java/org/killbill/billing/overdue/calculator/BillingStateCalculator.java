@@ -16,20 +16,10 @@
 
 package org.killbill.billing.overdue.calculator;
 
-import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.NoSuchElementException;
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.UUID;
-
-import org.joda.time.DateTimeZone;
-import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.callcontext.InternalTenantContext;
-import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.overdue.config.api.BillingState;
 import org.killbill.billing.overdue.config.api.OverdueException;
 import org.killbill.billing.payment.api.PaymentResponse;
@@ -43,19 +33,6 @@ public class BillingStateCalculator {
     private final InvoiceInternalApi invoiceApi;
     private final Clock clock;
 
-    protected class InvoiceDateComparator implements Comparator<Invoice> {
-
-        @Override
-        public int compare(final Invoice i1, final Invoice i2) {
-            final LocalDate d1 = i1.getInvoiceDate();
-            final LocalDate d2 = i2.getInvoiceDate();
-            if (d1.compareTo(d2) == 0) {
-                return i1.hashCode() - i2.hashCode(); // consistent (arbitrary) resolution for tied dates
-            }
-            return d1.compareTo(d2);
-        }
-    }
-
     @Inject
     public BillingStateCalculator(final InvoiceInternalApi invoiceApi, final Clock clock) {
         this.invoiceApi = invoiceApi;
@@ -63,44 +40,19 @@ public class BillingStateCalculator {
     }
 
     public BillingState calculateBillingState(final ImmutableAccountData account, final InternalTenantContext context) throws OverdueException {
-        final SortedSet<Invoice> unpaidInvoices = unpaidInvoicesForAccount(account.getId(), account.getTimeZone(), context);
+        // Only the aggregates are needed here, no need to materialize the unpaid invoices
+        final UnpaidInvoicesSummary unpaidInvoices = invoiceApi.getUnpaidInvoicesSummaryByAccountId(account.getId(), clock.getToday(account.getTimeZone()), context);
 
-        final int numberOfUnpaidInvoices = unpaidInvoices.size();
-        final BigDecimal unpaidInvoiceBalance = sumBalance(unpaidInvoices);
-        LocalDate dateOfEarliestUnpaidInvoice = null;
-        UUID idOfEarliestUnpaidInvoice = null;
-        final Invoice invoice = earliest(unpaidInvoices);
-        if (invoice != null) {
-            dateOfEarliestUnpaidInvoice = invoice.getInvoiceDate();
-            idOfEarliestUnpaidInvoice = invoice.getId();
-        }
         final PaymentResponse responseForLastFailedPayment = PaymentResponse.INSUFFICIENT_FUNDS; //TODO MDW
         final Tag[] tags = new Tag[]{}; //TODO MDW
 
-        return new BillingState(account.getId(), numberOfUnpaidInvoices, unpaidInvoiceBalance, dateOfEarliestUnpaidInvoice, account.getTimeZone(), idOfEarliestUnpaidInvoice, responseForLastFailedPayment, tags);
-    }
-
-    // Package scope for testing
-    Invoice earliest(final SortedSet<Invoice> unpaidInvoices) {
-        try {
-            return unpaidInvoices.first();
-        } catch (NoSuchElementException e) {
-            return null;
-        }
-    }
-
-    BigDecimal sumBalance(final SortedSet<Invoice> unpaidInvoices) {
-        BigDecimal sum = BigDecimal.ZERO;
-        for (final Invoice unpaidInvoice : unpaidInvoices) {
-            sum = sum.add(unpaidInvoice.getBalance());
-        }
-        return sum;
-    }
-
-    SortedSet<Invoice> unpaidInvoicesForAccount(final UUID accountId, final DateTimeZone accountTimeZone, final InternalTenantContext context) {
-        final Collection<Invoice> invoices = invoiceApi.getUnpaidInvoicesByAccountId(accountId, clock.getToday(accountTimeZone), context);
-        final SortedSet<Invoice> sortedInvoices = new TreeSet<Invoice>(new InvoiceDateComparator());
-        sortedInvoices.addAll(invoices);
-        return sortedInvoices;
+        return new BillingState(account.getId(),
+                                unpaidInvoices.getNbUnpaidInvoices(),
+                                unpaidInvoices.getUnpaidBalance(),
+                                unpaidInvoices.getEarliestUnpaidInvoiceDate(),
+                                account.getTimeZone(),
+                                unpaidInvoices.getEarliestUnpaidInvoiceId(),
+                                responseForLastFailedPayment,
+                                tags);
     }
 }
@@ -39,6 +39,7 @@ import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
 import org.killbill.billing.junction.BlockingInternalApi;
 
 import com.google.inject.Inject;
@@ -138,6 +139,13 @@ public class TestOverdueHelper {
         invoices.add(invoice);
         Mockito.when(invoiceInternalApi.getUnpaidInvoicesByAccountId(Mockito.<UUID>any(), Mockito.<LocalDate>any(), Mockito.<InternalTenantContext>any())).thenReturn(invoices);
 
+        final UnpaidInvoicesSummary unpaidInvoicesSummary = Mockito.mock(UnpaidInvoicesSummary.class);
+        Mockito.when(unpaidInvoicesSummary.getNbUnpaidInvoices()).thenReturn(1);
+        Mockito.when(unpaidInvoicesSummary.getUnpaidBalance()).thenReturn(BigDecimal.TEN);
+        Mockito.when(unpaidInvoicesSummary.getEarliestUnpaidInvoiceDate()).thenReturn(dateOfLastUnPaidInvoice);
+        Mockito.when(unpaidInvoicesSummary.getEarliestUnpaidInvoiceId()).thenReturn(invoice.getId());
+        Mockito.when(invoiceInternalApi.getUnpaidInvoicesSummaryByAccountId(Mockito.<UUID>any(), Mockito.<LocalDate>any(), Mockito.<InternalTenantContext>any())).thenReturn(unpaidInvoicesSummary);
+
         return account;
     }
 
@@ -17,89 +17,62 @@
 package org.killbill.billing.overdue.calculator;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.SortedSet;
 import java.util.UUID;
 
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.ImmutableAccountData;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.UnpaidInvoicesSummary;
+import org.killbill.billing.overdue.OverdueTestSuiteNoDB;
+import org.killbill.billing.overdue.config.api.BillingState;
 import org.mockito.Mockito;
 import org.testng.Assert;
-import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.killbill.billing.account.api.Account;
-import org.killbill.billing.invoice.api.Invoice;
-import org.killbill.billing.invoice.api.InvoiceItem;
-import org.killbill.billing.overdue.OverdueTestSuiteNoDB;
-import org.killbill.billing.overdue.config.api.BillingState;
-import org.killbill.billing.callcontext.InternalTenantContext;
-
 public class TestBillingStateCalculator extends OverdueTestSuiteNoDB {
 
-    protected LocalDate now;
-
-    @Override
-    @BeforeMethod(groups = "fast")
-    public void beforeMethod() throws Exception {
-        super.beforeMethod();
-        final Account account = Mockito.mock(Account.class);
+    private ImmutableAccountData createAccount() {
+        final ImmutableAccountData account = Mockito.mock(ImmutableAccountData.class);
+        Mockito.when(account.getId()).thenReturn(UUID.randomUUID());
         Mockito.when(account.getTimeZone()).thenReturn(DateTimeZone.UTC);
-        Mockito.when(accountApi.getAccountById(Mockito.<UUID>any(), Mockito.<InternalTenantContext>any())).thenReturn(account);
+        return account;
     }
 
-    public BillingStateCalculator createBSCalc() {
-        now = new LocalDate();
-        final Collection<Invoice> invoices = new ArrayList<Invoice>();
-        invoices.add(createInvoice(now, BigDecimal.ZERO, null));
-        invoices.add(createInvoice(now.plusDays(1), BigDecimal.TEN, null));
-        invoices.add(createInvoice(now.plusDays(2), new BigDecimal("100.0"), null));
-
-        Mockito.when(invoiceApi.getUnpaidInvoicesByAccountId(Mockito.<UUID>any(), Mockito.<LocalDate>any(), Mockito.<InternalTenantContext>any())).thenReturn(invoices);
-
-        return new BillingStateCalculator(invoiceApi, clock) {
-            @Override
-            public BillingState calculateBillingState(final ImmutableAccountData overdueable,
-                                                      final InternalTenantContext context) {
-                return null;
-            }
-        };
-    }
-
-    public Invoice createInvoice(final LocalDate date, final BigDecimal balance, final List<InvoiceItem> invoiceItems) {
-        final Invoice invoice = Mockito.mock(Invoice.class);
-        Mockito.when(invoice.getBalance()).thenReturn(balance);
-        Mockito.when(invoice.getInvoiceDate()).thenReturn(date);
-        Mockito.when(invoice.getInvoiceItems()).thenReturn(invoiceItems);
-        Mockito.when(invoice.getId()).thenReturn(UUID.randomUUID());
-
-        return invoice;
+    private void mockUnpaidInvoicesSummary(final int nbUnpaidInvoices, final BigDecimal unpaidBalance, final UUID earliestInvoiceId, final LocalDate earliestInvoiceDate) {
+        final UnpaidInvoicesSummary summary = Mockito.mock(UnpaidInvoicesSummary.class);
+        Mockito.when(summary.getNbUnpaidInvoices()).thenReturn(nbUnpaidInvoices);
+        Mockito.when(summary.getUnpaidBalance()).thenReturn(unpaidBalance);
+        Mockito.when(summary.getEarliestUnpaidInvoiceId()).thenReturn(earliestInvoiceId);
+        Mockito.when(summary.getEarliestUnpaidInvoiceDate()).thenReturn(earliestInvoiceDate);
+        Mockito.when(invoiceApi.getUnpaidInvoicesSummaryByAccountId(Mockito.<UUID>any(), Mockito.<LocalDate>any(), Mockito.<InternalTenantContext>any())).thenReturn(summary);
     }
 
     @Test(groups = "fast")
-    public void testUnpaidInvoices() {
-        final BillingStateCalculator calc = createBSCalc();
-        final SortedSet<Invoice> invoices = calc.unpaidInvoicesForAccount(new UUID(0L, 0L), DateTimeZone.UTC, internalCallContext);
-
-        Assert.assertEquals(invoices.size(), 3);
-        Assert.assertEquals(BigDecimal.ZERO.compareTo(invoices.first().getBalance()), 0);
-        Assert.assertEquals(new BigDecimal("100.0").compareTo(invoices.last().getBalance()), 0);
+    public void testBillingStateFromUnpaidInvoicesSummary() throws Exception {
+        final LocalDate now = new LocalDate();
+        final UUID earliestInvoiceId = UUID.randomUUID();
+        mockUnpaidInvoicesSummary(3, new BigDecimal("110.0"), earliestInvoiceId, now);
+
+        final ImmutableAccountData account = createAccount();
+        final BillingState billingState = new BillingStateCalculator(invoiceApi, clock).calculateBillingState(account, internalCallContext);
+
+        Assert.assertEquals(billingState.getObjectId(), account.getId());
+        Assert.assertEquals(billingState.getNumberOfUnpaidInvoices(), 3);
+        Assert.assertEquals(billingState.getBalanceOfUnpaidInvoices().compareTo(new BigDecimal("110.0")), 0);
+        Assert.assertEquals(billingState.getIdOfEarliestUnpaidInvoice(), earliestInvoiceId);
+        Assert.assertEquals(billingState.getDateOfEarliestUnpaidInvoice(), now);
     }
 
     @Test(groups = "fast")
-    public void testSum() {
-        final BillingStateCalculator calc = createBSCalc();
-        final SortedSet<Invoice> invoices = calc.unpaidInvoicesForAccount(new UUID(0L, 0L), DateTimeZone.UTC, internalCallContext);
-        Assert.assertEquals(new BigDecimal("110.0").compareTo(calc.sumBalance(invoices)), 0);
-    }
+    public void testBillingStateWithoutUnpaidInvoices() throws Exception {
+        mockUnpaidInvoicesSummary(0, BigDecimal.ZERO, null, null);
 
-    @Test(groups = "fast")
-    public void testEarliest() {
-        final BillingStateCalculator calc = createBSCalc();
-        final SortedSet<Invoice> invoices = calc.unpaidInvoicesForAccount(new UUID(0L, 0L), DateTimeZone.UTC, internalCallContext);
-        Assert.assertEquals(calc.earliest(invoices).getInvoiceDate(), now);
+        final BillingState billingState = new BillingStateCalculator(invoiceApi, clock).calculateBillingState(createAccount(), internalCallContext);
+
+        Assert.assertEquals(billingState.getNumberOfUnpaidInvoices(), 0);
+        Assert.assertEquals(billingState.getBalanceOfUnpaidInvoices().compareTo(BigDecimal.ZERO), 0);
+        Assert.assertNull(billingState.getIdOfEarliestUnpaidInvoice());
+        Assert.assertNull(billingState.getDateOfEarliestUnpaidInvoice());
     }
 }
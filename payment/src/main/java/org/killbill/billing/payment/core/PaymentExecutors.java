@@ -17,6 +17,9 @@
 
 package org.killbill.billing.payment.core;
 
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -30,6 +33,12 @@ import org.killbill.billing.util.config.PaymentConfig;
 import org.killbill.commons.concurrent.Executors;
 import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Iterables;
+
 public class PaymentExecutors {
 
     private static final long TIMEOUT_EXECUTOR_SEC = 3L;
@@ -38,18 +47,29 @@ public class PaymentExecutors {
 
     private static final String PLUGIN_THREAD_PREFIX = "Plugin-th-";
     private static final String PAYMENT_PLUGIN_TH_GROUP_NAME = "pay-plugin-grp";
+    private static final String JANITOR_SHARD_THREAD_PREFIX = "PaymentJanitor-shard-th-";
 
     public static final String JANITOR_EXECUTOR_NAMED = "JanitorExecutor";
     public static final String PLUGIN_EXECUTOR_NAMED = "PluginExecutor";
 
+    private static final String PLUGIN_INFO_EXECUTOR_SUFFIX = "-info";
+
     private final PaymentConfig paymentConfig;
+    private final MetricRegistry metricRegistry;
 
     private volatile ThreadPoolExecutor pluginExecutorService;
     private volatile ScheduledExecutorService janitorExecutorService;
+    private volatile ExecutorService janitorShardExecutorService;
+
+    // Per plugin bulkheads, created on first use
+    private final ConcurrentMap<String, PluginExecutor> pluginExecutors = new ConcurrentHashMap<String, PluginExecutor>();
+    // Per plugin bulkheads for the plugin info of the bulk get APIs, so they cannot starve payment calls
+    private final ConcurrentMap<String, PluginExecutor> pluginInfoExecutors = new ConcurrentHashMap<String, PluginExecutor>();
 
     @Inject
-    public PaymentExecutors(PaymentConfig paymentConfig) {
+    public PaymentExecutors(final PaymentConfig paymentConfig, final MetricRegistry metricRegistry) {
         this.paymentConfig = paymentConfig;
+        this.metricRegistry = metricRegistry;
 
     }
 
@@ -57,28 +77,84 @@ public class PaymentExecutors {
         this.pluginExecutorService = createPluginExecutorService();
         this.pluginExecutorService.prestartAllCoreThreads();
         this.janitorExecutorService = createJanitorExecutorService();
+        this.janitorShardExecutorService = createJanitorShardExecutorService();
     }
 
 
     public void stop() throws InterruptedException {
         pluginExecutorService.shutdownNow();
         janitorExecutorService.shutdownNow();
+        janitorShardExecutorService.shutdownNow();
+        for (final PluginExecutor pluginExecutor : Iterables.concat(pluginExecutors.values(), pluginInfoExecutors.values())) {
+            pluginExecutor.shutdownNow();
+        }
+
+        for (final PluginExecutor pluginExecutor : Iterables.concat(pluginExecutors.values(), pluginInfoExecutors.values())) {
+            pluginExecutor.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        }
+        pluginExecutors.clear();
+        pluginInfoExecutors.clear();
+        metricRegistry.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(final String name, final Metric metric) {
+                return name.startsWith(PluginExecutor.class.getName() + ".");
+            }
+        });
 
         pluginExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         pluginExecutorService = null;
 
         janitorExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
         janitorExecutorService = null;
+
+        janitorShardExecutorService.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        janitorShardExecutorService = null;
     }
 
     public ExecutorService getPluginExecutorService() {
         return pluginExecutorService;
     }
 
+    public PluginExecutor getPluginExecutor(final String pluginName) {
+        return getOrCreatePluginExecutor(pluginExecutors, pluginName, paymentConfig.getPaymentPluginThreadNb());
+    }
+
+    public PluginExecutor getPluginInfoExecutor(final String pluginName) {
+        return getOrCreatePluginExecutor(pluginInfoExecutors, pluginName + PLUGIN_INFO_EXECUTOR_SUFFIX, paymentConfig.getPaymentPluginInfoThreadNb());
+    }
+
+    private PluginExecutor getOrCreatePluginExecutor(final ConcurrentMap<String, PluginExecutor> executors, final String pluginName, final int nbThreads) {
+        PluginExecutor pluginExecutor = executors.get(pluginName);
+        if (pluginExecutor == null) {
+            final PluginExecutor newPluginExecutor = createPluginExecutor(pluginName, nbThreads);
+            pluginExecutor = executors.putIfAbsent(pluginName, newPluginExecutor);
+            if (pluginExecutor == null) {
+                pluginExecutor = newPluginExecutor;
+                registerMetrics(pluginExecutor);
+            } else {
+                newPluginExecutor.shutdownNow();
+            }
+        }
+        return pluginExecutor;
+    }
+
+    public Collection<PluginExecutor> getPluginExecutors() {
+        return pluginExecutors.values();
+    }
+
+    public Collection<PluginExecutor> getPluginInfoExecutors() {
+        return pluginInfoExecutors.values();
+    }
+
     public ScheduledExecutorService getJanitorExecutorService() {
         return janitorExecutorService;
     }
 
+    // Workers for the Janitor shards (the Janitor scheduler only triggers the runs)
+    public ExecutorService getJanitorShardExecutorService() {
+        return janitorShardExecutorService;
+    }
+
     private ThreadPoolExecutor createPluginExecutorService() {
         final int minThreadNb = DEFAULT_MIN_PLUGIN_THREADS < paymentConfig.getPaymentPluginThreadNb() ? DEFAULT_MIN_PLUGIN_THREADS : paymentConfig.getPaymentPluginThreadNb();
         return new WithProfilingThreadPoolExecutor(minThreadNb,
@@ -98,7 +174,79 @@ public class PaymentExecutors {
 
     }
 
+    private PluginExecutor createPluginExecutor(final String pluginName, final int nbThreads) {
+        return new PluginExecutor(pluginName,
+                                  nbThreads,
+                                  paymentConfig.getPaymentPluginQueueSize(),
+                                  paymentConfig.getPaymentPluginMinConcurrency(),
+                                  paymentConfig.getPaymentPluginLatencyTarget().getMillis());
+    }
+
+    // Exposes the state of the bulkhead as org.killbill.billing.payment.core.PluginExecutor.<pluginName>.<metric>
+    private void registerMetrics(final PluginExecutor pluginExecutor) {
+        final String prefix = MetricRegistry.name(PluginExecutor.class, pluginExecutor.getPluginName());
+        metricRegistry.register(MetricRegistry.name(prefix, "queueDepth"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return pluginExecutor.getQueueDepth();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "inFlight"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return pluginExecutor.getNbInFlight();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "concurrencyLimit"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return pluginExecutor.getConcurrencyLimit();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "calls"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pluginExecutor.getNbCalls();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "rejected"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pluginExecutor.getNbRejected();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "timeouts"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pluginExecutor.getNbTimeouts();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(prefix, "averageWaitTimeMillis"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return pluginExecutor.getAverageWaitTimeMillis();
+            }
+        });
+    }
+
     private ScheduledExecutorService createJanitorExecutorService() {
         return Executors.newSingleThreadScheduledExecutor("PaymentJanitor");
     }
+
+    private ExecutorService createJanitorShardExecutorService() {
+        return new WithProfilingThreadPoolExecutor(paymentConfig.getJanitorThreadNb(),
+                                                   paymentConfig.getJanitorThreadNb(),
+                                                   0,
+                                                   TimeUnit.SECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactory() {
+
+                                                       @Override
+                                                       public Thread newThread(final Runnable r) {
+                                                           final Thread th = new Thread(r);
+                                                           th.setName(JANITOR_SHARD_THREAD_PREFIX + th.getId());
+                                                           return th;
+                                                       }
+                                                   });
+    }
 }
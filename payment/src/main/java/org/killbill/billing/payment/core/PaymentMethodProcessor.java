@@ -28,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
@@ -77,11 +78,19 @@ import com.google.inject.Inject;
 import static org.killbill.billing.payment.dispatcher.PaymentPluginDispatcher.dispatchWithExceptionHandling;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPagination;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationFromPlugins;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.prefetchAccountRecordIds;
 
 public class PaymentMethodProcessor extends ProcessorBase {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentMethodProcessor.class);
 
+    private static final Function<PaymentMethodModelDao, UUID> PAYMENT_METHOD_ACCOUNT_ID_FUNCTION = new Function<PaymentMethodModelDao, UUID>() {
+        @Override
+        public UUID apply(final PaymentMethodModelDao paymentMethodModelDao) {
+            return paymentMethodModelDao.getAccountId();
+        }
+    };
+
     private final PluginDispatcher<UUID> uuidPluginNotificationDispatcher;
 
     private final PaymentConfig paymentConfig;
@@ -261,7 +270,12 @@ public class PaymentMethodProcessor extends ProcessorBase {
                                        @Override
                                        public Pagination<PaymentMethodModelDao> build() {
                                            // Find all payment methods for all accounts
-                                           return paymentDao.getPaymentMethods(pluginName, offset, limit, internalTenantContext);
+                                           return prefetchAccountRecordIds(paymentDao.getPaymentMethods(pluginName, offset, limit, internalTenantContext),
+                                                                           limit,
+                                                                           PAYMENT_METHOD_ACCOUNT_ID_FUNCTION,
+                                                                           ObjectType.ACCOUNT,
+                                                                           internalCallContextFactory,
+                                                                           tenantContext);
                                        }
                                    },
                                    new Function<PaymentMethodModelDao, PaymentMethod>() {
@@ -306,7 +320,12 @@ public class PaymentMethodProcessor extends ProcessorBase {
                                            new SourcePaginationBuilder<PaymentMethodModelDao, PaymentApiException>() {
                                                @Override
                                                public Pagination<PaymentMethodModelDao> build() {
-                                                   return paymentDao.searchPaymentMethods(searchKey, offset, limit, internalTenantContext);
+                                                   return prefetchAccountRecordIds(paymentDao.searchPaymentMethods(searchKey, offset, limit, internalTenantContext),
+                                                                                   limit,
+                                                                                   PAYMENT_METHOD_ACCOUNT_ID_FUNCTION,
+                                                                                   ObjectType.ACCOUNT,
+                                                                                   internalCallContextFactory,
+                                                                                   tenantContext);
                                                }
                                            },
                                            new Function<PaymentMethodModelDao, PaymentMethod>() {
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.apache.shiro.util.ThreadContext;
+import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.dao.PaymentModelDao;
+import org.killbill.billing.payment.dispatcher.CallableWithRequestData;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
+import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
+import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.PaymentConfig;
+import org.killbill.commons.request.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+// Retrieves plugin info for bulk get APIs (getAccountPayments / getPayments): calls are fanned out on dedicated plugin
+// info bulkheads (not the ones of the payment calls) under a single deadline and a cap on the number of calls, and
+// recent results are optionally cached per payment
+public class PaymentPluginInfoLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentPluginInfoLoader.class);
+
+    private static final ImmutableList<PluginProperty> PLUGIN_PROPERTIES = ImmutableList.<PluginProperty>of();
+    private static final long MAX_CACHED_PAYMENTS = 10000L;
+
+    private final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry;
+    private final PaymentExecutors paymentExecutors;
+    private final PaymentConfig paymentConfig;
+    // Null when caching is disabled
+    private final Cache<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoCache;
+
+    @Inject
+    public PaymentPluginInfoLoader(final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry,
+                                   final PaymentExecutors paymentExecutors,
+                                   final PaymentConfig paymentConfig) {
+        this.pluginRegistry = pluginRegistry;
+        this.paymentExecutors = paymentExecutors;
+        this.paymentConfig = paymentConfig;
+
+        final long ttlMillis = paymentConfig.getPaymentPluginInfoCacheTtl().getMillis();
+        if (ttlMillis > 0) {
+            this.pluginInfoCache = CacheBuilder.newBuilder()
+                                               .maximumSize(MAX_CACHED_PAYMENTS)
+                                               .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                                               .<UUID, List<PaymentTransactionInfoPlugin>>build();
+        } else {
+            this.pluginInfoCache = null;
+        }
+    }
+
+    // Payments without a plugin name are skipped, as well as payments over the cap or for which the plugin didn't answer in time (no entry
+    // in the returned map): the number of payments returned without plugin info is logged
+    public Map<UUID, List<PaymentTransactionInfoPlugin>> getPaymentTransactionInfoPlugins(final Iterable<PaymentModelDao> payments,
+                                                                                         final Map<UUID, String> pluginNameByPaymentId,
+                                                                                         final TenantContext context) {
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = new HashMap<UUID, List<PaymentTransactionInfoPlugin>>();
+        final Map<UUID, Future<List<PaymentTransactionInfoPlugin>>> futures = new LinkedHashMap<UUID, Future<List<PaymentTransactionInfoPlugin>>>();
+        final Map<UUID, PluginExecutor> pluginExecutorByPaymentId = new HashMap<UUID, PluginExecutor>();
+        final int maxCalls = paymentConfig.getPaymentPluginInfoMaxCalls();
+        int nbOverCap = 0;
+        int nbRejected = 0;
+        int nbTimedOut = 0;
+        int nbFailed = 0;
+        int nbInterrupted = 0;
+
+        for (final PaymentModelDao paymentModelDao : payments) {
+            final String pluginName = pluginNameByPaymentId.get(paymentModelDao.getId());
+            if (pluginName == null) {
+                continue;
+            }
+
+            final List<PaymentTransactionInfoPlugin> cachedPluginInfo = pluginInfoCache == null ? null : pluginInfoCache.getIfPresent(paymentModelDao.getId());
+            if (cachedPluginInfo != null) {
+                pluginInfoByPaymentId.put(paymentModelDao.getId(), cachedPluginInfo);
+                continue;
+            }
+
+            final PaymentPluginApi pluginApi = pluginRegistry.getServiceForName(pluginName);
+            if (pluginApi == null) {
+                log.warn("Unable to retrieve pluginApi {} for payment {}", pluginName, paymentModelDao.getId());
+                continue;
+            }
+
+            if (futures.size() >= maxCalls) {
+                nbOverCap++;
+                continue;
+            }
+
+            final PluginExecutor pluginExecutor = paymentExecutors.getPluginInfoExecutor(pluginName);
+            try {
+                futures.put(paymentModelDao.getId(), pluginExecutor.submit(createCallable(pluginApi, paymentModelDao, context)));
+                pluginExecutorByPaymentId.put(paymentModelDao.getId(), pluginExecutor);
+            } catch (final RejectedExecutionException e) {
+                log.debug("Unable to retrieve plugin info for payment {}: plugin {} is saturated", paymentModelDao.getId(), pluginName);
+                nbRejected++;
+            }
+        }
+
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(paymentConfig.getPaymentPluginTimeout().getMillis());
+        boolean interrupted = false;
+        for (final Entry<UUID, Future<List<PaymentTransactionInfoPlugin>>> entry : futures.entrySet()) {
+            final UUID paymentId = entry.getKey();
+            final Future<List<PaymentTransactionInfoPlugin>> future = entry.getValue();
+            if (interrupted) {
+                future.cancel(true);
+                nbInterrupted++;
+                continue;
+            }
+
+            try {
+                final List<PaymentTransactionInfoPlugin> pluginInfo = future.get(Math.max(deadlineNanos - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+                pluginInfoByPaymentId.put(paymentId, pluginInfo);
+                if (pluginInfoCache != null && pluginInfo != null) {
+                    pluginInfoCache.put(paymentId, pluginInfo);
+                }
+            } catch (final TimeoutException e) {
+                pluginExecutorByPaymentId.get(paymentId).onTimeout(future);
+                log.debug("Unable to retrieve plugin info for payment {}: timeout", paymentId);
+                nbTimedOut++;
+            } catch (final ExecutionException e) {
+                log.warn("Unable to retrieve plugin info for payment " + paymentId, e.getCause());
+                nbFailed++;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                nbInterrupted++;
+                interrupted = true;
+            }
+        }
+
+        final int nbMissing = nbOverCap + nbRejected + nbTimedOut + nbFailed + nbInterrupted;
+        if (nbMissing > 0) {
+            log.warn("Returning {} payment(s) without plugin info: {} over the limit of {} calls, {} rejected by saturated plugins, {} timed out, {} failed, {} interrupted",
+                     nbMissing, nbOverCap, maxCalls, nbRejected, nbTimedOut, nbFailed, nbInterrupted);
+        }
+
+        return pluginInfoByPaymentId;
+    }
+
+    public void invalidate(@Nullable final UUID paymentId) {
+        if (pluginInfoCache != null && paymentId != null) {
+            pluginInfoCache.invalidate(paymentId);
+        }
+    }
+
+    private Callable<List<PaymentTransactionInfoPlugin>> createCallable(final PaymentPluginApi pluginApi, final PaymentModelDao paymentModelDao, final TenantContext context) {
+        // Wrap the callable to keep the original requestId
+        return new CallableWithRequestData<List<PaymentTransactionInfoPlugin>>(Request.getPerThreadRequestData(),
+                                                                               UUIDs.getRandom(),
+                                                                               ThreadContext.getSecurityManager(),
+                                                                               ThreadContext.getSubject(),
+                                                                               MDC.getCopyOfContextMap(),
+                                                                               new Callable<List<PaymentTransactionInfoPlugin>>() {
+                                                                                   @Override
+                                                                                   public List<PaymentTransactionInfoPlugin> call() throws Exception {
+                                                                                       return pluginApi.getPaymentInfo(paymentModelDao.getAccountId(), paymentModelDao.getId(), PLUGIN_PROPERTIES, context);
+                                                                                   }
+                                                                               });
+    }
+}
@@ -33,6 +33,7 @@ import javax.inject.Inject;
 
 import org.killbill.automaton.OperationResult;
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -75,6 +76,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
@@ -82,6 +84,7 @@ import com.google.common.collect.Ordering;
 
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPagination;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationFromPlugins;
+import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.prefetchAccountRecordIds;
 
 public class PaymentProcessor extends ProcessorBase {
 
@@ -89,9 +92,17 @@ public class PaymentProcessor extends ProcessorBase {
 
     private final PaymentAutomatonRunner paymentAutomatonRunner;
     private final IncompletePaymentTransactionTask incompletePaymentTransactionTask;
+    private final PaymentPluginInfoLoader paymentPluginInfoLoader;
 
     private static final Logger log = LoggerFactory.getLogger(PaymentProcessor.class);
 
+    private static final Function<PaymentModelDao, UUID> PAYMENT_ACCOUNT_ID_FUNCTION = new Function<PaymentModelDao, UUID>() {
+        @Override
+        public UUID apply(final PaymentModelDao paymentModelDao) {
+            return paymentModelDao.getAccountId();
+        }
+    };
+
     @Inject
     public PaymentProcessor(final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry,
                             final AccountInternalApi accountUserApi,
@@ -102,10 +113,12 @@ public class PaymentProcessor extends ProcessorBase {
                             final GlobalLocker locker,
                             final PaymentAutomatonRunner paymentAutomatonRunner,
                             final IncompletePaymentTransactionTask incompletePaymentTransactionTask,
+                            final PaymentPluginInfoLoader paymentPluginInfoLoader,
                             final Clock clock) {
         super(pluginRegistry, accountUserApi, paymentDao, tagUserApi, locker, internalCallContextFactory, invoiceApi, clock);
         this.paymentAutomatonRunner = paymentAutomatonRunner;
         this.incompletePaymentTransactionTask = incompletePaymentTransactionTask;
+        this.paymentPluginInfoLoader = paymentPluginInfoLoader;
     }
 
     public Payment createAuthorization(final boolean isApiPayment, @Nullable final UUID attemptId, final Account account, @Nullable final UUID paymentMethodId, @Nullable final UUID paymentId, final BigDecimal amount, final Currency currency,
@@ -166,33 +179,34 @@ public class PaymentProcessor extends ProcessorBase {
                                 overridePluginResult, PLUGIN_PROPERTIES, callContext, internalCallContext);
     }
 
+    // Name of the payment plugin an operation will be sent to: the one of the payment method, of the existing payment or the account default one
+    public String getPaymentProviderPluginName(@Nullable final UUID paymentMethodId, @Nullable final UUID paymentId, final Account account, final InternalTenantContext tenantContext) throws PaymentApiException {
+        if (paymentMethodId != null) {
+            return getPaymentProviderPluginName(paymentMethodId, tenantContext);
+        }
+        if (paymentId != null) {
+            final PaymentModelDao paymentModelDao = paymentDao.getPayment(paymentId, tenantContext);
+            if (paymentModelDao == null) {
+                throw new PaymentApiException(ErrorCode.PAYMENT_NO_SUCH_PAYMENT, paymentId);
+            }
+            return getPaymentProviderPluginName(paymentModelDao.getPaymentMethodId(), tenantContext);
+        }
+        return getPaymentProviderPluginName(getDefaultPaymentMethodId(account), tenantContext);
+    }
+
     public List<Payment> getAccountPayments(final UUID accountId, final boolean withPluginInfo, final TenantContext context, final InternalTenantContext tenantContext) throws PaymentApiException {
         final List<PaymentModelDao> paymentsModelDao = paymentDao.getPaymentsForAccount(accountId, tenantContext);
         final List<PaymentTransactionModelDao> transactionsModelDao = paymentDao.getTransactionsForAccount(accountId, tenantContext);
 
-        final Map<UUID, PaymentPluginApi> paymentPluginByPaymentMethodId = new HashMap<UUID, PaymentPluginApi>();
-        final Collection<UUID> absentPlugins = new HashSet<UUID>();
+        // Retrieve the plugin info for all payments at once, rather than one plugin call at a time
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = withPluginInfo ?
+                                                                                   getPaymentTransactionInfoPlugins(paymentsModelDao, context, tenantContext) :
+                                                                                   ImmutableMap.<UUID, List<PaymentTransactionInfoPlugin>>of();
         final List<Payment> transformedPayments = Lists.<PaymentModelDao, Payment>transform(paymentsModelDao,
                                                                                             new Function<PaymentModelDao, Payment>() {
                                                                                                 @Override
                                                                                                 public Payment apply(final PaymentModelDao paymentModelDao) {
-                                                                                                    List<PaymentTransactionInfoPlugin> pluginInfo = null;
-
-                                                                                                    if (withPluginInfo) {
-                                                                                                        PaymentPluginApi pluginApi = paymentPluginByPaymentMethodId.get(paymentModelDao.getPaymentMethodId());
-                                                                                                        if (pluginApi == null && !absentPlugins.contains(paymentModelDao.getPaymentMethodId())) {
-                                                                                                            try {
-                                                                                                                pluginApi = getPaymentProviderPlugin(paymentModelDao.getPaymentMethodId(), tenantContext);
-                                                                                                                paymentPluginByPaymentMethodId.put(paymentModelDao.getPaymentMethodId(), pluginApi);
-                                                                                                            } catch (final PaymentApiException e) {
-                                                                                                                log.warn("Unable to retrieve pluginApi for payment method " + paymentModelDao.getPaymentMethodId());
-                                                                                                                absentPlugins.add(paymentModelDao.getPaymentMethodId());
-                                                                                                            }
-                                                                                                        }
-
-                                                                                                        pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, context);
-                                                                                                    }
-
+                                                                                                    final List<PaymentTransactionInfoPlugin> pluginInfo = pluginInfoByPaymentId.get(paymentModelDao.getId());
                                                                                                     return toPayment(paymentModelDao, transactionsModelDao, pluginInfo, tenantContext);
                                                                                                 }
                                                                                             });
@@ -233,20 +247,42 @@ public class PaymentProcessor extends ProcessorBase {
     }
 
     public Pagination<Payment> getPayments(final Long offset, final Long limit, final String pluginName, final boolean withPluginInfo, final Iterable<PluginProperty> properties, final TenantContext tenantContext, final InternalTenantContext internalTenantContext) throws PaymentApiException {
-        final PaymentPluginApi pluginApi = withPluginInfo ? getPaymentPluginApi(pluginName) : null;
+        if (withPluginInfo) {
+            // Sanity: make sure the plugin is registered
+            getPaymentPluginApi(pluginName);
+        }
 
+        final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfoByPaymentId = new HashMap<UUID, List<PaymentTransactionInfoPlugin>>();
         return getEntityPagination(limit,
                                    new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
                                        @Override
                                        public Pagination<PaymentModelDao> build() {
                                            // Find all payments for all accounts
-                                           return paymentDao.getPayments(pluginName, offset, limit, internalTenantContext);
+                                           final Pagination<PaymentModelDao> paymentModelDaos = prefetchAccountRecordIds(paymentDao.getPayments(pluginName, offset, limit, internalTenantContext),
+                                                                                                                         limit,
+                                                                                                                         PAYMENT_ACCOUNT_ID_FUNCTION,
+                                                                                                                         ObjectType.ACCOUNT,
+                                                                                                                         internalCallContextFactory,
+                                                                                                                         tenantContext);
+                                           if (!withPluginInfo) {
+                                               return paymentModelDaos;
+                                           }
+
+                                           // Retrieve the plugin info for the whole page at once, rather than one plugin call at a time
+                                           final List<PaymentModelDao> page = ImmutableList.<PaymentModelDao>copyOf(paymentModelDaos);
+                                           final Map<UUID, String> pluginNameByPaymentId = new HashMap<UUID, String>();
+                                           for (final PaymentModelDao paymentModelDao : page) {
+                                               pluginNameByPaymentId.put(paymentModelDao.getId(), pluginName);
+                                           }
+                                           pluginInfoByPaymentId.putAll(paymentPluginInfoLoader.getPaymentTransactionInfoPlugins(page, pluginNameByPaymentId, tenantContext));
+
+                                           return new DefaultPagination<PaymentModelDao>(paymentModelDaos, limit, page.iterator());
                                        }
                                    },
                                    new Function<PaymentModelDao, Payment>() {
                                        @Override
                                        public Payment apply(final PaymentModelDao paymentModelDao) {
-                                           final List<PaymentTransactionInfoPlugin> pluginInfo = getPaymentTransactionInfoPluginsIfNeeded(pluginApi, paymentModelDao, tenantContext);
+                                           final List<PaymentTransactionInfoPlugin> pluginInfo = pluginInfoByPaymentId.get(paymentModelDao.getId());
                                            return toPayment(paymentModelDao.getId(), pluginInfo, internalTenantContext);
                                        }
                                    }
@@ -272,7 +308,12 @@ public class PaymentProcessor extends ProcessorBase {
                                            new SourcePaginationBuilder<PaymentModelDao, PaymentApiException>() {
                                                @Override
                                                public Pagination<PaymentModelDao> build() {
-                                                   return paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext);
+                                                   return prefetchAccountRecordIds(paymentDao.searchPayments(searchKey, offset, limit, internalTenantContext),
+                                                                                   limit,
+                                                                                   PAYMENT_ACCOUNT_ID_FUNCTION,
+                                                                                   ObjectType.ACCOUNT,
+                                                                                   internalCallContextFactory,
+                                                                                   tenantContext);
                                                }
                                            },
                                            new Function<PaymentModelDao, Payment>() {
@@ -415,7 +456,13 @@ public class PaymentProcessor extends ProcessorBase {
             throw new PaymentApiException(ErrorCode.PAYMENT_NO_DEFAULT_PAYMENT_METHOD, paymentStateContext.getAccount().getId());
         }
 
-        final UUID nonNullPaymentId = paymentAutomatonRunner.run(paymentStateContext, daoHelper, currentStateName, transactionType);
+        final UUID nonNullPaymentId;
+        try {
+            nonNullPaymentId = paymentAutomatonRunner.run(paymentStateContext, daoHelper, currentStateName, transactionType);
+        } finally {
+            // The plugin state has (maybe) changed, even if the operation failed
+            paymentPluginInfoLoader.invalidate(paymentStateContext.getPaymentId());
+        }
 
         return getPayment(nonNullPaymentId, true, properties, callContext, internalCallContext);
     }
@@ -468,18 +515,29 @@ public class PaymentProcessor extends ProcessorBase {
         return Iterables.<PaymentTransactionModelDao>getLast(completionCandidates, null);
     }
 
-    // Used in bulk get API (getAccountPayments / getPayments)
-    private List<PaymentTransactionInfoPlugin> getPaymentTransactionInfoPluginsIfNeeded(@Nullable final PaymentPluginApi pluginApi, final PaymentModelDao paymentModelDao, final TenantContext context) {
-        if (pluginApi == null) {
-            return null;
-        }
+    // Used in bulk get API (getAccountPayments)
+    private Map<UUID, List<PaymentTransactionInfoPlugin>> getPaymentTransactionInfoPlugins(final Iterable<PaymentModelDao> paymentsModelDao, final TenantContext context, final InternalTenantContext tenantContext) {
+        final Map<UUID, String> pluginNameByPaymentMethodId = new HashMap<UUID, String>();
+        final Collection<UUID> absentPlugins = new HashSet<UUID>();
+        final Map<UUID, String> pluginNameByPaymentId = new HashMap<UUID, String>();
+        for (final PaymentModelDao paymentModelDao : paymentsModelDao) {
+            String pluginName = pluginNameByPaymentMethodId.get(paymentModelDao.getPaymentMethodId());
+            if (pluginName == null && !absentPlugins.contains(paymentModelDao.getPaymentMethodId())) {
+                try {
+                    pluginName = getPaymentProviderPluginName(paymentModelDao.getPaymentMethodId(), tenantContext);
+                    pluginNameByPaymentMethodId.put(paymentModelDao.getPaymentMethodId(), pluginName);
+                } catch (final PaymentApiException e) {
+                    log.warn("Unable to retrieve pluginApi for payment method " + paymentModelDao.getPaymentMethodId());
+                    absentPlugins.add(paymentModelDao.getPaymentMethodId());
+                }
+            }
 
-        try {
-            return getPaymentTransactionInfoPlugins(pluginApi, paymentModelDao, PLUGIN_PROPERTIES, context);
-        } catch (final PaymentApiException e) {
-            log.warn("Unable to retrieve plugin info for payment " + paymentModelDao.getId());
-            return null;
+            if (pluginName != null) {
+                pluginNameByPaymentId.put(paymentModelDao.getId(), pluginName);
+            }
         }
+
+        return paymentPluginInfoLoader.getPaymentTransactionInfoPlugins(paymentsModelDao, pluginNameByPaymentId, context);
     }
 
     private List<PaymentTransactionInfoPlugin> getPaymentTransactionInfoPlugins(final PaymentPluginApi plugin, final PaymentModelDao paymentModelDao, final Iterable<PluginProperty> properties, final TenantContext context) throws PaymentApiException {
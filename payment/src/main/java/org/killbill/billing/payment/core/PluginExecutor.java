@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulkhead for the calls to a payment plugin: calls run on a pool dedicated to the plugin with a bounded queue, and are
+ * rejected right away when the plugin already has too many calls in flight.
+ * <p/>
+ * The number of calls allowed in flight (running or queued) adapts to the plugin latency: it grows by one after a full
+ * window of calls under the latency target, and is cut by a quarter on each call over the target or timing out.
+ */
+public class PluginExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(PluginExecutor.class);
+
+    private static final String PLUGIN_THREAD_PREFIX = "Plugin-th-";
+    private static final String PAYMENT_PLUGIN_TH_GROUP_NAME_PREFIX = "pay-plugin-grp-";
+
+    private final String pluginName;
+    private final ThreadPoolExecutor executor;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long latencyTargetNanos;
+
+    private final AtomicInteger nbInFlight = new AtomicInteger();
+    private volatile int concurrencyLimit;
+    // Guarded by this
+    private int nbCallsUnderTargetSinceLastIncrease;
+
+    private final AtomicLong nbCalls = new AtomicLong();
+    private final AtomicLong nbRejected = new AtomicLong();
+    private final AtomicLong nbTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitTimeNanos = new AtomicLong();
+
+    public PluginExecutor(final String pluginName, final int nbThreads, final int queueSize, final int minConcurrency, final long latencyTargetMillis) {
+        this.pluginName = pluginName;
+        this.maxConcurrency = nbThreads + queueSize;
+        this.minConcurrency = Math.max(1, Math.min(minConcurrency, maxConcurrency));
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.concurrencyLimit = maxConcurrency;
+
+        final ThreadGroup threadGroup = new ThreadGroup(PAYMENT_PLUGIN_TH_GROUP_NAME_PREFIX + pluginName);
+        this.executor = new WithProfilingThreadPoolExecutor(nbThreads,
+                                                            nbThreads,
+                                                            10,
+                                                            TimeUnit.MINUTES,
+                                                            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+                                                            new ThreadFactory() {
+
+                                                                @Override
+                                                                public Thread newThread(final Runnable r) {
+                                                                    final Thread th = new Thread(threadGroup, r);
+                                                                    th.setName(PLUGIN_THREAD_PREFIX + pluginName + "-" + th.getId());
+                                                                    return th;
+                                                                }
+                                                            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> Future<T> submit(final Callable<T> task) throws RejectedExecutionException {
+        if (!tryAcquire()) {
+            nbRejected.incrementAndGet();
+            log.warn("Rejecting call to plugin='{}': {} calls in flight", pluginName, nbInFlight.get());
+            throw new RejectedExecutionException(String.format("Too many calls in flight for plugin='%s'", pluginName));
+        }
+
+        final long submittedNanos = System.nanoTime();
+        final FutureTask<T> futureTask = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                totalWaitTimeNanos.addAndGet(System.nanoTime() - submittedNanos);
+                return task.call();
+            }
+        }) {
+            @Override
+            protected void done() {
+                // Timeouts are accounted for in onTimeout
+                release(isCancelled() ? -1 : System.nanoTime() - submittedNanos);
+            }
+        };
+
+        try {
+            executor.execute(futureTask);
+        } catch (final RejectedExecutionException e) {
+            nbRejected.incrementAndGet();
+            release(-1);
+            throw e;
+        }
+        nbCalls.incrementAndGet();
+        return futureTask;
+    }
+
+    // The caller gave up on that call: free the plugin thread and back off
+    public void onTimeout(final Future<?> future) {
+        nbTimeouts.incrementAndGet();
+        future.cancel(true);
+        decreaseLimit();
+    }
+
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getNbInFlight() {
+        return nbInFlight.get();
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public long getNbCalls() {
+        return nbCalls.get();
+    }
+
+    public long getNbRejected() {
+        return nbRejected.get();
+    }
+
+    public long getNbTimeouts() {
+        return nbTimeouts.get();
+    }
+
+    public long getAverageWaitTimeMillis() {
+        final long calls = nbCalls.get();
+        return calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTimeNanos.get() / calls);
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            final int current = nbInFlight.get();
+            if (current >= concurrencyLimit) {
+                return false;
+            }
+            if (nbInFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(final long latencyNanos) {
+        nbInFlight.decrementAndGet();
+        if (latencyNanos < 0) {
+            return;
+        }
+        if (latencyNanos > latencyTargetNanos) {
+            decreaseLimit();
+        } else {
+            increaseLimit();
+        }
+    }
+
+    private synchronized void increaseLimit() {
+        nbCallsUnderTargetSinceLastIncrease++;
+        if (nbCallsUnderTargetSinceLastIncrease >= concurrencyLimit && concurrencyLimit < maxConcurrency) {
+            concurrencyLimit++;
+            nbCallsUnderTargetSinceLastIncrease = 0;
+        }
+    }
+
+    private synchronized void decreaseLimit() {
+        nbCallsUnderTargetSinceLastIncrease = 0;
+        final int newLimit = Math.max(minConcurrency, (concurrencyLimit * 3) / 4);
+        if (newLimit != concurrencyLimit) {
+            log.info("Reducing concurrency limit for plugin='{}' from {} to {}", pluginName, concurrencyLimit, newLimit);
+            concurrencyLimit = newLimit;
+        }
+    }
+}
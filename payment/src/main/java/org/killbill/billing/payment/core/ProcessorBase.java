@@ -18,13 +18,10 @@
 
 package org.killbill.billing.payment.core;
 
-import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 
-import javax.annotation.Nullable;
-
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
@@ -46,7 +43,6 @@ import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.config.PaymentConfig;
 import org.killbill.billing.util.globallocker.LockerType;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLock;
 import org.killbill.commons.locker.GlobalLocker;
@@ -89,13 +85,12 @@ public abstract class ProcessorBase {
     }
 
     protected boolean isAccountAutoPayOff(final UUID accountId, final InternalTenantContext context) {
-        final List<Tag> accountTags = tagInternalApi.getTags(accountId, ObjectType.ACCOUNT, context);
+        final Set<ControlTagType> accountControlTags = tagInternalApi.getControlTagTypes(accountId, ObjectType.ACCOUNT, context);
 
-        return ControlTagType.isAutoPayOff(Collections2.transform(accountTags, new Function<Tag, UUID>() {
-            @Nullable
+        return ControlTagType.isAutoPayOff(Collections2.transform(accountControlTags, new Function<ControlTagType, UUID>() {
             @Override
-            public UUID apply(@Nullable final Tag tag) {
-                return tag.getTagDefinitionId();
+            public UUID apply(final ControlTagType controlTagType) {
+                return controlTagType.getId();
             }
         }));
     }
@@ -18,6 +18,12 @@
 package org.killbill.billing.payment.core.janitor;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
@@ -37,6 +43,7 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.callcontext.UserType;
 import org.killbill.billing.util.config.PaymentConfig;
+import org.killbill.billing.util.entity.dao.EntityModelDaoBase;
 import org.killbill.billing.util.globallocker.LockerType;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLock;
@@ -46,7 +53,7 @@ import org.killbill.notificationq.api.NotificationQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-abstract class CompletionTaskBase<T> implements Runnable {
+abstract class CompletionTaskBase<T extends EntityModelDaoBase> implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(CompletionTaskBase.class);
 
@@ -61,6 +68,8 @@ abstract class CompletionTaskBase<T> implements Runnable {
     protected final GlobalLocker locker;
 
     protected NotificationQueue janitorQueue;
+    // Null to process the shards sequentially, on the calling thread
+    protected ExecutorService shardExecutor;
 
     private volatile boolean isStopped;
 
@@ -86,25 +95,89 @@ abstract class CompletionTaskBase<T> implements Runnable {
             log.info("Janitor was requested to stop");
             return;
         }
-        final Iterable<T> items = getItemsForIteration();
-        for (final T item : items) {
-            if (isStopped) {
-                log.info("Janitor was requested to stop");
-                return;
+
+        final int nbShards = Math.max(paymentConfig.getJanitorNbShards(), 1);
+        final Collection<Future<?>> shardRuns = new LinkedList<Future<?>>();
+        for (int shardId = 0; shardId < nbShards; shardId++) {
+            final int curShardId = shardId;
+            final Runnable shardRun = new Runnable() {
+                @Override
+                public void run() {
+                    runShard(nbShards, curShardId);
+                }
+            };
+            if (shardExecutor == null) {
+                shardRun.run();
+            } else {
+                shardRuns.add(shardExecutor.submit(shardRun));
             }
+        }
+
+        // Wait for all shards, so that runs don't overlap
+        for (final Future<?> shardRun : shardRuns) {
             try {
-                doIteration(item);
-            } catch (final IllegalStateException e) {
-                log.warn(e.getMessage());
+                shardRun.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Janitor run got interrupted");
+                return;
+            } catch (final ExecutionException e) {
+                log.warn("Janitor shard run failed", e.getCause());
             }
         }
     }
 
+    // Each shard (record_id modulo nbShards) is processed by at most one node at a time, starting from its last checkpoint
+    private void runShard(final int nbShards, final int shardId) {
+        final String taskName = getClass().getSimpleName();
+        final GlobalLock lock;
+        try {
+            lock = locker.lockWithNumberOfTries(LockerType.PAYMENT_JANITOR.toString(), taskName + "-" + nbShards + "-" + shardId, 1);
+        } catch (final LockFailedException e) {
+            log.debug("Janitor shard {}/{} of {} is processed by another node", shardId, nbShards, taskName);
+            return;
+        }
+
+        try {
+            final Long checkpoint = paymentDao.getJanitorCheckpoint(taskName, nbShards, shardId);
+            Long lastRecordId = checkpoint == null ? 0L : checkpoint;
+            boolean isBacklogDrained = false;
+            while (!isStopped && !isBacklogDrained) {
+                final List<T> items = getItemsForIteration(nbShards, shardId, lastRecordId);
+                isBacklogDrained = items.isEmpty();
+                for (final T item : items) {
+                    if (isStopped) {
+                        log.info("Janitor was requested to stop");
+                        break;
+                    }
+                    try {
+                        doIteration(item);
+                    } catch (final IllegalStateException e) {
+                        log.warn(e.getMessage());
+                    }
+                    lastRecordId = item.getRecordId();
+                }
+
+                if (!isBacklogDrained) {
+                    paymentDao.updateJanitorCheckpoint(taskName, nbShards, shardId, lastRecordId);
+                }
+            }
+
+            // Start over on the next run, to revisit the entries which couldn't be completed yet
+            if (isBacklogDrained && lastRecordId != 0L) {
+                paymentDao.updateJanitorCheckpoint(taskName, nbShards, shardId, 0L);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
     public synchronized void stop() {
         this.isStopped = true;
     }
 
-    public abstract Iterable<T> getItemsForIteration();
+    // Entries of the shard with a record id greater than lastRecordId, in record id order (an empty list marks the end of the backlog)
+    public abstract List<T> getItemsForIteration(final int nbShards, final int shardId, final Long lastRecordId);
 
     public abstract void doIteration(final T item);
 
@@ -114,6 +187,10 @@ abstract class CompletionTaskBase<T> implements Runnable {
         this.janitorQueue = janitorQueue;
     }
 
+    public void attachShardExecutor(final ExecutorService shardExecutor) {
+        this.shardExecutor = shardExecutor;
+    }
+
     public interface JanitorIterationCallback {
         public <T> T doIteration();
     }
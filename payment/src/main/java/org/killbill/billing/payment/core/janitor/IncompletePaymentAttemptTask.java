@@ -44,7 +44,6 @@ import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.config.PaymentConfig;
-import org.killbill.billing.util.entity.Pagination;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
 import org.killbill.notificationq.api.NotificationQueue;
@@ -66,8 +65,7 @@ public class IncompletePaymentAttemptTask extends CompletionTaskBase<PaymentAtte
     private static final Logger log = LoggerFactory.getLogger(IncompletePaymentAttemptTask.class);
 
     //
-    // Each paymentAttempt *should* transition to a new state, so fetching a limited size will still allow us to progress (as opposed to fetching the same entries over and over)
-    // We also don't expect to see too many entries in the INIT state.
+    // Attempts are fetched in batches, each shard resuming after its last checkpointed record id (as opposed to fetching the same entries over and over)
     //
     private static final long MAX_ATTEMPTS_PER_ITERATIONS = 1000L;
 
@@ -89,10 +87,10 @@ public class IncompletePaymentAttemptTask extends CompletionTaskBase<PaymentAtte
     }
 
     @Override
-    public Iterable<PaymentAttemptModelDao> getItemsForIteration() {
-        final Pagination<PaymentAttemptModelDao> incompleteAttempts = paymentDao.getPaymentAttemptsByStateAcrossTenants(retrySMHelper.getInitialState().getName(), getCreatedDateBefore(), 0L, MAX_ATTEMPTS_PER_ITERATIONS);
-        if (incompleteAttempts.getTotalNbRecords() > 0) {
-            log.info("Janitor AttemptCompletionTask start run: found {} incomplete attempts", incompleteAttempts.getTotalNbRecords());
+    public List<PaymentAttemptModelDao> getItemsForIteration(final int nbShards, final int shardId, final Long lastRecordId) {
+        final List<PaymentAttemptModelDao> incompleteAttempts = paymentDao.getPaymentAttemptsByStateAcrossTenants(retrySMHelper.getInitialState().getName(), getCreatedDateBefore(), nbShards, shardId, lastRecordId, MAX_ATTEMPTS_PER_ITERATIONS);
+        if (!incompleteAttempts.isEmpty()) {
+            log.info("Janitor AttemptCompletionTask shard {}/{}: found {} incomplete attempts after recordId {}", shardId, nbShards, incompleteAttempts.size(), lastRecordId);
         }
         return incompleteAttempts;
     }
@@ -82,8 +82,12 @@ public class IncompletePaymentTransactionTask extends CompletionTaskBase<Payment
     }
 
     @Override
-    public Iterable<PaymentTransactionModelDao> getItemsForIteration() {
+    public void run() {
         // This is not triggered by Janitor proper but instead relies on bus event + notificationQ
+    }
+
+    @Override
+    public List<PaymentTransactionModelDao> getItemsForIteration(final int nbShards, final int shardId, final Long lastRecordId) {
         return ImmutableList.of();
     }
 
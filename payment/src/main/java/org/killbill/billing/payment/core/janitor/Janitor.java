@@ -178,6 +178,7 @@ public class Janitor {
         this.isStopped = false;
 
         janitorExecutor = paymentExecutors.getJanitorExecutorService();
+        incompletePaymentAttemptTask.attachShardExecutor(paymentExecutors.getJanitorShardExecutorService());
 
         janitorQueue.startQueue();
 
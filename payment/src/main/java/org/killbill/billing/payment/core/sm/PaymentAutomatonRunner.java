@@ -217,6 +217,10 @@ public class PaymentAutomatonRunner {
         return paymentDao;
     }
 
+    public PaymentConfig getPaymentConfig() {
+        return paymentConfig;
+    }
+
     public Clock getClock() {
         return clock;
     }
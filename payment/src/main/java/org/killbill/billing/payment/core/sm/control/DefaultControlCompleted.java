@@ -72,7 +72,7 @@ public class DefaultControlCompleted implements EnteringStateCallback {
 
     private byte[] getSerializedProperties() {
         try {
-            return PluginPropertySerializer.serialize(paymentStateContext.getProperties());
+            return PluginPropertySerializer.serialize(paymentStateContext.getProperties(), retryablePaymentAutomatonRunner.getPaymentConfig().isPluginPropertiesBinaryFormatEnabled());
         } catch (final PluginPropertySerializerException e) {
             throw new IllegalStateException(e);
         }
@@ -49,14 +49,10 @@ import org.killbill.commons.locker.GlobalLocker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Joiner;
-
 public abstract class OperationControlCallback extends OperationCallbackBase<Payment, PaymentApiException> implements OperationCallback {
 
     private static final Logger logger = LoggerFactory.getLogger(OperationControlCallback.class);
 
-    private static final Joiner JOINER = Joiner.on(", ");
-
     protected final PaymentProcessor paymentProcessor;
     protected final PaymentStateControlContext paymentStateControlContext;
     private final ControlPluginRunner controlPluginRunner;
@@ -78,10 +74,8 @@ public abstract class OperationControlCallback extends OperationCallbackBase<Pay
 
     @Override
     public OperationResult doOperationCallback() throws OperationException {
-        final List<String> pluginNameList = paymentStateControlContext.getPaymentControlPluginNames();
-        final String pluginNames = JOINER.join(pluginNameList);
-
-        return dispatchWithAccountLockAndTimeout(pluginNames, new DispatcherCallback<PluginDispatcherReturnType<OperationResult>, OperationException>() {
+        // The payment plugin call happens within this dispatch: run it on the bulkhead of that plugin
+        return dispatchWithAccountLockAndTimeout(getPaymentPluginName(), new DispatcherCallback<PluginDispatcherReturnType<OperationResult>, OperationException>() {
 
             @Override
             public PluginDispatcherReturnType<OperationResult> doOperation() throws OperationException {
@@ -151,6 +145,20 @@ public abstract class OperationControlCallback extends OperationCallbackBase<Pay
         });
     }
 
+    @Nullable
+    protected String getPaymentPluginName() {
+        try {
+            return paymentProcessor.getPaymentProviderPluginName(paymentStateContext.getPaymentMethodId(),
+                                                                 paymentStateContext.getPaymentId(),
+                                                                 paymentStateContext.getAccount(),
+                                                                 paymentStateContext.getInternalCallContext());
+        } catch (final PaymentApiException e) {
+            // The payment operation will fail on its own, no need to pick a bulkhead
+            logger.debug("Unable to resolve payment plugin for paymentMethodId='{}', paymentId='{}': {}", paymentStateContext.getPaymentMethodId(), paymentStateContext.getPaymentId(), e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     protected OperationException unwrapExceptionFromDispatchedTask(final PaymentApiException e) {
         if (e.getCause() instanceof OperationException) {
@@ -148,6 +148,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                   public Iterator<PaymentAttemptModelDao> build(final PaymentAttemptSqlDao sqlDao, final Long limit, final InternalTenantContext context) {
                                                       return sqlDao.getByStateNameAcrossTenants(stateName, createdBefore, offset, limit);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentAttemptModelDao> buildFromRecordId(final PaymentAttemptSqlDao sqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return sqlDao.getByStateNameAfterRecordIdAcrossTenants(stateName, createdBefore, lastRecordId, limit);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -156,6 +161,41 @@ public class DefaultPaymentDao implements PaymentDao {
 
     }
 
+    @Override
+    public List<PaymentAttemptModelDao> getPaymentAttemptsByStateAcrossTenants(final String stateName, final DateTime createdBeforeDate, final int nbShards, final int shardId, final Long lastRecordId, final Long limit) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<PaymentAttemptModelDao>>() {
+            @Override
+            public List<PaymentAttemptModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(PaymentAttemptSqlDao.class).getByStateNameAfterRecordIdForShardAcrossTenants(stateName, createdBeforeDate.toDate(), nbShards, shardId, lastRecordId, limit);
+            }
+        });
+    }
+
+    @Override
+    public Long getJanitorCheckpoint(final String taskName, final int nbShards, final int shardId) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
+            @Override
+            public Long inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.getHandle().attach(JanitorCheckpointSqlDao.class).getLastRecordId(taskName, nbShards, shardId);
+            }
+        });
+    }
+
+    @Override
+    public void updateJanitorCheckpoint(final String taskName, final int nbShards, final int shardId, final Long lastRecordId) {
+        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final JanitorCheckpointSqlDao checkpointSqlDao = entitySqlDaoWrapperFactory.getHandle().attach(JanitorCheckpointSqlDao.class);
+                final Date now = clock.getUTCNow().toDate();
+                if (checkpointSqlDao.updateLastRecordId(taskName, nbShards, shardId, lastRecordId, now) == 0) {
+                    checkpointSqlDao.create(taskName, nbShards, shardId, lastRecordId, now);
+                }
+                return null;
+            }
+        });
+    }
+
     @Override
     public List<PaymentAttemptModelDao> getPaymentAttempts(final String paymentExternalKey, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<PaymentAttemptModelDao>>() {
@@ -198,6 +238,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                   public Iterator<PaymentTransactionModelDao> build(final TransactionSqlDao sqlDao, final Long limit, final InternalTenantContext context) {
                                                       return sqlDao.getByTransactionStatusPriorDateAcrossTenants(allTransactionStatus, createdBefore, createdAfter, offset, limit);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentTransactionModelDao> buildFromRecordId(final TransactionSqlDao sqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return sqlDao.getByTransactionStatusPriorDateAfterRecordIdAcrossTenants(allTransactionStatus, createdBefore, createdAfter, lastRecordId, limit);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -239,6 +284,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                       final Iterator<PaymentModelDao> result = paymentSqlDao.getByPluginName(pluginName, offset, limit, context);
                                                       return result;
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentModelDao> buildFromRecordId(final PaymentSqlDao paymentSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return paymentSqlDao.getByPluginNameAfterRecordId(pluginName, lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -259,6 +309,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                   public Iterator<PaymentModelDao> build(final PaymentSqlDao paymentSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return paymentSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentModelDao> buildFromRecordId(final PaymentSqlDao paymentSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return paymentSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -472,6 +527,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                   public Iterator<PaymentMethodModelDao> build(final PaymentMethodSqlDao paymentMethodSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return paymentMethodSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentMethodModelDao> buildFromRecordId(final PaymentMethodSqlDao paymentMethodSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return paymentMethodSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -491,6 +551,11 @@ public class DefaultPaymentDao implements PaymentDao {
                                                   public Iterator<PaymentMethodModelDao> build(final PaymentMethodSqlDao paymentMethodSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return paymentMethodSqlDao.getByPluginName(pluginName, offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<PaymentMethodModelDao> buildFromRecordId(final PaymentMethodSqlDao paymentMethodSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return paymentMethodSqlDao.getByPluginNameAfterRecordId(pluginName, lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.dao;
+
+import java.util.Date;
+
+import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+
+@EntitySqlDaoStringTemplate
+public interface JanitorCheckpointSqlDao {
+
+    @SqlQuery
+    public Long getLastRecordId(@Bind("taskName") final String taskName,
+                                @Bind("nbShards") final int nbShards,
+                                @Bind("shardId") final int shardId);
+
+    @SqlUpdate
+    public void create(@Bind("taskName") final String taskName,
+                       @Bind("nbShards") final int nbShards,
+                       @Bind("shardId") final int shardId,
+                       @Bind("lastRecordId") final Long lastRecordId,
+                       @Bind("createdDate") final Date createdDate);
+
+    @SqlUpdate
+    public int updateLastRecordId(@Bind("taskName") final String taskName,
+                                  @Bind("nbShards") final int nbShards,
+                                  @Bind("shardId") final int shardId,
+                                  @Bind("lastRecordId") final Long lastRecordId,
+                                  @Bind("updatedDate") final Date updatedDate);
+}
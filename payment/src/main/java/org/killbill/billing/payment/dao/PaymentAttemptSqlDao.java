@@ -68,4 +68,18 @@ public interface PaymentAttemptSqlDao extends EntitySqlDao<PaymentAttemptModelDa
                                                                  @Bind("offset") final Long offset,
                                                                  @Bind("rowCount") final Long rowCount);
 
+    @SqlQuery
+    Iterator<PaymentAttemptModelDao> getByStateNameAfterRecordIdAcrossTenants(@Bind("stateName") final String stateName,
+                                                                              @Bind("createdBeforeDate") final Date createdBeforeDate,
+                                                                              @Bind("lastRecordId") final Long lastRecordId,
+                                                                              @Bind("rowCount") final Long rowCount);
+
+    @SqlQuery
+    List<PaymentAttemptModelDao> getByStateNameAfterRecordIdForShardAcrossTenants(@Bind("stateName") final String stateName,
+                                                                                  @Bind("createdBeforeDate") final Date createdBeforeDate,
+                                                                                  @Bind("nbShards") final int nbShards,
+                                                                                  @Bind("shardId") final int shardId,
+                                                                                  @Bind("lastRecordId") final Long lastRecordId,
+                                                                                  @Bind("rowCount") final Long rowCount);
+
 }
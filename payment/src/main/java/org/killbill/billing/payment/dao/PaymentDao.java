@@ -40,6 +40,13 @@ public interface PaymentDao {
 
     public Pagination<PaymentAttemptModelDao> getPaymentAttemptsByStateAcrossTenants(String stateName, DateTime createdBeforeDate, final Long offset, final Long limit);
 
+    // Attempts of the shard (record_id modulo nbShards), in record_id order
+    public List<PaymentAttemptModelDao> getPaymentAttemptsByStateAcrossTenants(String stateName, DateTime createdBeforeDate, int nbShards, int shardId, Long lastRecordId, Long limit);
+
+    public Long getJanitorCheckpoint(String taskName, int nbShards, int shardId);
+
+    public void updateJanitorCheckpoint(String taskName, int nbShards, int shardId, Long lastRecordId);
+
     public List<PaymentAttemptModelDao> getPaymentAttempts(String paymentExternalKey, InternalTenantContext context);
 
     public List<PaymentAttemptModelDao> getPaymentAttemptByTransactionExternalKey(String externalKey, InternalTenantContext context);
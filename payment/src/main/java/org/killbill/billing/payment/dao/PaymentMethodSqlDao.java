@@ -71,6 +71,13 @@ public interface PaymentMethodSqlDao extends EntitySqlDao<PaymentMethodModelDao,
                                                            @Bind("rowCount") final Long rowCount,
                                                            @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<PaymentMethodModelDao> getByPluginNameAfterRecordId(@Bind("pluginName") final String pluginName,
+                                                                        @Bind("lastRecordId") final Long lastRecordId,
+                                                                        @Bind("rowCount") final Long rowCount,
+                                                                        @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public Long getCountByPluginName(@Bind("pluginName") final String pluginName,
                                      @BindBean final InternalTenantContext context);
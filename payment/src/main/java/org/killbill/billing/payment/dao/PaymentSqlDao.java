@@ -74,6 +74,13 @@ public interface PaymentSqlDao extends EntitySqlDao<PaymentModelDao, Payment> {
                                                      @Bind("rowCount") final Long rowCount,
                                                            @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<PaymentModelDao> getByPluginNameAfterRecordId(@Bind("pluginName") final String pluginName,
+                                                                  @Bind("lastRecordId") final Long lastRecordId,
+                                                                  @Bind("rowCount") final Long rowCount,
+                                                                  @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public Long getCountByPluginName(@Bind("pluginName") final String pluginName,
                                      @BindBean final InternalTenantContext context);
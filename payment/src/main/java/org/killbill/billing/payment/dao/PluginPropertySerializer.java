@@ -22,8 +22,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.killbill.billing.payment.api.PluginProperty;
 
@@ -39,10 +46,43 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Serializes the plugin properties of payment attempts.
+ * <p/>
+ * Properties are written either as LZF compressed JSON (the default, readable by all versions) or in a compact binary
+ * format: a header (FORMAT_MARKER, 'P', version, flags) followed by the number of properties and, for each of them, the
+ * key and a tagged value. Strings, numbers, booleans, maps and collections have their own tags; any other value is
+ * embedded as JSON. The body is LZF compressed when it is large.
+ * <p/>
+ * Both formats are always readable (LZF data never starts with FORMAT_MARKER), and values are read back with the same
+ * types: like Jackson, integral numbers which fit in an int are read back as Integer, floating point numbers as BigDecimal.
+ * The binary format should only be enabled (see PaymentConfig#isPluginPropertiesBinaryFormatEnabled) once all nodes can read it.
+ */
 public class PluginPropertySerializer {
 
     private static final int MAX_SIZE_PROPERTIES_BYTES = (8 * 1024); // As defined in payment_attempt ddl
 
+    private static final byte FORMAT_MARKER = 0x00;
+    private static final byte FORMAT_TYPE = 'P';
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4;
+
+    private static final byte FLAG_COMPRESSED = 0x01;
+    private static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_FALSE = 3;
+    private static final byte TAG_INT = 4;
+    private static final byte TAG_LONG = 5;
+    private static final byte TAG_BIG_DECIMAL = 6;
+    private static final byte TAG_MAP = 7;
+    private static final byte TAG_LIST = 8;
+    private static final byte TAG_JSON = 9;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     private static final JsonFactory jsonFactory = new JsonFactory();
     private static ObjectMapper mapper = new ObjectMapper(jsonFactory);
 
@@ -51,6 +91,179 @@ public class PluginPropertySerializer {
     }
 
     public static byte[] serialize(final Iterable<PluginProperty> input) throws PluginPropertySerializerException {
+        return serialize(input, false);
+    }
+
+    public static byte[] serialize(final Iterable<PluginProperty> input, final boolean binaryFormat) throws PluginPropertySerializerException {
+        return binaryFormat ? serializeBinary(input) : serializeJson(input);
+    }
+
+    private static byte[] serializeBinary(final Iterable<PluginProperty> input) throws PluginPropertySerializerException {
+        final Collection<PluginProperty> properties;
+        if (input instanceof Collection) {
+            properties = (Collection<PluginProperty>) input;
+        } else {
+            properties = new ArrayList<PluginProperty>();
+            for (final PluginProperty cur : input) {
+                properties.add(cur);
+            }
+        }
+
+        final BinaryOutput out = new BinaryOutput(256);
+        out.writeByte(FORMAT_MARKER);
+        out.writeByte(FORMAT_TYPE);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte((byte) 0); // Flags
+        try {
+            out.writeVarInt(properties.size());
+            for (final PluginProperty cur : properties) {
+                out.writeString(cur.getKey());
+                writeValue(out, cur.getValue());
+            }
+        } catch (final IOException e) {
+            throw new PluginPropertySerializerException(e);
+        }
+
+        final int bodySize = out.size() - HEADER_SIZE;
+        if (bodySize > COMPRESSION_THRESHOLD_BYTES) {
+            final byte[] compressedBody = LZFEncoder.encode(out.buffer(), HEADER_SIZE, bodySize);
+            if (compressedBody.length < bodySize) {
+                final byte[] result = new byte[HEADER_SIZE + compressedBody.length];
+                System.arraycopy(out.buffer(), 0, result, 0, HEADER_SIZE);
+                result[3] = FLAG_COMPRESSED;
+                System.arraycopy(compressedBody, 0, result, HEADER_SIZE, compressedBody.length);
+                return result;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static Iterable<PluginProperty> deserialize(final byte[] input) throws PluginPropertySerializerException {
+        if (input.length < HEADER_SIZE || input[0] != FORMAT_MARKER || input[1] != FORMAT_TYPE) {
+            return deserializeJson(input);
+        }
+        if (input[2] != FORMAT_VERSION) {
+            throw new PluginPropertySerializerException("Unsupported plugin properties format version " + input[2]);
+        }
+
+        try {
+            final BinaryInput in;
+            if ((input[3] & FLAG_COMPRESSED) != 0) {
+                in = new BinaryInput(LZFDecoder.decode(input, HEADER_SIZE, input.length - HEADER_SIZE), 0);
+            } else {
+                in = new BinaryInput(input, HEADER_SIZE);
+            }
+
+            final int nbProperties = in.readVarInt();
+            final List<PluginProperty> result = new ArrayList<PluginProperty>();
+            for (int i = 0; i < nbProperties; i++) {
+                final String key = in.readString();
+                final Object value = readValue(in);
+                result.add(new PluginProperty(key, value, false));
+            }
+            return result;
+        } catch (final IOException e) {
+            throw new PluginPropertySerializerException(e);
+        } catch (final RuntimeException e) {
+            // Truncated or corrupted data
+            throw new PluginPropertySerializerException(e);
+        }
+    }
+
+    private static void writeValue(final BinaryOutput out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TAG_INT);
+            out.writeVarLong(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeVarLong((Long) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TAG_BIG_DECIMAL);
+            out.writeString(value.toString());
+        } else if ((value instanceof Double || value instanceof Float) && !Double.isNaN(((Number) value).doubleValue()) && !Double.isInfinite(((Number) value).doubleValue())) {
+            // Like with the JSON format, floating point numbers are read back as BigDecimal
+            out.writeByte(TAG_BIG_DECIMAL);
+            out.writeString(value.toString());
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(TAG_MAP);
+            out.writeVarInt(map.size());
+            for (final Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) value;
+            out.writeByte(TAG_LIST);
+            out.writeVarInt(collection.size());
+            for (final Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Object[]) {
+            final Object[] array = (Object[]) value;
+            out.writeByte(TAG_LIST);
+            out.writeVarInt(array.length);
+            for (final Object element : array) {
+                writeValue(out, element);
+            }
+        } else {
+            out.writeByte(TAG_JSON);
+            out.writeBytes(mapper.writeValueAsBytes(value));
+        }
+    }
+
+    private static Object readValue(final BinaryInput in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return in.readString();
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return (int) in.readVarLong();
+            case TAG_LONG:
+                // Same type as with the JSON format
+                final long longValue = in.readVarLong();
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            case TAG_BIG_DECIMAL:
+                return new BigDecimal(in.readString());
+            case TAG_MAP:
+                final int mapSize = in.readVarInt();
+                final Map<String, Object> map = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < mapSize; i++) {
+                    final String key = in.readString();
+                    map.put(key, readValue(in));
+                }
+                return map;
+            case TAG_LIST:
+                final int listSize = in.readVarInt();
+                final List<Object> list = new ArrayList<Object>();
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_JSON:
+                return mapper.readValue(in.readBytes(), Object.class);
+            default:
+                throw new IOException("Unexpected plugin property tag " + tag);
+        }
+    }
+
+    private static byte[] serializeJson(final Iterable<PluginProperty> input) throws PluginPropertySerializerException {
 
         final ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_SIZE_PROPERTIES_BYTES);
         try {
@@ -73,7 +286,7 @@ public class PluginPropertySerializer {
         }
     }
 
-    public static Iterable<PluginProperty> deserialize(final byte[] input) throws PluginPropertySerializerException {
+    private static Iterable<PluginProperty> deserializeJson(final byte[] input) throws PluginPropertySerializerException {
 
         final List<PluginProperty> result = new ArrayList<PluginProperty>();
         try {
@@ -110,6 +323,135 @@ public class PluginPropertySerializer {
         }
     }
 
+    private static final class BinaryOutput {
+
+        private byte[] buffer;
+        private int size;
+
+        private BinaryOutput(final int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        private void writeByte(final byte value) {
+            ensureCapacity(1);
+            buffer[size++] = value;
+        }
+
+        private void writeVarInt(final int value) {
+            int remaining = value;
+            ensureCapacity(5);
+            while ((remaining & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            buffer[size++] = (byte) remaining;
+        }
+
+        // Zigzag encoded, so that small negative numbers stay small
+        private void writeVarLong(final long value) {
+            long remaining = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((remaining & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            buffer[size++] = (byte) remaining;
+        }
+
+        private void writeString(final String value) {
+            writeBytes(value.getBytes(UTF_8));
+        }
+
+        private void writeBytes(final byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensureCapacity(final int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] buffer() {
+            return buffer;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class BinaryInput {
+
+        private final byte[] buffer;
+        private int position;
+
+        private BinaryInput(final byte[] buffer, final int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private byte readByte() throws IOException {
+            if (position >= buffer.length) {
+                throw new IOException("Unexpected end of plugin properties");
+            }
+            return buffer[position++];
+        }
+
+        private int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed plugin properties length");
+        }
+
+        private long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (result >>> 1) ^ -(result & 1);
+                }
+            }
+            throw new IOException("Malformed plugin properties number");
+        }
+
+        private String readString() throws IOException {
+            final int length = readLength();
+            final String result = new String(buffer, position, length, UTF_8);
+            position += length;
+            return result;
+        }
+
+        private byte[] readBytes() throws IOException {
+            final int length = readLength();
+            final byte[] result = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return result;
+        }
+
+        private int readLength() throws IOException {
+            final int length = readVarInt();
+            if (length < 0 || length > buffer.length - position) {
+                throw new IOException("Unexpected end of plugin properties");
+            }
+            return length;
+        }
+    }
+
     public static class PluginPropertySerializerException extends Exception {
 
         public PluginPropertySerializerException() {
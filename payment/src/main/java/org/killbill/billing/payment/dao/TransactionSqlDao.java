@@ -66,6 +66,13 @@ public interface TransactionSqlDao extends EntitySqlDao<PaymentTransactionModelD
                                                                                   @Bind("offset") final Long offset,
                                                                                   @Bind("rowCount") final Long rowCount);
 
+    @SqlQuery
+    Iterator<PaymentTransactionModelDao> getByTransactionStatusPriorDateAfterRecordIdAcrossTenants(@TransactionStatusCollectionBinder final Collection<String> statuses,
+                                                                                               @Bind("createdBeforeDate") final Date createdBeforeDate,
+                                                                                               @Bind("createdAfterDate") final Date createdAfterDate,
+                                                                                               @Bind("lastRecordId") final Long lastRecordId,
+                                                                                               @Bind("rowCount") final Long rowCount);
+
     @SqlQuery
     public List<PaymentTransactionModelDao> getByPaymentId(@Bind("paymentId") final UUID paymentId,
                                                            @BindBean final InternalTenantContext context);
@@ -25,8 +25,11 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import javax.annotation.Nullable;
+
 import org.apache.shiro.util.ThreadContext;
 import org.killbill.billing.payment.core.PaymentExecutors;
+import org.killbill.billing.payment.core.PluginExecutor;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.commons.profiling.Profiling;
 import org.killbill.commons.profiling.ProfilingData;
@@ -49,14 +52,23 @@ public class PluginDispatcher<ReturnType> {
 
     // TODO Once we switch fully to automata, should this throw PaymentPluginApiException instead?
     public ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task) throws TimeoutException, ExecutionException, InterruptedException {
-        return dispatchWithTimeout(task, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
+        return dispatchWithTimeout(task, null, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
+    }
+
+    // Calls for a given plugin run on the bulkhead of that plugin (RejectedExecutionException is thrown if it is saturated)
+    public ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, @Nullable final String pluginName) throws TimeoutException, ExecutionException, InterruptedException {
+        return dispatchWithTimeout(task, pluginName, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
     }
 
     @VisibleForTesting
     ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, final long timeout, final TimeUnit unit)
             throws TimeoutException, ExecutionException, InterruptedException {
+        return dispatchWithTimeout(task, null, timeout, unit);
+    }
 
-        final ExecutorService pluginExecutor = paymentExecutors.getPluginExecutorService();
+    @VisibleForTesting
+    ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, @Nullable final String pluginName, final long timeout, final TimeUnit unit)
+            throws TimeoutException, ExecutionException, InterruptedException {
 
         // Wrap existing callable to keep the original requestId
         final Callable<PluginDispatcherReturnType<ReturnType>> callableWithRequestData = new CallableWithRequestData(Request.getPerThreadRequestData(),
@@ -66,8 +78,27 @@ public class PluginDispatcher<ReturnType> {
                                                                                                                      MDC.getCopyOfContextMap(),
                                                                                                                      task);
 
-        final Future<PluginDispatcherReturnType<ReturnType>> future = pluginExecutor.submit(callableWithRequestData);
-        final PluginDispatcherReturnType<ReturnType> pluginDispatcherResult = future.get(timeout, unit);
+        final PluginExecutor pluginExecutor = (pluginName == null || pluginName.isEmpty()) ? null : paymentExecutors.getPluginExecutor(pluginName);
+        final Future<PluginDispatcherReturnType<ReturnType>> future;
+        if (pluginExecutor != null) {
+            future = pluginExecutor.submit(callableWithRequestData);
+        } else {
+            final ExecutorService sharedPluginExecutor = paymentExecutors.getPluginExecutorService();
+            future = sharedPluginExecutor.submit(callableWithRequestData);
+        }
+
+        final PluginDispatcherReturnType<ReturnType> pluginDispatcherResult;
+        try {
+            pluginDispatcherResult = future.get(timeout, unit);
+        } catch (final TimeoutException e) {
+            // Don't keep the plugin thread busy with a call nobody is waiting for
+            if (pluginExecutor != null) {
+                pluginExecutor.onTimeout(future);
+            } else {
+                future.cancel(true);
+            }
+            throw e;
+        }
 
         if (pluginDispatcherResult instanceof WithProfilingPluginDispatcherReturnType) {
             // Transfer state from dispatch thread into current one.
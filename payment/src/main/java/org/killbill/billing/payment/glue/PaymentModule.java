@@ -38,6 +38,7 @@ import org.killbill.billing.payment.caching.StateMachineConfigCacheInvalidationC
 import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.payment.core.PaymentGatewayProcessor;
 import org.killbill.billing.payment.core.PaymentMethodProcessor;
+import org.killbill.billing.payment.core.PaymentPluginInfoLoader;
 import org.killbill.billing.payment.core.PaymentProcessor;
 import org.killbill.billing.payment.core.PluginControlPaymentProcessor;
 import org.killbill.billing.payment.core.janitor.Janitor;
@@ -125,6 +126,7 @@ public class PaymentModule extends KillBillModule {
 
     protected void installProcessors(final PaymentConfig paymentConfig) {
         bind(PaymentProcessor.class).asEagerSingleton();
+        bind(PaymentPluginInfoLoader.class).asEagerSingleton();
         bind(PluginControlPaymentProcessor.class).asEagerSingleton();
         bind(PaymentGatewayProcessor.class).asEagerSingleton();
         bind(PaymentMethodProcessor.class).asEagerSingleton();
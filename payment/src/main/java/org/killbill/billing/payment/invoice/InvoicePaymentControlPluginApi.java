@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -61,12 +62,11 @@ import org.killbill.billing.payment.retry.BaseRetryService.RetryServiceScheduler
 import org.killbill.billing.payment.retry.DefaultFailureCallResult;
 import org.killbill.billing.payment.retry.DefaultOnSuccessPaymentControlResult;
 import org.killbill.billing.payment.retry.DefaultPriorPaymentControlResult;
-import org.killbill.billing.util.api.TagUserApi;
+import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.config.PaymentConfig;
 import org.killbill.billing.util.tag.ControlTagType;
-import org.killbill.billing.util.tag.Tag;
 import org.killbill.clock.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,7 +92,7 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
 
     private final PaymentConfig paymentConfig;
     private final InvoiceInternalApi invoiceApi;
-    private final TagUserApi tagApi;
+    private final TagInternalApi tagApi;
     private final PaymentDao paymentDao;
     private final InvoicePaymentControlDao controlDao;
     private final RetryServiceScheduler retryServiceScheduler;
@@ -103,7 +103,7 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
 
     @Inject
     public InvoicePaymentControlPluginApi(final PaymentConfig paymentConfig,
-                                          final InvoiceInternalApi invoiceApi, final TagUserApi tagApi,
+                                          final InvoiceInternalApi invoiceApi, final TagInternalApi tagApi,
                                           final PaymentDao paymentDao, final InvoicePaymentControlDao invoicePaymentControlDao,
                                           @Named(PaymentModule.RETRYABLE_NAMED) final RetryServiceScheduler retryServiceScheduler,
                                           final InternalCallContextFactory internalCallContextFactory, final Clock clock) {
@@ -604,11 +604,12 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
     }
 
     private boolean isAccountAutoPayOff(final UUID accountId, final CallContext callContext) {
-        final List<Tag> accountTags = tagApi.getTagsForAccount(accountId, false, callContext);
-        return ControlTagType.isAutoPayOff(Collections2.transform(accountTags, new Function<Tag, UUID>() {
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(accountId, callContext);
+        final Set<ControlTagType> accountControlTags = tagApi.getControlTagTypes(accountId, ObjectType.ACCOUNT, internalTenantContext);
+        return ControlTagType.isAutoPayOff(Collections2.transform(accountControlTags, new Function<ControlTagType, UUID>() {
             @Override
-            public UUID apply(final Tag tag) {
-                return tag.getTagDefinitionId();
+            public UUID apply(final ControlTagType controlTagType) {
+                return controlTagType.getId();
             }
         }));
     }
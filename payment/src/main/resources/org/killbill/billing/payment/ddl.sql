@@ -206,6 +206,19 @@ CREATE TABLE payment_transaction_history (
 CREATE INDEX transaction_history_target_record_id ON payment_transaction_history(target_record_id);
 CREATE INDEX transaction_history_tenant_account_record_id ON payment_transaction_history(tenant_record_id, account_record_id);
 
+DROP TABLE IF EXISTS payment_janitor_checkpoints;
+CREATE TABLE payment_janitor_checkpoints (
+    record_id serial unique,
+    task_name varchar(50) NOT NULL,
+    nb_shards int NOT NULL,
+    shard_id int NOT NULL,
+    last_record_id bigint /*! unsigned */ not null,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    PRIMARY KEY (record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX payment_janitor_checkpoints_task_shard ON payment_janitor_checkpoints(task_name, nb_shards, shard_id);
+
 
 /*  PaymentControlPlugin lives  here until this becomes a first class citizen plugin */
 DROP TABLE IF EXISTS _invoice_payment_control_plugin_auto_pay_off;
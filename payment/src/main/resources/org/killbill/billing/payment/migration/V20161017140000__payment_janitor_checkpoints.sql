@@ -0,0 +1,11 @@
+CREATE TABLE payment_janitor_checkpoints (
+    record_id serial unique,
+    task_name varchar(50) NOT NULL,
+    nb_shards int NOT NULL,
+    shard_id int NOT NULL,
+    last_record_id bigint /*! unsigned */ not null,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    PRIMARY KEY (record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE UNIQUE INDEX payment_janitor_checkpoints_task_shard ON payment_janitor_checkpoints(task_name, nb_shards, shard_id);
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.payment.dao.PaymentModelDao;
+import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
+import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.PaymentConfig;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class TestPaymentPluginInfoLoader {
+
+    @Test(groups = "fast")
+    public void testFanOutWithDeadlineAndCache() throws Exception {
+        final PaymentConfig paymentConfig = Mockito.mock(PaymentConfig.class);
+        Mockito.when(paymentConfig.getPaymentPluginTimeout()).thenReturn(new TimeSpan("500ms"));
+        Mockito.when(paymentConfig.getPaymentPluginInfoCacheTtl()).thenReturn(new TimeSpan("1h"));
+        Mockito.when(paymentConfig.getPaymentPluginThreadNb()).thenReturn(2);
+        Mockito.when(paymentConfig.getPaymentPluginQueueSize()).thenReturn(10);
+        Mockito.when(paymentConfig.getPaymentPluginMinConcurrency()).thenReturn(1);
+        Mockito.when(paymentConfig.getPaymentPluginLatencyTarget()).thenReturn(new TimeSpan("5s"));
+        Mockito.when(paymentConfig.getPaymentPluginInfoThreadNb()).thenReturn(2);
+        Mockito.when(paymentConfig.getPaymentPluginInfoMaxCalls()).thenReturn(10);
+
+        final List<PaymentTransactionInfoPlugin> fastPluginInfo = ImmutableList.<PaymentTransactionInfoPlugin>of(Mockito.mock(PaymentTransactionInfoPlugin.class));
+        final PaymentPluginApi fastPlugin = Mockito.mock(PaymentPluginApi.class);
+        Mockito.when(fastPlugin.getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any())).thenReturn(fastPluginInfo);
+        final PaymentPluginApi slowPlugin = Mockito.mock(PaymentPluginApi.class);
+        Mockito.when(slowPlugin.getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any())).thenAnswer(new Answer<List<PaymentTransactionInfoPlugin>>() {
+            @Override
+            public List<PaymentTransactionInfoPlugin> answer(final InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(10000);
+                return ImmutableList.<PaymentTransactionInfoPlugin>of();
+            }
+        });
+
+        final OSGIServiceRegistration<PaymentPluginApi> registry = Mockito.mock(OSGIServiceRegistration.class);
+        Mockito.when(registry.getServiceForName("fast")).thenReturn(fastPlugin);
+        Mockito.when(registry.getServiceForName("slow")).thenReturn(slowPlugin);
+
+        final PaymentExecutors paymentExecutors = new PaymentExecutors(paymentConfig, new MetricRegistry());
+        paymentExecutors.initialize();
+        try {
+            final PaymentPluginInfoLoader loader = new PaymentPluginInfoLoader(registry, paymentExecutors, paymentConfig);
+
+            final PaymentModelDao fastPayment = createPayment();
+            final PaymentModelDao slowPayment = createPayment();
+            final List<PaymentModelDao> payments = ImmutableList.<PaymentModelDao>of(fastPayment, slowPayment);
+            final Map<UUID, String> pluginNameByPaymentId = ImmutableMap.<UUID, String>of(fastPayment.getId(), "fast", slowPayment.getId(), "slow");
+            final TenantContext context = Mockito.mock(TenantContext.class);
+
+            // The slow plugin doesn't hold the results of the fast one
+            final long startMillis = System.currentTimeMillis();
+            final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfo = loader.getPaymentTransactionInfoPlugins(payments, pluginNameByPaymentId, context);
+            Assert.assertTrue(System.currentTimeMillis() - startMillis < 5000);
+            Assert.assertEquals(pluginInfo.size(), 1);
+            Assert.assertEquals(pluginInfo.get(fastPayment.getId()), fastPluginInfo);
+            Assert.assertEquals(paymentExecutors.getPluginInfoExecutor("slow").getNbTimeouts(), 1);
+            // The bulkheads of the payment calls are not used
+            Assert.assertTrue(paymentExecutors.getPluginExecutors().isEmpty());
+
+            // Served from the cache
+            Assert.assertEquals(loader.getPaymentTransactionInfoPlugins(ImmutableList.<PaymentModelDao>of(fastPayment), pluginNameByPaymentId, context).get(fastPayment.getId()), fastPluginInfo);
+            Mockito.verify(fastPlugin, Mockito.times(1)).getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any());
+
+            loader.invalidate(fastPayment.getId());
+            Assert.assertEquals(loader.getPaymentTransactionInfoPlugins(ImmutableList.<PaymentModelDao>of(fastPayment), pluginNameByPaymentId, context).get(fastPayment.getId()), fastPluginInfo);
+            Mockito.verify(fastPlugin, Mockito.times(2)).getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any());
+        } finally {
+            paymentExecutors.stop();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testFanOutIsCapped() throws Exception {
+        final PaymentConfig paymentConfig = Mockito.mock(PaymentConfig.class);
+        Mockito.when(paymentConfig.getPaymentPluginTimeout()).thenReturn(new TimeSpan("5s"));
+        Mockito.when(paymentConfig.getPaymentPluginInfoCacheTtl()).thenReturn(new TimeSpan("0s"));
+        Mockito.when(paymentConfig.getPaymentPluginThreadNb()).thenReturn(2);
+        Mockito.when(paymentConfig.getPaymentPluginQueueSize()).thenReturn(10);
+        Mockito.when(paymentConfig.getPaymentPluginMinConcurrency()).thenReturn(1);
+        Mockito.when(paymentConfig.getPaymentPluginLatencyTarget()).thenReturn(new TimeSpan("5s"));
+        Mockito.when(paymentConfig.getPaymentPluginInfoThreadNb()).thenReturn(2);
+        Mockito.when(paymentConfig.getPaymentPluginInfoMaxCalls()).thenReturn(2);
+
+        final PaymentPluginApi plugin = Mockito.mock(PaymentPluginApi.class);
+        Mockito.when(plugin.getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any())).thenReturn(ImmutableList.<PaymentTransactionInfoPlugin>of());
+        final OSGIServiceRegistration<PaymentPluginApi> registry = Mockito.mock(OSGIServiceRegistration.class);
+        Mockito.when(registry.getServiceForName("plugin")).thenReturn(plugin);
+
+        final PaymentExecutors paymentExecutors = new PaymentExecutors(paymentConfig, new MetricRegistry());
+        paymentExecutors.initialize();
+        try {
+            final PaymentPluginInfoLoader loader = new PaymentPluginInfoLoader(registry, paymentExecutors, paymentConfig);
+
+            final List<PaymentModelDao> payments = ImmutableList.<PaymentModelDao>of(createPayment(), createPayment(), createPayment());
+            final Map<UUID, String> pluginNameByPaymentId = new HashMap<UUID, String>();
+            for (final PaymentModelDao payment : payments) {
+                pluginNameByPaymentId.put(payment.getId(), "plugin");
+            }
+
+            final Map<UUID, List<PaymentTransactionInfoPlugin>> pluginInfo = loader.getPaymentTransactionInfoPlugins(payments, pluginNameByPaymentId, Mockito.mock(TenantContext.class));
+            Assert.assertEquals(pluginInfo.size(), 2);
+            Assert.assertFalse(pluginInfo.containsKey(payments.get(2).getId()));
+            Mockito.verify(plugin, Mockito.times(2)).getPaymentInfo(Matchers.<UUID>any(), Matchers.<UUID>any(), Matchers.<Iterable<PluginProperty>>any(), Matchers.<TenantContext>any());
+        } finally {
+            paymentExecutors.stop();
+        }
+    }
+
+    private PaymentModelDao createPayment() {
+        final PaymentModelDao paymentModelDao = Mockito.mock(PaymentModelDao.class);
+        Mockito.when(paymentModelDao.getId()).thenReturn(UUID.randomUUID());
+        Mockito.when(paymentModelDao.getAccountId()).thenReturn(UUID.randomUUID());
+        return paymentModelDao;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPluginExecutor {
+
+    @Test(groups = "fast")
+    public void testRejectWhenSaturated() throws Exception {
+        // 1 thread, 1 queued call
+        final PluginExecutor pluginExecutor = new PluginExecutor("slow-plugin", 1, 1, 1, 10000);
+        final CountDownLatch blockPlugin = new CountDownLatch(1);
+        try {
+            final Callable<Void> slowCall = new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    blockPlugin.await();
+                    return null;
+                }
+            };
+            final Future<Void> first = pluginExecutor.submit(slowCall);
+            final Future<Void> second = pluginExecutor.submit(slowCall);
+            try {
+                pluginExecutor.submit(slowCall);
+                Assert.fail("Call should have been rejected");
+            } catch (final RejectedExecutionException e) {
+                Assert.assertEquals(pluginExecutor.getNbRejected(), 1);
+            }
+
+            blockPlugin.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(pluginExecutor.getNbCalls(), 2);
+            Assert.assertEquals(pluginExecutor.getQueueDepth(), 0);
+        } finally {
+            blockPlugin.countDown();
+            pluginExecutor.shutdownNow();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testReduceConcurrencyOnTimeout() throws Exception {
+        final PluginExecutor pluginExecutor = new PluginExecutor("timing-out-plugin", 4, 4, 2, 10000);
+        try {
+            Assert.assertEquals(pluginExecutor.getConcurrencyLimit(), 8);
+
+            final Future<Void> future = pluginExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Thread.sleep(10000);
+                    return null;
+                }
+            });
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                Assert.fail("Call should have timed out");
+            } catch (final TimeoutException e) {
+                pluginExecutor.onTimeout(future);
+            }
+
+            Assert.assertTrue(future.isCancelled());
+            Assert.assertEquals(pluginExecutor.getNbTimeouts(), 1);
+            Assert.assertEquals(pluginExecutor.getNbInFlight(), 0);
+            Assert.assertEquals(pluginExecutor.getConcurrencyLimit(), 6);
+
+            // Never goes under the minimum
+            for (int i = 0; i < 10; i++) {
+                pluginExecutor.onTimeout(future);
+            }
+            Assert.assertEquals(pluginExecutor.getConcurrencyLimit(), 2);
+        } finally {
+            pluginExecutor.shutdownNow();
+        }
+    }
+}
@@ -48,6 +48,7 @@ public class MockPaymentDao implements PaymentDao {
     private final Map<UUID, PaymentModelDao> payments = new HashMap<UUID, PaymentModelDao>();
     private final Map<UUID, PaymentTransactionModelDao> transactions = new HashMap<UUID, PaymentTransactionModelDao>();
     private final Map<UUID, PaymentAttemptModelDao> attempts = new HashMap<UUID, PaymentAttemptModelDao>();
+    private final Map<String, Long> janitorCheckpoints = new HashMap<String, Long>();
 
     private final MockNonEntityDao mockNonEntityDao;
     private final List<PaymentMethodModelDao> paymentMethods = new LinkedList<PaymentMethodModelDao>();
@@ -63,6 +64,7 @@ public class MockPaymentDao implements PaymentDao {
             paymentMethods.clear();
             transactions.clear();
             attempts.clear();
+            janitorCheckpoints.clear();
         }
     }
 
@@ -126,6 +128,25 @@ public class MockPaymentDao implements PaymentDao {
         return null;
     }
 
+    @Override
+    public List<PaymentAttemptModelDao> getPaymentAttemptsByStateAcrossTenants(final String stateName, final DateTime createdBeforeDate, final int nbShards, final int shardId, final Long lastRecordId, final Long limit) {
+        return ImmutableList.<PaymentAttemptModelDao>of();
+    }
+
+    @Override
+    public Long getJanitorCheckpoint(final String taskName, final int nbShards, final int shardId) {
+        synchronized (this) {
+            return janitorCheckpoints.get(taskName + "-" + nbShards + "-" + shardId);
+        }
+    }
+
+    @Override
+    public void updateJanitorCheckpoint(final String taskName, final int nbShards, final int shardId, final Long lastRecordId) {
+        synchronized (this) {
+            janitorCheckpoints.put(taskName + "-" + nbShards + "-" + shardId, lastRecordId);
+        }
+    }
+
     @Override
     public List<PaymentAttemptModelDao> getPaymentAttempts(final String paymentExternalKey, final InternalTenantContext context) {
         synchronized (this) {
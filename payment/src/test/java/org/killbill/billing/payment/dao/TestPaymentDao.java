@@ -499,6 +499,46 @@ public class TestPaymentDao extends PaymentTestSuiteWithEmbeddedDB {
         Assert.assertEquals(result.getTotalNbRecords().longValue(), 2L);
     }
 
+    @Test(groups = "slow")
+    public void testPaymentAttemptsByStateAcrossTenantsForShard() {
+        final UUID paymentMethodId = UUID.randomUUID();
+        final UUID accountId = UUID.randomUUID();
+        final DateTime createdAfterDate = clock.getUTCNow().minusDays(10);
+        final DateTime createdBeforeDate = clock.getUTCNow().minusDays(1);
+        final String stateName = "SHARDED";
+
+        internalCallContext.setCreatedDate(createdAfterDate);
+        internalCallContext.setUpdatedDate(createdAfterDate);
+        for (int i = 0; i < 6; i++) {
+            final PaymentAttemptModelDao attempt = new PaymentAttemptModelDao(accountId, paymentMethodId, createdAfterDate, createdAfterDate, "shardKey" + i,
+                                                                              UUID.randomUUID(), "shardTransactionKey" + i, TransactionType.AUTHORIZE, stateName, BigDecimal.ONE, Currency.USD,
+                                                                              ImmutableList.<String>of("sharded"), null);
+            paymentDao.insertPaymentAttemptWithProperties(attempt, internalCallContext);
+        }
+
+        // Each attempt belongs to exactly one shard
+        int nbAttempts = 0;
+        for (int shardId = 0; shardId < 3; shardId++) {
+            final List<PaymentAttemptModelDao> shardAttempts = paymentDao.getPaymentAttemptsByStateAcrossTenants(stateName, createdBeforeDate, 3, shardId, 0L, 10L);
+            for (final PaymentAttemptModelDao attempt : shardAttempts) {
+                Assert.assertEquals(attempt.getRecordId() % 3, shardId);
+            }
+            nbAttempts += shardAttempts.size();
+        }
+        Assert.assertEquals(nbAttempts, 6);
+
+        // Resume after the checkpoint
+        final List<PaymentAttemptModelDao> allAttempts = paymentDao.getPaymentAttemptsByStateAcrossTenants(stateName, createdBeforeDate, 1, 0, 0L, 10L);
+        Assert.assertEquals(allAttempts.size(), 6);
+        Assert.assertNull(paymentDao.getJanitorCheckpoint("task", 1, 0));
+        paymentDao.updateJanitorCheckpoint("task", 1, 0, allAttempts.get(3).getRecordId());
+        Assert.assertEquals(paymentDao.getJanitorCheckpoint("task", 1, 0), allAttempts.get(3).getRecordId());
+        Assert.assertEquals(paymentDao.getPaymentAttemptsByStateAcrossTenants(stateName, createdBeforeDate, 1, 0, paymentDao.getJanitorCheckpoint("task", 1, 0), 10L).size(), 2);
+
+        paymentDao.updateJanitorCheckpoint("task", 1, 0, 0L);
+        Assert.assertEquals(paymentDao.getJanitorCheckpoint("task", 1, 0), (Long) 0L);
+    }
+
     @Test(groups = "slow")
     public void testUpdatePaymentAttempt() throws PluginPropertySerializerException {
 
@@ -28,6 +28,8 @@ import org.killbill.billing.payment.dao.PluginPropertySerializer.PluginPropertyS
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class TestPluginPropertySerializer {
 
     @Test(groups = "fast")
@@ -99,4 +101,66 @@ public class TestPluginPropertySerializer {
         }
 
     }
+
+    @Test(groups = "fast")
+    public void testPrimitiveValuesJsonFormat() throws PluginPropertySerializerException {
+        checkPrimitiveValues(false);
+    }
+
+    @Test(groups = "fast")
+    public void testPrimitiveValuesBinaryFormat() throws PluginPropertySerializerException {
+        checkPrimitiveValues(true);
+    }
+
+    @Test(groups = "fast")
+    public void testReadBothFormats() throws PluginPropertySerializerException {
+        final HashMap<String, BigDecimal> something = new HashMap<String, BigDecimal>();
+        something.put("what", new BigDecimal("10.0"));
+        final List<PluginProperty> input = new ArrayList<PluginProperty>();
+        input.add(new PluginProperty("prev", "simple", false));
+        input.add(new PluginProperty("foo", something, false));
+
+        // JSON is written unless the binary format is enabled, so that nodes running previous versions can read the rows
+        Assert.assertEquals(PluginPropertySerializer.serialize(input), PluginPropertySerializer.serialize(input, false));
+
+        for (final boolean binaryFormat : new boolean[]{false, true}) {
+            final List<PluginProperty> deserialized = ImmutableList.<PluginProperty>copyOf(PluginPropertySerializer.deserialize(PluginPropertySerializer.serialize(input, binaryFormat)));
+            Assert.assertEquals(deserialized.size(), 2);
+            Assert.assertEquals(deserialized.get(0), input.get(0));
+            Assert.assertEquals(deserialized.get(1).getValue(), something);
+        }
+    }
+
+    private void checkPrimitiveValues(final boolean binaryFormat) throws PluginPropertySerializerException {
+        final Map<String, Object> nested = new HashMap<String, Object>();
+        nested.put("list", ImmutableList.<Object>of("a", 1, true));
+        nested.put("null", null);
+        final List<PluginProperty> input = new ArrayList<PluginProperty>();
+        input.add(new PluginProperty("string", "\u00e9t\u00e9", false));
+        input.add(new PluginProperty("int", -12, false));
+        input.add(new PluginProperty("long", Long.MAX_VALUE, false));
+        input.add(new PluginProperty("bigDecimal", new BigDecimal("-12.345"), false));
+        input.add(new PluginProperty("double", 1.5d, false));
+        input.add(new PluginProperty("boolean", true, false));
+        input.add(new PluginProperty("null", null, false));
+        input.add(new PluginProperty("nested", nested, false));
+        input.add(new PluginProperty("smallLong", 42L, false));
+
+        final List<PluginProperty> deserialized = ImmutableList.<PluginProperty>copyOf(PluginPropertySerializer.deserialize(PluginPropertySerializer.serialize(input, binaryFormat)));
+        Assert.assertEquals(deserialized.size(), input.size());
+        for (int i = 0; i < input.size(); i++) {
+            Assert.assertEquals(deserialized.get(i).getKey(), input.get(i).getKey());
+        }
+        Assert.assertEquals(deserialized.get(0).getValue(), "\u00e9t\u00e9");
+        Assert.assertEquals(deserialized.get(1).getValue(), -12);
+        Assert.assertEquals(deserialized.get(2).getValue(), Long.MAX_VALUE);
+        Assert.assertEquals(deserialized.get(3).getValue(), new BigDecimal("-12.345"));
+        // Floating point numbers are read back as BigDecimal
+        Assert.assertEquals(((BigDecimal) deserialized.get(4).getValue()).compareTo(new BigDecimal("1.5")), 0);
+        Assert.assertEquals(deserialized.get(5).getValue(), Boolean.TRUE);
+        Assert.assertNull(deserialized.get(6).getValue());
+        Assert.assertEquals(deserialized.get(7).getValue(), nested);
+        // Longs which fit in an int are read back as Integer
+        Assert.assertEquals(deserialized.get(8).getValue(), 42);
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.server.filters;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.killbill.billing.entitlement.EntitlementSnapshotScope;
+
+// Share the account entitlement data across all lookups made by a single API call
+@Singleton
+public class EntitlementSnapshotScopeFilter implements Filter {
+
+    private final EntitlementSnapshotScope entitlementSnapshotScope;
+
+    @Inject
+    public EntitlementSnapshotScopeFilter(final EntitlementSnapshotScope entitlementSnapshotScope) {
+        this.entitlementSnapshotScope = entitlementSnapshotScope;
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain) throws IOException, ServletException {
+        entitlementSnapshotScope.openSnapshotScope();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            entitlementSnapshotScope.closeSnapshotScope();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
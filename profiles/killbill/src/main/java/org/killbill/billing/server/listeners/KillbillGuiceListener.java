@@ -27,6 +27,7 @@ import org.killbill.billing.jaxrs.resources.JaxRsResourceBase;
 import org.killbill.billing.jaxrs.util.KillbillEventHandler;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.platform.config.DefaultKillbillConfigSource;
+import org.killbill.billing.server.filters.EntitlementSnapshotScopeFilter;
 import org.killbill.billing.server.filters.KillbillMDCInsertingServletFilter;
 import org.killbill.billing.server.filters.ProfilingContainerResponseFilter;
 import org.killbill.billing.server.filters.RequestDataFilter;
@@ -93,6 +94,9 @@ public class KillbillGuiceListener extends KillbillPlatformGuiceListener {
             builder.addFilter("/*", TenantFilter.class);
         }
 
+        // Entitlement lookups made by a single API call share the account data
+        builder.addFilter("/*", EntitlementSnapshotScopeFilter.class);
+
         // Finally, just before the request starts, enable the LoggingFilter
         builder.addJerseyFilter("com.sun.jersey.api.container.filter.LoggingFilter");
 
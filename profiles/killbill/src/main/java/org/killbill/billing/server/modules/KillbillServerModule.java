@@ -58,6 +58,7 @@ import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.server.DefaultServerService;
 import org.killbill.billing.server.ServerService;
 import org.killbill.billing.server.config.KillbillServerConfig;
+import org.killbill.billing.server.filters.EntitlementSnapshotScopeFilter;
 import org.killbill.billing.server.filters.ResponseCorsFilter;
 import org.killbill.billing.server.notifications.PushNotificationListener;
 import org.killbill.billing.subscription.glue.DefaultSubscriptionModule;
@@ -202,6 +203,7 @@ public class KillbillServerModule extends KillbillPlatformModule {
     protected void configureFilters() {
         bind(ResponseCorsFilter.class).asEagerSingleton();
         bind(MDCInsertingServletFilter.class).asEagerSingleton();
+        bind(EntitlementSnapshotScopeFilter.class).asEagerSingleton();
     }
 
     protected void configurePushNotification() {
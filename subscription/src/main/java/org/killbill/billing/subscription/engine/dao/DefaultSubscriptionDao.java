@@ -102,7 +102,6 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
@@ -206,6 +205,11 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
                                                   public Iterator<SubscriptionBundleModelDao> build(final BundleSqlDao bundleSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return bundleSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<SubscriptionBundleModelDao> buildFromRecordId(final BundleSqlDao bundleSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return bundleSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -335,29 +339,15 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
         final List<SubscriptionBaseEvent> eventsForAccount = getEventsForAccountId(context);
 
+        // Index the events by subscription once (the ordering of the events for each subscription is preserved)
+        final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
+        for (final SubscriptionBaseEvent event : eventsForAccount) {
+            eventsForSubscriptions.put(event.getSubscriptionId(), event);
+        }
+
         final Map<UUID, List<SubscriptionBase>> result = new HashMap<UUID, List<SubscriptionBase>>();
         for (final UUID bundleId : subscriptionsFromAccountId.keySet()) {
-
             final List<SubscriptionBase> subscriptionsForBundle = subscriptionsFromAccountId.get(bundleId);
-            final Collection<UUID> subscriptionIdsForBundle = Collections2.transform(subscriptionsForBundle, new Function<SubscriptionBase, UUID>() {
-                @Override
-                public UUID apply(final SubscriptionBase input) {
-                    return input.getId();
-                }
-            });
-            final Multimap<UUID, SubscriptionBaseEvent> eventsForSubscriptions = ArrayListMultimap.create();
-
-            for (final SubscriptionBase cur : subscriptionsForBundle) {
-                final Collection<SubscriptionBaseEvent> events = Collections2.filter(eventsForAccount, new Predicate<SubscriptionBaseEvent>() {
-                    @Override
-                    public boolean apply(final SubscriptionBaseEvent input) {
-                        return input.getSubscriptionId().equals(cur.getId());
-
-                    }
-                });
-                eventsForSubscriptions.putAll(cur.getId(), ImmutableList.copyOf(events));
-            }
-
             result.put(bundleId, buildBundleSubscriptions(subscriptionsForBundle, eventsForSubscriptions, null, context));
         }
         return result;
@@ -39,7 +39,9 @@ import org.killbill.billing.util.LocaleUtils;
  * a callback which is used for the cache invalidation when the state changes and the operation occurred on a remote node.
  * For those objects, the private api is called from the module.
  * <p/>
- * Some others (invoice templates,...) are not cached (yet) and so the logic is simpler.
+ * Invoice templates and translations are cached by the invoice module, which also registers an invalidation callback.
+ * <p/>
+ * Some others (plugin configs,...) are not cached (yet) and so the logic is simpler.
  * <p/>
  * The api can only be used to retrieve objects where no caching is required.
  */
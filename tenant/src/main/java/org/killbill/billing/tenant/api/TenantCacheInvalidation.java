@@ -18,7 +18,9 @@
 package org.killbill.billing.tenant.api;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -37,6 +39,8 @@ import org.killbill.billing.tenant.dao.TenantBroadcastModelDao;
 import org.killbill.billing.tenant.dao.TenantDao;
 import org.killbill.billing.tenant.dao.TenantKVModelDao;
 import org.killbill.billing.tenant.glue.DefaultTenantModule;
+import org.killbill.billing.util.broadcast.BroadcastPollTrigger;
+import org.killbill.billing.util.broadcast.BroadcastTransport;
 import org.killbill.billing.util.config.TenantConfig;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
@@ -59,6 +63,9 @@ import com.google.common.collect.Multimap;
  * <p/>
  * When this class initializes, it reads the current entry in the tenant_broadcasts table and from then on, keeps polling for new entries; when new
  * entries are found, it invokes the callback to invalidate the current caching and force the TenantCacheLoader to be invoked again.
+ * <p/>
+ * New entries announced on the BroadcastTransport are picked up right away; the polling only acts as a fallback
+ * for nodes which did not receive the notification.
  */
 public class TenantCacheInvalidation {
 
@@ -71,21 +78,25 @@ public class TenantCacheInvalidation {
     private final TenantConfig tenantConfig;
     private final PersistentBus eventBus;
     private final TenantDao tenantDao;
+    private final BroadcastTransport broadcastTransport;
     private AtomicLong latestRecordIdProcessed;
     private volatile boolean isStopped;
 
     private ScheduledExecutorService tenantExecutor;
+    private BroadcastPollTrigger broadcastPollTrigger;
 
     @Inject
     public TenantCacheInvalidation(@Named(DefaultTenantModule.NO_CACHING_TENANT) final TenantBroadcastDao broadcastDao,
                                    @Named(DefaultTenantModule.NO_CACHING_TENANT) final TenantDao tenantDao,
                                    final PersistentBus eventBus,
+                                   final BroadcastTransport broadcastTransport,
                                    final TenantConfig tenantConfig) {
         this.cache = HashMultimap.<TenantKey, CacheInvalidationCallback>create();
         this.broadcastDao = broadcastDao;
         this.tenantConfig = tenantConfig;
         this.tenantDao = tenantDao;
         this.eventBus = eventBus;
+        this.broadcastTransport = broadcastTransport;
         this.isStopped = false;
     }
 
@@ -99,8 +110,11 @@ public class TenantCacheInvalidation {
     public void start() {
         final TimeUnit pendingRateUnit = tenantConfig.getTenantBroadcastServiceRunningRate().getUnit();
         final long pendingPeriod = tenantConfig.getTenantBroadcastServiceRunningRate().getPeriod();
-        tenantExecutor.scheduleAtFixedRate(new TenantCacheInvalidationRunnable(this, broadcastDao, tenantDao), pendingPeriod, pendingPeriod, pendingRateUnit);
+        final TenantCacheInvalidationRunnable tenantCacheInvalidationRunnable = new TenantCacheInvalidationRunnable(this, broadcastDao, tenantDao);
+        tenantExecutor.scheduleAtFixedRate(tenantCacheInvalidationRunnable, pendingPeriod, pendingPeriod, pendingRateUnit);
 
+        broadcastPollTrigger = new BroadcastPollTrigger(tenantExecutor, tenantCacheInvalidationRunnable, tenantConfig.getTenantBroadcastNotificationBatchDelay().getMillis());
+        broadcastTransport.subscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, broadcastPollTrigger);
     }
 
     public void stop() {
@@ -108,6 +122,10 @@ public class TenantCacheInvalidation {
             logger.warn("TenantExecutor is already in a stopped state");
             return;
         }
+        if (broadcastPollTrigger != null) {
+            broadcastTransport.unsubscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, broadcastPollTrigger);
+            broadcastPollTrigger = null;
+        }
         try {
             tenantExecutor.shutdown();
             boolean success = tenantExecutor.awaitTermination(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS);
@@ -168,6 +186,8 @@ public class TenantCacheInvalidation {
             }
 
             final List<TenantBroadcastModelDao> entries = broadcastDao.getLatestEntriesFrom(parent.getLatestRecordIdProcessed().get());
+            // Several updates of the same key within a batch only need to invalidate the cache once
+            final Set<String> invalidatedKeys = new HashSet<String>();
             for (TenantBroadcastModelDao cur : entries) {
                 if (parent.isStopped()) {
                     return;
@@ -179,8 +199,10 @@ public class TenantCacheInvalidation {
                         final Collection<CacheInvalidationCallback> callbacks = parent.getCacheInvalidations(tenantKeyAndCookie.getTenantKey());
                         if (!callbacks.isEmpty()) {
                             final InternalTenantContext tenantContext = new InternalTenantContext(cur.getTenantRecordId());
-                            for (final CacheInvalidationCallback callback : callbacks) {
-                                callback.invalidateCache(tenantKeyAndCookie.getTenantKey(), tenantKeyAndCookie.getCookie(), tenantContext);
+                            if (invalidatedKeys.add(cur.getTenantRecordId() + "::" + cur.getType())) {
+                                for (final CacheInvalidationCallback callback : callbacks) {
+                                    callback.invalidateCache(tenantKeyAndCookie.getTenantKey(), tenantKeyAndCookie.getCookie(), tenantContext);
+                                }
                             }
 
                             final Long tenantKvsTargetRecordId = cur.getTargetRecordId();
@@ -33,6 +33,7 @@ import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.tenant.dao.TenantDao;
 import org.killbill.billing.tenant.dao.TenantModelDao;
+import org.killbill.billing.util.broadcast.BroadcastTransport;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
@@ -69,14 +70,16 @@ public class DefaultTenantUserApi implements TenantUserApi {
     private final InternalCallContextFactory internalCallContextFactory;
     private final CacheController<Object, Object> tenantKVCache;
     private final CacheController<Object, Object> tenantCache;
+    private final BroadcastTransport broadcastTransport;
 
 
     @Inject
-    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory, final CacheControllerDispatcher cacheControllerDispatcher) {
+    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory, final CacheControllerDispatcher cacheControllerDispatcher, final BroadcastTransport broadcastTransport) {
         this.tenantDao = tenantDao;
         this.internalCallContextFactory = internalCallContextFactory;
         this.tenantKVCache = cacheControllerDispatcher.getCacheController(CacheType.TENANT_KV);
         this.tenantCache = cacheControllerDispatcher.getCacheController(CacheType.TENANT);
+        this.broadcastTransport = broadcastTransport;
     }
 
     @Override
@@ -127,6 +130,7 @@ public class DefaultTenantUserApi implements TenantUserApi {
         final String tenantKey = getCacheKeyName(key, internalContext);
         tenantDao.addTenantKeyValue(key, value, isSingleValueKey(key), internalContext);
         tenantKVCache.remove(tenantKey);
+        broadcastTransport.publish(BroadcastTransport.TENANT_BROADCASTS_CHANNEL);
     }
 
     @Override
@@ -136,6 +140,7 @@ public class DefaultTenantUserApi implements TenantUserApi {
         final String tenantKey = getCacheKeyName(key, internalContext);
         tenantDao.deleteTenantKey(key, internalContext);
         tenantKVCache.remove(tenantKey);
+        broadcastTransport.publish(BroadcastTransport.TENANT_BROADCASTS_CHANNEL);
     }
 
     private List<String> getCachedTenantValuesForKey(final String key, final InternalTenantContext internalContext) {
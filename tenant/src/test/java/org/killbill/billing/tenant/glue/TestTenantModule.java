@@ -19,6 +19,8 @@
 package org.killbill.billing.tenant.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.broadcast.BroadcastTransport;
+import org.killbill.billing.util.broadcast.LocalBroadcastTransport;
 import org.killbill.billing.util.glue.CacheModule;
 import org.killbill.billing.util.glue.CallContextModule;
 
@@ -34,5 +36,6 @@ public class TestTenantModule extends DefaultTenantModule {
 
         install(new CacheModule(configSource));
         install(new CallContextModule(configSource));
+        bind(BroadcastTransport.class).to(LocalBroadcastTransport.class).asEagerSingleton();
     }
 }
@@ -17,17 +17,25 @@
 
 package org.killbill.billing.usage.api.svcs;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.joda.time.LocalDate;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.usage.InternalUserApi;
 import org.killbill.billing.usage.RawUsage;
+import org.killbill.billing.usage.api.SubscriptionUsageRecord;
+import org.killbill.billing.usage.api.user.DefaultUsageUserApi;
 import org.killbill.billing.usage.dao.RolledUpUsageDao;
 import org.killbill.billing.usage.dao.RolledUpUsageModelDao;
+import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
@@ -36,15 +44,19 @@ import com.google.common.collect.Iterables;
 public class DefaultInternalUserApi implements InternalUserApi {
 
     private final RolledUpUsageDao rolledUpUsageDao;
+    private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
-    public DefaultInternalUserApi(final RolledUpUsageDao rolledUpUsageDao) {
+    public DefaultInternalUserApi(final RolledUpUsageDao rolledUpUsageDao,
+                                  final InternalCallContextFactory internalCallContextFactory) {
         this.rolledUpUsageDao = rolledUpUsageDao;
+        this.internalCallContextFactory = internalCallContextFactory;
     }
 
     @Override
     public List<RawUsage> getRawUsageForAccount(final LocalDate stateDate, final LocalDate endDate, final InternalTenantContext internalTenantContext) {
-        final List<RolledUpUsageModelDao> usage = rolledUpUsageDao.getRawUsageForAccount(stateDate, endDate, internalTenantContext);
+        // Invoicing only needs daily totals: read the pre-aggregated entries instead of every raw record
+        final List<RolledUpUsageModelDao> usage = rolledUpUsageDao.getDailyUsageForAccount(stateDate, endDate, internalTenantContext);
         return ImmutableList.copyOf(Iterables.transform(usage, new Function<RolledUpUsageModelDao, RawUsage>() {
             @Nullable
             @Override
@@ -53,4 +65,18 @@ public class DefaultInternalUserApi implements InternalUserApi {
             }
         }));
     }
+
+    @Override
+    public void recordRolledUpUsage(final List<SubscriptionUsageRecord> records, final CallContext context) {
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        final List<InternalCallContext> contexts = new ArrayList<InternalCallContext>();
+        for (final SubscriptionUsageRecord record : records) {
+            // Each subscription may belong to a different account
+            final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(record.getSubscriptionId(), ObjectType.SUBSCRIPTION, context);
+            final List<RolledUpUsageModelDao> usagesForSubscription = DefaultUsageUserApi.toRolledUpUsageModelDaos(record);
+            usages.addAll(usagesForSubscription);
+            contexts.addAll(Collections.<InternalCallContext>nCopies(usagesForSubscription.size(), internalCallContext));
+        }
+        rolledUpUsageDao.record(usages, contexts);
+    }
 }
@@ -17,6 +17,7 @@
 package org.killbill.billing.usage.api.user;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -55,11 +56,18 @@ public class DefaultUsageUserApi implements UsageUserApi {
     @Override
     public void recordRolledUpUsage(final SubscriptionUsageRecord record, final CallContext callContext) {
         final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(record.getSubscriptionId(), ObjectType.SUBSCRIPTION, callContext);
-        for (UnitUsageRecord unitUsageRecord : record.getUnitUsageRecord()) {
-            for (UsageRecord usageRecord : unitUsageRecord.getDailyAmount()) {
-                rolledUpUsageDao.record(record.getSubscriptionId(), unitUsageRecord.getUnitType(), usageRecord.getDate(), usageRecord.getAmount(), internalCallContext);
+        final List<RolledUpUsageModelDao> usages = toRolledUpUsageModelDaos(record);
+        rolledUpUsageDao.record(usages, Collections.<InternalCallContext>nCopies(usages.size(), internalCallContext));
+    }
+
+    public static List<RolledUpUsageModelDao> toRolledUpUsageModelDaos(final SubscriptionUsageRecord record) {
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        for (final UnitUsageRecord unitUsageRecord : record.getUnitUsageRecord()) {
+            for (final UsageRecord usageRecord : unitUsageRecord.getDailyAmount()) {
+                usages.add(new RolledUpUsageModelDao(record.getSubscriptionId(), unitUsageRecord.getUnitType(), usageRecord.getDate(), usageRecord.getAmount()));
             }
         }
+        return usages;
     }
 
     @Override
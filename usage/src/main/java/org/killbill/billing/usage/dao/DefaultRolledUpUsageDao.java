@@ -17,7 +17,10 @@
 package org.killbill.billing.usage.dao;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -25,21 +28,96 @@ import javax.inject.Inject;
 import org.joda.time.LocalDate;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
 
+    private static final String DAILY_USAGE_CREATION_SAVEPOINT = "daily_usage_creation";
+
+    private final IDBI dbi;
     private final RolledUpUsageSqlDao rolledUpUsageSqlDao;
 
     @Inject
     public DefaultRolledUpUsageDao(final IDBI dbi) {
+        this.dbi = dbi;
         this.rolledUpUsageSqlDao = dbi.onDemand(RolledUpUsageSqlDao.class);
     }
 
     @Override
     public void record(final UUID subscriptionId, final String unitType, final LocalDate date, final Long amount, final InternalCallContext context) {
         final RolledUpUsageModelDao rolledUpUsageModelDao = new RolledUpUsageModelDao(subscriptionId, unitType, date, amount);
-        rolledUpUsageSqlDao.create(rolledUpUsageModelDao, context);
+        record(ImmutableList.<RolledUpUsageModelDao>of(rolledUpUsageModelDao), ImmutableList.<InternalCallContext>of(context));
+    }
+
+    @Override
+    public void record(final List<RolledUpUsageModelDao> usages, final List<InternalCallContext> contexts) {
+        Preconditions.checkArgument(usages.size() == contexts.size(), "Each usage record needs a context");
+        if (usages.isEmpty()) {
+            return;
+        }
+
+        // Fold the batch into per subscription, unit type and day totals first
+        final Map<String, RolledUpUsageModelDao> dailyUsages = new LinkedHashMap<String, RolledUpUsageModelDao>();
+        final Map<String, InternalCallContext> dailyContexts = new LinkedHashMap<String, InternalCallContext>();
+        for (int i = 0; i < usages.size(); i++) {
+            final RolledUpUsageModelDao usage = usages.get(i);
+            final String key = String.format("%s::%s::%s", usage.getSubscriptionId(), usage.getUnitType(), usage.getRecordDate());
+            final RolledUpUsageModelDao dailyUsage = dailyUsages.get(key);
+            if (dailyUsage == null) {
+                dailyUsages.put(key, new RolledUpUsageModelDao(usage.getSubscriptionId(), usage.getUnitType(), usage.getRecordDate(), usage.getAmount()));
+                dailyContexts.put(key, contexts.get(i));
+            } else {
+                dailyUsage.setAmount(dailyUsage.getAmount() + usage.getAmount());
+            }
+        }
+
+        dbi.inTransaction(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final RolledUpUsageSqlDao transactional = handle.attach(RolledUpUsageSqlDao.class);
+                transactional.createRolledUpUsages(usages, contexts);
+
+                // One statement per day (rather than a batch), as batch update counts aren't reliable with all drivers
+                for (final String key : dailyUsages.keySet()) {
+                    recordDailyUsage(handle, transactional, dailyUsages.get(key), dailyContexts.get(key));
+                }
+                return null;
+            }
+        });
+    }
+
+    private void recordDailyUsage(final Handle handle, final RolledUpUsageSqlDao transactional, final RolledUpUsageModelDao dailyUsage, final InternalCallContext context) {
+        if (transactional.addToDailyUsage(dailyUsage, context) > 0) {
+            return;
+        }
+
+        // First record for that day. The insert runs in a savepoint, so that the transaction remains usable
+        // if a concurrent batch created the row in the meantime (some databases, e.g. PostgreSQL, abort it otherwise).
+        handle.checkpoint(DAILY_USAGE_CREATION_SAVEPOINT);
+        try {
+            transactional.createDailyUsage(dailyUsage, context);
+            handle.release(DAILY_USAGE_CREATION_SAVEPOINT);
+        } catch (final UnableToExecuteStatementException e) {
+            handle.rollback(DAILY_USAGE_CREATION_SAVEPOINT);
+            if (!isIntegrityConstraintViolation(e)) {
+                throw e;
+            }
+            transactional.addToDailyUsage(dailyUsage, context);
+        }
+    }
+
+    private boolean isIntegrityConstraintViolation(final UnableToExecuteStatementException e) {
+        // SQL standard class 23 (integrity constraint violation), i.e. the unique index on the day here
+        return e.getCause() instanceof SQLException &&
+               ((SQLException) e.getCause()).getSQLState() != null &&
+               ((SQLException) e.getCause()).getSQLState().startsWith("23");
     }
 
     @Override
@@ -52,6 +130,11 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
         return rolledUpUsageSqlDao.getAllUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), context);
     }
 
+    @Override
+    public List<RolledUpUsageModelDao> getDailyUsageForAccount(final LocalDate startDate, final LocalDate endDate, final InternalTenantContext context) {
+        return rolledUpUsageSqlDao.getDailyUsageForAccount(startDate.toDate(), endDate.toDate(), context);
+    }
+
     @Override
     public List<RolledUpUsageModelDao> getRawUsageForAccount(final LocalDate startDate, final LocalDate endDate, final InternalTenantContext context) {
         return rolledUpUsageSqlDao.getRawUsageForAccount(startDate.toDate(), endDate.toDate(), context);
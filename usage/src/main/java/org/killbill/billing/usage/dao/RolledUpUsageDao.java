@@ -28,10 +28,15 @@ public interface RolledUpUsageDao {
     void record(UUID subscriptionId, String unitType, LocalDate date,
                 Long amount, InternalCallContext context);
 
+    // Bulk insert, contexts[i] being the context of usages[i] (all rows are written in a single transaction)
+    void record(List<RolledUpUsageModelDao> usages, List<InternalCallContext> contexts);
+
     List<RolledUpUsageModelDao> getUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, String unitType, InternalTenantContext context);
 
     List<RolledUpUsageModelDao> getAllUsageForSubscription(UUID subscriptionId, LocalDate startDate, LocalDate endDate, InternalTenantContext context);
 
+    // One entry per subscription, unit type and day (pre-aggregated on ingestion)
+    List<RolledUpUsageModelDao> getDailyUsageForAccount(LocalDate startDate, LocalDate endDate, InternalTenantContext context);
 
     List<RolledUpUsageModelDao> getRawUsageForAccount(LocalDate startDate, LocalDate endDate, InternalTenantContext context);
 }
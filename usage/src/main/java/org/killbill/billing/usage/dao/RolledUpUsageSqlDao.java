@@ -30,8 +30,10 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 
 @EntitySqlDaoStringTemplate
 public interface RolledUpUsageSqlDao extends EntitySqlDao<RolledUpUsageModelDao, Entity> {
@@ -40,6 +42,26 @@ public interface RolledUpUsageSqlDao extends EntitySqlDao<RolledUpUsageModelDao,
     public void create(@BindBean RolledUpUsageModelDao rolledUpUsage,
                        @InternalTenantContextBinder final InternalCallContext context);
 
+    // Callers are expected to run the statements below in a transaction
+    @SqlBatch(transactional = false)
+    @BatchChunkSize(1000)
+    public void createRolledUpUsages(@BindBean Iterable<RolledUpUsageModelDao> rolledUpUsages,
+                                     @InternalTenantContextBinder final Iterable<InternalCallContext> contexts);
+
+    // Per subscription, unit type and day totals, maintained on ingestion
+    @SqlUpdate
+    public int addToDailyUsage(@BindBean RolledUpUsageModelDao dailyUsage,
+                               @InternalTenantContextBinder final InternalCallContext context);
+
+    @SqlUpdate
+    public void createDailyUsage(@BindBean RolledUpUsageModelDao dailyUsage,
+                                 @InternalTenantContextBinder final InternalCallContext context);
+
+    @SqlQuery
+    public List<RolledUpUsageModelDao> getDailyUsageForAccount(@Bind("startDate") final Date startDate,
+                                                               @Bind("endDate") final Date endDate,
+                                                               @InternalTenantContextBinder final InternalTenantContext context);
+
     @SqlQuery
     public List<RolledUpUsageModelDao> getUsageForSubscription(@Bind("subscriptionId") final UUID subscriptionId,
                                                                @Bind("startDate") final Date startDate,
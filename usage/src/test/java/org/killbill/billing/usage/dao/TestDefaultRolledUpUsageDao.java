@@ -17,13 +17,22 @@
 
 package org.killbill.billing.usage.dao;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.joda.time.LocalDate;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.usage.UsageTestSuiteWithEmbeddedDB;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
 
 public class TestDefaultRolledUpUsageDao extends UsageTestSuiteWithEmbeddedDB {
@@ -96,4 +105,101 @@ public class TestDefaultRolledUpUsageDao extends UsageTestSuiteWithEmbeddedDB {
         final List<RolledUpUsageModelDao> result = rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext);
         assertEquals(result.size(), 0);
     }
+
+    @Test(groups = "slow")
+    public void testBulkRecord() {
+        final UUID subscriptionId1 = UUID.randomUUID();
+        final UUID subscriptionId2 = UUID.randomUUID();
+        final String unitType = "foo";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+
+        // More than one JDBC batch chunk
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        final List<InternalCallContext> contexts = new ArrayList<InternalCallContext>();
+        for (int i = 0; i < 1500; i++) {
+            usages.add(new RolledUpUsageModelDao(i % 2 == 0 ? subscriptionId1 : subscriptionId2, unitType, startDate.plusDays(i % 31), 1L));
+            contexts.add(internalCallContext);
+        }
+        rolledUpUsageDao.record(usages, contexts);
+
+        final List<RolledUpUsageModelDao> result1 = rolledUpUsageDao.getUsageForSubscription(subscriptionId1, startDate, endDate, unitType, internalCallContext);
+        assertEquals(result1.size(), 750);
+        final List<RolledUpUsageModelDao> result2 = rolledUpUsageDao.getAllUsageForSubscription(subscriptionId2, startDate, endDate, internalCallContext);
+        assertEquals(result2.size(), 750);
+        assertEquals(result2.get(0).getSubscriptionId(), subscriptionId2);
+        assertEquals(result2.get(0).getRecordDate().compareTo(startDate.plusDays(1)), 0);
+        assertEquals(result2.get(0).getAmount().compareTo(1L), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testDailyUsage() {
+        final UUID subscriptionId = UUID.randomUUID();
+        final String unitType1 = "foo";
+        final String unitType2 = "bar";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final LocalDate endDate = new LocalDate(2013, 2, 1);
+
+        rolledUpUsageDao.record(subscriptionId, unitType1, startDate, 10L, internalCallContext);
+        rolledUpUsageDao.record(subscriptionId, unitType1, startDate, 5L, internalCallContext);
+        rolledUpUsageDao.record(ImmutableList.<RolledUpUsageModelDao>of(new RolledUpUsageModelDao(subscriptionId, unitType1, startDate, 1L),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType1, startDate, 2L),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType2, startDate, 7L),
+                                                                        new RolledUpUsageModelDao(subscriptionId, unitType1, startDate.plusDays(1), 3L)),
+                                ImmutableList.<InternalCallContext>of(internalCallContext, internalCallContext, internalCallContext, internalCallContext));
+
+        // Raw records are kept as-is
+        assertEquals(rolledUpUsageDao.getRawUsageForAccount(startDate, endDate, internalCallContext).size(), 6);
+
+        final List<RolledUpUsageModelDao> result = rolledUpUsageDao.getDailyUsageForAccount(startDate, endDate, internalCallContext);
+        assertEquals(result.size(), 3);
+        assertEquals(result.get(0).getSubscriptionId(), subscriptionId);
+        assertEquals(result.get(0).getRecordDate().compareTo(startDate), 0);
+        assertEquals(result.get(0).getUnitType(), unitType1);
+        assertEquals(result.get(0).getAmount().compareTo(18L), 0);
+        assertEquals(result.get(1).getRecordDate().compareTo(startDate), 0);
+        assertEquals(result.get(1).getUnitType(), unitType2);
+        assertEquals(result.get(1).getAmount().compareTo(7L), 0);
+        assertEquals(result.get(2).getRecordDate().compareTo(startDate.plusDays(1)), 0);
+        assertEquals(result.get(2).getUnitType(), unitType1);
+        assertEquals(result.get(2).getAmount().compareTo(3L), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testConcurrentDailyUsage() throws Exception {
+        final UUID subscriptionId = UUID.randomUUID();
+        final String unitType = "foo";
+        final LocalDate startDate = new LocalDate(2013, 1, 1);
+        final int nbThreads = 5;
+        final int nbRecordsPerThread = 20;
+
+        // All threads start on the same (missing) daily row
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(nbThreads);
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < nbThreads; i++) {
+            futures.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    startLatch.await();
+                    for (int j = 0; j < nbRecordsPerThread; j++) {
+                        rolledUpUsageDao.record(subscriptionId, unitType, startDate, 1L, internalCallContext);
+                    }
+                    return null;
+                }
+            }));
+        }
+        startLatch.countDown();
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        final List<RolledUpUsageModelDao> result = rolledUpUsageDao.getDailyUsageForAccount(startDate, startDate.plusDays(1), internalCallContext);
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getAmount().compareTo((long) nbThreads * nbRecordsPerThread), 0);
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.killbill.billing.util.broadcast.BroadcastTransport.BroadcastListener;
+
+/**
+ * Runs a broadcast polling task on notification, in addition to its fixed rate schedule.
+ * <p/>
+ * Notifications received within the batch delay are collapsed into a single run. A notification received while the
+ * task is running schedules another run, since the entries it announces may have been committed after the task
+ * read the table.
+ */
+public class BroadcastPollTrigger implements BroadcastListener {
+
+    private final ScheduledExecutorService executor;
+    private final Runnable pollTask;
+    private final long batchDelayMillis;
+
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    public BroadcastPollTrigger(final ScheduledExecutorService executor, final Runnable pollTask, final long batchDelayMillis) {
+        this.executor = executor;
+        this.pollTask = pollTask;
+        this.batchDelayMillis = batchDelayMillis;
+    }
+
+    @Override
+    public void onNotification(final String channel) {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    pending.set(false);
+                    pollTask.run();
+                }
+            }, batchDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // Shutting down
+            pending.set(false);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+/**
+ * Channel used to notify the nodes that new broadcast entries have been written, so that they don't wait for their
+ * next polling cycle to pick them up.
+ * <p/>
+ * Notifications don't carry any payload: receivers still read the entries from the database, and keep polling as a
+ * fallback for notifications which got lost.
+ */
+public interface BroadcastTransport {
+
+    public static final String SERVICE_BROADCASTS_CHANNEL = "service_broadcasts";
+    public static final String TENANT_BROADCASTS_CHANNEL = "tenant_broadcasts";
+
+    public void publish(String channel);
+
+    public void subscribe(String channel, BroadcastListener listener);
+
+    public void unsubscribe(String channel, BroadcastListener listener);
+
+    public interface BroadcastListener {
+
+        public void onNotification(String channel);
+    }
+}
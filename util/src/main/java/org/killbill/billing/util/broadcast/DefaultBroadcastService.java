@@ -49,16 +49,19 @@ public class DefaultBroadcastService implements BroadcastService {
     private final BroadcastConfig broadcastConfig;
     private final BroadcastDao broadcastDao;
     private final PersistentBus eventBus;
+    private final BroadcastTransport broadcastTransport;
 
     private AtomicLong latestRecordIdProcessed;
     private ScheduledExecutorService broadcastExecutor;
+    private BroadcastPollTrigger broadcastPollTrigger;
     private volatile boolean isStopped;
 
     @Inject
-    public DefaultBroadcastService(final BroadcastDao broadcastDao, final BroadcastConfig broadcastConfig, final PersistentBus eventBus) {
+    public DefaultBroadcastService(final BroadcastDao broadcastDao, final BroadcastConfig broadcastConfig, final PersistentBus eventBus, final BroadcastTransport broadcastTransport) {
         this.broadcastDao = broadcastDao;
         this.broadcastConfig = broadcastConfig;
         this.eventBus = eventBus;
+        this.broadcastTransport = broadcastTransport;
         this.isStopped = false;
     }
 
@@ -79,8 +82,12 @@ public class DefaultBroadcastService implements BroadcastService {
     public void start() {
         final TimeUnit pendingRateUnit = broadcastConfig.getBroadcastServiceRunningRate().getUnit();
         final long pendingPeriod = broadcastConfig.getBroadcastServiceRunningRate().getPeriod();
-        broadcastExecutor.scheduleAtFixedRate(new BroadcastServiceRunnable(this, broadcastDao, eventBus), pendingPeriod, pendingPeriod, pendingRateUnit);
+        final BroadcastServiceRunnable broadcastServiceRunnable = new BroadcastServiceRunnable(this, broadcastDao, eventBus);
+        broadcastExecutor.scheduleAtFixedRate(broadcastServiceRunnable, pendingPeriod, pendingPeriod, pendingRateUnit);
 
+        // Pick up new entries as soon as they are announced, the fixed rate polling acting as a fallback
+        broadcastPollTrigger = new BroadcastPollTrigger(broadcastExecutor, broadcastServiceRunnable, broadcastConfig.getBroadcastNotificationBatchDelay().getMillis());
+        broadcastTransport.subscribe(BroadcastTransport.SERVICE_BROADCASTS_CHANNEL, broadcastPollTrigger);
     }
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
@@ -89,6 +96,10 @@ public class DefaultBroadcastService implements BroadcastService {
             logger.warn("BroadcastExecutor is already in a stopped state");
             return;
         }
+        if (broadcastPollTrigger != null) {
+            broadcastTransport.unsubscribe(BroadcastTransport.SERVICE_BROADCASTS_CHANNEL, broadcastPollTrigger);
+            broadcastPollTrigger = null;
+        }
         try {
             broadcastExecutor.shutdown();
             boolean success = broadcastExecutor.awaitTermination(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS);
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-JVM transport: changes made on this node are picked up right away, other nodes rely on their polling.
+ * <p/>
+ * Multi-node deployments can use the UdpBroadcastTransport, or bind their own transport (messaging layer, database
+ * notification mechanism, ...) instead.
+ */
+public class LocalBroadcastTransport implements BroadcastTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBroadcastTransport.class);
+
+    private final ConcurrentMap<String, Set<BroadcastListener>> listenersByChannel = new ConcurrentHashMap<String, Set<BroadcastListener>>();
+
+    @Override
+    public void publish(final String channel) {
+        final Set<BroadcastListener> listeners = listenersByChannel.get(channel);
+        if (listeners == null) {
+            return;
+        }
+        for (final BroadcastListener listener : listeners) {
+            try {
+                listener.onNotification(channel);
+            } catch (final RuntimeException e) {
+                logger.warn("Failed to notify listener for channel='{}'", channel, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(final String channel, final BroadcastListener listener) {
+        Set<BroadcastListener> listeners = listenersByChannel.get(channel);
+        if (listeners == null) {
+            final Set<BroadcastListener> newListeners = new CopyOnWriteArraySet<BroadcastListener>();
+            listeners = listenersByChannel.putIfAbsent(channel, newListeners);
+            if (listeners == null) {
+                listeners = newListeners;
+            }
+        }
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(final String channel, final BroadcastListener listener) {
+        final Set<BroadcastListener> listeners = listenersByChannel.get(channel);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+}
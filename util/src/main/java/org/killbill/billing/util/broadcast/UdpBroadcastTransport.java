@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.util.config.BroadcastConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+
+/**
+ * Transport notifying the other nodes with UDP datagrams (one per peer and per publish), in addition to the local
+ * listeners.
+ * <p/>
+ * Datagrams only carry the channel name and are accepted from the configured peers only. Delivery isn't guaranteed:
+ * a lost datagram delays the change until the next polling cycle. The socket is opened when the first listener
+ * subscribes, and closed when the last one unsubscribes.
+ */
+public class UdpBroadcastTransport extends LocalBroadcastTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(UdpBroadcastTransport.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String MESSAGE_PREFIX = "killbill-broadcast:";
+    private static final int MAX_MESSAGE_SIZE = 512;
+
+    private final int port;
+    private final List<String> peers;
+
+    private int nbListeners;
+    private DatagramSocket socket;
+    private List<InetSocketAddress> peerAddresses;
+
+    @Inject
+    public UdpBroadcastTransport(final BroadcastConfig broadcastConfig) {
+        this(broadcastConfig.getBroadcastUdpPort(), broadcastConfig.getBroadcastUdpPeers());
+    }
+
+    @VisibleForTesting
+    UdpBroadcastTransport(final int port, final List<String> peers) {
+        this.port = port;
+        this.peers = peers;
+    }
+
+    @Override
+    public void publish(final String channel) {
+        super.publish(channel);
+
+        final DatagramSocket currentSocket;
+        final List<InetSocketAddress> currentPeerAddresses;
+        synchronized (this) {
+            currentSocket = socket;
+            currentPeerAddresses = peerAddresses;
+        }
+        if (currentSocket == null) {
+            // Nothing subscribed on this node (yet): open a socket just to send the notification
+            sendWithTemporarySocket(channel);
+            return;
+        }
+        send(currentSocket, currentPeerAddresses, channel);
+    }
+
+    @Override
+    public void subscribe(final String channel, final BroadcastListener listener) {
+        super.subscribe(channel, listener);
+        synchronized (this) {
+            if (nbListeners++ == 0) {
+                open();
+            }
+        }
+    }
+
+    @Override
+    public void unsubscribe(final String channel, final BroadcastListener listener) {
+        super.unsubscribe(channel, listener);
+        synchronized (this) {
+            if (nbListeners > 0 && --nbListeners == 0) {
+                close();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int getLocalPort() {
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    private void open() {
+        peerAddresses = resolvePeers();
+        final Set<InetAddress> acceptedHosts = new HashSet<InetAddress>();
+        for (final InetSocketAddress peerAddress : peerAddresses) {
+            acceptedHosts.add(peerAddress.getAddress());
+        }
+
+        try {
+            socket = new DatagramSocket(port);
+        } catch (final SocketException e) {
+            // Other nodes will still be picked up by the polling
+            logger.warn("Unable to listen for broadcast notifications on udp port {}", port, e);
+            socket = null;
+            return;
+        }
+
+        final DatagramSocket receivingSocket = socket;
+        final Thread receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receive(receivingSocket, acceptedHosts);
+            }
+        }, "BroadcastUdpReceiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    private void close() {
+        if (socket != null) {
+            // Makes the receiver exit
+            socket.close();
+            socket = null;
+        }
+    }
+
+    private void receive(final DatagramSocket receivingSocket, final Set<InetAddress> acceptedHosts) {
+        final byte[] buffer = new byte[MAX_MESSAGE_SIZE];
+        while (!receivingSocket.isClosed()) {
+            final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                receivingSocket.receive(packet);
+            } catch (final IOException e) {
+                if (!receivingSocket.isClosed()) {
+                    logger.warn("Failed to receive broadcast notification", e);
+                }
+                continue;
+            }
+
+            if (!acceptedHosts.contains(packet.getAddress())) {
+                logger.debug("Ignoring broadcast notification from unknown host {}", packet.getAddress());
+                continue;
+            }
+            final String message = new String(packet.getData(), packet.getOffset(), packet.getLength(), UTF_8);
+            if (!message.startsWith(MESSAGE_PREFIX)) {
+                continue;
+            }
+            // Only notify the local listeners
+            super.publish(message.substring(MESSAGE_PREFIX.length()));
+        }
+    }
+
+    private void sendWithTemporarySocket(final String channel) {
+        final List<InetSocketAddress> currentPeerAddresses = resolvePeers();
+        if (currentPeerAddresses.isEmpty()) {
+            return;
+        }
+        DatagramSocket sendingSocket = null;
+        try {
+            sendingSocket = new DatagramSocket();
+            send(sendingSocket, currentPeerAddresses, channel);
+        } catch (final SocketException e) {
+            logger.warn("Unable to send broadcast notification for channel='{}'", channel, e);
+        } finally {
+            if (sendingSocket != null) {
+                sendingSocket.close();
+            }
+        }
+    }
+
+    private void send(final DatagramSocket sendingSocket, final List<InetSocketAddress> currentPeerAddresses, final String channel) {
+        final byte[] message = (MESSAGE_PREFIX + channel).getBytes(UTF_8);
+        for (final InetSocketAddress peerAddress : currentPeerAddresses) {
+            try {
+                sendingSocket.send(new DatagramPacket(message, message.length, peerAddress));
+            } catch (final IOException e) {
+                logger.warn("Failed to send broadcast notification for channel='{}' to {}", channel, peerAddress, e);
+            }
+        }
+    }
+
+    private List<InetSocketAddress> resolvePeers() {
+        final List<InetSocketAddress> result = new ArrayList<InetSocketAddress>();
+        for (final String peer : peers) {
+            if (Strings.isNullOrEmpty(peer) || peer.trim().isEmpty()) {
+                continue;
+            }
+            final String[] hostAndPort = peer.trim().split(":");
+            final InetSocketAddress address = new InetSocketAddress(hostAndPort[0], hostAndPort.length > 1 ? Integer.valueOf(hostAndPort[1]) : port);
+            if (address.isUnresolved()) {
+                logger.warn("Unable to resolve broadcast peer {}", peer);
+                continue;
+            }
+            result.add(address);
+        }
+        return result;
+    }
+}
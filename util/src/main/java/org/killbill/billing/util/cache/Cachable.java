@@ -39,6 +39,7 @@ public @interface Cachable {
     String OVERRIDDEN_PLAN_CACHE_NAME = "overridden-plan";
     String ACCOUNT_IMMUTABLE_CACHE_NAME = "account-immutable";
     String ACCOUNT_BCD_CACHE_NAME = "account-bcd";
+    String ACCOUNT_CONTROL_TAGS_CACHE_NAME = "account-control-tags";
 
     CacheType value();
 
@@ -84,7 +85,10 @@ public @interface Cachable {
         ACCOUNT_IMMUTABLE(ACCOUNT_IMMUTABLE_CACHE_NAME, false),
 
         /* Account BCD config cache */
-        ACCOUNT_BCD(ACCOUNT_BCD_CACHE_NAME, false);
+        ACCOUNT_BCD(ACCOUNT_BCD_CACHE_NAME, false),
+
+        /* Mapping from 'accountRecordId (Long)' -> control tags set on the account objects 'AccountControlTags' */
+        ACCOUNT_CONTROL_TAGS(ACCOUNT_CONTROL_TAGS_CACHE_NAME, false);
 
         private final String cacheName;
         private final boolean isKeyPrefixedWithTableName;
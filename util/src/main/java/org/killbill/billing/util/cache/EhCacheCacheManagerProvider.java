@@ -53,6 +53,7 @@ public class EhCacheCacheManagerProvider implements Provider<CacheManager> {
                                        final CacheConfig cacheConfig,
                                        final ImmutableAccountCacheLoader accountCacheLoader,
                                        final AccountBCDCacheLoader accountBCDCacheLoader,
+                                       final AccountControlTagsCacheLoader accountControlTagsCacheLoader,
                                        final RecordIdCacheLoader recordIdCacheLoader,
                                        final AccountRecordIdCacheLoader accountRecordIdCacheLoader,
                                        final TenantRecordIdCacheLoader tenantRecordIdCacheLoader,
@@ -69,6 +70,7 @@ public class EhCacheCacheManagerProvider implements Provider<CacheManager> {
         this.cacheConfig = cacheConfig;
         cacheLoaders.add(accountCacheLoader);
         cacheLoaders.add(accountBCDCacheLoader);
+        cacheLoaders.add(accountControlTagsCacheLoader);
         cacheLoaders.add(recordIdCacheLoader);
         cacheLoaders.add(accountRecordIdCacheLoader);
         cacheLoaders.add(tenantRecordIdCacheLoader);
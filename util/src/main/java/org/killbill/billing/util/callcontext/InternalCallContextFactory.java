@@ -18,6 +18,9 @@
 
 package org.killbill.billing.util.callcontext;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -34,11 +37,17 @@ import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.config.CacheConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.clock.Clock;
 import org.slf4j.MDC;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 
 // Internal contexts almost always expect accountRecordId and tenantRecordId to be populated
 public class InternalCallContextFactory {
@@ -48,20 +57,34 @@ public class InternalCallContextFactory {
     public static final String MDC_KB_ACCOUNT_RECORD_ID = "kb.accountRecordId";
     public static final String MDC_KB_TENANT_RECORD_ID = "kb.tenantRecordId";
 
+    // Object types whose id/record id mappings are prefetched the first time an account is looked up
+    private static final List<ObjectType> PREFETCHED_OBJECT_TYPES = ImmutableList.<ObjectType>of(ObjectType.BUNDLE,
+                                                                                                  ObjectType.SUBSCRIPTION,
+                                                                                                  ObjectType.INVOICE,
+                                                                                                  ObjectType.PAYMENT,
+                                                                                                  ObjectType.PAYMENT_METHOD);
+    private static final int MAX_PREFETCHED_ACCOUNTS = 10000;
+
     private final ImmutableAccountInternalApi accountInternalApi;
     private final Clock clock;
     private final NonEntityDao nonEntityDao;
     private final CacheControllerDispatcher cacheControllerDispatcher;
+    // Account record ids already prefetched (null if the prefetch is disabled)
+    private final Cache<Long, Boolean> prefetchedAccountRecordIds;
 
     @Inject
     public InternalCallContextFactory(@Nullable final ImmutableAccountInternalApi accountInternalApi,
                                       final Clock clock,
                                       final NonEntityDao nonEntityDao,
-                                      @Nullable final CacheControllerDispatcher cacheControllerDispatcher) {
+                                      @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
+                                      @Nullable final CacheConfig cacheConfig) {
         this.accountInternalApi = accountInternalApi;
         this.clock = clock;
         this.nonEntityDao = nonEntityDao;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
+        this.prefetchedAccountRecordIds = cacheControllerDispatcher != null && cacheConfig != null && cacheConfig.isAccountRecordIdsPrefetchEnabled() ?
+                                          CacheBuilder.newBuilder().maximumSize(MAX_PREFETCHED_ACCOUNTS).<Long, Boolean>build() :
+                                          null;
     }
 
     //
@@ -308,13 +331,28 @@ public class InternalCallContextFactory {
         }
     }
 
+    // Safe method to retrieve the record ids of several objects of the same type (objects belonging to another tenant are ignored)
+    public Map<UUID, Long> getRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final TenantContext context) {
+        final Collection<UUID> objectIdsForTenant = getObjectIdsForTenant(objectIds, objectType, context);
+        return nonEntityDao.retrieveRecordIdsFromObjects(objectIdsForTenant, objectType, cacheControllerDispatcher == null ? null : cacheControllerDispatcher.getCacheController(CacheType.RECORD_ID));
+    }
+
+    // Safe method to retrieve the account record ids of several objects of the same type (objects belonging to another tenant are ignored).
+    // Both lookups are cached, so that the contexts created afterwards for these objects don't query them one at a time.
+    public Map<UUID, Long> getAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, final TenantContext context) {
+        final Collection<UUID> objectIdsForTenant = getObjectIdsForTenant(objectIds, objectType, context);
+        return nonEntityDao.retrieveAccountRecordIdsFromObjects(objectIdsForTenant, objectType, cacheControllerDispatcher == null ? null : cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_RECORD_ID));
+    }
+
     //
     // Safe NonEntityDao private wrappers
     //
 
     private Long getAccountRecordIdSafe(final UUID objectId, final ObjectType objectType, final TenantContext context) {
         if (objectBelongsToTheRightTenant(objectId, objectType, context)) {
-            return getAccountRecordIdUnsafe(objectId, objectType);
+            final Long accountRecordId = getAccountRecordIdUnsafe(objectId, objectType);
+            prefetchRecordIdsIfNeeded(getTenantRecordIdSafe(context), accountRecordId);
+            return accountRecordId;
         } else {
             throw new IllegalStateException(String.format("Object id=%s type=%s doesn't belong to tenant id=%s", objectId, objectType, context.getTenantId()));
         }
@@ -322,12 +360,29 @@ public class InternalCallContextFactory {
 
     private Long getAccountRecordIdSafe(final UUID objectId, final ObjectType objectType, final Long tenantRecordId) throws ObjectDoesNotExist {
         if (objectBelongsToTheRightTenant(objectId, objectType, tenantRecordId)) {
-            return getAccountRecordIdUnsafe(objectId, objectType);
+            final Long accountRecordId = getAccountRecordIdUnsafe(objectId, objectType);
+            prefetchRecordIdsIfNeeded(tenantRecordId, accountRecordId);
+            return accountRecordId;
         } else {
             throw new IllegalStateException(String.format("Object id=%s type=%s doesn't belong to tenant recordId=%s", objectId, objectType, tenantRecordId));
         }
     }
 
+    private Collection<UUID> getObjectIdsForTenant(final Collection<UUID> objectIds, final ObjectType objectType, final TenantContext context) {
+        final Long realTenantRecordId = getTenantRecordIdSafe(context);
+        if (realTenantRecordId == null || objectIds.isEmpty()) {
+            return ImmutableList.<UUID>of();
+        }
+
+        final Map<UUID, Long> tenantRecordIds = nonEntityDao.retrieveTenantRecordIdsFromObjects(objectIds, objectType, cacheControllerDispatcher == null ? null : cacheControllerDispatcher.getCacheController(CacheType.TENANT_RECORD_ID));
+        return Maps.filterValues(tenantRecordIds, new Predicate<Long>() {
+            @Override
+            public boolean apply(final Long tenantRecordId) {
+                return realTenantRecordId.equals(tenantRecordId);
+            }
+        }).keySet();
+    }
+
     private Long getTenantRecordIdSafe(final TenantContext context) {
         // Default to single default tenant (e.g. single tenant mode)
         // TODO Extract this convention (e.g. BusinessAnalyticsBase needs to know about it)
@@ -343,6 +398,21 @@ public class InternalCallContextFactory {
         return nonEntityDao.retrieveIdFromObject(context.getTenantRecordId(), ObjectType.TENANT, cacheControllerDispatcher == null ? null : cacheControllerDispatcher.getCacheController(CacheType.OBJECT_ID));
     }
 
+    // The first time an account is seen, load the mappings of its main objects in bulk, so that the subsequent lookups for these objects hit the caches
+    private void prefetchRecordIdsIfNeeded(final Long tenantRecordId, @Nullable final Long accountRecordId) {
+        if (prefetchedAccountRecordIds == null || accountRecordId == null ||
+            prefetchedAccountRecordIds.asMap().putIfAbsent(accountRecordId, Boolean.TRUE) != null) {
+            return;
+        }
+
+        nonEntityDao.prefetchRecordIdsForAccount(PREFETCHED_OBJECT_TYPES,
+                                                 new InternalTenantContext(tenantRecordId, accountRecordId, null),
+                                                 cacheControllerDispatcher.getCacheController(CacheType.RECORD_ID),
+                                                 cacheControllerDispatcher.getCacheController(CacheType.OBJECT_ID),
+                                                 cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_RECORD_ID),
+                                                 cacheControllerDispatcher.getCacheController(CacheType.TENANT_RECORD_ID));
+    }
+
     //
     // In-code tenant checkers
     //
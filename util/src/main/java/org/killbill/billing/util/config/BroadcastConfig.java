@@ -17,6 +17,8 @@
 
 package org.killbill.billing.util.config;
 
+import java.util.List;
+
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
@@ -29,4 +31,23 @@ public interface BroadcastConfig extends KillbillConfig {
     @Description("Rate at which broadcast service task is scheduled")
     public TimeSpan getBroadcastServiceRunningRate();
 
+    @Config("org.killbill.billing.util.broadcast.notification.delay")
+    @Default("100ms")
+    @Description("Delay used to batch the notifications of new broadcast entries before reading them")
+    public TimeSpan getBroadcastNotificationBatchDelay();
+
+    @Config("org.killbill.billing.util.broadcast.transport")
+    @Default("local")
+    @Description("Transport used to notify the nodes of new broadcast entries: local (this node only, others poll) or udp")
+    public String getBroadcastTransport();
+
+    @Config("org.killbill.billing.util.broadcast.udp.port")
+    @Default("9797")
+    @Description("UDP port the udp broadcast transport listens on")
+    public int getBroadcastUdpPort();
+
+    @Config("org.killbill.billing.util.broadcast.udp.peers")
+    @Default("")
+    @Description("Nodes notified by the udp broadcast transport, as host or host:port (the udp port is used by default)")
+    public List<String> getBroadcastUdpPeers();
 }
@@ -27,4 +27,9 @@ public interface CacheConfig extends KillbillConfig {
     @Description("Path to Ehcache XML configuration")
     public String getCacheConfigLocation();
 
+    @Config("org.killbill.cache.prefetchAccountRecordIds")
+    @Default("false")
+    @Description("Whether to load the id/record id mappings of the bundles, subscriptions, invoices, payments and payment methods of an account the first time it is looked up")
+    public boolean isAccountRecordIdsPrefetchEnabled();
+
 }
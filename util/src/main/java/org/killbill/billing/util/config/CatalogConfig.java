@@ -19,6 +19,7 @@ package org.killbill.billing.util.config;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface CatalogConfig extends KillbillConfig {
 
@@ -26,4 +27,9 @@ public interface CatalogConfig extends KillbillConfig {
     @Default("SpyCarBasic.xml")
     @Description("Default Catalog location, either in the classpath or in the filesystem. For multi-tenancy, one should use APIs to load per-tenant catalog")
     String getCatalogURI();
+
+    @Config("org.killbill.catalog.plugin.refreshInterval")
+    @Default("0s")
+    @Description("How long a catalog returned by a catalog plugin is used before the plugin is consulted again (ignored if set to 0s)")
+    TimeSpan getPluginCatalogRefreshInterval();
 }
@@ -49,4 +49,24 @@ public interface InvoiceConfig extends KillbillConfig {
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
     int getMaxGlobalLockRetries();
+
+    @Config("org.killbill.invoice.generationDebounceWindow")
+    @Default("0s")
+    @Description("Time during which a completed invoice generation is reused by the other triggers for the same account, target day and user token (ignored if set to 0s)")
+    TimeSpan getGenerationDebounceWindow();
+
+    @Config("org.killbill.invoice.parallelItemTree.threshold")
+    @Default("0")
+    @Description("Minimum number of subscriptions for which the invoice item trees are reconciled in parallel (ignored if set to 0)")
+    int getParallelItemTreeThreshold();
+
+    @Config("org.killbill.invoice.parallelItemTree.nbThreads")
+    @Default("4")
+    @Description("Number of threads used to reconcile the invoice item trees in parallel")
+    int getParallelItemTreeThreadNb();
+
+    @Config("org.killbill.invoice.historyWindowMonths")
+    @Default("0")
+    @Description("Number of months of invoice history, before the target date, loaded to generate an invoice (ignored if set to 0)")
+    int getHistoryWindowMonths();
 }
@@ -57,10 +57,45 @@ public interface PaymentConfig extends KillbillConfig {
     TimeSpan getPaymentPluginTimeout();
 
     @Config("org.killbill.payment.plugin.threads.nb")
-    @Default("100")
-    @Description("Number of threads for plugin executor dispatcher")
+    @Default("20")
+    @Description("Number of threads for plugin executor dispatcher (for each payment plugin)")
     int getPaymentPluginThreadNb();
 
+    @Config("org.killbill.payment.plugin.queue.size")
+    @Default("100")
+    @Description("Maximum number of calls waiting for a thread, for each payment plugin")
+    int getPaymentPluginQueueSize();
+
+    @Config("org.killbill.payment.plugin.concurrency.min")
+    @Default("5")
+    @Description("Minimum number of calls in flight allowed for a payment plugin, when its latency goes over the target")
+    int getPaymentPluginMinConcurrency();
+
+    @Config("org.killbill.payment.plugin.latency.target")
+    @Default("5s")
+    @Description("Payment plugin call latency above which the number of calls in flight allowed for that plugin is reduced")
+    TimeSpan getPaymentPluginLatencyTarget();
+
+    @Config("org.killbill.payment.plugin.info.cache.ttl")
+    @Default("0s")
+    @Description("How long plugin info retrieved by the bulk payment APIs is cached for each payment (0s to disable)")
+    TimeSpan getPaymentPluginInfoCacheTtl();
+
+    @Config("org.killbill.payment.plugin.info.threads.nb")
+    @Default("5")
+    @Description("Number of threads retrieving plugin info for the bulk payment APIs (for each payment plugin, separate from the payment calls)")
+    int getPaymentPluginInfoThreadNb();
+
+    @Config("org.killbill.payment.plugin.info.calls.max")
+    @Default("200")
+    @Description("Maximum number of plugin info calls made by a single bulk payment API call (other payments are returned without plugin info)")
+    int getPaymentPluginInfoMaxCalls();
+
+    @Config("org.killbill.payment.plugin.properties.binaryFormat")
+    @Default("false")
+    @Description("Whether plugin properties of payment attempts are written in the binary format (only enable once all nodes can read it)")
+    boolean isPluginPropertiesBinaryFormatEnabled();
+
     @Config("org.killbill.payment.janitor.attempts.delay")
     @Default("12h")
     @Description("Delay before which unresolved attempt should be retried")
@@ -76,6 +111,16 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Rate at which janitor tasks are scheduled")
     TimeSpan getJanitorRunningRate();
 
+    @Config("org.killbill.payment.janitor.shards.nb")
+    @Default("16")
+    @Description("Number of shards the Janitor backlog is split into (by record id), each shard being processed by at most one node at a time")
+    int getJanitorNbShards();
+
+    @Config("org.killbill.payment.janitor.threads.nb")
+    @Default("4")
+    @Description("Number of threads processing Janitor shards on each node")
+    int getJanitorThreadNb();
+
     @Config("org.killbill.payment.invoice.plugin")
     @Default("")
     @Description("Default payment control plugin names")
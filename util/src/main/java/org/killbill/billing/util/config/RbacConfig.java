@@ -27,4 +27,19 @@ public interface RbacConfig extends KillbillConfig {
     @Default("1h")
     @Description("System-wide default time that any session may remain idle before expiring")
     public TimeSpan getGlobalSessionTimeout();
+
+    @Config("org.killbill.rbac.statelessSessions")
+    @Default("false")
+    @Description("Whether sessions should only be kept in memory instead of being persisted in the sessions table")
+    public boolean isStatelessSessions();
+
+    @Config("org.killbill.rbac.sessionTouchFlushRate")
+    @Default("0s")
+    @Description("Rate at which session last access time updates are written in batches (0s to write them right away)")
+    public TimeSpan getSessionTouchFlushRate();
+
+    @Config("org.killbill.rbac.sessionTouchThreshold")
+    @Default("30s")
+    @Description("Minimum change of a session last access time for it to be written (batched mode only)")
+    public TimeSpan getSessionTouchThreshold();
 }
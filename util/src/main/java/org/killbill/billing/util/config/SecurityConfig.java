@@ -20,6 +20,7 @@ import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.DefaultNull;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface SecurityConfig extends KillbillConfig {
 
@@ -33,6 +34,16 @@ public interface SecurityConfig extends KillbillConfig {
     @Description("Sets the number of times submitted credentials will be hashed before comparing to the credentials stored in the system")
     public Integer getShiroNbHashIterations();
 
+    @Config("org.killbill.security.authenticationCache.maxSize")
+    @Default("10000")
+    @Description("Maximum number of successful credentials verifications to remember (0 to disable)")
+    public Integer getShiroAuthenticationCacheMaxSize();
+
+    @Config("org.killbill.security.authenticationCache.ttl")
+    @Default("5m")
+    @Description("How long a successful credentials verification is remembered")
+    public TimeSpan getShiroAuthenticationCacheTTL();
+
     // LDAP Realm
 
     @Config("org.killbill.security.ldap.userDnTemplate")
@@ -29,4 +29,8 @@ public interface TenantConfig extends KillbillConfig {
     @Description("Rate at which tenant broadcast task is scheduled")
     public TimeSpan getTenantBroadcastServiceRunningRate();
 
+    @Config("org.killbill.tenant.broadcast.notification.delay")
+    @Default("100ms")
+    @Description("Delay used to batch the notifications of new broadcast entries before reading them")
+    public TimeSpan getTenantBroadcastNotificationBatchDelay();
 }
@@ -164,6 +164,11 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
                                                   public Iterator<CustomFieldModelDao> build(final CustomFieldSqlDao customFieldSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return customFieldSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<CustomFieldModelDao> buildFromRecordId(final CustomFieldSqlDao customFieldSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return customFieldSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
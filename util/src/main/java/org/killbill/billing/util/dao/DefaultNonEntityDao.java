@@ -18,12 +18,19 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.cache.CacheLoaderArgument;
@@ -36,9 +43,14 @@ import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 
 public class DefaultNonEntityDao implements NonEntityDao {
 
+    // Maximum number of ids in the IN clause of the bulk lookups
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final NonEntitySqlDao nonEntitySqlDao;
     private final WithCaching<UUID, Long> withCachingObjectId;
     private final WithCaching<Long, UUID> withCachingRecordId;
@@ -131,6 +143,90 @@ public class DefaultNonEntityDao implements NonEntityDao {
         }, objectId, objectType, tableName, cache);
     }
 
+    @Override
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final Collection<String> ids) {
+                return nonEntitySqlDao.getRecordIdIdMappingsFromObjects(ids, tableName.getTableName());
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final Collection<String> ids) {
+                switch (tableName) {
+                    case TENANT:
+                    case TAG_DEFINITIONS:
+                    case TAG_DEFINITION_HISTORY:
+                        return ImmutableList.<RecordIdIdMappings>of();
+
+                    case ACCOUNT:
+                        return nonEntitySqlDao.getRecordIdIdMappingsFromObjects(ids, tableName.getTableName());
+
+                    default:
+                        return nonEntitySqlDao.getAccountRecordIdIdMappingsFromObjectsOtherThanAccount(ids, tableName.getTableName());
+                }
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        return withBulkCaching(new BulkOperationRetrieval() {
+            @Override
+            public List<RecordIdIdMappings> doRetrieve(final Collection<String> ids) {
+                switch (tableName) {
+                    case TENANT:
+                        return nonEntitySqlDao.getRecordIdIdMappingsFromObjects(ids, tableName.getTableName());
+
+                    default:
+                        return nonEntitySqlDao.getTenantRecordIdIdMappingsFromObjectsOtherThanTenant(ids, tableName.getTableName());
+                }
+            }
+        }, objectIds, objectType, tableName, cache);
+    }
+
+    @Override
+    public void prefetchRecordIdsForAccount(final Iterable<ObjectType> objectTypes, final InternalTenantContext context,
+                                            @Nullable final CacheController<Object, Object> recordIdCache, @Nullable final CacheController<Object, Object> objectIdCache,
+                                            @Nullable final CacheController<Object, Object> accountRecordIdCache, @Nullable final CacheController<Object, Object> tenantRecordIdCache) {
+        Preconditions.checkNotNull(context.getAccountRecordId(), "Missing accountRecordId in context %s", context);
+
+        for (final ObjectType objectType : objectTypes) {
+            final TableName tableName = TableName.fromObjectType(objectType);
+            Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+            // Mappings id <-> record_id (as well as the account and tenant record ids) never change, so putIfAbsent is always safe here
+            for (final RecordIdIdMappings mapping : nonEntitySqlDao.getRecordIdIdMappings(tableName.getTableName(), context)) {
+                if (recordIdCache != null) {
+                    recordIdCache.putIfAbsent(getCacheKey(recordIdCache, tableName, mapping.getId()), mapping.getRecordId());
+                }
+                if (objectIdCache != null) {
+                    objectIdCache.putIfAbsent(getCacheKey(objectIdCache, tableName, mapping.getRecordId()), mapping.getId());
+                }
+                if (accountRecordIdCache != null) {
+                    accountRecordIdCache.putIfAbsent(getCacheKey(accountRecordIdCache, tableName, mapping.getId()), context.getAccountRecordId());
+                }
+                if (tenantRecordIdCache != null) {
+                    tenantRecordIdCache.putIfAbsent(getCacheKey(tenantRecordIdCache, tableName, mapping.getId()), context.getTenantRecordId());
+                }
+            }
+        }
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
         return retrieveIdFromObjectInTransaction(recordId, objectType, cache, null);
@@ -170,6 +266,51 @@ public class DefaultNonEntityDao implements NonEntityDao {
         public TypeOut doRetrieve(final TypeIn objectOrRecordId, final ObjectType objectType);
     }
 
+    private interface BulkOperationRetrieval {
+
+        public List<RecordIdIdMappings> doRetrieve(final Collection<String> ids);
+    }
+
+    private static String getCacheKey(final CacheController<Object, Object> cache, final TableName tableName, final Object objectOrRecordId) {
+        return (cache.getCacheType().isKeyPrefixedWithTableName()) ?
+               tableName + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + objectOrRecordId.toString() :
+               objectOrRecordId.toString();
+    }
+
+    // Only the ids missing from the cache are looked up, and the results are added to the cache
+    private Map<UUID, Long> withBulkCaching(final BulkOperationRetrieval op, final Collection<UUID> objectIds, final ObjectType objectType, final TableName tableName, @Nullable final CacheController<Object, Object> cache) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        final Set<String> missingIds = new LinkedHashSet<String>();
+        for (final UUID objectId : objectIds) {
+            if (objectId == null) {
+                continue;
+            }
+            final Long cachedValue = cache == null ? null : (Long) cache.get(getCacheKey(cache, tableName, objectId));
+            if (cachedValue != null) {
+                result.put(objectId, cachedValue);
+            } else {
+                missingIds.add(objectId.toString());
+            }
+        }
+
+        final Profiling<List<RecordIdIdMappings>, RuntimeException> prof = new Profiling<List<RecordIdIdMappings>, RuntimeException>();
+        for (final List<String> ids : Iterables.partition(missingIds, MAX_IDS_PER_QUERY)) {
+            final List<RecordIdIdMappings> mappings = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "NonEntityDao (type = " + objectType + ") bulk cache miss", new WithProfilingCallback<List<RecordIdIdMappings>, RuntimeException>() {
+                @Override
+                public List<RecordIdIdMappings> execute() throws RuntimeException {
+                    return op.doRetrieve(ids);
+                }
+            });
+            for (final RecordIdIdMappings mapping : mappings) {
+                result.put(mapping.getId(), mapping.getRecordId());
+                if (cache != null) {
+                    cache.putIfAbsent(getCacheKey(cache, tableName, mapping.getId()), mapping.getRecordId());
+                }
+            }
+        }
+        return result;
+    }
+
     // 'cache' will be null for the CacheLoader classes -- or if cache is not configured.
     private class WithCaching<TypeIn, TypeOut> {
 
@@ -180,10 +321,7 @@ public class DefaultNonEntityDao implements NonEntityDao {
                 return null;
             }
             if (cache != null) {
-                final String key = (cache.getCacheType().isKeyPrefixedWithTableName()) ?
-                                   tableName + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + objectOrRecordId.toString() :
-                                   objectOrRecordId.toString();
-                return (TypeOut) cache.get(key, new CacheLoaderArgument(objectType));
+                return (TypeOut) cache.get(getCacheKey(cache, tableName, objectOrRecordId), new CacheLoaderArgument(objectType));
             }
             final TypeOut result;
             result = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "NonEntityDao (type = " + objectType + ") cache miss", new WithProfilingCallback<TypeOut, RuntimeException>() {
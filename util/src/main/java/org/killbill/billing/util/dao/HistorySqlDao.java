@@ -16,16 +16,33 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.dao.EntityModelDao;
+import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 
 public interface HistorySqlDao<M extends EntityModelDao<E>, E extends Entity> {
 
     @SqlUpdate
     public void addHistoryFromTransaction(@EntityHistoryBinder EntityHistoryModelDao<M, E> history,
                                           @BindBean InternalCallContext context);
+
+    @SqlBatch
+    public void addHistoriesFromTransaction(@EntityHistoryBinder Iterable<EntityHistoryModelDao<M, E>> histories,
+                                            @BindBean Iterable<InternalCallContext> contexts);
+
+    // Used to retrieve the record ids of freshly inserted history rows: the target record ids hit the index, the history ids narrow down the rows
+    @SqlQuery
+    public List<RecordIdIdMappings> getHistoryRecordIdIdMappingsFromTransaction(@RecordIdCollectionBinder Collection<Long> targetRecordIds,
+                                                                                @UUIDCollectionBinder Collection<String> historyIds,
+                                                                                @BindBean InternalTenantContext context);
 }
@@ -18,11 +18,14 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.cache.CacheController;
 import org.skife.jdbi.v2.Handle;
 
@@ -41,6 +44,18 @@ public interface NonEntityDao {
 
     public Long retrieveTenantRecordIdFromObjectInTransaction(final UUID objectId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache, @Nullable final Handle handle);
 
+    // Bulk versions of the lookups above: one query per chunk of ids not found in the cache, unknown ids are absent from the returned map
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache);
+
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache);
+
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache);
+
+    // Populate the caches with the id/record id mappings of all objects of these types for the account (one query per object type)
+    public void prefetchRecordIdsForAccount(final Iterable<ObjectType> objectTypes, final InternalTenantContext context,
+                                            @Nullable final CacheController<Object, Object> recordIdCache, @Nullable final CacheController<Object, Object> objectIdCache,
+                                            @Nullable final CacheController<Object, Object> accountRecordIdCache, @Nullable final CacheController<Object, Object> tenantRecordIdCache);
+
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache);
 
     public UUID retrieveIdFromObjectInTransaction(final Long recordId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache, @Nullable final Handle handle);
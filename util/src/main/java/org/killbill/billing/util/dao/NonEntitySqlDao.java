@@ -18,10 +18,13 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
@@ -35,6 +38,9 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Long getRecordIdFromObject(@Bind("id") String id, @Define("tableName") final String tableName);
 
+    @SqlQuery
+    public List<RecordIdIdMappings> getRecordIdIdMappingsFromObjects(@UUIDCollectionBinder Collection<String> ids, @Define("tableName") final String tableName);
+
     @SqlQuery
     public UUID getIdFromObject(@Bind("recordId") Long recordId, @Define("tableName") final String tableName);
 
@@ -47,12 +53,18 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Long getAccountRecordIdFromObjectOtherThanAccount(@Bind("id") String id, @Define("tableName") final String tableName);
 
+    @SqlQuery
+    public List<RecordIdIdMappings> getAccountRecordIdIdMappingsFromObjectsOtherThanAccount(@UUIDCollectionBinder Collection<String> ids, @Define("tableName") final String tableName);
+
     @SqlQuery
     public Long getTenantRecordIdFromTenant(@Bind("id") String id);
 
     @SqlQuery
     public Long getTenantRecordIdFromObjectOtherThanTenant(@Bind("id") String id, @Define("tableName") final String tableName);
 
+    @SqlQuery
+    public List<RecordIdIdMappings> getTenantRecordIdIdMappingsFromObjectsOtherThanTenant(@UUIDCollectionBinder Collection<String> ids, @Define("tableName") final String tableName);
+
     @SqlQuery
     public Long getLastHistoryRecordId(@Bind("targetRecordId") Long targetRecordId, @Define("tableName") final String tableName);
 
@@ -18,14 +18,36 @@ package org.killbill.billing.util.email.templates;
 
 import java.util.Map;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.samskivert.mustache.Mustache;
 import com.samskivert.mustache.Template;
 
 public class MustacheTemplateEngine implements TemplateEngine {
 
+    private static final int MAX_COMPILED_TEMPLATES = 500;
+
+    // Compiled templates are immutable and thread-safe. They are keyed by their text, so a modified template is simply a new entry
+    private final LoadingCache<String, Template> compiledTemplates = CacheBuilder.newBuilder()
+                                                                                 .maximumSize(MAX_COMPILED_TEMPLATES)
+                                                                                 .build(new CacheLoader<String, Template>() {
+                                                                                     @Override
+                                                                                     public Template load(final String templateText) {
+                                                                                         return Mustache.compiler().nullValue("").compile(templateText);
+                                                                                     }
+                                                                                 });
+
     @Override
     public String executeTemplateText(final String templateText, final Map<String, Object> data) {
-        final Template template = Mustache.compiler().nullValue("").compile(templateText);
+        final Template template;
+        try {
+            template = compiledTemplates.getUnchecked(templateText);
+        } catch (final UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
         return template.execute(data);
     }
 }
@@ -31,6 +31,8 @@ public class DefaultPagination<T> implements Pagination<T> {
     private final Long limit;
     private final Long totalNbRecords;
     private final Long maxNbRecords;
+    // Only used for cursor based pagination (see PaginationCursor)
+    private final Long nextCursor;
     private final Iterator<T> delegateIterator;
 
     // Builders when the streaming API can't be used (should only be used for tests)
@@ -55,7 +57,12 @@ public class DefaultPagination<T> implements Pagination<T> {
 
     // Constructor for DAO -> API bridge
     public DefaultPagination(final Pagination original, final Long limit, final Iterator<T> delegate) {
-        this(original.getCurrentOffset(), limit, original.getTotalNbRecords(), original.getMaxNbRecords(), delegate);
+        this(original.getCurrentOffset(),
+             limit,
+             original.getTotalNbRecords(),
+             original.getMaxNbRecords(),
+             PaginationCursor.isCursor(original.getCurrentOffset()) ? original.getNextOffset() : null,
+             delegate);
     }
 
     // Constructor for DAO getAll calls
@@ -66,10 +73,18 @@ public class DefaultPagination<T> implements Pagination<T> {
     public DefaultPagination(final Long currentOffset, final Long limit,
                              @Nullable final Long totalNbRecords, @Nullable final Long maxNbRecords,
                              final Iterator<T> delegateIterator) {
+        this(currentOffset, limit, totalNbRecords, maxNbRecords, null, delegateIterator);
+    }
+
+    // Constructor for cursor based pagination: nextCursor is null if there are no more results
+    public DefaultPagination(final Long currentOffset, final Long limit,
+                             @Nullable final Long totalNbRecords, @Nullable final Long maxNbRecords,
+                             @Nullable final Long nextCursor, final Iterator<T> delegateIterator) {
         this.currentOffset = currentOffset;
         this.limit = limit;
         this.totalNbRecords = totalNbRecords;
         this.maxNbRecords = maxNbRecords;
+        this.nextCursor = nextCursor;
         this.delegateIterator = delegateIterator;
     }
 
@@ -85,6 +100,10 @@ public class DefaultPagination<T> implements Pagination<T> {
 
     @Override
     public Long getNextOffset() {
+        if (PaginationCursor.isCursor(currentOffset)) {
+            return nextCursor;
+        }
+
         final long candidate = currentOffset + limit;
         if (totalNbRecords != null && candidate >= totalNbRecords) {
             // No more results
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cursor (keyset) pagination support.
+ * <p/>
+ * The Pagination APIs only carry a Long offset: regular offsets are positive, while negative values are cursors
+ * encoding the record id of the last row of the previous page. Results are then retrieved with
+ * "record_id > :lastRecordId order by record_id limit N", so the page cost doesn't depend on how deep the client is.
+ * Clients start with {@link #FIRST_PAGE} and then pass the next offset returned by the previous page as-is.
+ * The total and max number of records aren't computed for cursor pages (they would require a scan of the table).
+ */
+public abstract class PaginationCursor {
+
+    public static final Long FIRST_PAGE = -1L;
+
+    public static boolean isCursor(@Nullable final Long offset) {
+        return offset != null && offset < 0;
+    }
+
+    public static Long toLastRecordId(final Long cursor) {
+        return -cursor - 1;
+    }
+
+    public static Long fromLastRecordId(final Long lastRecordId) {
+        return -lastRecordId - 1;
+    }
+}
@@ -16,17 +16,24 @@
 
 package org.killbill.billing.util.entity.dao;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.killbill.billing.BillingExceptionBase;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.billing.util.customfield.ShouldntHappenException;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.entity.PaginationCursor;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
@@ -46,6 +53,11 @@ public class DefaultPaginationHelper {
         // Note that we cannot easily do streaming here, since we would have to rely on the statistics
         // returned by the Pagination objects from the plugins and we probably don't want to do that (if
         // one plugin gets it wrong, it may starve the others).
+        // Cursors are record ids of a single table, they cannot be carried across plugins.
+        if (PaginationCursor.isCursor(offset)) {
+            throw new IllegalArgumentException("Cursor based pagination requires a plugin name");
+        }
+
         final List<E> allResults = new LinkedList<E>();
         Long totalNbRecords = 0L;
         Long maxNbRecords = 0L;
@@ -98,6 +110,28 @@ public class DefaultPaginationHelper {
                                                             Predicates.<E>notNull()));
     }
 
+    // Resolve the account record ids of the whole page in bulk (this warms the caches), so that the internal contexts
+    // created afterwards for each element of the page don't look them up one at a time
+    public static <O> Pagination<O> prefetchAccountRecordIds(final Pagination<O> modelsDao,
+                                                             final Long limit,
+                                                             final Function<O, UUID> objectIdFunction,
+                                                             final ObjectType objectType,
+                                                             final InternalCallContextFactory internalCallContextFactory,
+                                                             final TenantContext context) {
+        final List<O> page = ImmutableList.<O>copyOf(modelsDao);
+
+        final Set<UUID> objectIds = new HashSet<UUID>();
+        for (final O modelDao : page) {
+            final UUID objectId = objectIdFunction.apply(modelDao);
+            if (objectId != null) {
+                objectIds.add(objectId);
+            }
+        }
+        internalCallContextFactory.getAccountRecordIdsFromObjects(objectIds, objectType, context);
+
+        return new DefaultPagination<O>(modelsDao, limit, page.iterator());
+    }
+
     public static <E extends Entity, O, T extends BillingExceptionBase> Pagination<E> getEntityPaginationNoException(final Long limit,
                                                                                                                      final SourcePaginationBuilder<O, T> sourcePaginationBuilder,
                                                                                                                      final Function<O, E> function) {
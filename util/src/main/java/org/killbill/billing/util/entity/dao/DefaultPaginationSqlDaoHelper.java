@@ -19,6 +19,7 @@
 package org.killbill.billing.util.entity.dao;
 
 import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
@@ -26,6 +27,9 @@ import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.entity.PaginationCursor;
+
+import com.google.common.collect.ImmutableList;
 
 public class DefaultPaginationSqlDaoHelper {
 
@@ -40,6 +44,10 @@ public class DefaultPaginationSqlDaoHelper {
                                                                                                                      final Long offset,
                                                                                                                      final Long limit,
                                                                                                                      @Nullable final InternalTenantContext context) {
+        if (PaginationCursor.isCursor(offset)) {
+            return getPaginationFromCursor(sqlDaoClazz, paginationIteratorBuilder, offset, limit, context);
+        }
+
         // Note: the connection will be busy as we stream the results out: hence we cannot use
         // SQL_CALC_FOUND_ROWS / FOUND_ROWS on the actual query.
         // We still need to know the actual number of results, mainly for the UI so that it knows if it needs to fetch
@@ -61,6 +69,27 @@ public class DefaultPaginationSqlDaoHelper {
         return new DefaultPagination<M>(offset, limit, count, totalCount, results);
     }
 
+    private <E extends Entity, M extends EntityModelDao<E>, S extends EntitySqlDao<M, E>> Pagination<M> getPaginationFromCursor(final Class<? extends EntitySqlDao<M, E>> sqlDaoClazz,
+                                                                                                                                final PaginationIteratorBuilder<M, E, S> paginationIteratorBuilder,
+                                                                                                                                final Long cursor,
+                                                                                                                                final Long limit,
+                                                                                                                                @Nullable final InternalTenantContext context) {
+        final Long lastRecordId = PaginationCursor.toLastRecordId(cursor);
+
+        // The page is bounded by the limit, so we read it once upfront: the next cursor needs to be known before the results
+        // are streamed out (e.g. for the pagination headers). The counts are skipped, as they would require a scan of the table.
+        final List<M> page = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<M>>() {
+            @Override
+            public List<M> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final EntitySqlDao<M, E> sqlDao = entitySqlDaoWrapperFactory.become(sqlDaoClazz);
+                return ImmutableList.<M>copyOf(paginationIteratorBuilder.buildFromRecordId((S) sqlDao, lastRecordId, limit, context));
+            }
+        });
+
+        final Long nextCursor = page.size() < limit ? null : PaginationCursor.fromLastRecordId(page.get(page.size() - 1).getRecordId());
+        return new DefaultPagination<M>(cursor, limit, null, null, nextCursor, page.iterator());
+    }
+
     public abstract static class PaginationIteratorBuilder<M extends EntityModelDao<E>, E extends Entity, S extends EntitySqlDao<M, E>> {
 
         // Determine the totalNbRecords:
@@ -69,5 +98,8 @@ public class DefaultPaginationSqlDaoHelper {
         public abstract Long getCount(final S sqlDao, final InternalTenantContext context);
 
         public abstract Iterator<M> build(final S sqlDao, final Long limit, final InternalTenantContext context);
+
+        // Cursor based pagination: return the next rows (ordered by record_id) after lastRecordId
+        public abstract Iterator<M> buildFromRecordId(final S sqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context);
     }
 }
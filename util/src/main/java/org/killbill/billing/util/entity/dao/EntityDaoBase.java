@@ -144,6 +144,11 @@ public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entit
                                                   public Iterator<M> build(final EntitySqlDao<M, E> sqlDao, final Long limit, final InternalTenantContext context) {
                                                       return sqlDao.get(offset, limit, getNaturalOrderingColumns(), context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<M> buildFromRecordId(final EntitySqlDao<M, E> sqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return sqlDao.getAfterRecordId(lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.entity.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -31,6 +32,7 @@ import org.killbill.billing.util.cache.CachableKey;
 import org.killbill.billing.util.dao.AuditSqlDao;
 import org.killbill.billing.util.dao.HistorySqlDao;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 import org.killbill.commons.jdbi.statement.SmartFetchSize;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
@@ -52,6 +54,10 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
     public M getById(@Bind("id") final String id,
                      @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<M> getByIds(@UUIDCollectionBinder final Collection<String> ids,
+                            @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public M getByRecordId(@Bind("recordId") final Long recordId,
                            @BindBean final InternalTenantContext context);
@@ -75,6 +81,14 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
                               @Bind("rowCount") final Long rowCount,
                               @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<M> searchAfterRecordId(@Bind("searchKey") final String searchKey,
+                                           @Bind("likeSearchKey") final String likeSearchKey,
+                                           @Bind("lastRecordId") final Long lastRecordId,
+                                           @Bind("rowCount") final Long rowCount,
+                                           @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public Long getSearchCount(@Bind("searchKey") final String searchKey,
                                @Bind("likeSearchKey") final String likeSearchKey,
@@ -91,6 +105,12 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
                            @Define("orderBy") final String orderBy,
                            @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<M> getAfterRecordId(@Bind("lastRecordId") final Long lastRecordId,
+                                        @Bind("rowCount") final Long rowCount,
+                                        @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public Long getCount(@BindBean final InternalTenantContext context);
 
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.entity.Entity;
+
+/**
+ * Collects the history and audit rows generated by the @Audited calls of a transaction.
+ * <p/>
+ * The state of each entity is captured when the mutation happens, but the rows are only written
+ * right before the transaction commits, using one JDBC batch per history table and per audit table.
+ */
+class EntitySqlDaoAuditAndHistoryBatch {
+
+    // Keyed by EntitySqlDao class, in order of first mutation
+    private final Map<Class<?>, PendingEntities<?, ?>> pendingEntitiesPerSqlDao = new LinkedHashMap<Class<?>, PendingEntities<?, ?>>();
+
+    <M extends EntityModelDao<E>, E extends Entity> void add(final Class<?> sqlDaoClass,
+                                                             final EntitySqlDaoWrapperInvocationHandler<?, M, E> handler,
+                                                             final AuditedEntity<M> auditedEntity) {
+        PendingEntities<M, E> pendingEntities = (PendingEntities<M, E>) pendingEntitiesPerSqlDao.get(sqlDaoClass);
+        if (pendingEntities == null) {
+            // All handlers share the same Handle, the first one can write on behalf of the others
+            pendingEntities = new PendingEntities<M, E>(handler);
+            pendingEntitiesPerSqlDao.put(sqlDaoClass, pendingEntities);
+        }
+        pendingEntities.add(auditedEntity);
+    }
+
+    boolean isEmpty() {
+        return pendingEntitiesPerSqlDao.isEmpty();
+    }
+
+    void flush() throws Throwable {
+        try {
+            for (final PendingEntities<?, ?> pendingEntities : pendingEntitiesPerSqlDao.values()) {
+                pendingEntities.flush();
+            }
+        } finally {
+            pendingEntitiesPerSqlDao.clear();
+        }
+    }
+
+    static final class AuditedEntity<M> {
+
+        private final M entity;
+        private final Long entityRecordId;
+        private final ChangeType changeType;
+        private final InternalCallContext context;
+        private final InternalCallContext auditContext;
+
+        AuditedEntity(final M entity, final Long entityRecordId, final ChangeType changeType, final InternalCallContext context, final InternalCallContext auditContext) {
+            this.entity = entity;
+            this.entityRecordId = entityRecordId;
+            this.changeType = changeType;
+            this.context = context;
+            this.auditContext = auditContext;
+        }
+
+        public M getEntity() {
+            return entity;
+        }
+
+        public Long getEntityRecordId() {
+            return entityRecordId;
+        }
+
+        public ChangeType getChangeType() {
+            return changeType;
+        }
+
+        // Context used for the history row
+        public InternalCallContext getContext() {
+            return context;
+        }
+
+        // Context used for the audit row (for account creations, it contains the new account record id)
+        public InternalCallContext getAuditContext() {
+            return auditContext;
+        }
+    }
+
+    private static final class PendingEntities<M extends EntityModelDao<E>, E extends Entity> {
+
+        private final EntitySqlDaoWrapperInvocationHandler<?, M, E> handler;
+        private final List<AuditedEntity<M>> auditedEntities = new LinkedList<AuditedEntity<M>>();
+
+        private PendingEntities(final EntitySqlDaoWrapperInvocationHandler<?, M, E> handler) {
+            this.handler = handler;
+        }
+
+        private void add(final AuditedEntity<M> auditedEntity) {
+            auditedEntities.add(auditedEntity);
+        }
+
+        private void flush() throws Throwable {
+            handler.insertHistoryAndAudits(auditedEntities);
+        }
+    }
+}
@@ -62,7 +62,15 @@ public class EntitySqlDaoTransactionalJdbiWrapper {
         @Override
         public ReturnType inTransaction(final EntitySqlDao<M, E> transactionalSqlDao, final TransactionStatus status) throws Exception {
             final EntitySqlDaoWrapperFactory factoryEntitySqlDao = new EntitySqlDaoWrapperFactory(h, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
-            return entitySqlDaoTransactionWrapper.inTransaction(factoryEntitySqlDao);
+            final ReturnType returnType = entitySqlDaoTransactionWrapper.inTransaction(factoryEntitySqlDao);
+            try {
+                factoryEntitySqlDao.flushAuditAndHistory();
+            } catch (final Exception e) {
+                throw e;
+            } catch (final Throwable t) {
+                throw new RuntimeException(t);
+            }
+            return returnType;
         }
     }
 
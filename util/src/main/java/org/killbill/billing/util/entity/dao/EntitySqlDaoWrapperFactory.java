@@ -37,6 +37,7 @@ import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 public class EntitySqlDaoWrapperFactory {
 
     private final Handle handle;
+    private final EntitySqlDaoAuditAndHistoryBatch auditAndHistoryBatch;
     private final Clock clock;
     private final CacheControllerDispatcher cacheControllerDispatcher;
 
@@ -45,6 +46,7 @@ public class EntitySqlDaoWrapperFactory {
 
     public EntitySqlDaoWrapperFactory(final Handle handle, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory) {
         this.handle = handle;
+        this.auditAndHistoryBatch = new EntitySqlDaoAuditAndHistoryBatch();
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
@@ -70,13 +72,20 @@ public class EntitySqlDaoWrapperFactory {
         return handle;
     }
 
+    // Write the pending history and audit rows: this needs to happen before the transaction commits
+    void flushAuditAndHistory() throws Throwable {
+        if (!auditAndHistoryBatch.isEmpty()) {
+            auditAndHistoryBatch.flush();
+        }
+    }
+
     private <NewSqlDao extends EntitySqlDao<NewEntityModelDao, NewEntity>,
             NewEntityModelDao extends EntityModelDao<NewEntity>,
             NewEntity extends Entity> NewSqlDao create(final Class<NewSqlDao> newSqlDaoClass, final NewSqlDao newSqlDao) {
         final ClassLoader classLoader = newSqlDao.getClass().getClassLoader();
         final Class[] interfacesToImplement = {newSqlDaoClass};
         final EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity> wrapperInvocationHandler =
-                new EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity>(newSqlDaoClass, newSqlDao, handle, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
+                new EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity>(newSqlDaoClass, newSqlDao, handle, auditAndHistoryBatch, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
 
         final Object newSqlDaoObject = Proxy.newProxyInstance(classLoader, interfacesToImplement, wrapperInvocationHandler);
         return newSqlDaoClass.cast(newSqlDaoObject);
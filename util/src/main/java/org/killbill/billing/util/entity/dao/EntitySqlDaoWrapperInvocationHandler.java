@@ -26,10 +26,13 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 
@@ -47,9 +50,10 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.EntityAudit;
 import org.killbill.billing.util.dao.EntityHistoryModelDao;
 import org.killbill.billing.util.dao.NonEntityDao;
-import org.killbill.billing.util.dao.NonEntitySqlDao;
+import org.killbill.billing.util.dao.RecordIdIdMappings;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Entity;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoAuditAndHistoryBatch.AuditedEntity;
 import org.killbill.billing.util.tag.dao.UUIDCollectionBinder;
 import org.killbill.clock.Clock;
 import org.killbill.commons.profiling.Profiling;
@@ -61,7 +65,6 @@ import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.exceptions.DBIException;
 import org.skife.jdbi.v2.exceptions.StatementException;
 import org.skife.jdbi.v2.sqlobject.Bind;
-import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,6 +86,9 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
 
     private final Logger logger = LoggerFactory.getLogger(EntitySqlDaoWrapperInvocationHandler.class);
 
+    // Keep the IN clauses of the multi-id queries reasonably sized
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final Class<S> sqlDaoClass;
     private final S sqlDao;
     private final Handle handle;
@@ -91,11 +97,13 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     private final Clock clock;
     private final NonEntityDao nonEntityDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final EntitySqlDaoAuditAndHistoryBatch auditAndHistoryBatch;
     private final Profiling prof;
 
     public EntitySqlDaoWrapperInvocationHandler(final Class<S> sqlDaoClass,
                                                 final S sqlDao,
                                                 final Handle handle,
+                                                final EntitySqlDaoAuditAndHistoryBatch auditAndHistoryBatch,
                                                 final Clock clock,
                                                 // Special DAO that don't require caching can invoke EntitySqlDaoWrapperInvocationHandler with no caching (e.g NoCachingTenantDao)
                                                 @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
@@ -104,6 +112,7 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         this.sqlDaoClass = sqlDaoClass;
         this.sqlDao = sqlDao;
         this.handle = handle;
+        this.auditAndHistoryBatch = auditAndHistoryBatch;
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.nonEntityDao = nonEntityDao;
@@ -311,20 +320,13 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     }
 
     private Object invokeWithAuditAndHistory(final Audited auditedAnnotation, final Method method, final Object[] args) throws Throwable {
-        InternalCallContext context = null;
-        List<String> entityIds = null;
-        final Map<String, M> entities = new HashMap<String, M>();
-        final Map<String, Long> entityRecordIds = new HashMap<String, Long>();
-        if (auditedAnnotation != null) {
-            // There will be some work required after the statement is executed,
-            // get the id before in case the change is a delete
-            context = retrieveContextFromArguments(args);
-            entityIds = retrieveEntityIdsFromArguments(method, args);
-            for (final String entityId : entityIds) {
-                entities.put(entityId, sqlDao.getById(entityId, context));
-                entityRecordIds.put(entityId, sqlDao.getRecordId(entityId, context));
-            }
-        }
+        final ChangeType changeType = auditedAnnotation.value();
+        final InternalCallContext context = retrieveContextFromArguments(args);
+        final List<String> entityIds = retrieveEntityIdsFromArguments(method, args);
+
+        // There will be some work required after the statement is executed,
+        // get the entities before in case the change is a delete (nothing to fetch for creations)
+        final Map<String, M> entities = ChangeType.INSERT.equals(changeType) ? ImmutableMap.<String, M>of() : getByIds(entityIds, context);
 
         // Real jdbc call
         final Object obj = prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (raw) :", new WithProfilingCallback() {
@@ -334,14 +336,42 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
             }
         });
 
-        final ChangeType changeType = auditedAnnotation.value();
-
+        // Make sure to re-hydrate the objects (especially needed for create calls): the history rows need to reflect the state right after this call
+        final Map<String, M> reHydratedEntities = getByIds(entityIds, context);
         for (final String entityId : entityIds) {
-            updateHistoryAndAudit(entityId, entities, entityRecordIds, changeType, context);
+            final M entity = Objects.firstNonNull(reHydratedEntities.get(entityId), entities.get(entityId));
+            final Long entityRecordId = entity.getRecordId();
+
+            final InternalCallContext auditContext;
+            // Populate the account record id when creating the account record
+            if (TableName.ACCOUNT.equals(entity.getTableName()) && ChangeType.INSERT.equals(changeType)) {
+                auditContext = internalCallContextFactory.createInternalCallContext(entityRecordId, context);
+            } else {
+                auditContext = context;
+            }
+
+            // History and audit rows are written in batch when the transaction commits
+            auditAndHistoryBatch.add(sqlDaoClass, this, new AuditedEntity<M>(entity, entityRecordId, changeType, context, auditContext));
         }
         return obj;
     }
 
+    // Retrieve all entities with one query per chunk of ids (instead of getById and getRecordId per entity)
+    private Map<String, M> getByIds(final List<String> entityIds, final InternalTenantContext context) throws Throwable {
+        return (Map<String, M>) prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (getByIds) :", new WithProfilingCallback() {
+            @Override
+            public Object execute() {
+                final Map<String, M> entities = new HashMap<String, M>();
+                for (final List<String> entityIdsChunk : Iterables.partition(entityIds, MAX_IDS_PER_QUERY)) {
+                    for (final M entity : sqlDao.getByIds(entityIdsChunk, context)) {
+                        entities.put(entity.getId().toString(), entity);
+                    }
+                }
+                return entities;
+            }
+        });
+    }
+
     private void populateCacheOnGetByIdInvocation(M model) {
 
         final CacheController<Object, Object> cacheRecordId = cacheControllerDispatcher.getCacheController(CacheType.RECORD_ID);
@@ -367,28 +397,25 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                rawKey;
     }
 
-    private void updateHistoryAndAudit(final String entityId, final Map<String, M> entities, final Map<String, Long> entityRecordIds,
-                                       final ChangeType changeType, final InternalCallContext context) throws Throwable {
-
+    // Invoked by EntitySqlDaoAuditAndHistoryBatch right before the transaction commits
+    void insertHistoryAndAudits(final List<AuditedEntity<M>> auditedEntities) throws Throwable {
         prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, sqlDaoClass.getSimpleName() + " (history/audit) :", new WithProfilingCallback() {
             @Override
             public Object execute() {
-                final M reHydratedEntity = sqlDao.getById(entityId, context);
-                final Long reHydratedEntityRecordId = sqlDao.getRecordId(entityId, context);
-                final M entity = Objects.firstNonNull(reHydratedEntity, entities.get(entityId));
-                final Long entityRecordId = Objects.firstNonNull(reHydratedEntityRecordId, entityRecordIds.get(entityId));
-                final TableName tableName = entity.getTableName();
+                final TableName tableName = auditedEntities.get(0).getEntity().getTableName();
 
                 // Note: audit entries point to the history record id
-                final Long historyRecordId;
+                final List<Long> historyRecordIds;
                 if (tableName.getHistoryTableName() != null) {
-                    historyRecordId = insertHistory(entityRecordId, entity, changeType, context);
+                    historyRecordIds = insertHistories(auditedEntities);
                 } else {
-                    historyRecordId = entityRecordId;
+                    historyRecordIds = new LinkedList<Long>();
+                    for (final AuditedEntity<M> auditedEntity : auditedEntities) {
+                        historyRecordIds.add(auditedEntity.getEntityRecordId());
+                    }
                 }
 
-                // Make sure to re-hydrate the object (especially needed for create calls)
-                insertAudits(tableName, entityRecordId, historyRecordId, changeType, context);
+                insertAudits(tableName, auditedEntities, historyRecordIds);
                 return null;
             }
         });
@@ -451,43 +478,69 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return null;
     }
 
-    private Long insertHistory(final Long entityRecordId, final M entityModelDao, final ChangeType changeType, final InternalCallContext context) {
-        final EntityHistoryModelDao<M, E> history = new EntityHistoryModelDao<M, E>(entityModelDao, entityRecordId, changeType, clock.getUTCNow());
+    private List<Long> insertHistories(final List<AuditedEntity<M>> auditedEntities) {
+        final List<EntityHistoryModelDao<M, E>> histories = new LinkedList<EntityHistoryModelDao<M, E>>();
+        final List<InternalCallContext> contexts = new LinkedList<InternalCallContext>();
+        for (final AuditedEntity<M> auditedEntity : auditedEntities) {
+            histories.add(new EntityHistoryModelDao<M, E>(auditedEntity.getEntity(), auditedEntity.getEntityRecordId(), auditedEntity.getChangeType(), clock.getUTCNow()));
+            contexts.add(auditedEntity.getContext());
+        }
 
-        sqlDao.addHistoryFromTransaction(history, context);
+        sqlDao.addHistoriesFromTransaction(histories, contexts);
 
-        final NonEntitySqlDao transactional = SqlObjectBuilder.attach(handle, NonEntitySqlDao.class);
+        // Retrieve the record ids of the rows we just inserted, using the (random) history ids
+        final Map<UUID, Long> historyRecordIdsByHistoryId = new HashMap<UUID, Long>();
+        for (final List<EntityHistoryModelDao<M, E>> historiesChunk : Iterables.partition(histories, MAX_IDS_PER_QUERY)) {
+            final Collection<Long> targetRecordIds = new HashSet<Long>();
+            final Collection<String> historyIds = new LinkedList<String>();
+            for (final EntityHistoryModelDao<M, E> history : historiesChunk) {
+                targetRecordIds.add(history.getTargetRecordId());
+                historyIds.add(history.getId().toString());
+            }
+            for (final RecordIdIdMappings mapping : sqlDao.getHistoryRecordIdIdMappingsFromTransaction(targetRecordIds, historyIds, contexts.get(0))) {
+                historyRecordIdsByHistoryId.put(mapping.getId(), mapping.getRecordId());
+            }
+        }
 
-        /* return transactional.getLastHistoryRecordId(entityRecordId, entityModelDao.getHistoryTableName().getTableName()); */
-        return nonEntityDao.retrieveLastHistoryRecordIdFromTransaction(entityRecordId, entityModelDao.getHistoryTableName(), transactional);
+        final List<Long> historyRecordIds = new LinkedList<Long>();
+        for (final EntityHistoryModelDao<M, E> history : histories) {
+            historyRecordIds.add(historyRecordIdsByHistoryId.get(history.getId()));
+        }
+        return historyRecordIds;
     }
 
-    private void insertAudits(final TableName tableName, final Long entityRecordId, final Long historyRecordId, final ChangeType changeType, final InternalCallContext contextMaybeWithoutAccountRecordId) {
+    private void insertAudits(final TableName tableName, final List<AuditedEntity<M>> auditedEntities, final List<Long> historyRecordIds) {
         final TableName destinationTableName = Objects.firstNonNull(tableName.getHistoryTableName(), tableName);
-        final EntityAudit audit = new EntityAudit(destinationTableName, historyRecordId, changeType, clock.getUTCNow());
 
-        final InternalCallContext context;
-        // Populate the account record id when creating the account record
-        if (TableName.ACCOUNT.equals(tableName) && ChangeType.INSERT.equals(changeType)) {
-            context = internalCallContextFactory.createInternalCallContext(entityRecordId, contextMaybeWithoutAccountRecordId);
-        } else {
-            context = contextMaybeWithoutAccountRecordId;
+        final List<EntityAudit> audits = new LinkedList<EntityAudit>();
+        final List<InternalCallContext> contexts = new LinkedList<InternalCallContext>();
+        final Iterator<Long> historyRecordIdsIterator = historyRecordIds.iterator();
+        for (final AuditedEntity<M> auditedEntity : auditedEntities) {
+            audits.add(new EntityAudit(destinationTableName, historyRecordIdsIterator.next(), auditedEntity.getChangeType(), clock.getUTCNow()));
+            contexts.add(auditedEntity.getAuditContext());
+        }
+        sqlDao.insertAuditsFromTransaction(audits, contexts);
+
+        if (cacheControllerDispatcher == null) {
+            return;
         }
-        sqlDao.insertAuditFromTransaction(audit, context);
 
         // We need to invalidate the caches. There is a small window of doom here where caches will be stale.
         // TODO Knowledge on how the key is constructed is also in AuditSqlDao
-        if (tableName.getHistoryTableName() != null) {
-            final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG_VIA_HISTORY);
-            if (cacheController != null) {
-                final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName.getHistoryTableName(), 1, tableName.getHistoryTableName(), 2, entityRecordId));
-                cacheController.remove(key);
-            }
-        } else {
-            final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG);
-            if (cacheController != null) {
-                final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName, 1, entityRecordId));
-                cacheController.remove(key);
+        for (final AuditedEntity<M> auditedEntity : auditedEntities) {
+            final Long entityRecordId = auditedEntity.getEntityRecordId();
+            if (tableName.getHistoryTableName() != null) {
+                final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG_VIA_HISTORY);
+                if (cacheController != null) {
+                    final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName.getHistoryTableName(), 1, tableName.getHistoryTableName(), 2, entityRecordId));
+                    cacheController.remove(key);
+                }
+            } else {
+                final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.AUDIT_LOG);
+                if (cacheController != null) {
+                    final String key = buildCacheKey(ImmutableMap.<Integer, Object>of(0, tableName, 1, entityRecordId));
+                    cacheController.remove(key);
+                }
             }
         }
     }
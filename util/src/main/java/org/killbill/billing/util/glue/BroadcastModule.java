@@ -20,15 +20,22 @@ package org.killbill.billing.util.glue;
 import org.killbill.billing.broadcast.BroadcastApi;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.broadcast.BroadcastService;
+import org.killbill.billing.util.broadcast.BroadcastTransport;
 import org.killbill.billing.util.broadcast.DefaultBroadcastApi;
 import org.killbill.billing.util.broadcast.DefaultBroadcastService;
+import org.killbill.billing.util.broadcast.LocalBroadcastTransport;
+import org.killbill.billing.util.broadcast.UdpBroadcastTransport;
 import org.killbill.billing.util.broadcast.dao.BroadcastDao;
 import org.killbill.billing.util.broadcast.dao.DefaultBroadcastDao;
 import org.killbill.billing.util.config.BroadcastConfig;
+import org.killbill.billing.util.tag.ControlTagsCacheInvalidationService;
 import org.skife.config.ConfigurationObjectFactory;
 
 public class BroadcastModule extends KillBillModule {
 
+    public static final String LOCAL_TRANSPORT = "local";
+    public static final String UDP_TRANSPORT = "udp";
+
     public BroadcastModule(final KillbillConfigSource configSource) {
         super(configSource);
     }
@@ -37,10 +44,21 @@ public class BroadcastModule extends KillBillModule {
         bind(BroadcastDao.class).to(DefaultBroadcastDao.class).asEagerSingleton();
     }
 
+    protected void installBroadcastTransport(final BroadcastConfig broadcastConfig) {
+        if (UDP_TRANSPORT.equalsIgnoreCase(broadcastConfig.getBroadcastTransport())) {
+            bind(BroadcastTransport.class).to(UdpBroadcastTransport.class).asEagerSingleton();
+        } else if (LOCAL_TRANSPORT.equalsIgnoreCase(broadcastConfig.getBroadcastTransport())) {
+            bind(BroadcastTransport.class).to(LocalBroadcastTransport.class).asEagerSingleton();
+        } else {
+            throw new IllegalArgumentException("Unknown broadcast transport " + broadcastConfig.getBroadcastTransport());
+        }
+    }
+
     protected void installUserApi() {
 
         bind(BroadcastService.class).to(DefaultBroadcastService.class).asEagerSingleton();
         bind(BroadcastApi.class).to(DefaultBroadcastApi.class).asEagerSingleton();
+        bind(ControlTagsCacheInvalidationService.class).asEagerSingleton();
     }
 
     @Override
@@ -49,6 +67,7 @@ public class BroadcastModule extends KillBillModule {
         final BroadcastConfig broadcastConfig = factory.build(BroadcastConfig.class);
         bind(BroadcastConfig.class).toInstance(broadcastConfig);
         installDaos();
+        installBroadcastTransport(broadcastConfig);
         installUserApi();
     }
 }
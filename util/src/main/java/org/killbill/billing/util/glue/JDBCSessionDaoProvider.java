@@ -41,7 +41,10 @@ public class JDBCSessionDaoProvider implements Provider<JDBCSessionDao> {
 
     @Override
     public JDBCSessionDao get() {
-        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi);
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi,
+                                                             rbacConfig.isStatelessSessions(),
+                                                             rbacConfig.getSessionTouchThreshold().getMillis(),
+                                                             rbacConfig.getSessionTouchFlushRate().getMillis());
 
         if (sessionManager instanceof DefaultSessionManager) {
             final DefaultSessionManager defaultSessionManager = (DefaultSessionManager) sessionManager;
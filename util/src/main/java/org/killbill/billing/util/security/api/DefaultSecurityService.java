@@ -22,8 +22,12 @@ import javax.inject.Inject;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.mgt.SessionsSecurityManager;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.session.mgt.SessionManager;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.util.security.shiro.dao.JDBCSessionDao;
 
 public class DefaultSecurityService implements SecurityService {
 
@@ -49,5 +53,14 @@ public class DefaultSecurityService implements SecurityService {
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void stop() {
         SecurityUtils.setSecurityManager(null);
+
+        // Write pending session touches, if any
+        if (securityManager instanceof SessionsSecurityManager) {
+            final SessionManager sessionManager = ((SessionsSecurityManager) securityManager).getSessionManager();
+            if (sessionManager instanceof DefaultSessionManager &&
+                ((DefaultSessionManager) sessionManager).getSessionDAO() instanceof JDBCSessionDao) {
+                ((JDBCSessionDao) ((DefaultSessionManager) sessionManager).getSessionDAO()).stop();
+            }
+        }
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.security.shiro;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SaltedAuthenticationInfo;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.codec.Hex;
+import org.apache.shiro.util.ByteSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers successful credentials verifications for a limited time, to avoid re-hashing the submitted credentials
+ * on every request.
+ * <p/>
+ * Entries are keyed by a HMAC (with a random, per instance, secret) of the principal, the submitted credentials
+ * and the stored credentials: neither the submitted credentials nor a plain digest of them are kept in memory, and
+ * updating the stored credentials (e.g. password change) naturally invalidates the previous entries.
+ * Failed verifications are never cached.
+ */
+public class CachingCredentialsMatcher implements CredentialsMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingCredentialsMatcher.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int SECRET_LENGTH = 32;
+
+    private final CredentialsMatcher delegate;
+    private final Cache<String, Boolean> verifiedCredentials;
+    private final SecretKeySpec secretKey;
+
+    public CachingCredentialsMatcher(final CredentialsMatcher delegate, final long maxSize, final long ttlMillis) {
+        this.delegate = delegate;
+        this.verifiedCredentials = CacheBuilder.newBuilder()
+                                               .maximumSize(maxSize)
+                                               .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                                               .build();
+
+        final byte[] secret = new byte[SECRET_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public boolean doCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+        final String cacheKey = computeCacheKey(token, info);
+        if (cacheKey == null) {
+            return delegate.doCredentialsMatch(token, info);
+        }
+
+        if (verifiedCredentials.getIfPresent(cacheKey) != null) {
+            return true;
+        }
+
+        final boolean match = delegate.doCredentialsMatch(token, info);
+        if (match) {
+            verifiedCredentials.put(cacheKey, Boolean.TRUE);
+        }
+        return match;
+    }
+
+    public void clear() {
+        verifiedCredentials.invalidateAll();
+    }
+
+    private String computeCacheKey(final AuthenticationToken token, final AuthenticationInfo info) {
+        if (token.getPrincipal() == null || token.getCredentials() == null || info.getCredentials() == null) {
+            return null;
+        }
+
+        final Mac mac;
+        try {
+            mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+        } catch (final GeneralSecurityException e) {
+            logger.warn("Unable to compute credentials cache key, skipping cache", e);
+            return null;
+        }
+
+        update(mac, ByteSource.Util.bytes(token.getPrincipal().toString()));
+        update(mac, toByteSource(token.getCredentials()));
+        update(mac, toByteSource(info.getCredentials()));
+        if (info instanceof SaltedAuthenticationInfo && ((SaltedAuthenticationInfo) info).getCredentialsSalt() != null) {
+            update(mac, ((SaltedAuthenticationInfo) info).getCredentialsSalt());
+        }
+        return Hex.encodeToString(mac.doFinal());
+    }
+
+    private ByteSource toByteSource(final Object credentials) {
+        if (ByteSource.Util.isCompatible(credentials)) {
+            return ByteSource.Util.bytes(credentials);
+        }
+        return ByteSource.Util.bytes(credentials.toString());
+    }
+
+    // Length prefix each component so that different splits of the same bytes don't collide
+    private void update(final Mac mac, final ByteSource byteSource) {
+        final byte[] bytes = byteSource.getBytes();
+        mac.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        mac.update(bytes);
+    }
+}
@@ -37,6 +37,11 @@ public class KillbillCredentialsMatcher {
         credentialsMatcher.setStoredCredentialsHexEncoded(false);
         credentialsMatcher.setHashIterations(securityConfig.getShiroNbHashIterations());
 
-        return credentialsMatcher;
+        final Integer cacheMaxSize = securityConfig.getShiroAuthenticationCacheMaxSize();
+        if (cacheMaxSize == null || cacheMaxSize <= 0) {
+            return credentialsMatcher;
+        }
+        // Hashing is expensive by design (see above), so remember successful verifications for a short while
+        return new CachingCredentialsMatcher(credentialsMatcher, cacheMaxSize, securityConfig.getShiroAuthenticationCacheTTL().getMillis());
     }
 }
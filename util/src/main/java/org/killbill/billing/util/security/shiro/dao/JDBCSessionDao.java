@@ -20,40 +20,132 @@ package org.killbill.billing.util.security.shiro.dao;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.killbill.commons.concurrent.Executors;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.Transaction;
 import org.skife.jdbi.v2.TransactionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * In stateless mode, sessions only live in the active sessions cache (a CacheManager must be configured) and are
+ * never read from or written to the sessions table: a request hitting a node which doesn't know the session simply
+ * re-authenticates with its credentials (see CachingCredentialsMatcher).
+ * <p/>
+ * In write-behind mode, updates which only change the last access time (i.e. Shiro touching the session on each
+ * request) are only persisted once they move it by at least the touch threshold, and are then written in periodic
+ * batches. Any other change is written right away.
+ */
 public class JDBCSessionDao extends CachingSessionDAO {
 
     private static final Logger log = LoggerFactory.getLogger(JDBCSessionDao.class);
 
+    private static final int TERMINATION_TIMEOUT_SEC = 5;
+    private static final int MAX_TRACKED_SESSIONS = 10000;
+
     private final JDBCSessionSqlDao jdbcSessionSqlDao;
+    private final boolean stateless;
+    private final long touchThresholdMillis;
+
+    // Last state written for each session, to detect touch-only updates (write-behind mode only)
+    private final Cache<Long, SessionModelDao> persistedSessions;
+    // Latest pending touch for each session (write-behind mode only)
+    private final ConcurrentMap<Long, SessionModelDao> pendingTouches;
+    private final ScheduledExecutorService touchFlusher;
 
     @Inject
     public JDBCSessionDao(final IDBI dbi) {
+        this(dbi, false);
+    }
+
+    public JDBCSessionDao(final IDBI dbi, final boolean stateless) {
+        this(dbi, stateless, 0L, 0L);
+    }
+
+    public JDBCSessionDao(final IDBI dbi, final boolean stateless, final long touchThresholdMillis, final long touchFlushRateMillis) {
         this.jdbcSessionSqlDao = dbi.onDemand(JDBCSessionSqlDao.class);
+        this.stateless = stateless;
+        this.touchThresholdMillis = touchThresholdMillis;
+
+        if (!stateless && touchFlushRateMillis > 0) {
+            this.persistedSessions = CacheBuilder.newBuilder()
+                                                 .maximumSize(MAX_TRACKED_SESSIONS)
+                                                 .<Long, SessionModelDao>build();
+            this.pendingTouches = new ConcurrentHashMap<Long, SessionModelDao>();
+            this.touchFlusher = Executors.newSingleThreadScheduledExecutor("SessionTouchFlusher");
+            this.touchFlusher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    flushTouches();
+                }
+            }, touchFlushRateMillis, touchFlushRateMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.persistedSessions = null;
+            this.pendingTouches = null;
+            this.touchFlusher = null;
+        }
     }
 
     @Override
     protected void doUpdate(final Session session) {
-        jdbcSessionSqlDao.update(new SessionModelDao(session));
+        if (stateless) {
+            return;
+        }
+
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (touchFlusher != null && sessionModelDao.getRecordId() != null) {
+            final SessionModelDao persistedSession = persistedSessions.getIfPresent(sessionModelDao.getRecordId());
+            if (persistedSession != null && isTouchOnly(persistedSession, sessionModelDao)) {
+                if (sessionModelDao.getLastAccessTime().getMillis() - persistedSession.getLastAccessTime().getMillis() >= touchThresholdMillis) {
+                    pendingTouches.put(sessionModelDao.getRecordId(), sessionModelDao);
+                }
+                return;
+            }
+            pendingTouches.remove(sessionModelDao.getRecordId());
+        }
+
+        jdbcSessionSqlDao.update(sessionModelDao);
+        trackPersistedSession(sessionModelDao);
     }
 
     @Override
     protected void doDelete(final Session session) {
-        jdbcSessionSqlDao.delete(new SessionModelDao(session));
+        if (stateless) {
+            return;
+        }
+
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (touchFlusher != null && sessionModelDao.getRecordId() != null) {
+            pendingTouches.remove(sessionModelDao.getRecordId());
+            persistedSessions.invalidate(sessionModelDao.getRecordId());
+        }
+        jdbcSessionSqlDao.delete(sessionModelDao);
     }
 
     @Override
     protected Serializable doCreate(final Session session) {
+        if (stateless) {
+            final Serializable sessionId = generateSessionId(session);
+            assignSessionId(session, sessionId);
+            return sessionId;
+        }
+
         final Serializable sessionId = jdbcSessionSqlDao.inTransaction(new Transaction<Long, JDBCSessionSqlDao>() {
             @Override
             public Long inTransaction(final JDBCSessionSqlDao transactional, final TransactionStatus status) throws Exception {
@@ -63,13 +155,14 @@ public class JDBCSessionDao extends CachingSessionDAO {
         });
         // See SessionModelDao#toSimpleSession for why we use toString()
         assignSessionId(session, sessionId.toString());
+        trackPersistedSession(new SessionModelDao(session));
         return sessionId;
     }
 
     @Override
     protected Session doReadSession(final Serializable sessionId) {
         // Shiro should not pass us a null sessionId, but be safe...
-        if (sessionId == null) {
+        if (sessionId == null || stateless) {
             return null;
         }
 
@@ -93,4 +186,67 @@ public class JDBCSessionDao extends CachingSessionDAO {
             return null;
         }
     }
+
+    /**
+     * Write all pending touches
+     */
+    public void flushTouches() {
+        if (pendingTouches == null || pendingTouches.isEmpty()) {
+            return;
+        }
+
+        final List<SessionModelDao> touches = new LinkedList<SessionModelDao>();
+        for (final Long recordId : pendingTouches.keySet()) {
+            final SessionModelDao touch = pendingTouches.remove(recordId);
+            if (touch != null) {
+                touches.add(touch);
+            }
+        }
+        if (touches.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcSessionSqlDao.updateLastAccessTime(touches);
+            for (final SessionModelDao touch : touches) {
+                trackPersistedSession(touch);
+            }
+        } catch (final RuntimeException e) {
+            log.warn("Failed to write {} session touches", touches.size(), e);
+        }
+    }
+
+    /**
+     * Stop the write-behind flusher and write the remaining pending touches
+     */
+    public void stop() {
+        if (touchFlusher == null) {
+            return;
+        }
+
+        touchFlusher.shutdown();
+        try {
+            if (!touchFlusher.awaitTermination(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("SessionTouchFlusher failed to complete termination within {}sec", TERMINATION_TIMEOUT_SEC);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("SessionTouchFlusher stop sequence got interrupted");
+        } finally {
+            flushTouches();
+        }
+    }
+
+    private void trackPersistedSession(final SessionModelDao sessionModelDao) {
+        if (persistedSessions != null && sessionModelDao.getRecordId() != null) {
+            persistedSessions.put(sessionModelDao.getRecordId(), sessionModelDao);
+        }
+    }
+
+    private boolean isTouchOnly(final SessionModelDao persistedSession, final SessionModelDao sessionModelDao) {
+        return sessionModelDao.getTimeout() == persistedSession.getTimeout() &&
+               Objects.equal(sessionModelDao.getStartTimestamp(), persistedSession.getStartTimestamp()) &&
+               Objects.equal(sessionModelDao.getHost(), persistedSession.getHost()) &&
+               Arrays.equals(sessionModelDao.getSessionData(), persistedSession.getSessionData());
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.tag;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.tag.dao.TagModelDao;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Control tags set on all the objects of an account, stored as one bitmap per object
+ * (one bit per ControlTagType, indexed by its ordinal).
+ */
+public class AccountControlTags {
+
+    public static final AccountControlTags EMPTY = new AccountControlTags(ImmutableMap.<String, Integer>of());
+
+    private final Map<String, Integer> bitmaps;
+
+    private AccountControlTags(final Map<String, Integer> bitmaps) {
+        this.bitmaps = bitmaps;
+    }
+
+    public static AccountControlTags fromTags(final Iterable<TagModelDao> tags) {
+        final Map<String, Integer> bitmaps = new HashMap<String, Integer>();
+        for (final TagModelDao tag : tags) {
+            final ControlTagType controlTagType = ControlTagType.getTypeFromId(tag.getTagDefinitionId());
+            if (controlTagType == null) {
+                continue;
+            }
+            final String key = getKey(tag.getObjectId(), tag.getObjectType());
+            final Integer bitmap = bitmaps.get(key);
+            bitmaps.put(key, (bitmap == null ? 0 : bitmap) | getMask(controlTagType));
+        }
+        return bitmaps.isEmpty() ? EMPTY : new AccountControlTags(ImmutableMap.<String, Integer>copyOf(bitmaps));
+    }
+
+    public boolean isSet(final UUID objectId, final ObjectType objectType, final ControlTagType controlTagType) {
+        return (getBitmap(objectId, objectType) & getMask(controlTagType)) != 0;
+    }
+
+    public Set<ControlTagType> getControlTagTypes(final UUID objectId, final ObjectType objectType) {
+        final int bitmap = getBitmap(objectId, objectType);
+        final Set<ControlTagType> result = EnumSet.noneOf(ControlTagType.class);
+        if (bitmap == 0) {
+            return result;
+        }
+        for (final ControlTagType controlTagType : ControlTagType.values()) {
+            if ((bitmap & getMask(controlTagType)) != 0) {
+                result.add(controlTagType);
+            }
+        }
+        return result;
+    }
+
+    private int getBitmap(final UUID objectId, final ObjectType objectType) {
+        final Integer bitmap = bitmaps.get(getKey(objectId, objectType));
+        return bitmap == null ? 0 : bitmap;
+    }
+
+    private static int getMask(final ControlTagType controlTagType) {
+        return 1 << controlTagType.ordinal();
+    }
+
+    private static String getKey(final UUID objectId, final ObjectType objectType) {
+        return objectType + "::" + objectId;
+    }
+}
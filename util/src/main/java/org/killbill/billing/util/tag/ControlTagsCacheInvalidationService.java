@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.tag;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.broadcast.BroadcastApi;
+import org.killbill.billing.events.BroadcastInternalEvent;
+import org.killbill.billing.events.ControlTagCreationInternalEvent;
+import org.killbill.billing.events.ControlTagDeletionInternalEvent;
+import org.killbill.billing.events.TagInternalEvent;
+import org.killbill.billing.platform.api.KillbillService;
+import org.killbill.billing.platform.api.LifecycleHandlerType;
+import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.killbill.clock.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Evicts the account control tags cache entries on all nodes when a control tag is added or removed.
+ * <p/>
+ * The node processing the tag event relays it through the broadcast table, which every node polls. The cache
+ * entries also expire on their own (see ehcache.xml), which bounds staleness if a broadcast is missed.
+ */
+public class ControlTagsCacheInvalidationService implements KillbillService {
+
+    public static final String CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME = "control-tags-cache-invalidation-service";
+    public static final String INVALIDATE_ACCOUNT_TYPE = "INVALIDATE_ACCOUNT";
+
+    private static final Logger logger = LoggerFactory.getLogger(ControlTagsCacheInvalidationService.class);
+
+    private final PersistentBus eventBus;
+    private final BroadcastApi broadcastApi;
+    private final Clock clock;
+    private final CacheController<Object, Object> controlTagsCacheController;
+
+    @Inject
+    public ControlTagsCacheInvalidationService(final PersistentBus eventBus, final BroadcastApi broadcastApi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher) {
+        this.eventBus = eventBus;
+        this.broadcastApi = broadcastApi;
+        this.clock = clock;
+        this.controlTagsCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
+    }
+
+    @Override
+    public String getName() {
+        return CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME;
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.INIT_SERVICE)
+    public void initialize() {
+        try {
+            eventBus.register(this);
+        } catch (final EventBusException e) {
+            throw new RuntimeException("Failed to register bus handlers", e);
+        }
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
+    public void stop() {
+        try {
+            eventBus.unregister(this);
+        } catch (final EventBusException e) {
+            throw new RuntimeException("Failed to unregister bus handlers", e);
+        }
+    }
+
+    @AllowConcurrentEvents
+    @Subscribe
+    public void handleControlTagCreation(final ControlTagCreationInternalEvent event) {
+        broadcastInvalidation(event);
+    }
+
+    @AllowConcurrentEvents
+    @Subscribe
+    public void handleControlTagDeletion(final ControlTagDeletionInternalEvent event) {
+        broadcastInvalidation(event);
+    }
+
+    @AllowConcurrentEvents
+    @Subscribe
+    public void handleBroadcast(final BroadcastInternalEvent event) {
+        if (!CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME.equals(event.getServiceName()) || !INVALIDATE_ACCOUNT_TYPE.equals(event.getType())) {
+            return;
+        }
+        try {
+            controlTagsCacheController.remove(Long.valueOf(event.getJsonEvent()));
+        } catch (final NumberFormatException e) {
+            logger.warn("Ignoring invalid control tags cache invalidation event='{}'", event.getJsonEvent());
+        }
+    }
+
+    private void broadcastInvalidation(final TagInternalEvent event) {
+        final Long accountRecordId = event.getSearchKey1();
+        if (accountRecordId == null) {
+            return;
+        }
+        // Evict right away locally, the other nodes will pick up the broadcast entry on their next poll
+        controlTagsCacheController.remove(accountRecordId);
+        broadcastApi.broadcast(CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME, INVALIDATE_ACCOUNT_TYPE, accountRecordId.toString(), clock.getUTCNow(), CONTROL_TAGS_CACHE_INVALIDATION_SERVICE_NAME, false);
+    }
+}
@@ -17,6 +17,7 @@
 package org.killbill.billing.util.tag;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -26,6 +27,11 @@ import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.api.TagApiException;
+import org.killbill.billing.util.cache.AccountControlTagsCacheLoader;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.cache.CacheLoaderArgument;
 import org.killbill.billing.util.tag.dao.TagDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
@@ -41,12 +47,15 @@ public class DefaultTagInternalApi implements TagInternalApi {
 
     private final TagDao tagDao;
     private final TagDefinitionDao tagDefinitionDao;
+    private final CacheController<Object, Object> controlTagsCacheController;
 
     @Inject
     public DefaultTagInternalApi(final TagDao tagDao,
-                                 final TagDefinitionDao tagDefinitionDao) {
+                                 final TagDefinitionDao tagDefinitionDao,
+                                 final CacheControllerDispatcher cacheControllerDispatcher) {
         this.tagDao = tagDao;
         this.tagDefinitionDao = tagDefinitionDao;
+        this.controlTagsCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
     }
 
     @Override
@@ -70,6 +79,16 @@ public class DefaultTagInternalApi implements TagInternalApi {
         return toTagList(tagDao.getTagsForAccountType(objectType, includedDeleted, internalTenantContext));
     }
 
+    @Override
+    public boolean isControlTagSet(final UUID objectId, final ObjectType objectType, final ControlTagType controlTagType, final InternalTenantContext context) {
+        return getAccountControlTags(objectId, objectType, context).isSet(objectId, objectType, controlTagType);
+    }
+
+    @Override
+    public Set<ControlTagType> getControlTagTypes(final UUID objectId, final ObjectType objectType, final InternalTenantContext context) {
+        return getAccountControlTags(objectId, objectType, context).getControlTagTypes(objectId, objectType);
+    }
+
     @Override
     public void addTag(final UUID objectId, final ObjectType objectType, final UUID tagDefinitionId, final InternalCallContext context)
             throws TagApiException {
@@ -84,6 +103,27 @@ public class DefaultTagInternalApi implements TagInternalApi {
         tagDao.deleteTag(objectId, objectType, tagDefinitionId, context);
     }
 
+    private AccountControlTags getAccountControlTags(final UUID objectId, final ObjectType objectType, final InternalTenantContext context) {
+        if (context.getAccountRecordId() == null) {
+            // Not in an account context, only look at the object itself
+            return AccountControlTags.fromTags(tagDao.getTagsForObject(objectId, objectType, false, context));
+        }
+        return (AccountControlTags) controlTagsCacheController.get(context.getAccountRecordId(), createControlTagsCacheLoaderArgument(context));
+    }
+
+    private CacheLoaderArgument createControlTagsCacheLoaderArgument(final InternalTenantContext context) {
+        final AccountControlTagsCacheLoader.LoaderCallback loaderCallback = new AccountControlTagsCacheLoader.LoaderCallback() {
+            @Override
+            public Object loadAccountControlTags(final Long accountRecordId, final InternalTenantContext context) {
+                return AccountControlTags.fromTags(tagDao.getControlTagsForAccount(context));
+            }
+        };
+        final Object[] args = new Object[1];
+        args[0] = loaderCallback;
+        final ObjectType irrelevant = null;
+        return new CacheLoaderArgument(irrelevant, args, context);
+    }
+
     private List<Tag> toTagList(final List<TagModelDao> input) {
         return ImmutableList.<Tag>copyOf(Iterables.transform(input, new Function<TagModelDao, Tag>() {
             @Override
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -37,6 +39,8 @@ import org.killbill.clock.Clock;
 import org.killbill.billing.events.TagInternalEvent;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.entity.Pagination;
@@ -62,6 +66,7 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     private final TagEventBuilder tagEventBuilder;
     private final PersistentBus bus;
+    private final CacheController<Object, Object> controlTagsCacheController;
 
     @Inject
     public DefaultTagDao(final IDBI dbi, final TagEventBuilder tagEventBuilder, final PersistentBus bus, final Clock clock,
@@ -69,6 +74,7 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
         super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory), TagSqlDao.class);
         this.tagEventBuilder = tagEventBuilder;
         this.bus = bus;
+        this.controlTagsCacheController = controllerDispatcher.getCacheController(CacheType.ACCOUNT_CONTROL_TAGS);
     }
 
     @Override
@@ -112,6 +118,20 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
         });
     }
 
+    @Override
+    public List<TagModelDao> getControlTagsForAccount(final InternalTenantContext internalTenantContext) {
+        final Collection<String> controlTagDefinitionIds = new ArrayList<String>();
+        for (final ControlTagType controlTagType : ControlTagType.values()) {
+            controlTagDefinitionIds.add(controlTagType.getId().toString());
+        }
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<TagModelDao>>() {
+            @Override
+            public List<TagModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(TagSqlDao.class).getTagsForAccountAndTagDefinitions(controlTagDefinitionIds, internalTenantContext);
+            }
+        });
+    }
+
     @Override
     protected void postBusEventFromTransaction(final TagModelDao tag, final TagModelDao savedTag, final ChangeType changeType,
                                                final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context)
@@ -187,6 +207,7 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
     @Override
     public void create(final TagModelDao entity, final InternalCallContext context) throws TagApiException {
         transactionalSqlDao.execute(TagApiException.class, getCreateEntitySqlDaoTransactionWrapper(entity, context));
+        invalidateControlTagsCache(entity.getTagDefinitionId(), context);
     }
 
     @Override
@@ -217,7 +238,14 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                 return null;
             }
         });
+        invalidateControlTagsCache(tagDefinitionId, context);
+    }
 
+    // Same points where the control tag events are posted: evict right after the commit instead of waiting for the (asynchronous) bus delivery
+    private void invalidateControlTagsCache(final UUID tagDefinitionId, final InternalCallContext context) {
+        if (context.getAccountRecordId() != null && ControlTagType.getTypeFromId(tagDefinitionId) != null) {
+            controlTagsCacheController.remove(context.getAccountRecordId());
+        }
     }
 
     @Override
@@ -233,6 +261,11 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                                                   public Iterator<TagModelDao> build(final TagSqlDao tagSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return tagSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public Iterator<TagModelDao> buildFromRecordId(final TagSqlDao tagSqlDao, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+                                                      return tagSqlDao.searchAfterRecordId(searchKey, String.format("%%%s%%", searchKey), lastRecordId, limit, context);
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -38,4 +38,6 @@ public interface TagDao extends EntityDao<TagModelDao, Tag, TagApiException> {
     List<TagModelDao> getTagsForAccountType(ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
     List<TagModelDao> getTagsForAccount(boolean includedDeleted, InternalTenantContext internalTenantContext);
+
+    List<TagModelDao> getControlTagsForAccount(InternalTenantContext internalTenantContext);
 }
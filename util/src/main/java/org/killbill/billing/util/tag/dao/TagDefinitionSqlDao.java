@@ -16,9 +16,6 @@
 
 package org.killbill.billing.util.tag.dao;
 
-import java.util.Collection;
-import java.util.List;
-
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
@@ -47,8 +44,4 @@ public interface TagDefinitionSqlDao extends EntitySqlDao<TagDefinitionModelDao,
     @SqlQuery
     public int tagDefinitionUsageCount(@Bind("id") final String definitionId,
                                        @BindBean final InternalTenantContext context);
-
-    @SqlQuery
-    public List<TagDefinitionModelDao> getByIds(@UUIDCollectionBinder final Collection<String> definitionIds,
-                                                @BindBean final InternalTenantContext context);
 }
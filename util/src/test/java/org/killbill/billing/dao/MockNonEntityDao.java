@@ -18,6 +18,7 @@
 
 package org.killbill.billing.dao;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -75,6 +76,27 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public Map<UUID, Long> retrieveRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        return new HashMap<UUID, Long>();
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveAccountRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        return filterMappings(objectIds, accountRecordIdMappings);
+    }
+
+    @Override
+    public Map<UUID, Long> retrieveTenantRecordIdsFromObjects(final Collection<UUID> objectIds, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
+        return filterMappings(objectIds, tenantRecordIdMappings);
+    }
+
+    @Override
+    public void prefetchRecordIdsForAccount(final Iterable<ObjectType> objectTypes, final InternalTenantContext context,
+                                            @Nullable final CacheController<Object, Object> recordIdCache, @Nullable final CacheController<Object, Object> objectIdCache,
+                                            @Nullable final CacheController<Object, Object> accountRecordIdCache, @Nullable final CacheController<Object, Object> tenantRecordIdCache) {
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache) {
         return null;
@@ -94,4 +116,14 @@ public class MockNonEntityDao implements NonEntityDao {
     public Long retrieveHistoryTargetRecordId(final Long recordId, final TableName tableName) {
         return null;
     }
+
+    private Map<UUID, Long> filterMappings(final Collection<UUID> objectIds, final Map<UUID, Long> mappings) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        for (final UUID objectId : objectIds) {
+            if (mappings.get(objectId) != null) {
+                result.put(objectId, mappings.get(objectId));
+            }
+        }
+        return result;
+    }
 }
@@ -23,6 +23,7 @@ import javax.inject.Inject;
 import org.killbill.billing.GuicyKillbillTestSuiteWithEmbeddedDB;
 import org.killbill.billing.api.TestApiListener;
 import org.killbill.billing.security.api.SecurityApi;
+import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.broadcast.dao.BroadcastDao;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
@@ -68,6 +69,8 @@ public abstract class UtilTestSuiteWithEmbeddedDB extends GuicyKillbillTestSuite
     @Inject
     protected DefaultTagUserApi tagUserApi;
     @Inject
+    protected TagInternalApi tagInternalApi;
+    @Inject
     protected DefaultCustomFieldUserApi customFieldUserApi;
     @Inject
     protected CustomFieldDao customFieldDao;
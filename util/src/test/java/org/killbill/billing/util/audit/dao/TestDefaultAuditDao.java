@@ -17,6 +17,7 @@
 package org.killbill.billing.util.audit.dao;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.Handle;
@@ -34,10 +35,14 @@ import org.killbill.billing.util.audit.AccountAuditLogsForObjectType;
 import org.killbill.billing.util.audit.AuditLog;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 import org.killbill.billing.util.tag.DescriptiveTag;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagModelDao;
+import org.killbill.billing.util.tag.dao.TagSqlDao;
 
 public class TestDefaultAuditDao extends UtilTestSuiteWithEmbeddedDB {
 
@@ -91,6 +96,35 @@ public class TestDefaultAuditDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(secondAuditLogs.get(1).getChangeType(), ChangeType.DELETE);
     }
 
+    @Test(groups = "slow")
+    public void testAuditsForMultipleChangesInSameTransaction() throws Exception {
+        final TagModelDao theTag = new TagModelDao(clock.getUTCNow(), UUID.randomUUID(), UUID.randomUUID(), ObjectType.ACCOUNT);
+
+        // History and audit rows are flushed in batch when the transaction commits: make sure each change keeps its own rows
+        final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controlCacheDispatcher, nonEntityDao, internalCallContextFactory);
+        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                final TagSqlDao tagSqlDao = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
+                tagSqlDao.create(theTag, internalCallContext);
+                tagSqlDao.markTagAsDeleted(theTag.getId().toString(), internalCallContext);
+                return null;
+            }
+        });
+
+        final List<AuditLog> auditLogs = auditDao.getAuditLogsForId(TableName.TAG, theTag.getId(), AuditLevel.FULL, internalCallContext);
+        Assert.assertEquals(auditLogs.size(), 2);
+        Assert.assertEquals(auditLogs.get(0).getChangeType(), ChangeType.INSERT);
+        Assert.assertEquals(auditLogs.get(1).getChangeType(), ChangeType.DELETE);
+
+        final Handle handle = dbi.open();
+        final List<Map<String, Object>> tagHistoryRows = handle.select("select h.change_type from tag_history h join tags t on h.target_record_id = t.record_id where t.id = ? order by h.record_id", theTag.getId().toString());
+        handle.close();
+        Assert.assertEquals(tagHistoryRows.size(), 2);
+        Assert.assertEquals(tagHistoryRows.get(0).get("change_type"), ChangeType.INSERT.toString());
+        Assert.assertEquals(tagHistoryRows.get(1).get("change_type"), ChangeType.DELETE.toString());
+    }
+
     private void addTag() throws TagDefinitionApiException, TagApiException {
         // Create a tag definition
         eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
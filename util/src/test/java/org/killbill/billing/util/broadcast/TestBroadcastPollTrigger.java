@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBroadcastPollTrigger extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testNotificationsAreCollapsed() throws Exception {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final AtomicInteger nbRuns = new AtomicInteger(0);
+            final CountDownLatch latch = new CountDownLatch(1);
+            final BroadcastPollTrigger trigger = new BroadcastPollTrigger(executor, new Runnable() {
+                @Override
+                public void run() {
+                    nbRuns.incrementAndGet();
+                    latch.countDown();
+                }
+            }, 200);
+
+            final LocalBroadcastTransport transport = new LocalBroadcastTransport();
+            transport.subscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, trigger);
+            for (int i = 0; i < 10; i++) {
+                transport.publish(BroadcastTransport.TENANT_BROADCASTS_CHANNEL);
+            }
+            // Not subscribed
+            transport.publish(BroadcastTransport.SERVICE_BROADCASTS_CHANNEL);
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            // Wait for any (unexpected) additional run
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, 300, TimeUnit.MILLISECONDS).get();
+            Assert.assertEquals(nbRuns.get(), 1);
+
+            transport.unsubscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, trigger);
+            transport.publish(BroadcastTransport.TENANT_BROADCASTS_CHANNEL);
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, 300, TimeUnit.MILLISECONDS).get();
+            Assert.assertEquals(nbRuns.get(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.broadcast;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.broadcast.BroadcastTransport.BroadcastListener;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestUdpBroadcastTransport extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testNotifyOtherNode() throws Exception {
+        // Any port on the loopback interface is accepted by the receiving node
+        final UdpBroadcastTransport receivingNode = new UdpBroadcastTransport(0, ImmutableList.<String>of("127.0.0.1:1"));
+        final CountDownLatch tenantNotification = new CountDownLatch(1);
+        final BroadcastListener listener = new BroadcastListener() {
+            @Override
+            public void onNotification(final String channel) {
+                if (BroadcastTransport.TENANT_BROADCASTS_CHANNEL.equals(channel)) {
+                    tenantNotification.countDown();
+                }
+            }
+        };
+        receivingNode.subscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, listener);
+        try {
+            final int receivingPort = receivingNode.getLocalPort();
+            Assert.assertTrue(receivingPort > 0);
+
+            final UdpBroadcastTransport publishingNode = new UdpBroadcastTransport(0, ImmutableList.<String>of("127.0.0.1:" + receivingPort));
+            publishingNode.publish(BroadcastTransport.TENANT_BROADCASTS_CHANNEL);
+
+            Assert.assertTrue(tenantNotification.await(5, TimeUnit.SECONDS));
+        } finally {
+            receivingNode.unsubscribe(BroadcastTransport.TENANT_BROADCASTS_CHANNEL, listener);
+        }
+
+        // Last listener gone, the socket is closed
+        Assert.assertEquals(receivingNode.getLocalPort(), -1);
+    }
+}
@@ -17,6 +17,7 @@
 package org.killbill.billing.util.callcontext;
 
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.Handle;
@@ -28,6 +29,8 @@ import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
 
+import com.google.common.collect.ImmutableList;
+
 public class TestInternalCallContextFactory extends UtilTestSuiteWithEmbeddedDB {
 
 
@@ -87,6 +90,34 @@ public class TestInternalCallContextFactory extends UtilTestSuiteWithEmbeddedDB
         verifyInternalCallContext(context);
     }
 
+    @Test(groups = "slow")
+    public void testGetAccountRecordIdsFromObjects() throws Exception {
+        final UUID accountId1 = UUID.randomUUID();
+        final Long accountRecordId1 = 19384013L;
+        final UUID accountId2 = UUID.randomUUID();
+        final Long accountRecordId2 = 19384014L;
+
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                for (final Object[] account : new Object[][]{{accountRecordId1, accountId1}, {accountRecordId2, accountId2}}) {
+                    handle.execute("insert into accounts (record_id, id, email, name, first_name_length, is_notified_for_invoices, created_date, created_by, updated_date, updated_by) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                                   account[0], account[1].toString(), "yo@t.com", "toto", 4, false, new Date(), "i", new Date(), "j");
+                }
+                return null;
+            }
+        });
+
+        // Unknown objects are ignored
+        final Map<UUID, Long> accountRecordIds = internalCallContextFactory.getAccountRecordIdsFromObjects(ImmutableList.<UUID>of(accountId1, accountId2, UUID.randomUUID()), ObjectType.ACCOUNT, callContext);
+        Assert.assertEquals(accountRecordIds.size(), 2);
+        Assert.assertEquals(accountRecordIds.get(accountId1), accountRecordId1);
+        Assert.assertEquals(accountRecordIds.get(accountId2), accountRecordId2);
+
+        // The contexts created afterwards see the same account record ids
+        Assert.assertEquals(internalCallContextFactory.createInternalCallContext(accountId2, ObjectType.ACCOUNT, callContext).getAccountRecordId(), accountRecordId2);
+    }
+
     private void verifyInternalCallContext(final InternalCallContext context) {
         Assert.assertEquals(context.getCallOrigin(), callContext.getCallOrigin());
         Assert.assertEquals(context.getComments(), callContext.getComments());
@@ -18,6 +18,7 @@ package org.killbill.billing.util.dao;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.Handle;
@@ -26,7 +27,13 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+
+import com.google.common.collect.ImmutableList;
 
 public class TestNonEntityDao extends UtilTestSuiteWithEmbeddedDB {
 
@@ -91,6 +98,48 @@ public class TestNonEntityDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(resultTenantRecordId, tenantRecordId);
     }
 
+    @Test(groups = "slow")
+    public void testRetrieveRecordIdsFromObjects() throws IOException {
+        insertAccount();
+        insertTag();
+
+        final UUID unknownId = UUID.randomUUID();
+
+        final Map<UUID, Long> accountRecordIds = nonEntityDao.retrieveRecordIdsFromObjects(ImmutableList.<UUID>of(accountId, unknownId), ObjectType.ACCOUNT, null);
+        Assert.assertEquals(accountRecordIds.size(), 1);
+        Assert.assertEquals(accountRecordIds.get(accountId), accountRecordId);
+
+        final Map<UUID, Long> tagAccountRecordIds = nonEntityDao.retrieveAccountRecordIdsFromObjects(ImmutableList.<UUID>of(tagId, unknownId), ObjectType.TAG, null);
+        Assert.assertEquals(tagAccountRecordIds.size(), 1);
+        Assert.assertEquals(tagAccountRecordIds.get(tagId), accountRecordId);
+
+        final Map<UUID, Long> tenantRecordIds = nonEntityDao.retrieveTenantRecordIdsFromObjects(ImmutableList.<UUID>of(accountId), ObjectType.ACCOUNT, null);
+        Assert.assertEquals(tenantRecordIds.get(accountId), tenantRecordId);
+
+        // Results are added to the cache
+        final CacheController<Object, Object> recordIdCache = controlCacheDispatcher.getCacheController(CacheType.RECORD_ID);
+        Assert.assertEquals(nonEntityDao.retrieveRecordIdsFromObjects(ImmutableList.<UUID>of(tagId), ObjectType.TAG, recordIdCache).get(tagId), tagRecordId);
+        Assert.assertEquals(recordIdCache.get(tagId.toString()), tagRecordId);
+    }
+
+    @Test(groups = "slow")
+    public void testPrefetchRecordIdsForAccount() throws IOException {
+        insertTag();
+
+        final CacheController<Object, Object> recordIdCache = controlCacheDispatcher.getCacheController(CacheType.RECORD_ID);
+        final CacheController<Object, Object> objectIdCache = controlCacheDispatcher.getCacheController(CacheType.OBJECT_ID);
+        final CacheController<Object, Object> accountRecordIdCache = controlCacheDispatcher.getCacheController(CacheType.ACCOUNT_RECORD_ID);
+        final CacheController<Object, Object> tenantRecordIdCache = controlCacheDispatcher.getCacheController(CacheType.TENANT_RECORD_ID);
+
+        nonEntityDao.prefetchRecordIdsForAccount(ImmutableList.<ObjectType>of(ObjectType.TAG), new InternalTenantContext(0L, accountRecordId, null),
+                                                 recordIdCache, objectIdCache, accountRecordIdCache, tenantRecordIdCache);
+
+        Assert.assertEquals(recordIdCache.get(tagId.toString()), tagRecordId);
+        Assert.assertEquals(objectIdCache.get(TableName.TAG + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + tagRecordId), tagId);
+        Assert.assertEquals(accountRecordIdCache.get(tagId.toString()), accountRecordId);
+        Assert.assertEquals(tenantRecordIdCache.get(tagId.toString()), (Long) 0L);
+    }
+
     private void insertAccount() throws IOException {
         dbi.withHandle(new HandleCallback<Void>() {
             @Override
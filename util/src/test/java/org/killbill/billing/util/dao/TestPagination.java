@@ -23,6 +23,8 @@ import org.testng.annotations.Test;
 
 import org.killbill.billing.api.TestApiListener.NextEvent;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.entity.PaginationCursor;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionSqlDao;
 
@@ -74,4 +76,47 @@ public class TestPagination extends UtilTestSuiteWithEmbeddedDB {
             }
         }
     }
+
+    @Test(groups = "slow", description = "Test Pagination: cursor based DAO calls")
+    public void testTagDefinitionsCursorPagination() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+            tagDefinitionDao.create("name-" + i, "description-" + i, internalCallContext);
+            assertListenerStatus();
+        }
+
+        int nbPages = 0;
+        int nbResults = 0;
+        Long cursor = PaginationCursor.FIRST_PAGE;
+        while (cursor != null) {
+            final Pagination<TagDefinitionModelDao> page = tagDefinitionDao.get(cursor, 3L, internalCallContext);
+            Assert.assertEquals(page.getCurrentOffset(), cursor);
+            // Counts aren't computed in cursor mode
+            Assert.assertNull(page.getTotalNbRecords());
+            Assert.assertNull(page.getMaxNbRecords());
+
+            final List<TagDefinitionModelDao> tagDefinitions = ImmutableList.<TagDefinitionModelDao>copyOf(page);
+            for (final TagDefinitionModelDao tagDefinition : tagDefinitions) {
+                Assert.assertEquals(tagDefinition.getName(), "name-" + nbResults);
+                nbResults++;
+            }
+
+            nbPages++;
+            cursor = page.getNextOffset();
+            if (cursor != null) {
+                Assert.assertTrue(PaginationCursor.isCursor(cursor));
+            }
+        }
+        Assert.assertEquals(nbResults, 10);
+        Assert.assertEquals(nbPages, 4);
+
+        // Last page is full: the next one is empty
+        final Pagination<TagDefinitionModelDao> firstPage = tagDefinitionDao.get(PaginationCursor.FIRST_PAGE, 5L, internalCallContext);
+        ImmutableList.<TagDefinitionModelDao>copyOf(firstPage);
+        final Pagination<TagDefinitionModelDao> secondPage = tagDefinitionDao.get(firstPage.getNextOffset(), 5L, internalCallContext);
+        Assert.assertEquals(ImmutableList.<TagDefinitionModelDao>copyOf(secondPage).size(), 5);
+        final Pagination<TagDefinitionModelDao> thirdPage = tagDefinitionDao.get(secondPage.getNextOffset(), 5L, internalCallContext);
+        Assert.assertEquals(ImmutableList.<TagDefinitionModelDao>copyOf(thirdPage).size(), 0);
+        Assert.assertNull(thirdPage.getNextOffset());
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014-2016 Groupon, Inc
+ * Copyright 2014-2016 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.security.shiro;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCachingCredentialsMatcher extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testOnlySuccessfulVerificationsAreCached() throws Exception {
+        final CountingCredentialsMatcher delegate = new CountingCredentialsMatcher();
+        final CachingCredentialsMatcher credentialsMatcher = new CachingCredentialsMatcher(delegate, 100, 60000L);
+
+        final AuthenticationInfo info = new SimpleAuthenticationInfo("john", "secret", "test");
+        final AuthenticationToken goodToken = new UsernamePasswordToken("john", "secret");
+        final AuthenticationToken badToken = new UsernamePasswordToken("john", "not-secret");
+
+        Assert.assertTrue(credentialsMatcher.doCredentialsMatch(goodToken, info));
+        Assert.assertTrue(credentialsMatcher.doCredentialsMatch(goodToken, info));
+        Assert.assertEquals(delegate.getNbInvocations(), 1);
+
+        Assert.assertFalse(credentialsMatcher.doCredentialsMatch(badToken, info));
+        Assert.assertFalse(credentialsMatcher.doCredentialsMatch(badToken, info));
+        Assert.assertEquals(delegate.getNbInvocations(), 3);
+
+        // Stored credentials changed (e.g. password update): the previous verification doesn't apply anymore
+        final AuthenticationInfo updatedInfo = new SimpleAuthenticationInfo("john", "new-secret", "test");
+        Assert.assertFalse(credentialsMatcher.doCredentialsMatch(goodToken, updatedInfo));
+        Assert.assertEquals(delegate.getNbInvocations(), 4);
+
+        credentialsMatcher.clear();
+        Assert.assertTrue(credentialsMatcher.doCredentialsMatch(goodToken, info));
+        Assert.assertEquals(delegate.getNbInvocations(), 5);
+    }
+
+    @Test(groups = "fast")
+    public void testExpiration() throws Exception {
+        final CountingCredentialsMatcher delegate = new CountingCredentialsMatcher();
+        final CachingCredentialsMatcher credentialsMatcher = new CachingCredentialsMatcher(delegate, 100, 1L);
+
+        final AuthenticationInfo info = new SimpleAuthenticationInfo("john", "secret", "test");
+        final AuthenticationToken goodToken = new UsernamePasswordToken("john", "secret");
+
+        Assert.assertTrue(credentialsMatcher.doCredentialsMatch(goodToken, info));
+        Thread.sleep(10);
+        Assert.assertTrue(credentialsMatcher.doCredentialsMatch(goodToken, info));
+        Assert.assertEquals(delegate.getNbInvocations(), 2);
+    }
+
+    private static final class CountingCredentialsMatcher implements CredentialsMatcher {
+
+        private final CredentialsMatcher delegate = new SimpleCredentialsMatcher();
+        private final AtomicInteger nbInvocations = new AtomicInteger(0);
+
+        @Override
+        public boolean doCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+            nbInvocations.incrementAndGet();
+            return delegate.doCredentialsMatch(token, info);
+        }
+
+        public int getNbInvocations() {
+            return nbInvocations.get();
+        }
+    }
+}
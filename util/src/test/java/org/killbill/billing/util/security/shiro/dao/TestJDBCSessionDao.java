@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.UUID;
 
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.SimpleSession;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
@@ -67,6 +68,65 @@ public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertNull(jdbcSessionDao.doReadSession(session.getId()));
     }
 
+    @Test(groups = "slow")
+    public void testStateless() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, true);
+        jdbcSessionDao.setCacheManager(new MemoryConstrainedCacheManager());
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.create(session);
+        Assert.assertNotNull(sessionId);
+        Assert.assertEquals(session.getId(), sessionId);
+
+        // Served from the active sessions cache only
+        Assert.assertEquals(jdbcSessionDao.readSession(sessionId), session);
+        Assert.assertNull(jdbcSessionDao.doReadSession(sessionId));
+        Assert.assertNull(new JDBCSessionDao(dbi).doReadSession(sessionId));
+
+        jdbcSessionDao.delete(session);
+        Assert.assertNull(jdbcSessionDao.getActiveSessionsCache().get(sessionId));
+    }
+
+    @Test(groups = "slow")
+    public void testWriteBehindTouches() throws Exception {
+        // Flush rate large enough for the test to control when touches are written
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(dbi, false, 1000L, 3600000L);
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date lastAccessTimeBeforeStop;
+        try {
+            final Date initialLastAccessTime = jdbcSessionDao.doReadSession(sessionId).getLastAccessTime();
+
+            // Below the threshold: never written
+            session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 500));
+            jdbcSessionDao.doUpdate(session);
+            jdbcSessionDao.flushTouches();
+            Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime(), initialLastAccessTime);
+
+            // Above the threshold: written on flush only
+            final Date newLastAccessTime = new Date(initialLastAccessTime.getTime() + 5000);
+            session.setLastAccessTime(newLastAccessTime);
+            jdbcSessionDao.doUpdate(session);
+            Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime(), initialLastAccessTime);
+            jdbcSessionDao.flushTouches();
+            Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime().getTime() / 1000, newLastAccessTime.getTime() / 1000);
+
+            // Other changes are written right away
+            final String newHost = UUID.randomUUID().toString();
+            session.setHost(newHost);
+            jdbcSessionDao.doUpdate(session);
+            Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getHost(), newHost);
+
+            // Pending touches are written on stop
+            lastAccessTimeBeforeStop = new Date(newLastAccessTime.getTime() + 5000);
+            session.setLastAccessTime(lastAccessTimeBeforeStop);
+            jdbcSessionDao.doUpdate(session);
+        } finally {
+            jdbcSessionDao.stop();
+        }
+        Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime().getTime() / 1000, lastAccessTimeBeforeStop.getTime() / 1000);
+    }
+
     private SimpleSession createSession() {
         final SimpleSession simpleSession = new SimpleSession();
         simpleSession.setStartTimestamp(new Date(System.currentTimeMillis() - 5000));
@@ -29,7 +29,10 @@ import org.killbill.billing.util.api.TagDefinitionApiException;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagModelDao;
 
+import com.google.common.collect.ImmutableSet;
+
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -73,6 +76,37 @@ public class TestTagStore extends UtilTestSuiteWithEmbeddedDB {
         assertEquals(savedTag.getId(), tag.getId());
     }
 
+    @Test(groups = "slow")
+    public void testControlTagsCache() throws TagApiException {
+        final UUID accountId = UUID.randomUUID();
+        final UUID bundleId = UUID.randomUUID();
+
+        // Populate the cache
+        assertFalse(tagInternalApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_PAY_OFF, internalCallContext));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagInternalApi.addTag(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_PAY_OFF.getId(), internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagInternalApi.addTag(bundleId, ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF.getId(), internalCallContext);
+        assertListenerStatus();
+
+        assertTrue(tagInternalApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_PAY_OFF, internalCallContext));
+        assertFalse(tagInternalApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_INVOICING_OFF, internalCallContext));
+        assertTrue(tagInternalApi.isControlTagSet(bundleId, ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF, internalCallContext));
+        assertFalse(tagInternalApi.isControlTagSet(bundleId, ObjectType.ACCOUNT, ControlTagType.AUTO_INVOICING_OFF, internalCallContext));
+        assertEquals(tagInternalApi.getControlTagTypes(accountId, ObjectType.ACCOUNT, internalCallContext), ImmutableSet.<ControlTagType>of(ControlTagType.AUTO_PAY_OFF));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagInternalApi.removeTag(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_PAY_OFF.getId(), internalCallContext);
+        assertListenerStatus();
+
+        assertFalse(tagInternalApi.isControlTagSet(accountId, ObjectType.ACCOUNT, ControlTagType.AUTO_PAY_OFF, internalCallContext));
+        assertTrue(tagInternalApi.getControlTagTypes(accountId, ObjectType.ACCOUNT, internalCallContext).isEmpty());
+        assertTrue(tagInternalApi.isControlTagSet(bundleId, ObjectType.BUNDLE, ControlTagType.AUTO_INVOICING_OFF, internalCallContext));
+    }
+
     @Test(groups = "slow", expectedExceptions = TagDefinitionApiException.class)
     public void testTagDefinitionCreationWithControlTagName() throws TagDefinitionApiException {
         final String definitionName = ControlTagType.AUTO_PAY_OFF.toString();
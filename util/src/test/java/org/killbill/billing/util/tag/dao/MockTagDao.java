@@ -29,6 +29,7 @@ import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.MockEntityDaoBase;
+import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 
 import com.google.common.base.Predicate;
@@ -88,12 +89,37 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
 
     @Override
     public List<TagModelDao> getTagsForAccountType(final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
-        throw new UnsupportedOperationException();
+        // Note: the mock doesn't keep track of accounts, all tags for that object type are returned
+        final List<TagModelDao> result = new ArrayList<TagModelDao>();
+        for (final List<TagModelDao> tags : tagStore.values()) {
+            result.addAll(Collections2.filter(tags, new Predicate<TagModelDao>() {
+                @Override
+                public boolean apply(final TagModelDao input) {
+                    return objectType.equals(input.getObjectType());
+                }
+            }));
+        }
+        return result;
     }
 
     @Override
     public List<TagModelDao> getTagsForAccount(final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
-        throw new UnsupportedOperationException();
+        // Note: the mock doesn't keep track of accounts, all tags are returned
+        final List<TagModelDao> result = new ArrayList<TagModelDao>();
+        for (final List<TagModelDao> tags : tagStore.values()) {
+            result.addAll(tags);
+        }
+        return result;
+    }
+
+    @Override
+    public List<TagModelDao> getControlTagsForAccount(final InternalTenantContext internalTenantContext) {
+        return ImmutableList.<TagModelDao>copyOf(Collections2.filter(getTagsForAccount(false, internalTenantContext), new Predicate<TagModelDao>() {
+            @Override
+            public boolean apply(final TagModelDao input) {
+                return ControlTagType.getTypeFromId(input.getTagDefinitionId()) != null;
+            }
+        }));
     }
 
     public void clear() {
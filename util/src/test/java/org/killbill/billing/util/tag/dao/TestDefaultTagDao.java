@@ -176,4 +176,30 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testGetControlTagsForAccount() throws Exception {
+        final UUID objectId = UUID.randomUUID();
+        final ObjectType objectType = ObjectType.ACCOUNT;
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+        final TagDefinitionModelDao userTagDefinition = tagDefinitionDao.create(UUID.randomUUID().toString().substring(0, 5), "user tag", internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvents(NextEvent.TAG, NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(userTagDefinition.getId(), objectType, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+        tagDao.create(new TagModelDao(new DescriptiveTag(ControlTagType.AUTO_PAY_OFF.getId(), objectType, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        Assert.assertEquals(tagDao.getTagsForAccount(false, internalCallContext).size(), 2);
+        final List<TagModelDao> controlTags = tagDao.getControlTagsForAccount(internalCallContext);
+        Assert.assertEquals(controlTags.size(), 1);
+        Assert.assertEquals(controlTags.get(0).getTagDefinitionId(), ControlTagType.AUTO_PAY_OFF.getId());
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.deleteTag(objectId, objectType, ControlTagType.AUTO_PAY_OFF.getId(), internalCallContext);
+        assertListenerStatus();
+
+        Assert.assertEquals(tagDao.getControlTagsForAccount(internalCallContext).size(), 0);
+    }
+
 }